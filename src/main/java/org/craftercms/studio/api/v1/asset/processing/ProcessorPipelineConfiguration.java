@@ -16,6 +16,7 @@
 package org.craftercms.studio.api.v1.asset.processing;
 
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Represents the configuration of an asset processor pipeline.
@@ -25,6 +26,7 @@ import java.util.List;
 public class ProcessorPipelineConfiguration {
 
     private String inputPathPattern;
+    private Pattern compiledInputPathPattern;
     private boolean keepOriginal;
     private List<ProcessorConfiguration> processorsConfig;
 
@@ -40,6 +42,15 @@ public class ProcessorPipelineConfiguration {
      */
     public void setInputPathPattern(String inputPathPattern) {
         this.inputPathPattern = inputPathPattern;
+        this.compiledInputPathPattern = inputPathPattern != null ? Pattern.compile(inputPathPattern) : null;
+    }
+
+    /**
+     * Returns the input path pattern, compiled when it was set so it can be shared by every asset processed with
+     * this configuration.
+     */
+    public Pattern getCompiledInputPathPattern() {
+        return compiledInputPathPattern;
     }
 
     /**
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v1.dal;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Summary of the items waiting in the publishing queue of a site
+ */
+public class PublishQueueSummary {
+
+    protected String site;
+    protected int items;
+    protected int dueItems;
+    protected ZonedDateTime nextScheduledDate;
+
+    public String getSite() { return site; }
+    public void setSite(String site) { this.site = site; }
+
+    /**
+     * @return the number of items ready for publishing, including the ones scheduled in the future
+     */
+    public int getItems() { return items; }
+    public void setItems(int items) { this.items = items; }
+
+    /**
+     * @return the number of items that can be published right away
+     */
+    public int getDueItems() { return dueItems; }
+    public void setDueItems(int dueItems) { this.dueItems = dueItems; }
+
+    /**
+     * @return the earliest date scheduled in the future, null if there are no items scheduled
+     */
+    public ZonedDateTime getNextScheduledDate() { return nextScheduledDate; }
+    public void setNextScheduledDate(ZonedDateTime nextScheduledDate) { this.nextScheduledDate = nextScheduledDate; }
+}
@@ -26,6 +26,13 @@ public interface PublishRequestMapper {
 
     void insertItemForDeployment(PublishRequest copyToEnvironment);
 
+    /**
+     * Insert several items for deployment with a single statement
+     *
+     * @param items the items to insert
+     */
+    void insertItemsForDeployment(List<PublishRequest> items);
+
     void cancelWorkflow(Map params);
 
     void cancelWorkflowBulk(Map params);
@@ -46,10 +53,26 @@ public interface PublishRequestMapper {
 
     int checkItemQueued(Map params);
 
+    /**
+     * Get which of the given paths are already queued
+     *
+     * @param params SQL query parameters
+     * @return the paths found in the queue
+     */
+    List<String> getQueuedPaths(Map params);
+
     /**
      * Reset publishing requests in processing state
      *
      * @param params SQL query parameters
      */
     void resetProcessingQueue(Map params);
+
+    /**
+     * Get the summary of the items ready for publishing, grouped by site
+     *
+     * @param params SQL query parameters, the site is optional
+     * @return one summary for each site with items in the queue
+     */
+    List<PublishQueueSummary> getPublishQueueSummary(Map params);
 }
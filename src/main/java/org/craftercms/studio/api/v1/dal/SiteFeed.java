@@ -36,6 +36,7 @@ public class SiteFeed {
     protected String sandboxBranch;
     protected int publishedRepoCreated;
     protected String state;
+    protected long version;
 
     public long getId() {
         return id;
@@ -140,4 +141,12 @@ public class SiteFeed {
     public void setState(String state) {
         this.state = state;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
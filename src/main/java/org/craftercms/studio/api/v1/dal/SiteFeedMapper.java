@@ -32,6 +32,19 @@ public interface SiteFeedMapper {
 
     SiteFeed getSite(Map params);
 
+    /**
+     * Get a site by its numeric id
+     * @param id the numeric id of the site
+     * @return the site, null if it does not exist or has been deleted
+     */
+    SiteFeed getSiteById(@Param(ID) long id);
+
+    /**
+     * Get the id, site id and version of all sites that have not been deleted
+     * @return list of sites with only those fields populated
+     */
+    List<SiteFeed> getSiteVersions();
+
 	boolean createSite(SiteFeed siteFeed);
 
     /**
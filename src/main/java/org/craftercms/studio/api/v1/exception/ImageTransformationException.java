@@ -20,6 +20,10 @@ package org.craftercms.studio.api.v1.exception;
  */
 public class ImageTransformationException extends ServiceLayerException {
 
+    public ImageTransformationException(String message) {
+        super(message);
+    }
+
     public ImageTransformationException(String message, Exception e) {
         super(message, e);
     }
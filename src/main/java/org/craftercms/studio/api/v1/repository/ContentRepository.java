@@ -23,6 +23,7 @@ import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteUrlExcepti
 import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
 import org.craftercms.studio.api.v1.to.RemoteRepositoryInfoTO;
 import org.craftercms.studio.api.v1.to.VersionTO;
+import org.springframework.core.io.Resource;
 
 import java.io.InputStream;
 import java.util.List;
@@ -143,6 +144,18 @@ public interface ContentRepository {
      */
     String copyContent(String site, String fromPath, String toPath) throws ServiceLayerException;
 
+    /**
+     * write the copies of a tree of items in a single commit
+     *
+     * @param site     site id where the operation will be executed
+     * @param fromPath path of the root of the copied tree
+     * @param toPath   path of the copy of the root
+     * @param contents content to write for each path, a null content creates an empty folder at the path
+     * @return Commit ID if successful, null otherwise
+     */
+    String copyContent(String site, String fromPath, String toPath, Map<String, Resource> contents)
+            throws ServiceLayerException;
+
     /**
      * get immediate children for path
      *
@@ -15,6 +15,8 @@
  */
 package org.craftercms.studio.api.v1.service;
 
+import java.util.concurrent.TimeUnit;
+
 public interface GeneralLockService {
 
     String MASTER_LOCK = "MASTER LOCK";
@@ -25,6 +27,25 @@ public interface GeneralLockService {
 
     boolean tryLock(String objectId);
 
+    /**
+     * Try to lock the given object, waiting up to the given time if it is locked by another thread.
+     * If the thread is interrupted while waiting the lock is not obtained and the interrupt flag is kept.
+     *
+     * @param objectId object identifier
+     * @param timeout maximum time to wait for the lock
+     * @param unit time unit of the timeout
+     * @return true if the lock was obtained, false otherwise
+     */
+    boolean tryLock(String objectId, long timeout, TimeUnit unit);
+
+    /**
+     * Checks if the current thread holds the lock of the given object
+     *
+     * @param objectId object identifier
+     * @return true if the current thread holds the lock, false otherwise
+     */
+    boolean isHeldByCurrentThread(String objectId);
+
     /**
      * Lock content item for synchronized access. Thread is blocked until lock is obtained.
      *
@@ -20,6 +20,7 @@ import org.craftercms.studio.api.v1.to.CopyDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DeleteDependencyConfigTO;
 import org.craftercms.studio.api.v1.to.DmFolderConfigTO;
 import org.craftercms.studio.api.v1.to.FacetTO;
+import org.craftercms.studio.api.v2.utils.ContentTypeClassifier;
 
 import java.util.List;
 import java.util.Map;
@@ -242,4 +243,11 @@ public interface ServicesConfig {
 	 * @return list of configured protected folders patterns
 	 */
     List<String> getProtectedFolderPatterns(String siteId);
+
+	/**
+	 * Get the classifier for the content type classes of the site, it is rebuilt when the configuration changes
+	 * @param site site identifier
+	 * @return the content type classifier
+	 */
+    ContentTypeClassifier getContentTypeClassifier(String site);
 }
@@ -17,9 +17,11 @@
 package org.craftercms.studio.api.v1.service.content;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 import org.craftercms.commons.crypto.CryptoException;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
@@ -29,6 +31,7 @@ import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteUrlExcepti
 import org.craftercms.studio.api.v1.exception.security.AuthenticationException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.to.*;
+import org.craftercms.studio.model.clipboard.PasteItem;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.springframework.core.io.Resource;
@@ -153,6 +156,18 @@ public interface ContentService {
      */
     boolean writeContent(String site, String path, InputStream content) throws ServiceLayerException;
 
+    /**
+     * write content and get the id of the commit that includes it
+     *
+     * @param site    - the project ID
+     * @param path    path to content
+     * @param content stream of content to write
+     * @return the commit id, null if the content was not written
+     *
+     * @throws ServiceLayerException general service error
+     */
+    String writeContentAndGetCommitId(String site, String path, InputStream content) throws ServiceLayerException;
+
     /**
      * Notify when there is a content update
      * @param site site name
@@ -197,6 +212,22 @@ public interface ContentService {
      */
     String copyContent(String site, String fromPath, String toPath) throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * copy a tree of items to toPath in bulk: the new paths are planned up front, the content of the copies is
+     * rewritten in parallel and all the copies are written in a single commit. The database is updated by the
+     * next sync from the repository.
+     *
+     * @param site             - the project ID
+     * @param fromPath         the path of the root item to copy
+     * @param toPath           the target path to copy the root item to
+     * @param children         the children to copy with the root item, each one can include its own children
+     * @param progressListener receives the number of items rewritten so far and the number of items planned
+     * @return the new paths of the copied items, children before their parent
+     */
+    List<String> copyContentBulk(String site, String fromPath, String toPath, List<PasteItem> children,
+                                 BiConsumer<Integer, Integer> progressListener)
+            throws ServiceLayerException, UserNotFoundException;
+
     /**
      * move content fromPath to toPath
      *
@@ -363,6 +394,15 @@ public interface ContentService {
 
     String getContentTypeClass(String site, String uri);
 
+    /**
+     * Get the content type class of several paths of a site
+     *
+     * @param site site identifier
+     * @param paths paths of the items
+     * @return the content type class of each path
+     */
+    Map<String, String> getContentTypeClasses(String site, Collection<String> paths);
+
     GoLiveDeleteCandidates getDeleteCandidates(String site, String uri) throws ServiceLayerException;
 
     void lockContent(String site, String path) throws UserNotFoundException, ServiceLayerException;
@@ -16,6 +16,7 @@
 package org.craftercms.studio.api.v1.service.deployment;
 
 import org.craftercms.commons.validation.annotations.param.ValidateStringParam;
+import org.craftercms.studio.api.v1.dal.PublishQueueSummary;
 import org.craftercms.studio.api.v1.dal.PublishRequest;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
@@ -57,6 +58,19 @@ public interface PublishingManager {
      */
     void resetProcessingQueue(String site, String environment);
 
+    /**
+     * Get the summary of the publishing queue of a site
+     * @param site the site id
+     * @return the summary of the queue, null if there are no items ready for publishing
+     */
+    PublishQueueSummary getPublishQueueSummary(String site);
+
+    /**
+     * Get the summary of the publishing queues of all sites
+     * @return one summary for each site with items ready for publishing
+     */
+    List<PublishQueueSummary> getPublishQueueSummaries();
+
     /**
      * Updates item states to publish state according to the publishing
      * environment (stage vs live)
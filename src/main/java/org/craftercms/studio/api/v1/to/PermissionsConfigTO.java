@@ -19,6 +19,8 @@ import java.io.Serializable;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.dom4j.Document;
 import org.dom4j.Node;
@@ -43,6 +45,8 @@ public class PermissionsConfigTO implements TimeStamped, Serializable {
 	
 	protected Map<String, List<String>> roles = null;
 	protected Map<String, Map<String, List<Node>>> permissions = null;
+	/** same rules as permissions with the regex already compiled, by site and role **/
+	protected Map<String, Map<String, List<Rule>>> rules = null;
 	
 	@Override
 	public void setLastUpdated(ZonedDateTime lastUpdated) {
@@ -85,4 +89,40 @@ public class PermissionsConfigTO implements TimeStamped, Serializable {
 	public void setPermissions(Map<String, Map<String, List<Node>>> permissions) {
 		this.permissions = permissions;
 	}
+
+	public Map<String, Map<String, List<Rule>>> getRules() {
+		return rules;
+	}
+
+	public void setRules(Map<String, Map<String, List<Rule>>> rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * Permission rule with its regex compiled, so it can be matched without reading the mapping document
+	 */
+	public static class Rule implements Serializable {
+
+		private static final long serialVersionUID = 2425406337442183413L;
+
+		protected final Pattern regex;
+		protected final Set<String> permissions;
+
+		public Rule(String regex, Set<String> permissions) {
+			this.regex = Pattern.compile(regex);
+			this.permissions = permissions;
+		}
+
+		public boolean matches(String path) {
+			return regex.matcher(path).matches();
+		}
+
+		public String getRegex() {
+			return regex.pattern();
+		}
+
+		public Set<String> getPermissions() {
+			return permissions;
+		}
+	}
 }
@@ -15,6 +15,8 @@
  */
 package org.craftercms.studio.api.v1.to;
 
+import org.craftercms.studio.api.v2.utils.ContentTypeClassifier;
+
 import java.io.Serializable;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -108,6 +110,11 @@ public class SiteConfigTO implements Serializable {
 
     protected List<String> protectedFolderPatterns;
 
+    /**
+     * Compiled content type class rules, built on first use and discarded with the configuration
+     */
+    protected transient volatile ContentTypeClassifier contentTypeClassifier;
+
     /**
      * @return the WEM project
      */
@@ -258,4 +265,12 @@ public class SiteConfigTO implements Serializable {
     public void setProtectedFolderPatterns(List<String> protectedFolderPatterns) {
         this.protectedFolderPatterns = protectedFolderPatterns;
     }
+
+    public ContentTypeClassifier getContentTypeClassifier() {
+        return contentTypeClassifier;
+    }
+
+    public void setContentTypeClassifier(ContentTypeClassifier contentTypeClassifier) {
+        this.contentTypeClassifier = contentTypeClassifier;
+    }
 }
@@ -27,6 +27,7 @@ import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ACTIONS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ACTION_TIMESTAMP;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.DATE_FROM;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.DATE_TO;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ENTRIES;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.ITEM;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.LIMIT;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.OFFSET;
@@ -51,6 +52,19 @@ public interface ActivityStreamDAO {
                         @Param(ACTION_TIMESTAMP) ZonedDateTime actionTimestamp, @Param(ITEM) Item item,
                         @Param(PACKAGE_ID) String packageId);
 
+    /**
+     * Insert one record into activity stream for each workflow entry
+     *
+     * @param siteId site identifier
+     * @param userId user identifier
+     * @param action action that was performed
+     * @param actionTimestamp timestamp when action was performed
+     * @param entries workflow entries that were actioned upon
+     */
+    void insertActivities(@Param(SITE_ID) long siteId, @Param(USER_ID) long userId, @Param(ACTION) String action,
+                          @Param(ACTION_TIMESTAMP) ZonedDateTime actionTimestamp,
+                          @Param(ENTRIES) List<WorkflowItem> entries);
+
     /**
      * Get total number activities for users
      * @param siteId site identifier
@@ -19,10 +19,13 @@ package org.craftercms.studio.api.v2.dal;
 import org.apache.ibatis.annotations.Param;
 import org.craftercms.studio.model.rest.Person;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.AUDIT_LOGS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.COMMIT_ID;
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.COMMIT_IDS;
 import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 
 public interface AuditDAO {
@@ -37,6 +40,14 @@ public interface AuditDAO {
 
     void insertAuditLogParams(Map params);
 
+    /**
+     * Inserts several audit log entries with a single statement, the parameters of the entries are not inserted
+     *
+     * @param auditLogs the entries to insert
+     * @return the number of inserted rows
+     */
+    int insertAuditLogs(@Param(AUDIT_LOGS) List<AuditLog> auditLogs);
+
     List<AuditLog> selectUserFeedEntriesHideLive(Map params);
 
     List<AuditLog> selectUserFeedEntries(Map params);
@@ -69,4 +80,13 @@ public interface AuditDAO {
      * @return true if an entry exists in audit table for the given commit id, false otherwise.
      */
     boolean isAudited(@Param(SITE_ID) long siteId, @Param(COMMIT_ID) String commitId);
+
+    /**
+     * Gets the commits that have been audited
+     *
+     * @param siteId    site id
+     * @param commitIds the commit ids to check
+     * @return the ids of the given commits that have an entry in the audit table
+     */
+    List<String> getAuditedCommits(@Param(SITE_ID) long siteId, @Param(COMMIT_IDS) Collection<String> commitIds);
 }
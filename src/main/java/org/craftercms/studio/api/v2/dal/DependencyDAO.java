@@ -40,12 +40,14 @@ public interface DependencyDAO {
      * @param itemSpecificDependenciesPatterns list of patterns that define item specific dependencies
      * @param modifiedMask                     state bit mask for modified item
      * @param newMask                          state bit mask for new item
+     * @param maxDepth                         maximum number of dependencies to follow, 0 or less for no limit
      * @return List of soft dependencies
      */
     List<Map<String, String>> getSoftDependenciesForList(@Param(SITE_ID) String site, @Param(PATHS) Set<String> paths,
                                                          @Param(REGEX) List<String> itemSpecificDependenciesPatterns,
                                                          @Param(MODIFIED_MASK) long modifiedMask,
-                                                         @Param(NEW_MASK) long newMask);
+                                                         @Param(NEW_MASK) long newMask,
+                                                         @Param(MAX_DEPTH) int maxDepth);
 
     /**
      * Get hard dependencies from DB for list of content paths
@@ -112,4 +114,12 @@ public interface DependencyDAO {
      * @param targetPath the target path of the dependencies to validate
      */
     void validateDependencies(@Param(SITE_ID) String siteId, @Param(PATH) String targetPath);
+
+    /**
+     * Get all the dependencies of a site, valid or not
+     *
+     * @param siteId site identifier
+     * @return list of dependencies
+     */
+    List<Dependency> getSiteDependencies(@Param(SITE_ID) String siteId);
 }
@@ -304,6 +304,31 @@ public interface ItemDAO {
                                      @Param(SYSTEM_TYPE_FOLDER) String systemTypeFolder,
                                      @Param(PREFER_CONTENT) boolean preferContent);
 
+    /**
+     * Get detailed items for given paths
+     *
+     * @param siteId             site identifier
+     * @param paths              paths to get items for
+     * @param systemTypeFolder   value for system type folder
+     * @param completedState     completed state
+     * @param stagingEnvironment staging environment
+     * @param liveEnvironment    live environment
+     * @return list of items, in no particular order
+     */
+    List<DetailedItem> getDetailedItemsByPath(@Param(SITE_ID) Long siteId, @Param(PATHS) List<String> paths,
+                                              @Param(SYSTEM_TYPE_FOLDER) String systemTypeFolder,
+                                              @Param(COMPLETED_STATE) String completedState,
+                                              @Param(STAGING_ENVIRONMENT) String stagingEnvironment,
+                                              @Param(LIVE_ENVIRONMENT) String liveEnvironment);
+
+    /**
+     * Get items for given paths, without the related users, workflow or children data
+     * @param siteId site identifier
+     * @param paths paths to get items for
+     * @return list of items
+     */
+    List<Item> getItemsBySiteAndPaths(@Param(SITE_ID) long siteId, @Param(PATHS) List<String> paths);
+
     /**
      * Get sandbox items for given ids with prefer content option
      *
@@ -440,6 +465,24 @@ public interface ItemDAO {
     int getItemStatesTotal(@Param(SITE_ID) String siteId, @Param(PATH) String path,
                            @Param(STATES_BIT_MAP) Long states, @Param(SYSTEM_TYPES) List<String> systemTypes);
 
+    /**
+     * Get total number of items in the given states from the item state counters of the site
+     *
+     * @param siteId      site identifier
+     * @param states      states mask to filter items by state
+     * @param systemTypes system types to filter items
+     * @return number of items, null if the counters of the site need to be rebuilt
+     */
+    Integer getItemStateCountsTotal(@Param(SITE_ID) String siteId, @Param(STATES_BIT_MAP) long states,
+                                    @Param(SYSTEM_TYPES) List<String> systemTypes);
+
+    /**
+     * Recalculate the item state counters of a site
+     *
+     * @param siteId site id
+     */
+    void rebuildItemStateCounts(@Param(SITE_ID) long siteId);
+
     /**
      * Get item states for given filters by path regex and states mask
      *
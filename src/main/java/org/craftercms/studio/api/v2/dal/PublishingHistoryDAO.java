@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+import org.apache.ibatis.annotations.Param;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.*;
+
+/**
+ * Stores the paths published by each commit of the published repository, so the publishing history can be queried
+ * without walking the git log
+ */
+public interface PublishingHistoryDAO {
+
+    /**
+     * Records the paths published by a commit, paths already recorded for the same commit are ignored
+     *
+     * @param siteId      site identifier
+     * @param environment publishing target
+     * @param commitId    id of the commit in the published repository
+     * @param publisher   name of the author of the commit
+     * @param publishedOn date of the commit
+     * @param paths       paths changed by the commit
+     */
+    void insertPublishingHistory(@Param(SITE_ID) String siteId, @Param(ENVIRONMENT) String environment,
+                                 @Param(COMMIT_ID) String commitId, @Param(PUBLISHER) String publisher,
+                                 @Param(PUBLISHED_ON) ZonedDateTime publishedOn,
+                                 @Param(PATHS) Collection<String> paths);
+
+    /**
+     * Get the publishing history for given filters, newest first
+     *
+     * @param siteId      site identifier
+     * @param environment publishing target, all targets if null
+     * @param pathPrefix  prefix of the paths, all paths if null
+     * @param path        regular expression for the paths, all paths if null
+     * @param publisher   name of the publisher, all publishers if null
+     * @param dateFrom    lower boundary for the published date
+     * @param dateTo      upper boundary for the published date
+     * @param afterId     id of the last item of the previous page, null for the first page
+     * @param limit       number of items to return
+     * @return list of publishing history items
+     */
+    List<PublishingHistoryItem> getPublishingHistory(@Param(SITE_ID) String siteId,
+                                                     @Param(ENVIRONMENT) String environment,
+                                                     @Param(PATH_PREFIX) String pathPrefix,
+                                                     @Param(PATH) String path,
+                                                     @Param(PUBLISHER) String publisher,
+                                                     @Param(DATE_FROM) ZonedDateTime dateFrom,
+                                                     @Param(DATE_TO) ZonedDateTime dateTo,
+                                                     @Param(AFTER_ID) Long afterId,
+                                                     @Param(LIMIT) int limit);
+
+    /**
+     * Get the total number of publishing history items for given filters
+     *
+     * @param siteId      site identifier
+     * @param environment publishing target, all targets if null
+     * @param pathPrefix  prefix of the paths, all paths if null
+     * @param path        regular expression for the paths, all paths if null
+     * @param publisher   name of the publisher, all publishers if null
+     * @param dateFrom    lower boundary for the published date
+     * @param dateTo      upper boundary for the published date
+     * @return number of publishing history items
+     */
+    int getPublishingHistoryTotal(@Param(SITE_ID) String siteId, @Param(ENVIRONMENT) String environment,
+                                  @Param(PATH_PREFIX) String pathPrefix, @Param(PATH) String path,
+                                  @Param(PUBLISHER) String publisher, @Param(DATE_FROM) ZonedDateTime dateFrom,
+                                  @Param(DATE_TO) ZonedDateTime dateTo);
+
+    /**
+     * Indicates if the existing publishing history of all the publishing targets of a site has been imported
+     *
+     * @param siteId site identifier
+     * @return true if the publishing history can be read from the database
+     */
+    boolean isPublishingHistoryImported(@Param(SITE_ID) String siteId);
+
+    /**
+     * Get the import progress of all the publishing targets of a site
+     *
+     * @param siteId site identifier
+     * @return list of import progress
+     */
+    List<PublishingHistoryImport> getPublishingHistoryImports(@Param(SITE_ID) String siteId);
+
+    /**
+     * Starts the import of a publishing target, ignored if it was already started
+     *
+     * @param siteId       site identifier
+     * @param environment  publishing target
+     * @param headCommitId commit to import the history from
+     */
+    void insertPublishingHistoryImport(@Param(SITE_ID) String siteId, @Param(ENVIRONMENT) String environment,
+                                       @Param(HEAD_COMMIT_ID) String headCommitId);
+
+    /**
+     * Updates the import progress of a publishing target
+     *
+     * @param siteId          site identifier
+     * @param environment     publishing target
+     * @param importedCommits number of commits already imported
+     * @param completed       true if all the commits have been imported
+     */
+    void updatePublishingHistoryImport(@Param(SITE_ID) String siteId, @Param(ENVIRONMENT) String environment,
+                                       @Param(IMPORTED_COMMITS) int importedCommits,
+                                       @Param(COMPLETED) boolean completed);
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+/**
+ * Progress of the import of the publishing history of a publishing target from the published repository
+ */
+public class PublishingHistoryImport {
+
+    private long siteId;
+    private String environment;
+    private String headCommitId;
+    private int importedCommits;
+    private boolean completed;
+
+    public long getSiteId() {
+        return siteId;
+    }
+
+    public void setSiteId(long siteId) {
+        this.siteId = siteId;
+    }
+
+    public String getEnvironment() {
+        return environment;
+    }
+
+    public void setEnvironment(String environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * @return the commit the import started from, newer commits are recorded when they are published
+     */
+    public String getHeadCommitId() {
+        return headCommitId;
+    }
+
+    public void setHeadCommitId(String headCommitId) {
+        this.headCommitId = headCommitId;
+    }
+
+    public int getImportedCommits() {
+        return importedCommits;
+    }
+
+    public void setImportedCommits(int importedCommits) {
+        this.importedCommits = importedCommits;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+}
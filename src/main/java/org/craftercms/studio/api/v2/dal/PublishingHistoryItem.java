@@ -20,12 +20,21 @@ import java.time.ZonedDateTime;
 
 public class PublishingHistoryItem {
 
+    private long id;
     private String siteId;
     private String environment;
     private String path;
     private String publisher;
     private ZonedDateTime publishedDate;
 
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
     public String getSiteId() {
         return siteId;
     }
@@ -177,6 +177,10 @@ public final class  QueryParameterNames {
 
     public static final String INCLUDE_PARAMETERS = "includeParameters";
 
+    public static final String AUDIT_LOGS = "auditLogs";
+
+    public static final String COMMIT_IDS = "commitIds";
+
     /* Item */
     public static final String LOCALE_CODE = "localeCode";
 
@@ -255,6 +259,16 @@ public final class  QueryParameterNames {
     public static final String ACTION_TIMESTAMP = "actionTimestamp";
     public static final String ITEM = "item";
     public static final String DEPENDENCIES = "dependencies";
+    public static final String MAX_DEPTH = "maxDepth";
+
+    /** Publishing History */
+    public static final String PUBLISHER = "publisher";
+    public static final String PUBLISHED_ON = "publishedOn";
+    public static final String PATH_PREFIX = "pathPrefix";
+    public static final String AFTER_ID = "afterId";
+    public static final String HEAD_COMMIT_ID = "headCommitId";
+    public static final String IMPORTED_COMMITS = "importedCommits";
+    public static final String COMPLETED = "completed";
 
     private QueryParameterNames() {
     }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal;
+
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+
+/**
+ * Writes the database changes produced by a repository sync straight to the {@code item} and {@code dependency}
+ * tables using batched prepared statements.
+ * <p>
+ * Statements are executed in the same order they are received (per table), and all parent id fix-ups are deferred
+ * until every item and dependency statement has been executed, matching the semantics of the previous
+ * two-script approach. Changes are not visible to other connections until {@link #commit()} is called, so a
+ * failed sync can be rolled back entirely and applied again from the same commit.
+ * </p>
+ */
+public interface StudioDBSyncWriter extends AutoCloseable {
+
+    /**
+     * Inserts (or updates if it already exists) an item row
+     */
+    void insertItem(long siteId, String path, String previewUrl, long state, Long lockedBy, Long createdBy,
+                    ZonedDateTime createdOn, Long lastModifiedBy, ZonedDateTime lastModifiedOn,
+                    ZonedDateTime lastPublishedOn, String label, String contentTypeId, String systemType,
+                    String mimeType, String localeCode, Long translationSourceId, Long size, Long parentId,
+                    String previousPath) throws SQLException;
+
+    /**
+     * Updates the metadata and state of an existing item row
+     */
+    void updateItem(long siteId, String path, String previewUrl, long onStatesBitMap, long offStatesBitMap,
+                    Long lastModifiedBy, ZonedDateTime lastModifiedOn, String label, String contentTypeId,
+                    String systemType, String mimeType, Long size) throws SQLException;
+
+    /**
+     * Deletes an item row
+     */
+    void deleteItem(long siteId, String path) throws SQLException;
+
+    /**
+     * Moves an item row, and all the rows under it, to a new path
+     */
+    void moveItem(long siteId, String oldPath, String newPath, long onStatesBitMap, long offStatesBitMap)
+            throws SQLException;
+
+    /**
+     * Re-parents the children of a deleted page (index.xml) to its folder
+     */
+    void updateDeletedPageChildren(long siteId, String folderPath) throws SQLException;
+
+    /**
+     * Inserts a dependency row
+     */
+    void insertDependency(String siteId, String sourcePath, String targetPath, String type, boolean valid)
+            throws SQLException;
+
+    /**
+     * Deletes all dependency rows with the given source path
+     */
+    void deleteDependencySourcePath(String siteId, String sourcePath) throws SQLException;
+
+    /**
+     * Deletes all dependency rows with the given source path and invalidates the ones targeting it
+     */
+    void deleteDependencies(String siteId, String path) throws SQLException;
+
+    /**
+     * Marks the dependency rows targeting the given path as valid or invalid
+     */
+    void setDependenciesValid(String siteId, String targetPath, boolean valid) throws SQLException;
+
+    /**
+     * Queues the update of the parent id of an item. Parent id updates are executed after all other statements.
+     */
+    void updateParentId(long siteId, String itemPath, String parentPath) throws SQLException;
+
+    /**
+     * Queues the update of the parent id of the children of a new page (index.xml) created in an existing folder.
+     * Parent id updates are executed after all other statements.
+     */
+    void updateNewPageChildren(long siteId, String path) throws SQLException;
+
+    /**
+     * Executes all pending statements and commits the transaction
+     */
+    void commit() throws SQLException;
+
+    /**
+     * Discards all pending statements and rolls back the transaction
+     */
+    void rollback();
+
+    /**
+     * Releases the underlying connection, discarding any statement that has not been committed
+     */
+    @Override
+    void close();
+
+}
@@ -48,6 +48,16 @@ public interface WorkflowDAO {
     WorkflowItem getWorkflowEntryOpened(@Param(SITE_ID) String siteId, @Param(PATH) String path,
                                     @Param(STATE_OPENED) String stateOpened);
 
+    /**
+     * Get workflow entries in the given state for multiple paths
+     * @param siteId site identifier
+     * @param paths paths of the items
+     * @param stateOpened state of the entries
+     * @return list of workflow entries, ordered by id
+     */
+    List<WorkflowItem> getWorkflowEntriesOpened(@Param(SITE_ID) String siteId, @Param(PATHS) List<String> paths,
+                                                @Param(STATE_OPENED) String stateOpened);
+
     /**
      * Get workflow entry for approval
      * @param itemId item identifier
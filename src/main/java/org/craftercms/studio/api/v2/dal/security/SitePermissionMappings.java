@@ -16,6 +16,8 @@
 
 package org.craftercms.studio.api.v2.dal.security;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.collections4.CollectionUtils;
 import org.craftercms.studio.api.v2.dal.Group;
 
@@ -24,40 +26,88 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 public class SitePermissionMappings {
 
+    /**
+     * Max number of (roles, path) combinations remembered for each site
+     */
+    public static final int MAX_CACHED_ACTIONS = 10000;
+
     private String siteId;
     private Map<String, RolePermissionMappings> rolePermissions = new HashMap<>();
     private final Map<String, List<String>> groupToRolesMapping = new HashMap<>();
 
+    /**
+     * Rules of each role with the regex already compiled
+     */
+    private final Map<String, List<CompiledRule>> compiledRules = new HashMap<>();
+
+    /**
+     * Available actions already calculated for a set of roles and a path, discarded with the mappings when the
+     * configuration changes
+     */
+    private final Cache<String, Long> availableActionsCache =
+            CacheBuilder.newBuilder().maximumSize(MAX_CACHED_ACTIONS).build();
+
     public long getAvailableActions(String username, List<Group> groups, String path) {
-        List<String> rolesList = new ArrayList<>();
+        return getAvailableActions(getRoles(username, groups), path);
+    }
+
+    /**
+     * Returns the roles of the user in the site, the result can be reused for any number of paths
+     *
+     * @param username the username
+     * @param groups the groups of the user
+     * @return the sorted names of the roles
+     */
+    public SortedSet<String> getRoles(String username, List<Group> groups) {
+        SortedSet<String> roles = new TreeSet<>();
         List<String> userRoles = groupToRolesMapping.get(username);
         if (CollectionUtils.isNotEmpty(userRoles)) {
-            CollectionUtils.addAll(rolesList, userRoles);
+            roles.addAll(userRoles);
         }
         groups.forEach(g -> {
             List<String> groupRoles = groupToRolesMapping.get(g.getGroupName());
             if (CollectionUtils.isNotEmpty(groupRoles)) {
-                CollectionUtils.addAll(rolesList, groupRoles);
+                roles.addAll(groupRoles);
             }
         });
+        return roles;
+    }
+
+    /**
+     * Returns the available actions for the given roles and path
+     *
+     * @param roles the roles returned by {@link #getRoles(String, List)}
+     * @param path the path of the item
+     * @return the bitmap of available actions
+     */
+    public long getAvailableActions(SortedSet<String> roles, String path) {
+        if (roles.isEmpty()) {
+            return 0L;
+        }
+        String cacheKey = String.join(",", roles) + ":" + path;
+        Long cached = availableActionsCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
 
         long availableActions = 0L;
-        for (String role : rolesList) {
-            RolePermissionMappings rolePermissionMappings = rolePermissions.get(role);
-            Map<String, Long> rulePermissions = rolePermissionMappings.getRuleContentItemPermissions();
-            for (Map.Entry<String, Long> entry : rulePermissions.entrySet()) {
-                Pattern pattern = Pattern.compile(entry.getKey());
-                Matcher matcher = pattern.matcher(path);
-                if (matcher.matches()) {
-                    availableActions = availableActions | entry.getValue();
+        for (String role : roles) {
+            List<CompiledRule> rules = compiledRules.get(role);
+            if (rules != null) {
+                for (CompiledRule rule : rules) {
+                    if (rule.pattern.matcher(path).matches()) {
+                        availableActions = availableActions | rule.availableActions;
+                    }
                 }
             }
         }
+        availableActionsCache.put(cacheKey, availableActions);
         return availableActions;
     }
 
@@ -80,6 +130,7 @@ public class SitePermissionMappings {
 
     public void addRolePermissionMapping(String role, RolePermissionMappings rolePermissionMappings) {
         rolePermissions.put(role, rolePermissionMappings);
+        compileRules(role, rolePermissionMappings);
     }
 
     public String getSiteId() {
@@ -96,5 +147,26 @@ public class SitePermissionMappings {
 
     public void setRolePermissions(Map<String, RolePermissionMappings> rolePermissions) {
         this.rolePermissions = rolePermissions;
+        compiledRules.clear();
+        rolePermissions.forEach(this::compileRules);
+    }
+
+    private void compileRules(String role, RolePermissionMappings rolePermissionMappings) {
+        List<CompiledRule> rules = new ArrayList<>();
+        rolePermissionMappings.getRuleContentItemPermissions().forEach((regex, availableActions) ->
+                rules.add(new CompiledRule(Pattern.compile(regex), availableActions)));
+        compiledRules.put(role, rules);
+        availableActionsCache.invalidateAll();
+    }
+
+    private static class CompiledRule {
+
+        private final Pattern pattern;
+        private final long availableActions;
+
+        private CompiledRule(Pattern pattern, long availableActions) {
+            this.pattern = pattern;
+            this.availableActions = availableActions;
+        }
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.api.v2.event;
+
+import java.util.List;
+
+/**
+ * Message that groups several events broadcast to the same topic during a short window
+ *
+ * @see org.craftercms.studio.impl.v2.event.EventBroadcaster
+ * @since 4.2.0
+ */
+public class BroadcastEventBatch extends StudioEvent implements BroadcastEvent {
+
+    protected final List<BroadcastEvent> events;
+
+    public BroadcastEventBatch(List<BroadcastEvent> events) {
+        this.events = events;
+    }
+
+    public List<BroadcastEvent> getEvents() {
+        return events;
+    }
+
+    @Override
+    public String getEventType() {
+        return "EVENT_BATCH";
+    }
+
+    @Override
+    public String toString() {
+        return "BroadcastEventBatch{" +
+                "timestamp=" + timestamp +
+                ", events=" + events.size() +
+                '}';
+    }
+
+}
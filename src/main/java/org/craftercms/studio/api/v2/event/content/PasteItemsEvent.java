@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.api.v2.event.content;
+
+import org.craftercms.studio.api.v2.event.SiteAwareEvent;
+import org.craftercms.studio.api.v2.event.SiteBroadcastEvent;
+import org.craftercms.studio.model.clipboard.Operation;
+import org.springframework.security.core.Authentication;
+
+import java.util.List;
+
+/**
+ * Event triggered to report the progress of a paste running in the background
+ *
+ * @since 4.2.0
+ */
+public class PasteItemsEvent extends SiteAwareEvent implements SiteBroadcastEvent {
+
+    public enum Status {
+        STARTED, IN_PROGRESS, COMPLETED, FAILED
+    }
+
+    protected final String jobId;
+
+    protected final Operation operation;
+
+    protected final String sourcePath;
+
+    protected final String targetPath;
+
+    protected final Status status;
+
+    protected final int processedItems;
+
+    protected final int totalItems;
+
+    /**
+     * The paths of the pasted items, only set when the paste is completed
+     */
+    protected final List<String> items;
+
+    public PasteItemsEvent(Authentication authentication, String siteId, String jobId, Operation operation,
+                           String sourcePath, String targetPath, Status status, int processedItems,
+                           int totalItems, List<String> items) {
+        super(authentication, siteId);
+        this.jobId = jobId;
+        this.operation = operation;
+        this.sourcePath = sourcePath;
+        this.targetPath = targetPath;
+        this.status = status;
+        this.processedItems = processedItems;
+        this.totalItems = totalItems;
+        this.items = items;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public String getTargetPath() {
+        return targetPath;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public int getProcessedItems() {
+        return processedItems;
+    }
+
+    public int getTotalItems() {
+        return totalItems;
+    }
+
+    public List<String> getItems() {
+        return items;
+    }
+
+    @Override
+    public String getEventType() {
+        return "PASTE_ITEMS_EVENT";
+    }
+
+    @Override
+    public String toString() {
+        return "PasteItemsEvent{" +
+                "siteId='" + siteId + '\'' +
+                ", timestamp=" + timestamp +
+                ", user=" + user +
+                ", jobId='" + jobId + '\'' +
+                ", operation=" + operation +
+                ", sourcePath='" + sourcePath + '\'' +
+                ", targetPath='" + targetPath + '\'' +
+                ", status=" + status +
+                ", processedItems=" + processedItems +
+                ", totalItems=" + totalItems +
+                '}';
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.event.publish;
+
+import org.craftercms.studio.api.v2.event.SiteAwareEvent;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Event triggered when items are added to the publishing queue of a site, or when the queue needs to be processed
+ * again (for example after publishing is enabled)
+ *
+ * <p><b>Note:</b>This event is only used internally and it is not broadcast to the clients</p>
+ *
+ * @since 4.2.0
+ */
+public class PublishQueueEvent extends SiteAwareEvent {
+
+    /**
+     * The date the items are scheduled for, null if they can be published right away
+     */
+    protected final ZonedDateTime scheduledDate;
+
+    public PublishQueueEvent(String siteId) {
+        this(siteId, null);
+    }
+
+    public PublishQueueEvent(String siteId, ZonedDateTime scheduledDate) {
+        super(siteId);
+        this.scheduledDate = scheduledDate;
+    }
+
+    public ZonedDateTime getScheduledDate() {
+        return scheduledDate;
+    }
+
+    @Override
+    public String toString() {
+        return "PublishQueueEvent{" +
+                "siteId='" + siteId + '\'' +
+                ", scheduledDate=" + scheduledDate +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+
+}
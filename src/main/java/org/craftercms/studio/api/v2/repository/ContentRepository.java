@@ -23,6 +23,7 @@ import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteRepositoryCredentialsException;
 import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteRepositoryException;
 import org.craftercms.studio.api.v1.exception.repository.RemoteRepositoryNotFoundException;
+import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.service.deployment.DeploymentException;
 import org.craftercms.studio.api.v1.to.DeploymentItemTO;
 import org.craftercms.studio.api.v2.dal.PublishingHistoryItem;
@@ -110,6 +111,35 @@ public interface ContentRepository {
                                                      String publisher, ZonedDateTime fromDate, ZonedDateTime toDate,
                                                      int limit);
 
+    /**
+     * Get a page of the publishing history recorded in the database, newest first
+     *
+     * @param siteId site identifier
+     * @param environment environment, all environments if null
+     * @param pathPrefix prefix of the paths to use as filter
+     * @param publisher user to filter by
+     * @param fromDate lower boundary for published date
+     * @param toDate upper boundary for published date
+     * @param afterId id of the last item of the previous page, null for the first page
+     * @param limit number of records to return
+     * @return publishing history
+     * @throws ServiceLayerException if the publisher can't be resolved
+     * @throws UserNotFoundException if the publisher doesn't exist
+     */
+    List<PublishingHistoryItem> getPublishingHistoryPage(String siteId, String environment, String pathPrefix,
+                                                         String publisher, ZonedDateTime fromDate,
+                                                         ZonedDateTime toDate, Long afterId, int limit)
+            throws ServiceLayerException, UserNotFoundException;
+
+    /**
+     * Imports the existing publishing history of a site into the database, a bounded number of commits at a time
+     *
+     * @param siteId site identifier
+     * @param maxCommits maximum number of commits to import per publishing target
+     * @return true if the publishing history of all the publishing targets has been imported
+     */
+    boolean importPublishingHistory(String siteId, int maxCommits);
+
     /**
      * Create a new site based on a blueprint
      *
@@ -256,6 +256,21 @@ public interface StudioBlobStoreAdapter extends StudioBlobStore {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    default List<PublishingHistoryItem> getPublishingHistoryPage(String siteId, String environment,
+                                                                 String pathPrefix, String publisher,
+                                                                 ZonedDateTime fromDate, ZonedDateTime toDate,
+                                                                 Long afterId, int limit) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    default boolean importPublishingHistory(String siteId, int maxCommits) {
+        // This should be handled by the local repository
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     default Item getItem(String siteId, String path, boolean flatten) {
         // This should be handled by the local repository
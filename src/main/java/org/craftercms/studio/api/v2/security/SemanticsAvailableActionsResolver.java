@@ -21,6 +21,8 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.dal.Item;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
+import java.util.List;
+
 public interface SemanticsAvailableActionsResolver {
 
     /**
@@ -33,6 +35,16 @@ public interface SemanticsAvailableActionsResolver {
     long calculateContentItemAvailableActions(String username, String siteId, Item item)
             throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * Calculate available actions for all the given content items and set them in each item.
+     * The user permissions are resolved once for the whole list
+     * @param username user name to apply permissions
+     * @param siteId site identifier
+     * @param items list of items
+     */
+    void calculateContentItemsAvailableActions(String username, String siteId, List<Item> items)
+            throws ServiceLayerException, UserNotFoundException;
+
     /**
      * Calculate available actions for given content item
      * @param username user name to apply permissions
@@ -46,12 +46,13 @@ public interface AuditService {
      * @param clusterNodeId filter logs by given cluster node id
      * @param sort sort logs by given sort type
      * @param order order logs
+     * @param afterId id of the last record of the previous page, when provided the offset is ignored
      * @return audit log result set
      */
     List<AuditLog> getAuditLog(String siteId, int offset, int limit, String user,
                                List<String> operations, boolean includeParameters, ZonedDateTime dateFrom,
                                ZonedDateTime dateTo, String target, String origin, String clusterNodeId, String sort,
-                               String order) throws SiteNotFoundException;
+                               String order, Long afterId) throws SiteNotFoundException;
 
     /**
      * Get total number of audit log entries for given filters
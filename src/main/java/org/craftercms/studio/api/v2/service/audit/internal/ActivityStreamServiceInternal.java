@@ -17,6 +17,7 @@
 package org.craftercms.studio.api.v2.service.audit.internal;
 
 import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.dal.WorkflowItem;
 import org.craftercms.studio.model.rest.dashboard.Activity;
 
 import java.time.ZonedDateTime;
@@ -36,6 +37,17 @@ public interface ActivityStreamServiceInternal {
     void insertActivity(long siteId, long userId, String action, ZonedDateTime actionTimestamp, Item item,
                         String packageId);
 
+    /**
+     * Insert one record into activity stream for each workflow entry, in batches
+     * @param siteId site identifier
+     * @param userId user identifier
+     * @param action action that was performed
+     * @param actionTimestamp timestamp when action was performed
+     * @param entries workflow entries that were actioned upon
+     */
+    void insertActivities(long siteId, long userId, String action, ZonedDateTime actionTimestamp,
+                          List<WorkflowItem> entries);
+
     /**
      * Get total number activities for users
      * @param siteId site identifier
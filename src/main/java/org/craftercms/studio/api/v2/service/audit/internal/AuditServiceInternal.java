@@ -20,7 +20,9 @@ import org.craftercms.studio.api.v2.dal.AuditLog;
 import org.craftercms.studio.model.rest.Person;
 
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 // TODO: JM: Merge this to AuditService
 public interface AuditServiceInternal {
@@ -41,12 +43,14 @@ public interface AuditServiceInternal {
      * @param clusterNodeId filter results by cluster node
      * @param sort sort strategy
      * @param order order strategy
+     * @param afterId id of the last entry of the previous page, when provided the offset is ignored and the
+     *                results start after that entry
      * @return List of audit log entries
      */
     List<AuditLog> getAuditLog(String siteId, int offset, int limit, String user,
                                List<String> operations, boolean includeParameters, ZonedDateTime dateFrom,
                                ZonedDateTime dateTo, String target, String origin, String clusterNodeId, String sort,
-                               String order);
+                               String order, Long afterId);
 
     /**
      * Get the audit log entry count given the provided filter parameters
@@ -120,4 +124,12 @@ public interface AuditServiceInternal {
      * @return true if there is an audit entry for the given commit id, otherwise false
      */
     boolean isAudited(long siteId, String commitId);
+
+    /**
+     * Check which commits have been audited.
+     * @param siteId site id
+     * @param commitIds commit ids
+     * @return the given commit ids that have an audit entry
+     */
+    Set<String> getAuditedCommits(long siteId, Collection<String> commitIds);
 }
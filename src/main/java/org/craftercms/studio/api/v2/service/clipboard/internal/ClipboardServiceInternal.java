@@ -44,6 +44,20 @@ public interface ClipboardServiceInternal {
     List<String> pasteItems(String siteId, Operation operation, String targetPath, PasteItem item)
             throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * Starts the given clipboard operation in the background, its progress is reported with
+     * {@link org.craftercms.studio.api.v2.event.content.PasteItemsEvent}s
+     *
+     * @param siteId the id of the site
+     * @param operation the clipboard operation
+     * @param targetPath the target path
+     * @param item the item to paste
+     * @return the id of the paste job, included in all its events
+     * @throws ServiceLayerException if the operation is not valid
+     */
+    String pasteItemsInBackground(String siteId, Operation operation, String targetPath, PasteItem item)
+            throws ServiceLayerException;
+
     /**
      * Duplicates the given item
      *
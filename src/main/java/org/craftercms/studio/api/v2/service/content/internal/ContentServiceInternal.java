@@ -129,6 +129,18 @@ public interface ContentServiceInternal {
     DetailedItem getItemByPath(String siteId, String path, boolean preferContent)
             throws ServiceLayerException, UserNotFoundException;
 
+    /**
+     * Get detailed items for given paths with a single query
+     *
+     * @param siteId site identifier
+     * @param paths  paths of the items
+     * @return detailed items in the same order as the paths, paths without content are skipped
+     * @throws ServiceLayerException general service error
+     * @throws UserNotFoundException user not found (when calculating available actions)
+     */
+    List<DetailedItem> getItemsByPath(String siteId, List<String> paths)
+            throws ServiceLayerException, UserNotFoundException;
+
     /**
      * Get sandbox items for given list of paths
      *
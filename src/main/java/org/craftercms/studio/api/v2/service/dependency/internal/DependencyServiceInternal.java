@@ -20,6 +20,7 @@ import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
 import org.craftercms.studio.api.v1.service.dependency.DependencyResolver.ResolvedDependency;
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriter;
 import org.craftercms.studio.model.rest.content.DependencyItem;
 
 import java.util.Collection;
@@ -43,6 +44,20 @@ public interface DependencyServiceInternal {
     Collection<String> getSoftDependencies(String site, List<String> paths)
             throws SiteNotFoundException, ServiceLayerException;
 
+    /**
+     * Get a soft dependencies of a list of items, following at most the given number of dependencies from each
+     * item
+     *
+     * @param site     Site to operate on
+     * @param paths    List of paths to items to retrieve deps for
+     * @param maxDepth Maximum number of dependencies to follow, 1 for the direct dependencies only
+     * @return list of soft dependencies
+     * @throws SiteNotFoundException Site doesn't exist
+     * @throws ServiceLayerException Internal error, see exception details
+     */
+    Collection<String> getSoftDependencies(String site, List<String> paths, int maxDepth)
+            throws SiteNotFoundException, ServiceLayerException;
+
     /**
      * Get a hard dependencies of a item. A hard
      * dependency is:
@@ -140,4 +155,28 @@ public interface DependencyServiceInternal {
      * @param targetPath the target path of the dependencies to validate
      */
     void validateDependencies(String siteId, String targetPath) throws ServiceLayerException;
+
+    /**
+     * Wraps the given sync writer so the dependency changes it writes are also applied to the in-memory dependency
+     * graph once they are committed
+     *
+     * @param writer the sync writer
+     * @return the sync writer to use
+     */
+    StudioDBSyncWriter trackDependencyChanges(StudioDBSyncWriter writer);
+
+    /**
+     * Compares the in-memory dependency graph of a site with the dependencies stored in the database
+     *
+     * @param siteId the site id
+     * @return true if the graph matches the database
+     */
+    boolean checkDependencyGraph(String siteId);
+
+    /**
+     * Loads the in-memory dependency graph of a site from the database again
+     *
+     * @param siteId the site id
+     */
+    void rebuildDependencyGraph(String siteId);
 }
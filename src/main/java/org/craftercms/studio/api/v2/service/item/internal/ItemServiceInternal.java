@@ -70,6 +70,15 @@ public interface ItemServiceInternal {
      */
     List<Item> getItems(String siteId, List<String> path);
 
+    /**
+     * Get items for given site and paths, only with the data stored in the item table.
+     * Intended for bulk operations that need the state, type or previous path of many items
+     * @param siteId site identifier
+     * @param paths item paths
+     * @return list of items
+     */
+    List<Item> getItemsBySiteAndPaths(String siteId, List<String> paths);
+
     /**
      * Get items for given site and paths
      * @param siteId site identifier
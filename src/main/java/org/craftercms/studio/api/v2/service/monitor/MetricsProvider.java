@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.craftercms.studio.api.v2.service.monitor;
+
+import java.util.Map;
+
+/**
+ * Component that exposes runtime metrics through the monitoring API.
+ * Any bean implementing this interface is automatically picked up by {@link MonitorService#getMetrics()}.
+ */
+public interface MetricsProvider {
+
+    /**
+     * @return the name used to group the metrics of this provider
+     */
+    String getMetricsName();
+
+    /**
+     * @return a snapshot of the current metric values
+     */
+    Map<String, Object> getMetrics();
+
+}
@@ -33,4 +33,11 @@ public interface MonitorService {
      * @return a list of log events
      */
     List<Map<String, Object>> getLogEvents(final String siteId, final long since);
+
+    /**
+     * Retrieves a snapshot of the metrics of all registered {@link MetricsProvider}s
+     *
+     * @return map of provider name to metrics
+     */
+    Map<String, Map<String, Object>> getMetrics();
 }
@@ -19,6 +19,7 @@ package org.craftercms.studio.api.v2.service.publish.internal;
 import org.craftercms.commons.rest.parameters.SortField;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
+import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.dal.*;
 import org.craftercms.studio.api.v2.repository.RepositoryChanges;
 import org.craftercms.studio.model.rest.dashboard.DashboardPublishingPackage;
@@ -110,6 +111,28 @@ public interface PublishServiceInternal {
                                                      ZonedDateTime dateFrom, ZonedDateTime dateTo, String contentType,
                                                      long state, String sortBy, String order, int offset, int limit);
 
+    /**
+     * Get a page of the publishing history items for given search parameters, newest first. Pages are continued
+     * from the last item of the previous page instead of an offset, so deep pages are as fast as the first one.
+     *
+     * @param siteId site identifier
+     * @param environment environment to get publishing history, all environments if null
+     * @param pathPrefix prefix of the paths to include
+     * @param publisher filter publishing history for specified user
+     * @param dateFrom lower boundary for date range
+     * @param dateTo upper boundary for date range
+     * @param afterId id of the last item of the previous page, null for the first page
+     * @param limit number of items to return
+     *
+     * @return publishing history items
+     * @throws ServiceLayerException if the publisher can't be resolved
+     * @throws UserNotFoundException if the publisher doesn't exist
+     */
+    List<PublishingHistoryItem> getPublishingHistoryPage(String siteId, String environment, String pathPrefix,
+                                                         String publisher, ZonedDateTime dateFrom,
+                                                         ZonedDateTime dateTo, Long afterId, int limit)
+            throws ServiceLayerException, UserNotFoundException;
+
     /**
      * Get publishing history package detail total items
      *
@@ -26,6 +26,23 @@ public interface WorkflowServiceInternal {
 
     WorkflowItem getWorkflowItem(String siteId, String path, String state);
 
+    /**
+     * Get the workflow entries in the given state for multiple paths, with a single query per batch
+     * @param siteId site identifier
+     * @param paths list of paths
+     * @param state workflow state
+     * @return list of workflow entries, at most one per path
+     */
+    List<WorkflowItem> getWorkflowItems(String siteId, List<String> paths, String state);
+
+    /**
+     * Get the opened workflow entries for multiple paths
+     * @param siteId site identifier
+     * @param paths list of paths
+     * @return list of workflow entries, at most one per path
+     */
+    List<WorkflowItem> getWorkflowEntries(String siteId, List<String> paths);
+
     /**
      * Get workflow entry
      * @param siteId
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Classifies paths into the content type classes of a site (page, component, asset...). The rules are evaluated in
+ * the order they were added and the class of the first one matching the path is returned.
+ * <p>
+ * All the patterns are compiled once. Patterns with a literal prefix are only evaluated for the paths starting with
+ * it, and the patterns of a rule without a literal prefix are merged into a single alternation, so classifying a path
+ * usually takes a few {@code startsWith} checks and at most one regex per rule.
+ * </p>
+ * Instances are immutable and can be shared between threads.
+ */
+public class ContentTypeClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentTypeClassifier.class);
+
+    private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\([1-9]|k<)");
+
+    private final List<Rule> rules;
+    private final String defaultClass;
+
+    protected ContentTypeClassifier(List<Rule> rules, String defaultClass) {
+        this.rules = rules;
+        this.defaultClass = defaultClass;
+    }
+
+    /**
+     * Get the content type class of a path
+     *
+     * @param path the path of the item
+     * @return the class of the first rule matching the path, or the default class
+     */
+    public String classify(String path) {
+        for (Rule rule : rules) {
+            if (rule.matches(path)) {
+                return rule.contentTypeClass;
+            }
+        }
+        return defaultClass;
+    }
+
+    /**
+     * Get the content type class of several paths
+     *
+     * @param paths the paths of the items
+     * @return the class of each path, in the same order of the given collection
+     */
+    public Map<String, String> classify(Collection<String> paths) {
+        Map<String, String> classes = new LinkedHashMap<>(paths.size() * 4 / 3 + 1);
+        for (String path : paths) {
+            classes.computeIfAbsent(path, this::classify);
+        }
+        return classes;
+    }
+
+    private static final class Rule {
+
+        private final String contentTypeClass;
+        private final String prefix;
+        private final String suffix;
+        private final List<PrefixedPattern> prefixedPatterns;
+        private final Pattern pattern;
+
+        private Rule(String contentTypeClass, String prefix, String suffix, List<PrefixedPattern> prefixedPatterns,
+                     Pattern pattern) {
+            this.contentTypeClass = contentTypeClass;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.prefixedPatterns = prefixedPatterns;
+            this.pattern = pattern;
+        }
+
+        private boolean matches(String path) {
+            if (prefix != null) {
+                return path.startsWith(prefix);
+            }
+            if (suffix != null) {
+                return path.endsWith(suffix);
+            }
+            for (PrefixedPattern prefixedPattern : prefixedPatterns) {
+                if (path.startsWith(prefixedPattern.prefix) && prefixedPattern.pattern.matcher(path).matches()) {
+                    return true;
+                }
+            }
+            return pattern != null && pattern.matcher(path).matches();
+        }
+
+    }
+
+    private record PrefixedPattern(String prefix, Pattern pattern) { }
+
+    public static class Builder {
+
+        private final List<Rule> rules = new ArrayList<>();
+
+        /**
+         * Adds a rule matching the paths that fully match any of the given regexes
+         *
+         * @param contentTypeClass the class of the matching paths
+         * @param regexes          the regexes, the rule is skipped if null or empty
+         */
+        public Builder withPatterns(String contentTypeClass, List<String> regexes) {
+            if (regexes == null || regexes.isEmpty()) {
+                return this;
+            }
+            List<PrefixedPattern> prefixedPatterns = new ArrayList<>();
+            List<String> unprefixedRegexes = new ArrayList<>();
+            for (String regex : regexes) {
+                Pattern pattern = compile(regex);
+                if (pattern == null) {
+                    continue;
+                }
+                String prefix = RegexPrefixUtils.getLiteralPrefix(StringUtils.removeStart(regex, "^"));
+                if (prefix.isEmpty()) {
+                    unprefixedRegexes.add(regex);
+                } else {
+                    prefixedPatterns.add(new PrefixedPattern(prefix, pattern));
+                }
+            }
+            Pattern merged = null;
+            if (unprefixedRegexes.size() == 1) {
+                merged = compile(unprefixedRegexes.get(0));
+            } else if (!unprefixedRegexes.isEmpty()) {
+                merged = merge(unprefixedRegexes);
+                if (merged == null) {
+                    // Can't be merged, keep them as separate patterns that apply to every path
+                    unprefixedRegexes.forEach(regex -> prefixedPatterns.add(new PrefixedPattern("", compile(regex))));
+                }
+            }
+            rules.add(new Rule(contentTypeClass, null, null, List.copyOf(prefixedPatterns), merged));
+            return this;
+        }
+
+        /**
+         * Adds a rule matching the paths that start with the given prefix
+         *
+         * @param contentTypeClass the class of the matching paths
+         * @param prefix           the prefix, the rule is skipped if null
+         */
+        public Builder withPrefix(String contentTypeClass, String prefix) {
+            if (prefix != null) {
+                rules.add(new Rule(contentTypeClass, prefix, null, List.of(), null));
+            }
+            return this;
+        }
+
+        /**
+         * Adds a rule matching the paths that end with the given suffix
+         *
+         * @param contentTypeClass the class of the matching paths
+         * @param suffix           the suffix, the rule is skipped if null
+         */
+        public Builder withSuffix(String contentTypeClass, String suffix) {
+            if (suffix != null) {
+                rules.add(new Rule(contentTypeClass, null, suffix, List.of(), null));
+            }
+            return this;
+        }
+
+        /**
+         * Builds the classifier
+         *
+         * @param defaultClass the class of the paths not matching any rule
+         */
+        public ContentTypeClassifier build(String defaultClass) {
+            return new ContentTypeClassifier(List.copyOf(rules), defaultClass);
+        }
+
+        private Pattern compile(String regex) {
+            try {
+                return Pattern.compile(regex);
+            } catch (PatternSyntaxException e) {
+                logger.warn("Ignoring invalid content type class pattern '{}'", regex, e);
+                return null;
+            }
+        }
+
+        private Pattern merge(List<String> regexes) {
+            // Numbered back references would point to a different group once merged
+            if (regexes.stream().anyMatch(regex -> BACK_REFERENCE.matcher(regex).find())) {
+                return null;
+            }
+            try {
+                return Pattern.compile("(?:" + String.join(")|(?:", regexes) + ")");
+            } catch (PatternSyntaxException e) {
+                // Duplicated named groups
+                return null;
+            }
+        }
+
+    }
+
+}
@@ -28,6 +28,7 @@ import java.util.stream.Collectors;
  * Utility class for DAL related operations.
  */
 public class DalUtils {
+
     /**
      * Map the field names from a SortFields list base on provided name mapping.
      * This is meant to be used to map from API field names to database column names.
@@ -44,4 +45,30 @@ public class DalUtils {
                 .map(sf -> new SortField(fieldsMap.get(sf.getField()), sf.getOrder()))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Escapes the wildcards of a value so it can be used in a LIKE pattern
+     *
+     * @param value the value to escape
+     * @return the escaped value
+     */
+    public static String escapeLikePattern(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Get the LIKE pattern matching the paths that start with the literal prefix of an anchored regex. The pattern
+     * can be used together with the regex so the database can scan the range of the index for the prefix instead of
+     * evaluating the regex for every row.
+     *
+     * @param regex the path regex
+     * @return the LIKE pattern, null if the regex is not anchored to the start or has no literal prefix
+     */
+    public static String getRegexPrefixPattern(String regex) {
+        if (regex == null || !regex.startsWith("^")) {
+            return null;
+        }
+        String prefix = RegexPrefixUtils.getLiteralPrefix(regex.substring(1));
+        return prefix.length() > 0 ? escapeLikePattern(prefix) + "%" : null;
+    }
 }
@@ -51,6 +51,7 @@ import org.craftercms.studio.impl.v1.repository.StrSubstitutorVisitor;
 import org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants;
 import org.craftercms.studio.impl.v1.repository.git.TreeCopier;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
+import org.craftercms.studio.impl.v2.repository.GitGroupCommitter;
 import org.craftercms.studio.impl.v2.utils.GitUtils;
 import org.craftercms.studio.impl.v2.utils.git.GitCli;
 import org.eclipse.jgit.api.*;
@@ -110,6 +111,8 @@ public class GitRepositoryHelper implements DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(GitRepositoryHelper.class);
 
+    private static final String GROUP_COMMIT_CO_AUTHOR_TRAILER = "Co-authored-by: ";
+
     private StudioConfiguration studioConfiguration;
     private TextEncryptor encryptor;
     private SecurityService securityService;
@@ -119,6 +122,7 @@ public class GitRepositoryHelper implements DisposableBean {
     private AuthConfiguratorFactory authConfiguratorFactory;
     private GitCli gitCli;
     private boolean gitCliEnabled;
+    private GitGroupCommitter groupCommitter;
 
     private final Cache<String, Repository> repositoryCache = CacheBuilder.newBuilder().build();
 
@@ -1132,6 +1136,20 @@ public class GitRepositoryHelper implements DisposableBean {
     }
 
     public boolean writeFile(Repository repo, String site, String path, InputStream content) {
+        return writeFileContent(repo, site, path, content) && addFiles(repo, site, path);
+    }
+
+    /**
+     * Writes a file to the working tree of the repository without adding it to the index, so the index can be
+     * updated once for multiple files with {@link #addFiles}
+     *
+     * @param repo the repository
+     * @param site the site
+     * @param path the path of the file
+     * @param content the content of the file
+     * @return true if the file was written
+     */
+    public boolean writeFileContent(Repository repo, String site, String path, InputStream content) {
         boolean result = true;
 
         logger.debug("Write a file at site '{}' path '{}'", site, path);
@@ -1176,8 +1194,6 @@ public class GitRepositoryHelper implements DisposableBean {
                         offset += count;
                     }
                 }
-
-                result = addFiles(repo, site, path);
             }
         } catch (IOException e) {
             logger.error("Failed to write the file to site '{}' path '{}'", site, path, e);
@@ -1246,35 +1262,9 @@ public class GitRepositoryHelper implements DisposableBean {
         generalLockService.lock(gitLockKey);
         String commitId = null;
         try {
-            if (gitCliEnabled) {
-                String author = user.getName() + " <" + user.getEmailAddress() + ">";
-
-                commitId = retryingRepositoryOperationFacade.call(
-                        () -> gitCli.commit(repo.getWorkTree().getAbsolutePath(),
-                                            author, comment, getGitPaths(paths)));
-                // Check if commit id matches jgit
-                ObjectId jgitHead = repo.resolve(HEAD);
-                if (StringUtils.equals(jgitHead.getName(), commitId)) {
-                    logger.debug("JGit HEAD '{}' matches CGit's '{}', will not rebuild JGit repository", jgitHead.getName(), commitId);
-                } else {
-                    logger.warn("JGit HEAD '{}' does not match CGit's '{}', will rebuild JGit repository", jgitHead.getName(), commitId);
-                    reloadSiteRepository(site, SANDBOX);
-                }
-            } else {
-                try (Git git = new Git(repo)) {
-                    CommitCommand commitCommand = git.commit()
-                                                     .setAuthor(user)
-                                                     .setCommitter(user)
-                                                     .setMessage(comment);
-                    Arrays.stream(paths).forEach(p -> commitCommand.setOnly(getGitPath(p)));
-                    RevCommit commit = retryingRepositoryOperationFacade.call(commitCommand);
-                    commitId = commit.getName();
-                }
-            }
+            commitId = doCommitFiles(repo, site, comment, user, paths);
         } catch (Exception e) {
-            Throwable cause = ExceptionUtils.getRootCause(e);
-            if (cause instanceof NoChangesToCommitException ||
-                (cause instanceof JGitInternalException && "no changes".equalsIgnoreCase(cause.getMessage()))) {
+            if (isNoChanges(e)) {
                 // we should ignore empty commit errors
                 logger.debug("No changes were committed to git in site '{}' paths '{}'", site,
                              ArrayUtils.toString(paths));
@@ -1290,6 +1280,152 @@ public class GitRepositoryHelper implements DisposableBean {
         return commitId;
     }
 
+    /**
+     * Indicates if the commits of the given site will be grouped with the ones of concurrent writes, that is the
+     * case when group commits are enabled and the current thread doesn't hold the lock of the sandbox repository
+     *
+     * @param site the site
+     * @return true if {@link #commitFilesInGroup} will group the commit
+     */
+    public boolean isGroupCommitEnabled(String site) {
+        // Waiting for other writers while holding the lock would just block them
+        return groupCommitter != null && groupCommitter.isEnabled() && StringUtils.isNotEmpty(site) &&
+                !generalLockService.isHeldByCurrentThread(getSandboxRepoLockKey(site));
+    }
+
+    /**
+     * Commits the given paths together with the ones of other concurrent writes to the site, when group commits
+     * are enabled, otherwise it works like {@link #commitFiles}. The paths need to be already added to the index.
+     *
+     * @param repo the repository
+     * @param site the site
+     * @param comment the commit message
+     * @param user the author of the changes
+     * @param paths the paths to commit
+     * @return the id of the commit that includes the changes, null if nothing was committed
+     */
+    public String commitFilesInGroup(Repository repo, String site, String comment, PersonIdent user,
+                                     String... paths) {
+        if (!isGroupCommitEnabled(site)) {
+            return commitFiles(repo, site, comment, user, paths);
+        }
+        if (!ArrayUtils.isNotEmpty(paths)) {
+            return null;
+        }
+        try {
+            return groupCommitter.commit(site, new GitGroupCommitter.Request(comment, user, paths),
+                    requests -> commitGroup(repo, site, requests));
+        } catch (ServiceLayerException e) {
+            logger.error("Failed to commit files to git in site '{}' paths '{}'", site,
+                    ArrayUtils.toString(paths), e);
+            return null;
+        }
+    }
+
+    /**
+     * Commits the changes of all the requests in a single commit. If that fails the changes of each request are
+     * committed on their own, so only the failed ones are discarded.
+     */
+    protected List<String> commitGroup(Repository repo, String site, List<GitGroupCommitter.Request> requests) {
+        if (requests.size() == 1) {
+            GitGroupCommitter.Request request = requests.get(0);
+            return Collections.singletonList(
+                    commitFiles(repo, site, request.getComment(), request.getAuthor(), request.getPaths()));
+        }
+
+        String[] paths = requests.stream()
+                                 .flatMap(request -> Arrays.stream(request.getPaths()))
+                                 .distinct()
+                                 .toArray(String[]::new);
+        String gitLockKey = getSandboxRepoLockKey(site);
+        generalLockService.lock(gitLockKey);
+        try {
+            String commitId = doCommitFiles(repo, site, getGroupCommitMessage(requests),
+                    requests.get(0).getAuthor(), paths);
+            return Collections.nCopies(requests.size(), commitId);
+        } catch (Exception e) {
+            if (isNoChanges(e)) {
+                logger.debug("No changes were committed to git in site '{}' paths '{}'", site,
+                             ArrayUtils.toString(paths));
+                return Collections.nCopies(requests.size(), null);
+            }
+            logger.warn("Failed to commit a group of '{}' changes to git in site '{}', will commit them one by one",
+                    requests.size(), site, e);
+            List<String> commitIds = new ArrayList<>(requests.size());
+            for (GitGroupCommitter.Request request : requests) {
+                commitIds.add(commitFiles(repo, site, request.getComment(), request.getAuthor(),
+                        request.getPaths()));
+            }
+            return commitIds;
+        } finally {
+            generalLockService.unlock(gitLockKey);
+        }
+    }
+
+    /**
+     * Builds the message for a group commit: the message of each change followed by a co-author trailer for every
+     * author other than the one of the commit
+     */
+    protected String getGroupCommitMessage(List<GitGroupCommitter.Request> requests) {
+        StringBuilder message = new StringBuilder();
+        Set<String> coAuthors = new LinkedHashSet<>();
+        PersonIdent commitAuthor = requests.get(0).getAuthor();
+        for (GitGroupCommitter.Request request : requests) {
+            message.append(request.getComment()).append('\n');
+            PersonIdent author = request.getAuthor();
+            if (!StringUtils.equals(author.getName(), commitAuthor.getName()) ||
+                    !StringUtils.equals(author.getEmailAddress(), commitAuthor.getEmailAddress())) {
+                coAuthors.add(author.getName() + " <" + author.getEmailAddress() + ">");
+            }
+        }
+        if (!coAuthors.isEmpty()) {
+            message.append('\n');
+            coAuthors.forEach(coAuthor -> message.append(GROUP_COMMIT_CO_AUTHOR_TRAILER).append(coAuthor)
+                                                 .append('\n'));
+        }
+        return message.toString().trim();
+    }
+
+    /**
+     * Commits the given paths, the caller must hold the lock of the repository
+     */
+    private String doCommitFiles(Repository repo, String site, String comment, PersonIdent user, String... paths)
+            throws Exception {
+        String commitId;
+        if (gitCliEnabled) {
+            String author = user.getName() + " <" + user.getEmailAddress() + ">";
+
+            commitId = retryingRepositoryOperationFacade.call(
+                    () -> gitCli.commit(repo.getWorkTree().getAbsolutePath(),
+                                        author, comment, getGitPaths(paths)));
+            // Check if commit id matches jgit
+            ObjectId jgitHead = repo.resolve(HEAD);
+            if (StringUtils.equals(jgitHead.getName(), commitId)) {
+                logger.debug("JGit HEAD '{}' matches CGit's '{}', will not rebuild JGit repository", jgitHead.getName(), commitId);
+            } else {
+                logger.warn("JGit HEAD '{}' does not match CGit's '{}', will rebuild JGit repository", jgitHead.getName(), commitId);
+                reloadSiteRepository(site, SANDBOX);
+            }
+        } else {
+            try (Git git = new Git(repo)) {
+                CommitCommand commitCommand = git.commit()
+                                                 .setAuthor(user)
+                                                 .setCommitter(user)
+                                                 .setMessage(comment);
+                Arrays.stream(paths).forEach(p -> commitCommand.setOnly(getGitPath(p)));
+                RevCommit commit = retryingRepositoryOperationFacade.call(commitCommand);
+                commitId = commit.getName();
+            }
+        }
+        return commitId;
+    }
+
+    private boolean isNoChanges(Exception e) {
+        Throwable cause = ExceptionUtils.getRootCause(e);
+        return cause instanceof NoChangesToCommitException ||
+               (cause instanceof JGitInternalException && "no changes".equalsIgnoreCase(cause.getMessage()));
+    }
+
     /**
      * Refresh the repository cache for the given site and repository type. <br/>
      * <strong>Note:</strong> consumers of this method should use generalLockService to prevent concurrent access to the repository
@@ -1466,6 +1602,10 @@ public class GitRepositoryHelper implements DisposableBean {
         this.gitCli = gitCli;
     }
 
+    public void setGroupCommitter(GitGroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
+    }
+
     public void setGitCliEnabled(boolean gitCliEnabled) {
         this.gitCliEnabled = gitCliEnabled;
     }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+/**
+ * Finds the literal text that every match of a regular expression starts with, so the strings that can't match can
+ * be discarded without running the regex.
+ */
+public abstract class RegexPrefixUtils {
+
+    /**
+     * Characters with a special meaning in a regular expression
+     */
+    private static final String META_CHARS = ".[]{}()*+?^$|";
+
+    /**
+     * Quantifiers that allow zero occurrences of the previous character
+     */
+    private static final String OPTIONAL_QUANTIFIERS = "?*{";
+
+    /**
+     * Get the literal text every match of the given regex starts with
+     *
+     * @param regex the regex, implicitly anchored to the start
+     * @return the literal prefix, empty if the regex has top level alternatives or starts with a special character
+     */
+    public static String getLiteralPrefix(String regex) {
+        if (regex == null || !hasSimpleStructure(regex)) {
+            return "";
+        }
+        StringBuilder prefix = new StringBuilder();
+        int length = regex.length();
+        int i = 0;
+        while (i < length) {
+            char c = regex.charAt(i);
+            char literal;
+            int next;
+            if (c == '\\') {
+                // Escaped letters and digits are classes, back references or quotes, not literals
+                if (i + 1 >= length || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                    break;
+                }
+                literal = regex.charAt(i + 1);
+                next = i + 2;
+            } else if (META_CHARS.indexOf(c) >= 0) {
+                break;
+            } else {
+                literal = c;
+                next = i + 1;
+            }
+            if (next < length && OPTIONAL_QUANTIFIERS.indexOf(regex.charAt(next)) >= 0) {
+                break;
+            }
+            prefix.append(literal);
+            if (next < length && regex.charAt(next) == '+') {
+                break;
+            }
+            i = next;
+        }
+        return prefix.toString();
+    }
+
+    /**
+     * Checks that the regex has no top level alternation and no quoted sections, so the leading literal is required
+     *
+     * @param regex the regex
+     * @return true if the leading literal of the regex is required by every match
+     */
+    public static boolean hasSimpleStructure(String regex) {
+        int groupDepth = 0;
+        int classDepth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    return false;
+                }
+                i++;
+            } else if (c == '[') {
+                classDepth++;
+            } else if (c == ']' && classDepth > 0) {
+                classDepth--;
+            } else if (classDepth == 0) {
+                if (c == '(') {
+                    groupDepth++;
+                } else if (c == ')') {
+                    groupDepth--;
+                } else if (c == '|' && groupDepth == 0) {
+                    return false;
+                }
+            }
+        }
+        return groupDepth == 0 && classDepth == 0;
+    }
+
+}
@@ -44,6 +44,7 @@ public interface StudioConfiguration {
     String REPO_PUBLISHED_COMMIT_MESSAGE = "studio.repo.published.commitMessage";
     String REPO_PUBLISHED_LIVE = "studio.repo.published.live";
     String REPO_PUBLISHED_STAGING = "studio.repo.published.staging";
+    String REPO_PUBLISHED_INDEX_ONLY = "studio.repo.published.indexOnly";
     String REPO_SYNC_DB_COMMIT_MESSAGE_NO_PROCESSING = "studio.repo.syncDB.commitMessage.noProcessing";
     String REPO_CLEANUP_CRON = "studio.repo.cleanup.cron";
     String REPO_CREATE_REPOSITORY_COMMIT_MESSAGE = "studio.repo.createRepository.commitMessage";
@@ -66,6 +67,9 @@ public interface StudioConfiguration {
 
     String REPO_SYNC_EVENT_DELAY_MILLIS = "studio.repo.sync.event.delayMillis";
     String REPO_SYNC_EVENT_MAX_RESET_COUNT = "studio.repo.sync.event.maxResets";
+    String REPO_SYNC_METADATA_POOL_SIZE = "studio.repo.sync.metadata.poolSize";
+    String REPO_SYNC_METADATA_QUEUE_CAPACITY = "studio.repo.sync.metadata.queueCapacity";
+    String REPO_SYNC_METADATA_MAX_IN_FLIGHT = "studio.repo.sync.metadata.maxInFlight";
 
     /** Database */
     String DB_DRIVER = "studio.db.driver";
@@ -97,6 +101,7 @@ public interface StudioConfiguration {
     String DB_RETRYING_OPERATION_MAX_ATTEMPTS = "studio.db.retryingOperation.maxAttempts";
     String DB_RETRYING_OPERATION_MAX_SLEEP = "studio.db.retryingOperation.maxSleep";
     String DB_SCRIPT_RUNNER_BUFFER_SIZE = "studio.db.scriptRunner.bufferSize";
+    String DB_SYNC_WRITER_BATCH_SIZE = "studio.db.syncWriter.batchSize";
     String DB_BULK_OPERATIONS_BATCH_SIZE = "studio.db.bulkOperations.batchSize";
     String DB_POOL_REMOVE_ABANDONED_ON_BORROW = "studio.db.pool.removeAbandonedOnBorrow";
     String DB_POOL_REMOVE_ABANDONED_TIMEOUT = "studio.db.pool.removeAbandonedTimeout";
@@ -111,6 +116,8 @@ public interface StudioConfiguration {
     String CONFIGURATION_GLOBAL_PERMISSION_MAPPINGS_FILE_NAME = "studio.configuration.global.permissionMappingFileName";
     String CONFIGURATION_GLOBAL_UI_RESOURCE_OVERRIDE_PATH = "studio.configuration.global.ui.resource.override.path";
     String CONFIGURATION_GLOBAL_SYSTEM_SITE = "studio.configuration.global.systemSite";
+    String SITE_REGISTRY_ENABLED = "studio.site.registry.enabled";
+    String SITE_REGISTRY_POLL_INTERVAL = "studio.site.registry.pollInterval";
     String CONFIGURATION_SITE_CONFIG_BASE_PATH = "studio.configuration.site.configBasePath";
     String CONFIGURATION_SITE_CONFIG_BASE_PATH_PATTERN = "studio.configuration.site.configBasePathPattern";
     String CONFIGURATION_SITE_MUTLI_ENVIRONMENT_CONFIG_BASE_PATH =
@@ -228,6 +235,17 @@ public interface StudioConfiguration {
 
     /** Asset processing **/
     String CONFIGURATION_ASSET_PROCESSING_TINIFY_API_KEY = "studio.configuration.asset.processing.tinify.apiKey";
+    String CONFIGURATION_ASSET_PROCESSING_POOL_SIZE = "studio.configuration.asset.processing.poolSize";
+    String CONFIGURATION_ASSET_PROCESSING_QUEUE_CAPACITY = "studio.configuration.asset.processing.queueCapacity";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_MAX_PROCESSES =
+            "studio.configuration.asset.processing.imageMagick.maxProcesses";
+    String CONFIGURATION_ASSET_PROCESSING_IMAGE_MAGICK_TIMEOUT_SECS =
+            "studio.configuration.asset.processing.imageMagick.timeoutSecs";
+
+    /** Clipboard **/
+    String CONTENT_COPY_POOL_SIZE = "studio.content.copy.poolSize";
+    String CONTENT_COPY_QUEUE_CAPACITY = "studio.content.copy.queueCapacity";
+    String CLIPBOARD_PASTE_MAX_JOBS = "studio.clipboard.paste.maxJobs";
 
     /** Upgrade Configuration **/
     String UPGRADE_BRANCH_NAME = "studio.upgrade.branchName";
@@ -274,6 +292,14 @@ public interface StudioConfiguration {
             "studio.clockJob.task.publisher.executeEveryNCycles";
     String CLOCK_JOB_TASK_PUBLISHER_MAX_RETRY_COUNT =
             "studio.clockJob.task.publisher.maxRetryCount";
+    String CLOCK_JOB_TASK_PUBLISHING_HISTORY_IMPORT_EXECUTE_EVERY_N_CYCLES =
+            "studio.clockJob.task.publishingHistoryImport.executeEveryNCycles";
+    String CLOCK_JOB_TASK_PUBLISHING_HISTORY_IMPORT_MAX_COMMITS =
+            "studio.clockJob.task.publishingHistoryImport.maxCommits";
+    String PUBLISHING_SCHEDULER_ENABLED = "studio.publishing.scheduler.enabled";
+    String PUBLISHING_SCHEDULER_MAX_CONCURRENT_SITES = "studio.publishing.scheduler.maxConcurrentSites";
+    String PUBLISHING_SCHEDULER_RECONCILE_INTERVAL = "studio.publishing.scheduler.reconcileInterval";
+    String PUBLISHING_SCHEDULER_RETRY_DELAY = "studio.publishing.scheduler.retryDelay";
 
     String PLUGIN_BASE_PATTERN = "studio.configuration.plugin.base.pattern";
 
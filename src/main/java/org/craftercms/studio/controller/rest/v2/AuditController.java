@@ -36,6 +36,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import java.time.ZonedDateTime;
 import java.util.List;
@@ -74,12 +75,14 @@ public class AuditController {
             @ValidateStringParam(whitelistedPatterns = "(?i)date")
             @RequestParam(value = REQUEST_PARAM_SORT, required = false) String sort,
             @ValidateStringParam(whitelistedPatterns = "(?i)(ASC|DESC)")
-            @RequestParam(value = REQUEST_PARAM_ORDER, required = false) String order) throws SiteNotFoundException {
+            @RequestParam(value = REQUEST_PARAM_ORDER, required = false) String order,
+            @Positive @RequestParam(value = REQUEST_PARAM_AFTER_ID, required = false) Long afterId)
+            throws SiteNotFoundException {
         int total = auditService.getAuditLogTotal(siteId, user, operations, includeParameters, dateFrom,
                 dateTo, target, origin, clusterNodeId);
 
         List<AuditLog> auditLog = auditService.getAuditLog(siteId, offset, limit, user, operations,
-                includeParameters, dateFrom, dateTo, target, origin, clusterNodeId, sort, order);
+                includeParameters, dateFrom, dateTo, target, origin, clusterNodeId, sort, order, afterId);
 
         ResponseBody responseBody = new ResponseBody();
         PaginatedResultList<AuditLog> result = new PaginatedResultList<>();
@@ -184,6 +184,19 @@ public class ContentController {
     @Valid
     @PostMapping(value = PASTE_ITEMS, produces = APPLICATION_JSON_VALUE)
     public ResponseBody pasteItems(@Valid @RequestBody PasteRequest request) throws Exception {
+        if (request.isBackground()) {
+            var result = new ResultOne<String>();
+            result.setResponse(OK);
+            result.setEntity(RESULT_KEY_JOB_ID,
+                    clipboardService.pasteItemsInBackground(request.getSiteId(), request.getOperation(),
+                            request.getTargetPath(), request.getItem()));
+
+            var response = new ResponseBody();
+            response.setResult(result);
+
+            return response;
+        }
+
         var result = new ResultList<String>();
         result.setResponse(OK);
         result.setEntities(RESULT_KEY_ITEMS,
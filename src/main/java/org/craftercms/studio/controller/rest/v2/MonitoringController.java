@@ -45,6 +45,7 @@ import static org.craftercms.commons.monitoring.rest.MonitoringRestControllerBas
 import static org.craftercms.engine.controller.rest.MonitoringController.LOG_URL;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_EVENTS;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_MEMORY;
+import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_METRICS;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_STATUS;
 import static org.craftercms.studio.controller.rest.v2.ResultConstants.RESULT_KEY_VERSION;
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
@@ -58,6 +59,8 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @RequestMapping("/api/2")
 public class MonitoringController extends ManagementTokenAware {
 
+    public static final String METRICS_URL = "/metrics";
+
     protected final MonitorService monitorService;
 
     @ConstructorProperties({"studioConfiguration", "securityService", "monitorService"})
@@ -107,4 +110,14 @@ public class MonitoringController extends ManagementTokenAware {
         return result;
     }
 
+    @GetMapping(value = ROOT_URL + METRICS_URL, produces = APPLICATION_JSON_VALUE)
+    public ResultOne<Map<String, Map<String, Object>>> getMetrics(@RequestParam(name = "token", required = false) String token)
+        throws InvalidManagementTokenException, InvalidParametersException {
+        validateToken(token);
+        ResultOne<Map<String, Map<String, Object>>> result = new ResultOne<>();
+        result.setResponse(ApiResponse.OK);
+        result.setEntity(RESULT_KEY_METRICS, monitorService.getMetrics());
+        return result;
+    }
+
 }
@@ -20,6 +20,7 @@ public final class RequestConstants {
 
     public static final String REQUEST_PARAM_OFFSET = "offset";
     public static final String REQUEST_PARAM_LIMIT = "limit";
+    public static final String REQUEST_PARAM_AFTER_ID = "afterId";
     public static final String REQUEST_PARAM_SORT = "sort";
     public static final String REQUEST_PARAM_ID = "id";
     public static final String REQUEST_PARAM_SITE_ID = "site_id";
@@ -54,6 +54,7 @@ public final class ResultConstants {
     public static final String RESULT_KEY_VERSION = "version";
     public static final String RESULT_KEY_MEMORY = "memory";
     public static final String RESULT_KEY_EVENTS = "events";
+    public static final String RESULT_KEY_METRICS = "metrics";
 
     /* Repository management controller */
     public static final String RESULT_KEY_REMOTES = "remotes";
@@ -79,6 +80,7 @@ public final class ResultConstants {
     public static final String RESULT_KEY_XML = "xml";
     public static final String RESULT_KEY_CONTENT = "content";
     public static final String RESULT_KEY_EXISTS = "exists";
+    public static final String RESULT_KEY_JOB_ID = "jobId";
 
     /** Publish controller */
     public static final String RESULT_KEY_PACKAGES = "packages";
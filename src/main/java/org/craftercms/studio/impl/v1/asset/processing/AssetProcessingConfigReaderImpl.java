@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.PatternSyntaxException;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.configuration2.Configuration;
@@ -82,7 +83,12 @@ public class AssetProcessingConfigReaderImpl implements AssetProcessingConfigRea
     private ProcessorPipelineConfiguration readPipelineConfig(HierarchicalConfiguration pipelineConfig)
         throws AssetProcessingConfigurationException {
         ProcessorPipelineConfiguration mappedPipelineConfig = new ProcessorPipelineConfiguration();
-        mappedPipelineConfig.setInputPathPattern(getRequiredStringProperty(pipelineConfig, INPUT_PATH_PATTERN_CONFIG_KEY));
+        String inputPathPattern = getRequiredStringProperty(pipelineConfig, INPUT_PATH_PATTERN_CONFIG_KEY);
+        try {
+            mappedPipelineConfig.setInputPathPattern(inputPathPattern);
+        } catch (PatternSyntaxException e) {
+            throw new AssetProcessingConfigurationException("Invalid input path pattern '" + inputPathPattern + "'", e);
+        }
         mappedPipelineConfig.setKeepOriginal(pipelineConfig.getBoolean(KEEP_ORIGINAL_CONFIG_KEY, false));
 
         List<HierarchicalConfiguration> processorsConfig = getRequiredConfigurationsAt(pipelineConfig, PROCESSORS_CONFIG_KEY);
@@ -23,7 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.craftercms.studio.api.v1.asset.Asset;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessor;
@@ -76,8 +75,7 @@ public class AssetProcessorPipelineImpl implements AssetProcessorPipeline {
     }
 
     private Matcher matchForProcessing(ProcessorPipelineConfiguration config, Asset input) {
-        Pattern inputPathPattern = Pattern.compile(config.getInputPathPattern());
-        Matcher inputPathMatcher = inputPathPattern.matcher(input.getRepoPath());
+        Matcher inputPathMatcher = config.getCompiledInputPathPattern().matcher(input.getRepoPath());
 
         if (inputPathMatcher.matches()) {
             return inputPathMatcher;
@@ -193,15 +193,14 @@ public class AssetDmContentProcessor extends FormDmContentProcessor {
     protected void updateFile(String site, String relativePath, InputStream input,
                               String user, boolean isPreview, boolean unlock, ResultTO result)
             throws ServiceLayerException, UserNotFoundException {
-        boolean success;
+        String commitId;
         try {
-            success = contentService.writeContent(site, relativePath, input);
+            commitId = contentService.writeContentAndGetCommitId(site, relativePath, input);
         } finally {
             ContentUtils.release(input);
         }
 
-        if (success) {
-            String commitId = contentRepository.getRepoLastCommitId(site);
+        if (StringUtils.isNotEmpty(commitId)) {
             result.setCommitId(commitId);
 
             // if there is anything pending and this is not a preview update, cancel workflow
@@ -194,8 +194,7 @@ public class FormDmContentProcessor extends PathMatchProcessor implements DmCont
         String itemPath = parentItem.getUri() + FILE_SEPARATOR + fileName;
         itemPath = itemPath.replaceAll(FILE_SEPARATOR + FILE_SEPARATOR, FILE_SEPARATOR);
         try {
-            contentService.writeContent(site, itemPath, input);
-            String commitId = contentRepository.getRepoLastCommitId(site);
+            String commitId = contentService.writeContentAndGetCommitId(site, itemPath, input);
             result.setCommitId(commitId);
 
             // Item
@@ -236,15 +235,14 @@ public class FormDmContentProcessor extends PathMatchProcessor implements DmCont
                               boolean isPreview, boolean unlock, ResultTO result)
             throws ServiceLayerException, UserNotFoundException {
 
-        boolean success;
+        String commitId;
         try {
-            success = contentService.writeContent(site, path, input);
+            commitId = contentService.writeContentAndGetCommitId(site, path, input);
         } finally {
             ContentUtils.release(input);
         }
 
-        if (success) {
-            String commitId = contentRepository.getRepoLastCommitId(site);
+        if (StringUtils.isNotEmpty(commitId)) {
             result.setCommitId(commitId);
 
             // if there is anything pending and this is not a preview update, cancel workflow
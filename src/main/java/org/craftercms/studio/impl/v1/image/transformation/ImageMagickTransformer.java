@@ -15,22 +15,33 @@
  */
 package org.craftercms.studio.impl.v1.image.transformation;
 
-import java.io.IOException;
-import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.exception.ImageTransformationException;
 import org.craftercms.studio.api.v1.image.transformation.ImageTransformer;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner.ProcessResult;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner.ProcessTimeoutException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.lang.String.format;
+
 /**
  * Transformer that calls ImageMagick from the command line with the options specified in the parameters.
+ * <p>
+ * The process is run with a {@link ProcessRunner}, so it can't block on a full pipe and it is destroyed if it doesn't
+ * finish before the timeout. The number of processes running at the same time is limited, transformations that
+ * exceed it wait for a free slot.
+ * </p>
  *
  * @author avasquez
  * @see <a href="https://www.imagemagick.org/script/index.php">ImageMagick</a>
@@ -41,15 +52,23 @@ public class ImageMagickTransformer implements ImageTransformer {
 
     private static final String DEFAULT_IMG_MGK_PATH = "convert";
     private static final int DEFAULT_PROCESS_TIMEOUT_SECS = 30;
+    private static final int DEFAULT_MAX_CONCURRENT_PROCESSES = 4;
+    private static final int PROCESS_DESTROY_TIMEOUT_SECS = 5;
+    // Max number of bytes of each output stream kept for the logs and exception messages
+    private static final int MAX_OUTPUT_BYTES = 16 * 1024;
 
     private static final String PARAM_OPTIONS = "options";
 
     private String imgMgkPath;
     private int processTimeoutSecs;
+    private Semaphore processSlots;
+    private ProcessRunner processRunner;
 
     public ImageMagickTransformer() {
         imgMgkPath = DEFAULT_IMG_MGK_PATH;
         processTimeoutSecs = DEFAULT_PROCESS_TIMEOUT_SECS;
+        processSlots = new Semaphore(DEFAULT_MAX_CONCURRENT_PROCESSES, true);
+        processRunner = new ProcessRunner(processTimeoutSecs, PROCESS_DESTROY_TIMEOUT_SECS, MAX_OUTPUT_BYTES);
     }
 
     public void setImgMgkPath(String imgMgkPath) {
@@ -58,54 +77,77 @@ public class ImageMagickTransformer implements ImageTransformer {
 
     public void setProcessTimeoutSecs(int processTimeoutSecs) {
         this.processTimeoutSecs = processTimeoutSecs;
+        this.processRunner = new ProcessRunner(processTimeoutSecs, PROCESS_DESTROY_TIMEOUT_SECS, MAX_OUTPUT_BYTES);
+    }
+
+    public void setMaxConcurrentProcesses(int maxConcurrentProcesses) {
+        this.processSlots = new Semaphore(maxConcurrentProcesses, true);
     }
 
     public void transform(Path sourcePath, Path targetPath, Map<String, String> parameters) throws ImageTransformationException {
-        String cmdLine = createCmdLine(sourcePath, targetPath, parameters);
+        List<String> cmdLine = createCmdLine(sourcePath, targetPath, parameters);
 
         try {
-            logger.debug("Executing ImageMagick command '{}'", cmdLine);
-
-            Process proc = Runtime.getRuntime().exec(cmdLine);
-            // TODO: This might hang in certain OS. It's better to first read the stout and stderr before calling waitFor()
-            proc.waitFor(processTimeoutSecs, TimeUnit.SECONDS);
-
-            String stdOut = getProcessStdOut(proc);
-            String stdErr = getProcessStdErr(proc);
-
-            if (StringUtils.isNotEmpty(stdOut)) {
-                logger.debug("ImageMagick STDOUT for command '{}' is '{}'", cmdLine, stdOut);
-            }
-            if (StringUtils.isNotEmpty(stdErr)) {
-                logger.debug("ImageMagick STDERR for command '{}' is '{}'", cmdLine, stdErr);
+            // The wait for a slot counts towards the timeout, so a burst of uploads can't hold the callers forever
+            if (!processSlots.tryAcquire(processTimeoutSecs, TimeUnit.SECONDS)) {
+                throw new ImageTransformationException(format("Timeout while waiting to run ImageMagick command " +
+                        "'%s', there are too many transformations in progress", cmdLine));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImageTransformationException("Interrupted while waiting to run ImageMagick", e);
+        }
+        try {
+            runProcess(cmdLine);
+        } catch (ImageTransformationException e) {
+            throw e;
         } catch (Exception e) {
             throw new ImageTransformationException("Error while running Image Magick process from the command line", e);
+        } finally {
+            processSlots.release();
         }
     }
 
+    private void runProcess(List<String> cmdLine) throws Exception {
+        logger.debug("Executing ImageMagick command '{}'", cmdLine);
 
-    private String createCmdLine(Path sourcePath, Path targetPath, Map<String, String> parameters) {
-        StringBuilder cmdLine = new StringBuilder(imgMgkPath);
+        ProcessResult<String> result;
+        try {
+            // Nothing is sent to the process
+            result = processRunner.run(new ProcessBuilder(cmdLine), null,
+                    in -> ProcessRunner.readOutput(in, MAX_OUTPUT_BYTES));
+        } catch (ProcessTimeoutException e) {
+            throw new ImageTransformationException(format("Timeout while waiting for ImageMagick command '%s' " +
+                    "to exit, STDERR: '%s'", cmdLine, e.getErrorOutput()), e);
+        }
 
-        cmdLine.append(" ").append(sourcePath.toAbsolutePath().toString());
+        if (StringUtils.isNotEmpty(result.output())) {
+            logger.debug("ImageMagick STDOUT for command '{}' is '{}'", cmdLine, result.output());
+        }
+        if (StringUtils.isNotEmpty(result.errorOutput())) {
+            logger.debug("ImageMagick STDERR for command '{}' is '{}'", cmdLine, result.errorOutput());
+        }
 
-        String options = MapUtils.getString(parameters, PARAM_OPTIONS);
-        if (StringUtils.isNotEmpty(options)) {
-            cmdLine.append(" ").append(options);
+        if (result.exitValue() != 0) {
+            throw new ImageTransformationException(format("ImageMagick command '%s' failed with exit value " +
+                    "'%d', STDERR: '%s'", cmdLine, result.exitValue(), result.errorOutput()));
         }
+    }
 
-        cmdLine.append(" ").append(targetPath.toAbsolutePath().toString());
+    private List<String> createCmdLine(Path sourcePath, Path targetPath, Map<String, String> parameters) {
+        List<String> cmdLine = new ArrayList<>();
+        cmdLine.add(imgMgkPath);
+        cmdLine.add(sourcePath.toAbsolutePath().toString());
 
-        return cmdLine.toString();
-    }
+        // The options are split on whitespace, the same way the command line used to be split by Runtime.exec
+        String options = MapUtils.getString(parameters, PARAM_OPTIONS);
+        if (StringUtils.isNotEmpty(options)) {
+            cmdLine.addAll(Arrays.asList(StringUtils.split(options)));
+        }
 
-    private String getProcessStdOut(Process proc) throws IOException {
-        return IOUtils.toString(proc.getInputStream(), Charset.defaultCharset());
-    }
+        cmdLine.add(targetPath.toAbsolutePath().toString());
 
-    private String getProcessStdErr(Process proc) throws IOException {
-        return IOUtils.toString(proc.getErrorStream(), Charset.defaultCharset());
+        return cmdLine;
     }
 
 }
@@ -45,6 +45,7 @@ import org.craftercms.studio.api.v2.repository.RetryingRepositoryOperationFacade
 import org.craftercms.studio.api.v2.service.security.SecurityService;
 import org.craftercms.studio.api.v2.utils.GitRepositoryHelper;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.repository.GitPathIndexCache;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.errors.GitAPIException;
@@ -64,6 +65,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
 import org.springframework.web.context.ServletContextAware;
 
 import jakarta.servlet.ServletContext;
@@ -112,6 +114,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     protected GitRepositoryHelper helper;
     protected RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
     protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    protected GitPathIndexCache pathIndexCache;
 
     @Override
     public boolean contentExists(String site, String path) {
@@ -119,6 +122,14 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         try {
             Repository repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
             if (repo != null) {
+                String gitPath = helper.getGitPath(path);
+                if (StringUtils.isEmpty(gitPath) || gitPath.equals(".")) {
+                    return true;
+                }
+                GitPathIndexCache.Lookup lookup = pathIndexCache.lookup(site, repo, gitPath);
+                if (lookup != null) {
+                    return lookup.exists();
+                }
                 RevTree tree = helper.getTreeForLastCommit(repo);
                 try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
                     // Check if the array of items is not null, and since we have an absolute path to the item,
@@ -173,6 +184,10 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
             if (repo == null) {
                 throw new ContentNotFoundException("Repository not found for site " + site);
             }
+            GitPathIndexCache.Lookup lookup = pathIndexCache.lookup(site, repo, helper.getGitPath(path));
+            if (lookup != null) {
+                return lookup.isFile() ? repo.open(lookup.getObjectId(), OBJ_BLOB).openStream() : null;
+            }
             RevTree tree = helper.getTreeForLastCommit(repo);
             try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
                 // Check if the array of items is not null, and since we have an absolute path to the item,
@@ -196,18 +211,25 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
     public String writeContent(String site, String path, InputStream content) {
         // Write content to git and commit it
         String commitId = null;
+        // A grouped commit waits for other writers, so it needs to happen after releasing the lock
+        boolean groupCommit = helper.isGroupCommitEnabled(site);
+        Repository repo = null;
+        PersonIdent user = null;
+        String comment = null;
         String gitLockKey = helper.getSandboxRepoLockKey(site, true);
         generalLockService.lock(gitLockKey);
         try {
-            Repository repo = helper.getRepository(site, StringUtils.isEmpty(site)? GLOBAL: SANDBOX);
+            repo = helper.getRepository(site, StringUtils.isEmpty(site)? GLOBAL: SANDBOX);
             if (repo != null) {
                 if (helper.writeFile(repo, site, path, content)) {
-                    PersonIdent user = helper.getCurrentUserIdent();
+                    user = helper.getCurrentUserIdent();
                     String username = securityService.getCurrentUser();
-                    String comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
+                    comment = helper.getCommitMessage(REPO_SANDBOX_WRITE_COMMIT_MESSAGE)
                             .replace(REPO_COMMIT_MESSAGE_USERNAME_VAR, username)
                             .replace(REPO_COMMIT_MESSAGE_PATH_VAR, path);
-                    commitId = helper.commitFiles(repo, site, comment, user, path);
+                    if (!groupCommit) {
+                        commitId = helper.commitFiles(repo, site, comment, user, path);
+                    }
                 } else {
                     logger.error("Failed to write content to site '{}' path '{}'", site, path);
                 }
@@ -220,6 +242,10 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
             generalLockService.unlock(gitLockKey);
         }
 
+        if (groupCommit && comment != null) {
+            commitId = helper.commitFilesInGroup(repo, site, comment, user, path);
+        }
+
         return commitId;
     }
 
@@ -476,6 +502,59 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         return commitId;
     }
 
+    @Override
+    public String copyContent(String site, String fromPath, String toPath, Map<String, Resource> contents) {
+        String commitId = null;
+        List<String> paths = new ArrayList<>(contents.size());
+        boolean written = false;
+        String gitLockKey = helper.getSandboxRepoLockKey(site, true);
+        generalLockService.lock(gitLockKey);
+        Repository repo = null;
+        try {
+            repo = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
+            for (Map.Entry<String, Resource> entry : contents.entrySet()) {
+                // Git doesn't care about empty folders, so folders get a 0 byte file like in createFolder
+                String path = entry.getValue() != null ? entry.getKey() :
+                        Paths.get(entry.getKey(), EMPTY_FILE).toString();
+                paths.add(path);
+                try (InputStream content = entry.getValue() != null ? entry.getValue().getInputStream() :
+                        InputStream.nullInputStream()) {
+                    if (!helper.writeFileContent(repo, site, path, content)) {
+                        throw new IOException(format("Failed to write file '%s'", path));
+                    }
+                }
+            }
+
+            // All the copies go to the index in a single update and to the repository in a single commit
+            String[] pathsArray = paths.toArray(new String[0]);
+            if (helper.addFiles(repo, site, pathsArray)) {
+                commitId = helper.commitFiles(repo, site,
+                                                helper.getCommitMessage(REPO_COPY_CONTENT_COMMIT_MESSAGE)
+                                                    .replaceAll(PATTERN_FROM_PATH, fromPath)
+                                                    .replaceAll(PATTERN_TO_PATH, toPath),
+                                                helper.getCurrentUserIdent(),
+                                                pathsArray);
+            }
+            written = commitId != null;
+            if (!written) {
+                logger.error("Failed to copy '{}' items in site '{}' from path '{}' to path '{}'",
+                        contents.size(), site, fromPath, toPath);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to copy '{}' items in site '{}' from path '{}' to path '{}'",
+                    contents.size(), site, fromPath, toPath, e);
+        } finally {
+            if (!written && repo != null) {
+                // Don't leave the files of a failed copy behind, all the paths are new
+                File workTree = repo.getWorkTree();
+                paths.forEach(path -> FileUtils.deleteQuietly(new File(workTree, path)));
+            }
+            generalLockService.unlock(gitLockKey);
+        }
+
+        return commitId;
+    }
+
     @Override
     public RepositoryItem[] getContentChildren(String site, String path) {
         // TODO: SJ: Rethink this API call for 3.1+
@@ -826,6 +905,7 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         generalLockService.lock(gitLockKey);
         try {
             contextManager.destroyContext(site);
+            pathIndexCache.invalidate(site);
             Repository repository = helper.getRepository(site, StringUtils.isEmpty(site) ? GLOBAL : SANDBOX);
             if (repository != null) {
                 Repository publishedRepository = helper.getRepository(site, PUBLISHED);
@@ -1469,6 +1549,14 @@ public class GitContentRepository implements ContentRepository, ServletContextAw
         this.generalLockService = generalLockService;
     }
 
+    public GitPathIndexCache getPathIndexCache() {
+        return pathIndexCache;
+    }
+
+    public void setPathIndexCache(GitPathIndexCache pathIndexCache) {
+        this.pathIndexCache = pathIndexCache;
+    }
+
     public GitRepositoryHelper getHelper() {
         return helper;
     }
@@ -17,102 +17,158 @@ package org.craftercms.studio.impl.v1.service;
 
 import org.craftercms.commons.validation.annotations.param.ValidateStringParam;
 import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import jakarta.validation.Valid;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.endsWith;
+import static org.apache.commons.lang3.StringUtils.startsWith;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.GLOBAL_REPOSITORY_GIT_LOCK;
 
-public class GeneralLockServiceImpl implements GeneralLockService {
+/**
+ * Default implementation of {@link GeneralLockService}.
+ * <p>
+ * Locks are kept in a registry that counts the threads holding or waiting for each of them, once a lock is no
+ * longer used by any thread it is removed so the registry only grows with the number of locks in use.
+ * Acquisition statistics are tracked per {@link LockFamily} and exposed as metrics.
+ * </p>
+ */
+public class GeneralLockServiceImpl implements GeneralLockService, MetricsProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(GeneralLockServiceImpl.class);
 
     private static final String KEY_FORMAT_CONTENT_ITEM = "CONTENT_ITEM_%s_%s";
 
-    protected Map<String, ReentrantLock> nodeLocks = new HashMap<>();
+    protected final ConcurrentMap<String, LockEntry> nodeLocks = new ConcurrentHashMap<>();
+
+    protected final Map<LockFamily, LockStats> stats = new EnumMap<>(LockFamily.class);
+
+    public GeneralLockServiceImpl() {
+        for (LockFamily family : LockFamily.values()) {
+            stats.put(family, new LockStats());
+        }
+    }
 
     @Override
     @Valid
     public void lock(@ValidateStringParam String objectId) {
-        ReentrantLock nodeLock;
         if (logger.isDebugEnabled()) {
             logger.debug("Thread '{}' will attempt to lock object '{}'", Thread.currentThread().getName(), objectId);
         }
-        if (nodeLocks.containsKey(objectId)) {
-            // No need to synchronize if the lock already exists
-            nodeLock = nodeLocks.get(objectId);
-        } else {
-            synchronized (this) {
-                nodeLock = nodeLocks.computeIfAbsent(objectId, id -> new ReentrantLock());
-            }
-        }
+        LockEntry entry = acquireEntry(objectId);
+        LockStats lockStats = getStats(objectId);
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' will attempt to lock object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
         }
-        nodeLock.lock();
+        long start = System.nanoTime();
+        lockStats.waiting.incrementAndGet();
+        try {
+            entry.lock.lock();
+        } finally {
+            lockStats.waiting.decrementAndGet();
+        }
+        lockStats.acquired(entry, System.nanoTime() - start);
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' has locked object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
         }
     }
 
     @Override
     @Valid
     public boolean tryLock(@ValidateStringParam String objectId) {
-        ReentrantLock nodeLock;
         if (logger.isDebugEnabled()) {
             logger.debug("Thread '{}' will attempt to tryLock object '{}'", Thread.currentThread().getName(), objectId);
         }
-        synchronized (this) {
-            if (nodeLocks.containsKey(objectId)) {
-                nodeLock = nodeLocks.get(objectId);
-            } else {
-                nodeLock = new ReentrantLock();
-                nodeLocks.put(objectId, nodeLock);
-            }
-        }
+        LockEntry entry = acquireEntry(objectId);
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' will attempt to tryLock object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
+        }
+        boolean toRet = entry.lock.tryLock();
+        completeTryLock(objectId, entry, toRet, 0);
+        if (logger.isTraceEnabled()) {
+            logger.trace("Thread '{}' has completed tryLock on object '{}' using nodeLock '{}' with holdCount '{}'",
+                    Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
+        }
+        return toRet;
+    }
+
+    @Override
+    @Valid
+    public boolean tryLock(@ValidateStringParam String objectId, long timeout, TimeUnit unit) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Thread '{}' will attempt to tryLock object '{}' for up to '{}' {}",
+                    Thread.currentThread().getName(), objectId, timeout, unit);
+        }
+        LockEntry entry = acquireEntry(objectId);
+        LockStats lockStats = getStats(objectId);
+        long start = System.nanoTime();
+        boolean toRet = false;
+        lockStats.waiting.incrementAndGet();
+        try {
+            toRet = entry.lock.tryLock(timeout, unit);
+        } catch (InterruptedException e) {
+            logger.debug("Thread '{}' was interrupted while waiting for the lock on object '{}'",
+                    Thread.currentThread().getName(), objectId);
+            Thread.currentThread().interrupt();
+        } finally {
+            lockStats.waiting.decrementAndGet();
+            completeTryLock(objectId, entry, toRet, System.nanoTime() - start);
         }
-        boolean toRet = nodeLock.tryLock();
         if (logger.isTraceEnabled()) {
             logger.trace("Thread '{}' has completed tryLock on object '{}' using nodeLock '{}' with holdCount '{}'",
-                    Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                    Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
         }
         return toRet;
     }
 
+    @Override
+    public boolean isHeldByCurrentThread(String objectId) {
+        LockEntry entry = nodeLocks.get(objectId);
+        return entry != null && entry.lock.isHeldByCurrentThread();
+    }
+
     @Override
     @Valid
     public void unlock(@ValidateStringParam String objectId) {
-        ReentrantLock nodeLock;
         if (logger.isDebugEnabled()) {
             logger.debug("Thread '{}' will attempt to unlock object '{}'", Thread.currentThread().getName(), objectId);
         }
-        synchronized (this) {
-            nodeLock = nodeLocks.get(objectId);
-        }
-        if (nodeLock != null) {
+        LockEntry entry = nodeLocks.get(objectId);
+        if (entry != null) {
             if (logger.isTraceEnabled()) {
                 logger.trace("Thread '{}' will attempt to unlock object '{}' using nodeLock '{}' with holdCount '{}'",
-                        Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                        Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
+            }
+            // Fails if the current thread does not hold the lock, in that case the entry must not be released
+            entry.lock.unlock();
+            if (!entry.lock.isHeldByCurrentThread()) {
+                getStats(objectId).held.decrementAndGet();
             }
-            nodeLock.unlock();
+            releaseEntry(objectId);
             if (logger.isTraceEnabled()) {
                 logger.trace("Thread '{}' has completed unlock on object '{}' using nodeLock '{}' with holdCount '{}'",
-                        Thread.currentThread().getName(), objectId, nodeLock, nodeLock.getHoldCount());
+                        Thread.currentThread().getName(), objectId, entry.lock, entry.lock.getHoldCount());
             }
         } else {
-            if (logger.isDebugEnabled()) {
-                logger.error("Thread '{}' is unable to unlock object '{}' since the nodeLock was not found",
-                        Thread.currentThread().getName(), objectId);
-            }
+            logger.error("Thread '{}' is unable to unlock object '{}' since the nodeLock was not found",
+                    Thread.currentThread().getName(), objectId);
         }
     }
 
@@ -131,7 +187,157 @@ public class GeneralLockServiceImpl implements GeneralLockService {
         unlock(generateContentItemKey(siteId, path));
     }
 
+    @Override
+    public String getMetricsName() {
+        return "locks";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("activeLocks", nodeLocks.size());
+        stats.forEach((family, lockStats) -> metrics.put(family.getName(), lockStats.toMap()));
+
+        Map<String, String> holders = new TreeMap<>();
+        nodeLocks.forEach((key, entry) -> {
+            Thread owner = entry.lock.getOwner();
+            if (owner != null) {
+                holders.put(key, owner.getName());
+            }
+        });
+        metrics.put("holders", holders);
+        return metrics;
+    }
+
+    /**
+     * Returns the entry for the given key registering the current thread as one of its users
+     */
+    protected LockEntry acquireEntry(String objectId) {
+        return nodeLocks.compute(objectId, (key, entry) -> {
+            LockEntry toRet = entry != null ? entry : new LockEntry();
+            toRet.users++;
+            return toRet;
+        });
+    }
+
+    /**
+     * Unregisters the current thread as a user of the entry, removing it once no thread holds or waits for it
+     */
+    protected void releaseEntry(String objectId) {
+        nodeLocks.computeIfPresent(objectId, (key, entry) -> --entry.users > 0 ? entry : null);
+    }
+
+    protected void completeTryLock(String objectId, LockEntry entry, boolean locked, long waitNanos) {
+        LockStats lockStats = getStats(objectId);
+        if (locked) {
+            lockStats.acquired(entry, waitNanos);
+        } else {
+            lockStats.failed.increment();
+            releaseEntry(objectId);
+        }
+    }
+
+    protected LockStats getStats(String objectId) {
+        return stats.get(LockFamily.of(objectId));
+    }
+
     private String generateContentItemKey(String siteId, String path) {
         return format(KEY_FORMAT_CONTENT_ITEM, siteId, path);
     }
+
+    /**
+     * Groups lock keys by the kind of resource they protect
+     */
+    public enum LockFamily {
+        SANDBOX_REPOSITORY("sandboxRepository"),
+        PUBLISHED_REPOSITORY("publishedRepository"),
+        GLOBAL_REPOSITORY("globalRepository"),
+        SYNC_FROM_REPOSITORY("syncFromRepository"),
+        CLOCK_EXECUTOR_SITE("clockExecutorSite"),
+        PUBLISHING("publishing"),
+        CONTENT_ITEM("contentItem"),
+        OTHER("other");
+
+        private final String name;
+
+        LockFamily(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static LockFamily of(String objectId) {
+            if (endsWith(objectId, "_SANDBOX_REPOSITORY_GIT_LOCK")) {
+                return SANDBOX_REPOSITORY;
+            } else if (endsWith(objectId, "_PUBLISHED_REPOSITORY_GIT_LOCK")) {
+                return PUBLISHED_REPOSITORY;
+            } else if (GLOBAL_REPOSITORY_GIT_LOCK.equals(objectId)) {
+                return GLOBAL_REPOSITORY;
+            } else if (endsWith(objectId, "_SYNC_FROM_REPO_LOCK")) {
+                return SYNC_FROM_REPOSITORY;
+            } else if (endsWith(objectId, "_STUDIO_CLOCK_EXECUTOR_SITE_LOCK")) {
+                return CLOCK_EXECUTOR_SITE;
+            } else if (endsWith(objectId, "_PUBLISHING_LOCK")) {
+                return PUBLISHING;
+            } else if (startsWith(objectId, "CONTENT_ITEM_")) {
+                return CONTENT_ITEM;
+            }
+            return OTHER;
+        }
+    }
+
+    protected static class LockEntry {
+
+        protected final OwnerAwareLock lock = new OwnerAwareLock();
+
+        /**
+         * Number of threads holding or waiting for the lock, only modified inside the map's atomic operations
+         */
+        protected int users;
+
+    }
+
+    protected static class OwnerAwareLock extends ReentrantLock {
+
+        @Override
+        public Thread getOwner() {
+            return super.getOwner();
+        }
+
+    }
+
+    protected static class LockStats {
+
+        protected final AtomicInteger held = new AtomicInteger();
+        protected final AtomicInteger waiting = new AtomicInteger();
+        protected final LongAdder acquisitions = new LongAdder();
+        protected final LongAdder failed = new LongAdder();
+        protected final LongAdder totalWaitNanos = new LongAdder();
+        protected final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+        protected void acquired(LockEntry entry, long waitNanos) {
+            // Reentrant acquisitions don't add a new holder
+            if (entry.lock.getHoldCount() == 1) {
+                held.incrementAndGet();
+            }
+            acquisitions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+        }
+
+        protected Map<String, Object> toMap() {
+            long count = acquisitions.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("held", held.get());
+            map.put("waiting", waiting.get());
+            map.put("acquisitions", count);
+            map.put("failedAcquisitions", failed.sum());
+            map.put("averageWaitMillis", count > 0 ? TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.sum() / count) : 0);
+            map.put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            return map;
+        }
+
+    }
 }
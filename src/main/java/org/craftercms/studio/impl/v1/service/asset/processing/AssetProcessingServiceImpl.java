@@ -28,42 +28,67 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
+import com.google.common.cache.Cache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.lang.UrlUtils;
 import org.craftercms.commons.security.exception.PermissionException;
 import org.craftercms.studio.api.v1.asset.Asset;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessingConfigReader;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessorPipeline;
 import org.craftercms.studio.api.v1.asset.processing.AssetProcessorPipelineResolver;
+import org.craftercms.studio.api.v1.asset.processing.ProcessorConfiguration;
 import org.craftercms.studio.api.v1.asset.processing.ProcessorPipelineConfiguration;
+import org.craftercms.studio.api.v1.exception.AssetProcessingConfigurationException;
 import org.craftercms.studio.api.v1.exception.AssetProcessingException;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
+import org.craftercms.studio.api.v2.service.config.ConfigurationService;
+import org.craftercms.studio.impl.v2.repository.GitGroupCommitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.craftercms.studio.api.v1.service.asset.processing.AssetProcessingService;
 import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
 
 import static java.lang.String.format;
 import static org.craftercms.studio.api.v2.utils.StudioUtils.getStudioTemporaryFilesRoot;
 
 /**
  * Default implementation of {@link AssetProcessingService}.
- *
- * @author avasquez
+ * <p>
+ * The pipelines configuration of each site is parsed once and kept in the configuration cache until the file
+ * changes. Uploads that don't match any pipeline are written directly, the rest are copied to a temp file and
+ * processed by the matching pipelines, in parallel when a task executor is provided and no pipeline modifies the
+ * uploaded file in place. When group commits are enabled the outputs are written concurrently, so all the renditions
+ * of an upload end up in the same commit.
+ * </p>
  */
 public class AssetProcessingServiceImpl implements AssetProcessingService {
 
     private static final Logger logger = LoggerFactory.getLogger(AssetProcessingServiceImpl.class);
 
+    private static final String CACHE_KEY_SUFFIX = "object";
+
     private String configPath;
     private ContentService contentService;
     private AssetProcessingConfigReader configReader;
     private AssetProcessorPipelineResolver pipelineResolver;
+    private ConfigurationService configurationService;
+    private Cache<String, List<ProcessorPipelineConfiguration>> configurationCache;
+    private Executor taskExecutor;
+    private GitGroupCommitter groupCommitter;
 
     public AssetProcessingServiceImpl(String configPath, ContentService contentService, AssetProcessingConfigReader configReader,
                                       AssetProcessorPipelineResolver pipelineResolver) {
@@ -78,80 +103,54 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
                                             String allowedWidth, String allowedHeight, String allowLessSize, String draft,
                                             String unlock, String systemAsset) {
         String repoPath = UrlUtils.concat(folder, assetName);
-        InputStream configIn;
-
-        // TODO: SJ: Refactor with guard statements to reduce nesting and enhance readability
 
         try {
             contentService.checkWriteAssetPath(folder);
 
-            try {
-                configIn = contentService.getContent(site, configPath);
-            } catch (ContentNotFoundException e) {
-                // Ignore if file couldn't be found
-                configIn = null;
+            List<ProcessorPipelineConfiguration> pipelinesConfig = getMatchingPipelinesConfig(site, repoPath);
+            if (pipelinesConfig.isEmpty()) {
+                // Nothing to process, so there is no need to copy the input to a temp file
+                return contentService.writeContentAsset(site, folder, assetName, in, isImage, allowedWidth,
+                                                        allowedHeight, allowLessSize, draft, unlock, systemAsset);
             }
 
-            if (configIn != null) {
-                List<ProcessorPipelineConfiguration> pipelinesConfig = configReader.readConfig(configIn);
-                if (CollectionUtils.isNotEmpty(pipelinesConfig)) {
-                    Asset input = createAssetFromInputStream(repoPath, in);
-                    try {
-                        Set<Asset> finalOutputs = new LinkedHashSet<>();
-
-                        for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
-                            AssetProcessorPipeline pipeline = pipelineResolver.getPipeline(pipelineConfig);
-                            List<Asset> outputs = pipeline.processAsset(pipelineConfig, input);
-
-                            if (CollectionUtils.isNotEmpty(outputs)) {
-                                finalOutputs.addAll(outputs);
-                            }
-                        }
-
-                        if (CollectionUtils.isNotEmpty(finalOutputs)) {
-                            List<Map<String, Object>> results = writeOutputs(site, finalOutputs, isImage, allowedWidth, allowedHeight,
-                                                                             allowLessSize, draft, unlock, systemAsset);
-
-
-                            // Return first result for now, might be good in the future to consider returning several results or just
-                            // one main result specified by config -- Alfonso
-                            if (CollectionUtils.isNotEmpty(results)) {
-                                return results.get(0);
-                            } else {
-                                return Collections.emptyMap();
-                            }
-                        } else {
-                            // No outputs mean that the input wasn't matched by any pipeline and processing was skipped
-                            logger.debug("No pipeline matched for path '{}' in site '{}'. Skip asset processing ...",
-                                    repoPath, site);
-
-                            // We already read input so open the temp file
-                            try (InputStream assetIn = Files.newInputStream(input.getFilePath())) {
-                                return contentService.writeContentAsset(site, folder, assetName, assetIn, isImage, allowedWidth,
-                                                                        allowedHeight, allowLessSize, draft, unlock, systemAsset);
-                            }
-                        }
-                    } finally {
-                        try {
-                            Files.delete(input.getFilePath());
-                        } catch (IOException e) {
-                            // delete silently
-                        }
+            Asset input = createAssetFromInputStream(repoPath, in);
+            // Every temp file created by the processors, deleted once the outputs are written
+            Set<Path> tmpFiles = ConcurrentHashMap.newKeySet();
+            tmpFiles.add(input.getFilePath());
+            try {
+                Set<Asset> finalOutputs = runPipelines(pipelinesConfig, input, tmpFiles);
+
+                if (CollectionUtils.isNotEmpty(finalOutputs)) {
+                    List<Map<String, Object>> results = writeOutputs(site, finalOutputs, isImage, allowedWidth, allowedHeight,
+                                                                     allowLessSize, draft, unlock, systemAsset);
+
+                    // Return first result for now, might be good in the future to consider returning several results or just
+                    // one main result specified by config -- Alfonso
+                    if (CollectionUtils.isNotEmpty(results)) {
+                        return results.get(0);
+                    } else {
+                        return Collections.emptyMap();
                     }
                 } else {
-                    // Ignore if no pipelines config
-                    logger.debug("No asset processing pipelines config found at '{}' in site '{}'. " +
-                                    "Skip asset processing ...", repoPath, site);
+                    // No outputs mean that the input wasn't matched by any pipeline and processing was skipped
+                    logger.debug("No pipeline produced outputs for path '{}' in site '{}'. Skip asset processing ...",
+                            repoPath, site);
 
-                    return contentService.writeContentAsset(site, folder, assetName, in, isImage, allowedWidth, allowedHeight,
-                                                            allowLessSize, draft, unlock, systemAsset);
+                    // We already read input so open the temp file
+                    try (InputStream assetIn = Files.newInputStream(input.getFilePath())) {
+                        return contentService.writeContentAsset(site, folder, assetName, assetIn, isImage, allowedWidth,
+                                                                allowedHeight, allowLessSize, draft, unlock, systemAsset);
+                    }
+                }
+            } finally {
+                for (Path tmpFile : tmpFiles) {
+                    try {
+                        Files.deleteIfExists(tmpFile);
+                    } catch (IOException e) {
+                        // delete silently
+                    }
                 }
-            } else {
-                logger.debug("No asset processing config found at '{}' in site '{}'. Skip asset processing ...",
-                        repoPath, site);
-
-                return contentService.writeContentAsset(site, folder, assetName, in, isImage, allowedWidth, allowedHeight, allowLessSize,
-                                                        draft, unlock, systemAsset);
             }
         } catch (PermissionException e) {
             logger.error("Current user does not have the required permissions", e);
@@ -168,6 +167,119 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
         }
     }
 
+    /**
+     * Returns the configuration of the pipelines of the site whose input path pattern matches the given path
+     */
+    protected List<ProcessorPipelineConfiguration> getMatchingPipelinesConfig(String site, String repoPath)
+            throws AssetProcessingConfigurationException {
+        List<ProcessorPipelineConfiguration> pipelinesConfig = getPipelinesConfig(site);
+        if (pipelinesConfig.isEmpty()) {
+            logger.debug("No asset processing pipelines config found at '{}' in site '{}'. Skip asset processing ...",
+                    configPath, site);
+            return pipelinesConfig;
+        }
+
+        List<ProcessorPipelineConfiguration> matching = new ArrayList<>(pipelinesConfig.size());
+        for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
+            if (pipelineConfig.getCompiledInputPathPattern().matcher(repoPath).matches()) {
+                matching.add(pipelineConfig);
+            }
+        }
+        if (matching.isEmpty()) {
+            logger.debug("No pipeline matched for path '{}' in site '{}'. Skip asset processing ...", repoPath, site);
+        }
+        return matching;
+    }
+
+    /**
+     * Returns the configuration of the pipelines of the site, empty if the site has no configuration
+     */
+    protected List<ProcessorPipelineConfiguration> getPipelinesConfig(String site)
+            throws AssetProcessingConfigurationException {
+        if (configurationCache == null) {
+            return loadPipelinesConfig(site);
+        }
+        // The key is invalidated by the configuration service when the file changes
+        String cacheKey = configurationService.getCacheKey(site, null, configPath, null, CACHE_KEY_SUFFIX);
+        try {
+            return configurationCache.get(cacheKey, () -> loadPipelinesConfig(site));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof AssetProcessingConfigurationException configException) {
+                throw configException;
+            }
+            throw new AssetProcessingConfigurationException(format("Unable to load the asset processing config " +
+                    "of site '%s'", site), e);
+        }
+    }
+
+    protected List<ProcessorPipelineConfiguration> loadPipelinesConfig(String site)
+            throws AssetProcessingConfigurationException {
+        InputStream configIn;
+        try {
+            configIn = contentService.getContent(site, configPath);
+        } catch (ContentNotFoundException e) {
+            // Ignore if file couldn't be found
+            configIn = null;
+        }
+        if (configIn == null) {
+            logger.debug("No asset processing config found at '{}' in site '{}'", configPath, site);
+            return Collections.emptyList();
+        }
+
+        try (InputStream in = configIn) {
+            List<ProcessorPipelineConfiguration> pipelinesConfig = configReader.readConfig(in);
+            return pipelinesConfig != null ? List.copyOf(pipelinesConfig) : Collections.emptyList();
+        } catch (IOException e) {
+            throw new AssetProcessingConfigurationException(format("Unable to read the asset processing config " +
+                    "of site '%s'", site), e);
+        }
+    }
+
+    /**
+     * Runs the pipelines for the input and returns the outputs of all of them, in the order of the pipelines
+     */
+    protected Set<Asset> runPipelines(List<ProcessorPipelineConfiguration> pipelinesConfig, Asset input,
+                                      Set<Path> tmpFiles) throws AssetProcessingException {
+        Set<Asset> finalOutputs = new LinkedHashSet<>();
+
+        // A pipeline that writes to the input file changes the input of the pipelines after it, so they have to run
+        // one after the other
+        if (taskExecutor == null || pipelinesConfig.size() == 1 ||
+                pipelinesConfig.stream().anyMatch(this::modifiesInput)) {
+            for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
+                finalOutputs.addAll(runPipeline(pipelineConfig, input, tmpFiles));
+            }
+            return finalOutputs;
+        }
+
+        List<CompletableFuture<List<Asset>>> futures = new ArrayList<>(pipelinesConfig.size());
+        for (ProcessorPipelineConfiguration pipelineConfig : pipelinesConfig) {
+            futures.add(supplyAsync(() -> runPipeline(pipelineConfig, input, tmpFiles), false));
+        }
+        // Wait for all of them, even if one fails, so every temp file is known before cleaning up
+        List<List<Asset>> outputs = getResults(futures, "Error while running the asset processing pipelines");
+        outputs.forEach(finalOutputs::addAll);
+
+        return finalOutputs;
+    }
+
+    protected List<Asset> runPipeline(ProcessorPipelineConfiguration pipelineConfig, Asset input, Set<Path> tmpFiles)
+            throws AssetProcessingException {
+        AssetProcessorPipeline pipeline = pipelineResolver.getPipeline(pipelineConfig);
+        List<Asset> outputs = pipeline.processAsset(pipelineConfig, input);
+        if (CollectionUtils.isEmpty(outputs)) {
+            return Collections.emptyList();
+        }
+        outputs.forEach(output -> tmpFiles.add(output.getFilePath()));
+        return outputs;
+    }
+
+    private boolean modifiesInput(ProcessorPipelineConfiguration pipelineConfig) {
+        List<ProcessorConfiguration> processorsConfig = pipelineConfig.getProcessorsConfig();
+        return CollectionUtils.isNotEmpty(processorsConfig) &&
+                StringUtils.isEmpty(processorsConfig.get(0).getOutputPathFormat());
+    }
+
     private Asset createAssetFromInputStream(String repoPath, InputStream in) throws AssetProcessingException {
         try {
             Path tmpFile = Files.createTempFile(getStudioTemporaryFilesRoot(), FilenameUtils.getBaseName(repoPath), "." +
@@ -189,30 +301,110 @@ public class AssetProcessingServiceImpl implements AssetProcessingService {
                                                    String systemAsset) throws AssetProcessingException {
         List<Map<String, Object>> results = new ArrayList<>();
 
+        if (taskExecutor == null || outputs.size() == 1 || groupCommitter == null || !groupCommitter.isEnabled()) {
+            for (Asset output : outputs) {
+                addResult(results, writeOutput(site, output, isImage, allowedWidth, allowedHeight, allowLessSize,
+                        draft, unlock, systemAsset));
+            }
+            return results;
+        }
+
+        // Writes that run at the same time are committed together by the group committer
+        List<CompletableFuture<Map<String, Object>>> futures = new ArrayList<>(outputs.size());
         for (Asset output : outputs) {
+            futures.add(supplyAsync(() -> writeOutput(site, output, isImage, allowedWidth, allowedHeight,
+                    allowLessSize, draft, unlock, systemAsset), true));
+        }
+        for (Map<String, Object> result : getResults(futures, "Error writing outputs")) {
+            addResult(results, result);
+        }
+
+        return results;
+    }
+
+    private Map<String, Object> writeOutput(String site, Asset output, String isImage, String allowedWidth,
+                                            String allowedHeight, String allowLessSize, String draft, String unlock,
+                                            String systemAsset) throws AssetProcessingException {
+        try {
+            try (InputStream in = Files.newInputStream(output.getFilePath())) {
+                Map<String, Object> result =
+                        contentService.writeContentAsset(site,
+                                                      FilenameUtils.getFullPath(output.getRepoPath()),
+                                                      FilenameUtils.getName(output.getRepoPath()),
+                                                      in, isImage, allowedWidth, allowedHeight,
+                                                      allowLessSize, draft, unlock, systemAsset);
+                if (MapUtils.isNotEmpty(result) && result.containsKey("error")) {
+                    throw new AssetProcessingException("Error writing output " + output,
+                            (Exception)result.get("error"));
+                }
+                return result;
+            }
+        } catch (IOException | ServiceLayerException e) {
+            throw new AssetProcessingException("Error writing output " + output, e);
+        }
+    }
+
+    private void addResult(List<Map<String, Object>> results, Map<String, Object> result) {
+        if (MapUtils.isNotEmpty(result)) {
+            results.add(result);
+        }
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Callable<T> task, boolean withSecurityContext) {
+        // The writes check the permissions of the current user, so they need the security context of the request
+        Callable<T> callable = withSecurityContext ? new DelegatingSecurityContextCallable<>(task) : task;
+        return CompletableFuture.supplyAsync(() -> {
             try {
-                try (InputStream in = Files.newInputStream(output.getFilePath())) {
-                    Map<String, Object> result =
-                            contentService.writeContentAsset(site,
-                                                          FilenameUtils.getFullPath(output.getRepoPath()),
-                                                          FilenameUtils.getName(output.getRepoPath()),
-                                                          in, isImage, allowedWidth, allowedHeight,
-                                                          allowLessSize, draft, unlock, systemAsset);
-                    if (MapUtils.isNotEmpty(result)) {
-                        if (result.containsKey("error")) {
-                            throw new AssetProcessingException("Error writing output " + output,
-                                    (Exception)result.get("error"));
-                        } else {
-                            results.add(result);
-                        }
-                    }
+                return callable.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, taskExecutor);
+    }
+
+    /**
+     * Waits for all the futures and returns their results in order, throwing the first failure if any
+     */
+    private <T> List<T> getResults(List<CompletableFuture<T>> futures, String errorMessage)
+            throws AssetProcessingException {
+        List<T> results = new ArrayList<>(futures.size());
+        Throwable failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
                 }
-            } catch (IOException | ServiceLayerException e) {
-                throw new AssetProcessingException("Error writing output " + output, e);
             }
         }
+        if (failure == null) {
+            return results;
+        }
+        if (failure instanceof AssetProcessingException assetProcessingException) {
+            throw assetProcessingException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new AssetProcessingException(errorMessage, failure instanceof Exception exception ? exception :
+                new IllegalStateException(failure));
+    }
 
-        return results;
+    public void setConfigurationService(ConfigurationService configurationService) {
+        this.configurationService = configurationService;
+    }
+
+    public void setConfigurationCache(Cache<String, List<ProcessorPipelineConfiguration>> configurationCache) {
+        this.configurationCache = configurationCache;
+    }
+
+    public void setTaskExecutor(Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setGroupCommitter(GitGroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
     }
 
 }
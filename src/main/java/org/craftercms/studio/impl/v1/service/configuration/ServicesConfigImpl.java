@@ -28,6 +28,7 @@ import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
 import org.craftercms.studio.api.v1.service.content.ContentService;
 import org.craftercms.studio.api.v1.to.*;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
+import org.craftercms.studio.api.v2.utils.ContentTypeClassifier;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.impl.v1.util.ContentFormatUtils;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
@@ -702,6 +703,46 @@ public class ServicesConfigImpl implements ServicesConfig {
         return null;
     }
 
+    @Override
+    public ContentTypeClassifier getContentTypeClassifier(String site) {
+        SiteConfigTO config = getSiteConfig(site);
+        if (config == null) {
+            return buildContentTypeClassifier(null);
+        }
+        ContentTypeClassifier classifier = config.getContentTypeClassifier();
+        if (classifier == null) {
+            // Concurrent callers could build it more than once, they would all get equivalent instances
+            classifier = buildContentTypeClassifier(config.getRepositoryConfig());
+            config.setContentTypeClassifier(classifier);
+        }
+        return classifier;
+    }
+
+    /**
+     * Builds the content type classifier for the given configuration, the order of the rules defines the precedence
+     * of the classes
+     */
+    protected ContentTypeClassifier buildContentTypeClassifier(RepositoryConfigTO repositoryConfig) {
+        ContentTypeClassifier.Builder builder = new ContentTypeClassifier.Builder();
+        if (repositoryConfig != null) {
+            builder.withSuffix(CONTENT_TYPE_LEVEL_DESCRIPTOR,
+                            FILE_SEPARATOR + repositoryConfig.getLevelDescriptorName())
+                    .withPatterns(CONTENT_TYPE_PAGE, repositoryConfig.getPagePatterns())
+                    .withPatterns(CONTENT_TYPE_COMPONENT, repositoryConfig.getComponentPatterns())
+                    .withPatterns(CONTENT_TYPE_DOCUMENT, repositoryConfig.getDocumentPatterns())
+                    .withPatterns(CONTENT_TYPE_ASSET, repositoryConfig.getAssetPatterns())
+                    .withPatterns(CONTENT_TYPE_RENDERING_TEMPLATE, repositoryConfig.getRenderingTemplatePatterns());
+        }
+        builder.withPrefix(CONTENT_TYPE_CONTENT_TYPE,
+                        studioConfiguration.getProperty(CONFIGURATION_SITE_CONTENT_TYPES_CONFIG_BASE_PATH))
+                .withPatterns(CONTENT_TYPE_TAXONOMY, List.of(CONTENT_TYPE_TAXONOMY_REGEX));
+        if (repositoryConfig != null) {
+            builder.withPatterns(CONTENT_TYPE_SCRIPT, repositoryConfig.getScriptsPatterns())
+                    .withPatterns(CONTENT_TYPE_CONFIGURATION, repositoryConfig.getConfigurationPatterns());
+        }
+        return builder.build(CONTENT_TYPE_FILE);
+    }
+
     public void setContentService(ContentService contentService) {
 		this.contentService = contentService;
 	}
@@ -70,9 +70,11 @@ import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.util.ContentFormatUtils;
 import org.craftercms.studio.impl.v1.util.ContentItemOrderComparator;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
+import org.craftercms.studio.impl.v2.repository.GitGroupCommitter;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.craftercms.studio.impl.v2.utils.TimeUtils;
 import org.craftercms.studio.impl.v2.utils.spring.ContentResource;
+import org.craftercms.studio.model.clipboard.PasteItem;
 import org.craftercms.studio.model.policy.Type;
 import org.craftercms.studio.model.rest.Person;
 import org.dom4j.Document;
@@ -85,7 +87,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
+import org.springframework.security.concurrent.DelegatingSecurityContextCallable;
 import org.xml.sax.SAXException;
 
 import jakarta.validation.Valid;
@@ -93,6 +97,13 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -153,6 +164,8 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
 
     protected org.craftercms.studio.api.v2.service.content.ContentService contentServiceV2;
     private GeneralLockService generalLockService;
+    private GitGroupCommitter groupCommitter;
+    private Executor copyTaskExecutor;
 
     /**
      * file and folder name patterns for copied files and folders
@@ -648,6 +661,17 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
         return result;
     }
 
+    @Override
+    @Valid
+    @HasPermission(type = DefaultPermission.class, action = PERMISSION_CONTENT_WRITE)
+    public String writeContentAndGetCommitId(@SiteId String site,
+                                             @ProtectedResourceId(PATH_RESOURCE_ID) @ValidateSecurePathParam
+                                             String path,
+                                             InputStream content)
+            throws ServiceLayerException {
+        return _contentRepository.writeContent(site, path, content);
+    }
+
     /**
      * Notify when there is a content update
      * @param site site name
@@ -963,6 +987,242 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
         return retNewFileName;
     }
 
+    @Override
+    @Valid
+    @ValidateAction(type = Type.COPY)
+    public List<String> copyContentBulk(@ValidateStringParam @SiteId String site,
+                                        @ValidateSecurePathParam @ActionSourcePath String fromPath,
+                                        @ValidateSecurePathParam @ActionTargetPath String toPath,
+                                        List<PasteItem> children, BiConsumer<Integer, Integer> progressListener)
+            throws ServiceLayerException, UserNotFoundException {
+        PasteItem item = new PasteItem();
+        item.setPath(fromPath);
+        item.setChildren(children);
+        String syncFromRepoLockKey = StudioUtils.getSyncFromRepoLockKey(site);
+        generalLockService.lock(syncFromRepoLockKey);
+        try {
+            // Plan the whole tree first, the copies of the same source in different parents are different items
+            Map<String, BulkCopyItem> copies = new ConcurrentHashMap<>();
+            List<String> pastedPaths = new LinkedList<>();
+            List<BulkCopyItem> pending = new ArrayList<>();
+            planBulkCopy(site, List.of(item), toPath, copies, pending, pastedPaths);
+            if (pastedPaths.isEmpty()) {
+                throw new ContentNotFoundException(fromPath, site,
+                        format("No content found at path '%s' in site '%s'", fromPath, site));
+            }
+
+            // Rewrite the content in parallel, each round adds the copy dependencies found in the previous one
+            AtomicInteger rewritten = new AtomicInteger();
+            List<BulkCopyItem> treeOrder = new ArrayList<>();
+            while (!pending.isEmpty()) {
+                treeOrder.addAll(pending);
+                List<CompletableFuture<List<BulkCopyItem>>> futures = new ArrayList<>(pending.size());
+                for (BulkCopyItem copy : pending) {
+                    futures.add(supplyAsync(() -> {
+                        List<BulkCopyItem> dependencies = rewriteBulkCopyItem(site, copy, copies);
+                        if (progressListener != null) {
+                            progressListener.accept(rewritten.incrementAndGet(), copies.size());
+                        }
+                        return dependencies;
+                    }));
+                }
+                pending = new ArrayList<>();
+                for (List<BulkCopyItem> dependencies : getResults(futures)) {
+                    pending.addAll(dependencies);
+                }
+            }
+
+            // The nav orders are read and updated in the database, assign them one at a time so siblings don't get
+            // the same one
+            for (BulkCopyItem copy : treeOrder) {
+                if (copy.document != null) {
+                    writeBulkCopyDocument(site, copy);
+                }
+            }
+
+            String rootPath = pastedPaths.get(pastedPaths.size() - 1);
+            if (copies.get(rootPath).failed) {
+                throw new ServiceLayerException(format("Failed to copy content in site '%s' from '%s' to '%s'",
+                        site, fromPath, toPath));
+            }
+            // Items that could not be read are not copied
+            pastedPaths.removeIf(path -> copies.get(path).failed);
+
+            // Parents before children
+            Map<String, Resource> contents = new LinkedHashMap<>();
+            copies.values().stream()
+                    .filter(copy -> copy.folder || copy.content != null)
+                    .sorted(Comparator.comparing(copy -> copy.newPath))
+                    .forEach(copy -> contents.put(copy.newPath, copy.content));
+            String commitId = _contentRepository.copyContent(site, fromPath, rootPath, contents);
+            if (commitId == null) {
+                throw new ServiceLayerException(format("Failed to copy '%s' items in site '%s' from '%s' to '%s'",
+                        contents.size(), site, fromPath, toPath));
+            }
+            logger.debug("Copied '{}' items in site '{}' from '{}' to '{}' in commit '{}'",
+                    contents.size(), site, fromPath, rootPath, commitId);
+
+            String user = securityService.getCurrentUser();
+            for (BulkCopyItem copy : copies.values()) {
+                if (copy.content != null && StringUtils.isNotEmpty(copy.contentType) &&
+                        copy.newPath.endsWith(DmConstants.XML_PATTERN)) {
+                    dmContentLifeCycleService.process(site, user, copy.newPath, copy.contentType,
+                            DmContentLifeCycleService.ContentLifeCycleOperation.COPY, null);
+                }
+            }
+
+            applicationContext.publishEvent(new ContentEvent(securityService.getAuthentication(), site, toPath));
+            return pastedPaths;
+        } finally {
+            generalLockService.unlock(syncFromRepoLockKey);
+        }
+    }
+
+    /**
+     * Calculates the new path of the given items and their children, in the same way as
+     * {@link #copyContent(String, String, String)} does for each one of them
+     */
+    protected void planBulkCopy(String site, List<PasteItem> items, String toPath, Map<String, BulkCopyItem> copies,
+                                List<BulkCopyItem> pending, List<String> pastedPaths) throws ServiceLayerException {
+        for (PasteItem item : items) {
+            ContentItemTO fromItem = getContentItem(site, item.getPath(), 0);
+            if (fromItem == null || fromItem.isDeleted()) {
+                logger.debug("Content not found while planning the copy in site '{}' from '{}' to '{}'",
+                        site, item.getPath(), toPath);
+                continue;
+            }
+            BulkCopyItem copy = new BulkCopyItem(item.getPath(),
+                    constructNewPathForCutCopy(site, item.getPath(), toPath, true), fromItem);
+            if (copies.putIfAbsent(copy.newPath, copy) == null) {
+                pending.add(copy);
+            }
+            if (isNotEmpty(item.getChildren())) {
+                planBulkCopy(site, item.getChildren(), copy.newPath, copies, pending, pastedPaths);
+            }
+            pastedPaths.add(copy.newPath);
+        }
+    }
+
+    /**
+     * Rewrites the content of a planned copy with new ids and names, and plans the copy of its dependencies
+     *
+     * @return the copies of the dependencies that were not already planned
+     */
+    protected List<BulkCopyItem> rewriteBulkCopyItem(String site, BulkCopyItem copy,
+                                                     Map<String, BulkCopyItem> copies)
+            throws ServiceLayerException, IOException {
+        if (copy.folder) {
+            return Collections.emptyList();
+        }
+        if (!copy.newPath.endsWith(DmConstants.XML_PATTERN)) {
+            // Binary content is streamed from the source when the copies are written
+            copy.content = new ContentResource(this, site, copy.fromPath);
+            return Collections.emptyList();
+        }
+
+        List<BulkCopyItem> planned = new ArrayList<>();
+        Document fromDocument;
+        try (InputStream fromContent = getContent(site, copy.fromPath)) {
+            fromDocument = ContentUtils.convertStreamToXml(fromContent);
+        } catch (ContentNotFoundException | DocumentException e) {
+            logger.error("Failed to copy content in site '{}' from '{}', new name is '{}'",
+                    site, copy.fromPath, copy.newPath, e);
+            copy.failed = true;
+            return planned;
+        }
+        Map<String, String> fromPageIds = getContentIds(fromDocument);
+        Map<String, String> copyObjectIds = contentItemIdGenerator.getIds();
+
+        Map<String, String> copyDependencies = getCopyDependencies(site, copy.fromPath, copy.fromPath);
+        copyDependencies = getItemSpecificDependencies(site, copy.fromPath, fromDocument, copyDependencies);
+        for (Map.Entry<String, String> dependency : copyDependencies.entrySet()) {
+            String copyDepPath = dependency.getValue()
+                    .replaceAll(fromPageIds.get(KEY_PAGE_ID), copyObjectIds.get(KEY_PAGE_ID))
+                    .replaceAll(fromPageIds.get(KEY_PAGE_GROUP_ID), copyObjectIds.get(KEY_PAGE_GROUP_ID));
+            ContentItemTO targetPathItem = getContentItem(site, copyDepPath);
+            if (targetPathItem != null && targetPathItem.isFolder()) {
+                copyDepPath = (copyDepPath + FILE_SEPARATOR + FilenameUtils.getName(dependency.getKey()))
+                        .replaceAll(FILE_SEPARATOR + FILE_SEPARATOR, FILE_SEPARATOR);
+            } else if (!copyDepPath.endsWith(DmConstants.XML_PATTERN)) {
+                copyDepPath = ContentUtils.getParentUrl(copyDepPath);
+            }
+
+            ContentItemTO dependencyItem = getContentItem(site, dependency.getKey(), 0);
+            if (dependencyItem == null || dependencyItem.isDeleted()) {
+                continue;
+            }
+            BulkCopyItem dependencyCopy = new BulkCopyItem(dependency.getKey(),
+                    constructNewPathForCutCopy(site, dependency.getKey(), copyDepPath, true), dependencyItem);
+            if (copies.putIfAbsent(dependencyCopy.newPath, dependencyCopy) == null) {
+                planned.add(dependencyCopy);
+            }
+            fromDocument = replaceCopyDependency(fromDocument, dependency.getKey(), dependencyCopy.newPath);
+        }
+
+        copy.document = updateContentOnCopy(fromDocument, copy.pathMap.fileName, copy.pathMap.fileFolder,
+                copyObjectIds, copy.pathMap.modifier);
+        return planned;
+    }
+
+    /**
+     * Assigns the nav order of a rewritten copy and serializes its content
+     */
+    protected void writeBulkCopyDocument(String site, BulkCopyItem copy) throws IOException {
+        dmPageNavigationOrderService.addNavOrder(site,
+                copy.newPath.substring(0, copy.newPath.lastIndexOf(FILE_SEPARATOR)), copy.document);
+        try (InputStream copyContent = ContentUtils.convertDocumentToStream(copy.document, CONTENT_ENCODING)) {
+            copy.content = new ByteArrayResource(IOUtils.toByteArray(copyContent));
+        }
+        copy.document = null;
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(Callable<T> task) {
+        if (copyTaskExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(task.call());
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        // The content is read with the permissions of the current user
+        Callable<T> callable = new DelegatingSecurityContextCallable<>(task);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return callable.call();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, copyTaskExecutor);
+    }
+
+    /**
+     * Waits for all the futures and returns their results in order, throwing the first failure if any
+     */
+    private <T> List<T> getResults(List<CompletableFuture<T>> futures) throws ServiceLayerException {
+        List<T> results = new ArrayList<>(futures.size());
+        Throwable failure = null;
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() != null ? e.getCause() : e;
+                }
+            }
+        }
+        if (failure == null) {
+            return results;
+        }
+        if (failure instanceof ServiceLayerException serviceLayerException) {
+            throw serviceLayerException;
+        }
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        throw new ServiceLayerException("Failed to rewrite the content of the copies",
+                failure instanceof Exception exception ? exception : new IllegalStateException(failure));
+    }
+
     protected Document replaceCopyDependency(Document document, String depPath, String copyDepPath) {
         Element root = document.getRootElement();
         List<Node> includes = root.selectNodes(COPY_DEP_XPATH.replace(COPY_DEP, depPath));
@@ -2268,41 +2528,13 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
     @Override
     @Valid
     public String getContentTypeClass(@ValidateStringParam String site, String uri) {
-        // TODO: SJ: This reads: if can't guess what it is, it's a page. This is to be replaced in 3.1+
-        if (uri.endsWith(FILE_SEPARATOR + servicesConfig.getLevelDescriptorName(site))) {
-            return CONTENT_TYPE_LEVEL_DESCRIPTOR;
-        } else if (matchesPatterns(uri, servicesConfig.getPagePatterns(site))) {
-            return CONTENT_TYPE_PAGE;
-        } else if (matchesPatterns(uri, servicesConfig.getComponentPatterns(site))) {
-            return CONTENT_TYPE_COMPONENT;
-        } else if (matchesPatterns(uri, servicesConfig.getDocumentPatterns(site))) {
-            return CONTENT_TYPE_DOCUMENT;
-        } else if (matchesPatterns(uri, servicesConfig.getAssetPatterns(site))) {
-            return CONTENT_TYPE_ASSET;
-        } else if (matchesPatterns(uri, servicesConfig.getRenderingTemplatePatterns(site))) {
-            return CONTENT_TYPE_RENDERING_TEMPLATE;
-        } else if (StringUtils.startsWith(uri, contentTypeService.getConfigPath())) {
-            return CONTENT_TYPE_CONTENT_TYPE;
-        } else if (matchesPatterns(uri, List.of(CONTENT_TYPE_TAXONOMY_REGEX))) {
-            return CONTENT_TYPE_TAXONOMY;
-        } else if (matchesPatterns(uri, servicesConfig.getScriptsPatterns(site))) {
-            return CONTENT_TYPE_SCRIPT;
-        } else if (matchesPatterns(uri, servicesConfig.getConfigurationPatterns(site))) {
-            return CONTENT_TYPE_CONFIGURATION;
-        }
-
-        return CONTENT_TYPE_FILE;
+        return servicesConfig.getContentTypeClassifier(site).classify(uri);
     }
 
-    protected boolean matchesPatterns(String uri, List<String> patterns) {
-        if (patterns != null) {
-            for (String pattern : patterns) {
-                if (uri.matches(pattern)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    @Override
+    @Valid
+    public Map<String, String> getContentTypeClasses(@ValidateStringParam String site, Collection<String> paths) {
+        return servicesConfig.getContentTypeClassifier(site).classify(paths);
     }
 
     @Valid
@@ -2321,14 +2553,29 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
         }
         String gitLockKey = StudioUtils.getSandboxRepoLockKey(siteId);
         String syncFromRepoLockKey = StudioUtils.getSyncFromRepoLockKey(siteId);
-        generalLockService.lock(gitLockKey);
-        generalLockService.lock(syncFromRepoLockKey);
         ResultTO to = null;
-        try {
-            to = contentProcessor.processContent(id, input, isXml, params, contentChainForm);
-        } finally {
-            generalLockService.unlock(gitLockKey);
-            generalLockService.unlock(syncFromRepoLockKey);
+        if (groupCommitter != null && groupCommitter.isEnabled() &&
+                !generalLockService.isHeldByCurrentThread(gitLockKey) &&
+                !generalLockService.isHeldByCurrentThread(syncFromRepoLockKey)) {
+            // Writes of different items run concurrently so their commits can be grouped, the item lock keeps the
+            // writes of the same item in order and the write gate keeps the sync from the repository out
+            groupCommitter.beginWrite(siteId);
+            generalLockService.lockContentItem(siteId, id);
+            try {
+                to = contentProcessor.processContent(id, input, isXml, params, contentChainForm);
+            } finally {
+                generalLockService.unlockContentItem(siteId, id);
+                groupCommitter.endWrite(siteId);
+            }
+        } else {
+            generalLockService.lock(gitLockKey);
+            generalLockService.lock(syncFromRepoLockKey);
+            try {
+                to = contentProcessor.processContent(id, input, isXml, params, contentChainForm);
+            } finally {
+                generalLockService.unlock(gitLockKey);
+                generalLockService.unlock(syncFromRepoLockKey);
+            }
         }
 
         if (logger.isDebugEnabled()) {
@@ -2838,6 +3085,14 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
         this.generalLockService = generalLockService;
     }
 
+    public void setGroupCommitter(GitGroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
+    }
+
+    public void setCopyTaskExecutor(Executor copyTaskExecutor) {
+        this.copyTaskExecutor = copyTaskExecutor;
+    }
+
     /**
      * Simple Object to hold result of calculating target paths for copy/cut and paste operation.
      */
@@ -2849,4 +3104,35 @@ public class ContentServiceImpl implements ContentService, ApplicationContextAwa
         protected boolean altName;
     }
 
+    /**
+     * A single item of a bulk copy
+     */
+    protected static class BulkCopyItem {
+        protected final String fromPath;
+        protected final String newPath;
+        protected final PastedPathMap pathMap;
+        protected final boolean folder;
+        protected final String contentType;
+        /**
+         * The rewritten XML content, until its nav order is assigned
+         */
+        protected volatile Document document;
+        /**
+         * The content to write, null for folders and for items that could not be read
+         */
+        protected volatile Resource content;
+        /**
+         * If the content could not be read, the item is not copied
+         */
+        protected volatile boolean failed;
+
+        protected BulkCopyItem(String fromPath, PastedPathMap pathMap, ContentItemTO fromItem) {
+            this.fromPath = fromPath;
+            this.newPath = pathMap.filePath;
+            this.pathMap = pathMap;
+            this.folder = fromItem.isFolder();
+            this.contentType = fromItem.getContentType();
+        }
+    }
+
 }
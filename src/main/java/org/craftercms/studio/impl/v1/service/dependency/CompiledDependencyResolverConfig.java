@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.DOTALL;
+
+/**
+ * Dependency resolver configuration with all the regular expressions already compiled, so it can be reused for every
+ * item of a site until the configuration changes.
+ */
+public class CompiledDependencyResolverConfig {
+
+    /**
+     * Used to apply the replacement of a split transform to each of the values, with the value as the only group
+     */
+    private static final Pattern SPLIT_VALUE = Pattern.compile("(.*)", DOTALL);
+
+    protected final List<ItemType> itemTypes = new ArrayList<>();
+
+    public CompiledDependencyResolverConfig(DependencyResolverConfigTO config) {
+        if (config.getItemTypes() != null) {
+            // Keep the same order the item types are checked in the configuration object
+            config.getItemTypes().values().forEach(itemType -> itemTypes.add(new ItemType(itemType)));
+        }
+    }
+
+    /**
+     * Returns the first item type that includes the path, or null if dependencies shouldn't be extracted
+     *
+     * @param path the path of the item
+     * @return the item type
+     */
+    public ItemType getItemType(String path) {
+        for (ItemType itemType : itemTypes) {
+            if (itemType.matches(path)) {
+                return itemType;
+            }
+        }
+        return null;
+    }
+
+    public static class ItemType {
+
+        protected final List<Pattern> includes;
+        protected final List<Pattern> excludes;
+        protected final Set<String> dependencyTypes = new LinkedHashSet<>();
+
+        /**
+         * Dependency type and transforms for each pattern of the scanner
+         */
+        protected final List<String> patternDependencyTypes = new ArrayList<>();
+        protected final List<List<Transform>> patternTransforms = new ArrayList<>();
+        protected final MultiPatternScanner scanner;
+
+        protected ItemType(DependencyResolverConfigTO.ItemType itemType) {
+            includes = compile(itemType.getIncludes());
+            excludes = compile(itemType.getExcludes());
+            List<Pattern> findPatterns = new ArrayList<>();
+            for (DependencyResolverConfigTO.DependencyType dependencyType : itemType.getDependencyTypes().values()) {
+                dependencyTypes.add(dependencyType.getName());
+                for (DependencyResolverConfigTO.DependencyExtractionPattern pattern : dependencyType.getIncludes()) {
+                    findPatterns.add(Pattern.compile(pattern.getFindRegex()));
+                    patternDependencyTypes.add(dependencyType.getName());
+                    List<Transform> transforms = new ArrayList<>();
+                    if (pattern.getTransforms() != null) {
+                        pattern.getTransforms().forEach(transform -> transforms.add(new Transform(transform)));
+                    }
+                    patternTransforms.add(transforms);
+                }
+            }
+            scanner = new MultiPatternScanner(findPatterns);
+        }
+
+        public boolean matches(String path) {
+            return matchesAny(path, includes) && !matchesAny(path, excludes);
+        }
+
+        /**
+         * @return the names of all the dependency types of the item type
+         */
+        public Set<String> getDependencyTypes() {
+            return Collections.unmodifiableSet(dependencyTypes);
+        }
+
+        /**
+         * Extracts the dependency paths from the content
+         *
+         * @param content the content of the item
+         * @param consumer receives the dependency type and the path of each dependency found
+         */
+        public void extract(String content, BiConsumer<String, String> consumer) {
+            scanner.scan(content, (index, value) -> {
+                String dependencyType = patternDependencyTypes.get(index);
+                List<Transform> transforms = patternTransforms.get(index);
+                if (transforms.isEmpty()) {
+                    consumer.accept(dependencyType, value);
+                    return;
+                }
+                // Each transform works on the result of the previous one, and all the results are dependencies
+                String matchedValue = value;
+                for (Transform transform : transforms) {
+                    Matcher matcher = transform.match.matcher(matchedValue);
+                    if (transform.split) {
+                        if (matcher.matches()) {
+                            matchedValue = matcher.group(1);
+                            for (String splitValue : transform.delimiter.split(matchedValue)) {
+                                consumer.accept(dependencyType,
+                                        SPLIT_VALUE.matcher(splitValue).replaceFirst(transform.replace));
+                            }
+                        }
+                    } else {
+                        matchedValue = matcher.replaceAll(transform.replace);
+                        consumer.accept(dependencyType, matchedValue);
+                    }
+                }
+            });
+        }
+
+        private static List<Pattern> compile(List<String> regexes) {
+            List<Pattern> patterns = new ArrayList<>();
+            if (regexes != null) {
+                regexes.forEach(regex -> patterns.add(Pattern.compile(regex)));
+            }
+            return patterns;
+        }
+
+        private static boolean matchesAny(String path, List<Pattern> patterns) {
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(path).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    protected static class Transform {
+
+        protected final Pattern match;
+        protected final String replace;
+        protected final boolean split;
+        protected final Pattern delimiter;
+
+        protected Transform(DependencyResolverConfigTO.DependencyExtractionTransform transform) {
+            match = Pattern.compile(transform.getMatch());
+            replace = transform.getReplace();
+            split = transform.isSplit();
+            delimiter = split ? Pattern.compile(transform.getDelimiter()) : null;
+        }
+
+    }
+
+}
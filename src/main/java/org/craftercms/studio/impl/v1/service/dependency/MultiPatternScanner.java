@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.craftercms.studio.api.v2.utils.RegexPrefixUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the matches of several regular expressions in a single pass over the content.
+ * <p>
+ * Most find patterns start with a literal (a path like {@code /site/components/} or a tag like
+ * {@code <content-type>}), and a match can only start where that literal occurs. The scanner walks the content once
+ * looking for the literals of all patterns at the same time, and only runs the regex anchored at those positions.
+ * The matches are the same ones {@link Matcher#find()} returns for each pattern on its own, including matches of
+ * different patterns that overlap. Patterns without a literal prefix fall back to {@link Matcher#find()}.
+ * </p>
+ */
+public class MultiPatternScanner {
+
+    protected final Pattern[] patterns;
+    protected final String[] prefixes;
+
+    /**
+     * Distinct first characters of the prefixes, and the patterns for each one of them
+     */
+    protected final char[] firstChars;
+    protected final int[][] patternsByFirstChar;
+    protected final int[] unindexedPatterns;
+
+    public MultiPatternScanner(List<Pattern> patterns) {
+        this.patterns = patterns.toArray(new Pattern[0]);
+        prefixes = new String[this.patterns.length];
+
+        StringBuilder chars = new StringBuilder();
+        List<List<Integer>> indexed = new ArrayList<>();
+        List<Integer> unindexed = new ArrayList<>();
+        for (int i = 0; i < this.patterns.length; i++) {
+            String prefix = getLiteralPrefix(this.patterns[i]);
+            prefixes[i] = prefix;
+            if (prefix == null) {
+                unindexed.add(i);
+                continue;
+            }
+            int charIndex = chars.indexOf(String.valueOf(prefix.charAt(0)));
+            if (charIndex < 0) {
+                charIndex = chars.length();
+                chars.append(prefix.charAt(0));
+                indexed.add(new ArrayList<>());
+            }
+            indexed.get(charIndex).add(i);
+        }
+        firstChars = chars.toString().toCharArray();
+        patternsByFirstChar = indexed.stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+        unindexedPatterns = unindexed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Scans the content, calling the handler for every match of every pattern
+     *
+     * @param content the content to scan
+     * @param handler the handler for the matches
+     */
+    public void scan(CharSequence content, MatchHandler handler) {
+        for (int index : unindexedPatterns) {
+            Matcher matcher = patterns[index].matcher(content);
+            while (matcher.find()) {
+                handler.onMatch(index, matcher.group());
+            }
+        }
+        if (firstChars.length == 0) {
+            return;
+        }
+
+        int length = content.length();
+        Matcher[] matchers = new Matcher[patterns.length];
+        // Position where the next match of each pattern can start, matches of the same pattern don't overlap
+        int[] nextStart = new int[patterns.length];
+        for (int position = 0; position < length; position++) {
+            int charIndex = indexOf(firstChars, content.charAt(position));
+            if (charIndex < 0) {
+                continue;
+            }
+            for (int index : patternsByFirstChar[charIndex]) {
+                if (position < nextStart[index] || !startsWith(content, prefixes[index], position)) {
+                    continue;
+                }
+                Matcher matcher = matchers[index];
+                if (matcher == null) {
+                    // Lookarounds and boundaries need to see the content outside the region
+                    matcher = patterns[index].matcher(content).useTransparentBounds(true).useAnchoringBounds(false);
+                    matchers[index] = matcher;
+                }
+                matcher.region(position, length);
+                if (matcher.lookingAt()) {
+                    handler.onMatch(index, matcher.group());
+                    nextStart[index] = Math.max(matcher.end(), position + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the literal text every match of the pattern starts with, or null if it can't be determined
+     */
+    protected static String getLiteralPrefix(Pattern pattern) {
+        if (pattern.flags() != 0) {
+            return null;
+        }
+        String prefix = RegexPrefixUtils.getLiteralPrefix(pattern.pattern());
+        return prefix.isEmpty() ? null : prefix;
+    }
+
+    private static int indexOf(char[] chars, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(CharSequence content, String prefix, int position) {
+        if (position + prefix.length() > content.length()) {
+            return false;
+        }
+        for (int i = 1; i < prefix.length(); i++) {
+            if (content.charAt(position + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Receives the matches found by the scanner
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+
+        /**
+         * @param pattern the index of the pattern that matched
+         * @param value the matched value
+         */
+        void onMatch(int pattern, String value);
+
+    }
+
+}
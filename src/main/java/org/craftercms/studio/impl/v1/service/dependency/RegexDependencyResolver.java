@@ -16,7 +16,7 @@
 
 package org.craftercms.studio.impl.v1.service.dependency;
 
-import org.apache.commons.collections4.CollectionUtils;
+import com.google.common.cache.Cache;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,7 +25,6 @@ import org.craftercms.studio.api.v1.service.dependency.DependencyResolver;
 import org.craftercms.studio.api.v1.to.DependencyResolverConfigTO;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
-import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.dom4j.Document;
 import org.dom4j.Element;
 
@@ -33,14 +32,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.MODULE_STUDIO;
@@ -56,23 +50,22 @@ public class RegexDependencyResolver implements DependencyResolver {
     protected ContentService contentService;
     protected StudioConfiguration studioConfiguration;
     protected ConfigurationService configurationService;
+    protected Cache<String, CompiledDependencyResolverConfig> cache;
 
     @Override
     public Map<String, Set<ResolvedDependency>> resolve(String site, String path) {
         Map<String, Set<ResolvedDependency>> toRet = new HashMap<>();
         try {
             logger.debug("Get the dependency resolver configuration for site '{}'", site);
-            DependencyResolverConfigTO config = getConfiguration(site);
+            CompiledDependencyResolverConfig config = getCompiledConfiguration(site);
             if (config != null) {
                 logger.debug("Determine the item type site '{}' path '{}'", site, path);
-                DependencyResolverConfigTO.ItemType itemType = getItemTypeResolverConfig(site, path, config);
+                CompiledDependencyResolverConfig.ItemType itemType = config.getItemType(path);
                 if (itemType != null) {
                     String content = contentService.getContentAsString(site, path);
                     if (content != null) {
-                        Map<String, DependencyResolverConfigTO.DependencyType> dependencyTypes =
-                                itemType.getDependencyTypes();
                         logger.debug("Get dependencies for site '{}' path '{}'", site, path);
-                        toRet = getDependencies(site, path, content, dependencyTypes);
+                        toRet = getDependencies(site, path, content, itemType);
                     } else {
                         logger.error("Failed to extract dependencies from empty content item site '{}' path '{}'",
                                 site, path);
@@ -92,6 +85,30 @@ public class RegexDependencyResolver implements DependencyResolver {
         return toRet;
     }
 
+    /**
+     * Returns the compiled configuration for the site, it is cached until the configuration file is changed
+     */
+    protected CompiledDependencyResolverConfig getCompiledConfiguration(String site) {
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = configurationService.getCacheKey(site, MODULE_STUDIO, getConfigFileName(),
+                    studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE), "object");
+            CompiledDependencyResolverConfig config = cache.getIfPresent(cacheKey);
+            if (config != null) {
+                return config;
+            }
+        }
+        DependencyResolverConfigTO configTO = getConfiguration(site);
+        if (configTO == null) {
+            return null;
+        }
+        CompiledDependencyResolverConfig config = new CompiledDependencyResolverConfig(configTO);
+        if (cacheKey != null) {
+            cache.put(cacheKey, config);
+        }
+        return config;
+    }
+
     private DependencyResolverConfigTO getConfiguration(String site) {
         DependencyResolverConfigTO config = null;
         logger.debug("Get the configuration location for site '{}'", site);
@@ -213,91 +230,24 @@ public class RegexDependencyResolver implements DependencyResolver {
         return config;
     }
 
-    private DependencyResolverConfigTO.ItemType getItemTypeResolverConfig(String site, String path,
-                                                                          DependencyResolverConfigTO config) {
-        logger.trace("Loop through all item types to match the path against the include patterns");
-        Map<String, DependencyResolverConfigTO.ItemType> itemTypes = config.getItemTypes();
-        DependencyResolverConfigTO.ItemType itemType = null;
-        if (itemTypes != null) {
-            for (Map.Entry<String, DependencyResolverConfigTO.ItemType> entry : itemTypes.entrySet()) {
-                DependencyResolverConfigTO.ItemType it = entry.getValue();
-                List<String> includes = it.getIncludes();
-                List<String> excludes = it.getExcludes();
-                if (ContentUtils.matchesPatterns(path, includes) && !ContentUtils.matchesPatterns(path, excludes)) {
-                    itemType = it;
-                    break;
-                }
-            }
-        }
-        return itemType;
-    }
-
-    private Map<String, Set<ResolvedDependency>> getDependencies(String site, String path, String content, Map<String,
-            DependencyResolverConfigTO.DependencyType> dependencyTypes) {
+    private Map<String, Set<ResolvedDependency>> getDependencies(String site, String path, String content,
+                                                                 CompiledDependencyResolverConfig.ItemType itemType) {
         Map<String, Set<ResolvedDependency>> toRet = new HashMap<>();
-        logger.debug("Get the dependencies for site '{}' path '{}'", site, path);
-        for (Map.Entry<String, DependencyResolverConfigTO.DependencyType> dependencyTypeEntry :
-                dependencyTypes.entrySet()) {
-            Set<ResolvedDependency> extractedDeps = new HashSet<>();
-            DependencyResolverConfigTO.DependencyType dependencyType = dependencyTypeEntry.getValue();
-            List<DependencyResolverConfigTO.DependencyExtractionPattern> extractionPatterns =
-                    dependencyType.getIncludes();
-            logger.debug("Loop through all extraction patterns in site '{}' for '{}'",
-                    site, dependencyTypeEntry.getKey());
-            for (DependencyResolverConfigTO.DependencyExtractionPattern extractionPattern :
-                    extractionPatterns) {
-                Pattern pattern = Pattern.compile(extractionPattern.getFindRegex());
-                Matcher matcher = pattern.matcher(content);
-                logger.debug("Match content in site '{}' against the regular expression '{}'",
-                        site, extractionPattern.getFindRegex());
-                while (matcher.find()) {
-                    String matchedValue = matcher.group();
-                    List<String> matchedPaths = new LinkedList<>();
-                    logger.debug("Matched site '{}' path '{}'", site, matchedValue);
-                    if (CollectionUtils.isNotEmpty(extractionPattern.getTransforms())) {
-                        for (DependencyResolverConfigTO.DependencyExtractionTransform transform :
-                                extractionPattern.getTransforms()) {
-                            Pattern find = Pattern.compile(transform.getMatch());
-                            Matcher replaceMatcher = find.matcher(matchedValue);
-
-                            if (transform.isSplit()) {
-                                if (replaceMatcher.matches()) {
-                                    matchedValue = replaceMatcher.group(1);
-                                    String[] splitValues = matchedValue.split(transform.getDelimiter());
-
-                                    List<String> transformedValues = Stream.of(splitValues)
-                                            // simulate a regex to be able to apply the replace from the config
-                                            .map(v -> {
-                                                Pattern p = Pattern.compile("(" + v + ")");
-                                                Matcher m = p.matcher(v);
-                                                return m.replaceAll(transform.getReplace());
-                                            })
-                                            .collect(Collectors.toList());
-
-                                    matchedPaths.addAll(transformedValues);
-                                }
-                            } else {
-                                matchedValue = replaceMatcher.replaceAll(transform.getReplace());
-                                matchedPaths.add(matchedValue);
-                            }
-                        }
-                    } else {
-                        matchedPaths.add(matchedValue);
-                    }
-                    for (String matchedPath : matchedPaths) {
-                        if (contentService.shallowContentExists(site, matchedPath)) {
-                            logger.debug("Content exists for matched site '{}' path '{}'", site, matchedPath);
-                            extractedDeps.add(new ResolvedDependency(matchedPath, true));
-                        } else {
-                            logger.debug("Found reference to matched path '{}' in site '{}' path '{}' to a path that doesn't " +
-                                    "exist in this site. The dependency will be marked as missing", matchedPath, site, path);
-                            extractedDeps.add(new ResolvedDependency(matchedPath, false));
-                        }
-                    }
-                }
-            }
-            toRet.put(dependencyType.getName(), extractedDeps);
+        for (String dependencyType : itemType.getDependencyTypes()) {
+            toRet.put(dependencyType, new HashSet<>());
         }
+        // The same path is usually referenced many times in the same item
+        Map<String, Boolean> existingPaths = new HashMap<>();
+        logger.debug("Match the content in site '{}' path '{}' against all extraction patterns", site, path);
+        itemType.extract(content, (dependencyType, matchedPath) -> {
+            boolean exists = existingPaths.computeIfAbsent(matchedPath,
+                    p -> contentService.shallowContentExists(site, p));
+            if (!exists) {
+                logger.debug("Found reference to matched path '{}' in site '{}' path '{}' to a path that doesn't " +
+                        "exist in this site. The dependency will be marked as missing", matchedPath, site, path);
+            }
+            toRet.get(dependencyType).add(new ResolvedDependency(matchedPath, exists));
+        });
         return toRet;
     }
 
@@ -334,6 +284,14 @@ public class RegexDependencyResolver implements DependencyResolver {
         this.studioConfiguration = studioConfiguration;
     }
 
+    public Cache<String, CompiledDependencyResolverConfig> getCache() {
+        return cache;
+    }
+
+    public void setCache(Cache<String, CompiledDependencyResolverConfig> cache) {
+        this.cache = cache;
+    }
+
     public ConfigurationService getConfigurationService() {
         return configurationService;
     }
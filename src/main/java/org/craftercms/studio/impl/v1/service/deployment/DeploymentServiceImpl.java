@@ -16,6 +16,7 @@
 package org.craftercms.studio.impl.v1.service.deployment;
 
 import org.apache.commons.collections.FastArrayList;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.tika.io.FilenameUtils;
@@ -45,6 +46,7 @@ import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v1.util.DmContentItemComparator;
 import org.craftercms.studio.api.v1.util.filter.DmFilterWrapper;
 import org.craftercms.studio.api.v2.dal.*;
+import org.craftercms.studio.api.v2.event.publish.PublishQueueEvent;
 import org.craftercms.studio.api.v2.event.workflow.WorkflowEvent;
 import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
@@ -66,11 +68,13 @@ import java.time.ZonedDateTime;
 import java.util.*;
 
 import static java.time.format.DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.*;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
 import static org.craftercms.studio.api.v2.dal.ItemState.*;
 import static org.craftercms.studio.api.v2.dal.PublishStatus.*;
 import static org.craftercms.studio.api.v2.dal.Workflow.STATE_APPROVED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_PUBLISHED_LIVE;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.PREVIOUS_COMMIT_SUFFIX;
@@ -136,6 +140,10 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
             itemServiceInternal.updateStateBitsBulk(site, paths, 0, DESTINATION.value);
         }
 
+        int batchSize = getBulkOperationsBatchSize();
+        long startTime = System.nanoTime();
+        Map<String, Item> itemsByPath = getItemsByPath(site, paths, batchSize);
+
         List<String> newPaths = new ArrayList<>();
         List<String> updatedPaths = new ArrayList<>();
         List<String> movedPaths = new ArrayList<>();
@@ -143,7 +151,7 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
         Map<String, List<String>> groupedPaths = new HashMap<>();
 
         for (String p : paths) {
-            Item item = itemServiceInternal.getItem(site, p);
+            Item item = itemsByPath.get(p);
             if (item == null) {
                 throw new ContentNotFoundException(p, site, "Failed to retrieve content item");
             }
@@ -165,17 +173,30 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
         groupedPaths.put(PublishRequest.Action.NEW, newPaths);
         groupedPaths.put(PublishRequest.Action.MOVE, movedPaths);
         groupedPaths.put(PublishRequest.Action.UPDATE, updatedPaths);
+        long loadTime = System.nanoTime();
+
+        Set<String> queuedPaths = getQueuedPaths(site, environment, paths, batchSize);
+        long filterTime = System.nanoTime();
 
+        Map<String, Workflow> workflows = new HashMap<>();
         List<PublishRequest> items = createItems(site, environment, groupedPaths, scheduledDate, approver,
-                submissionComment);
-        for (PublishRequest item : items) {
-            retryingDatabaseOperationFacade.retry(() -> publishRequestMapper.insertItemForDeployment(item));
-        }
+                submissionComment, itemsByPath, queuedPaths, workflows);
+        long workflowTime = System.nanoTime();
+
+        for (List<PublishRequest> batch : ListUtils.partition(items, batchSize)) {
+            retryingDatabaseOperationFacade.retry(() -> publishRequestMapper.insertItemsForDeployment(batch));
+        }
+        long insertTime = System.nanoTime();
+        logger.debug("Queued '{}' of '{}' items for site '{}' target '{}': loading items took '{}' ms, " +
+                        "filtering queued items took '{}' ms, updating workflow took '{}' ms, inserting took '{}' ms",
+                items.size(), paths.size(), site, environment, NANOSECONDS.toMillis(loadTime - startTime),
+                NANOSECONDS.toMillis(filterTime - loadTime), NANOSECONDS.toMillis(workflowTime - filterTime),
+                NANOSECONDS.toMillis(insertTime - workflowTime));
         itemServiceInternal.setSystemProcessingBulk(site, paths, false);
 
         // We need to pick up this on Inserting , not on execution!
         try {
-            sendContentApprovalEmail(items, scheduleDateNow);
+            sendContentApprovalEmail(items, workflows, scheduleDateNow);
         } catch (Exception e) {
             logger.error("Failed to send approval email notification for site '{}'", site, e);
         }
@@ -185,13 +206,23 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
             logger.error("Failed to update publishing status for site '{}'", site, e);
         }
         applicationContext.publishEvent(new WorkflowEvent(securityService.getAuthentication(), site));
+        if (!items.isEmpty()) {
+            applicationContext.publishEvent(new PublishQueueEvent(site, scheduledDate));
+        }
     }
 
-    protected void sendContentApprovalEmail(List<PublishRequest> itemList, boolean scheduleDateNow)
+    /**
+     * Sends the approval notification to the submitter of the first item that requested it
+     *
+     * @param itemList the items added to the queue
+     * @param workflows the workflow entries of the items, indexed by path
+     * @param scheduleDateNow indicates if the items will be published right away
+     */
+    protected void sendContentApprovalEmail(List<PublishRequest> itemList, Map<String, Workflow> workflows,
+                                            boolean scheduleDateNow)
             throws ServiceLayerException, UserNotFoundException {
         for (PublishRequest listItem : itemList) {
-            Workflow workflow = workflowServiceInternal.getWorkflowEntry(listItem.getSite(), listItem.getPath(),
-                    listItem.getPackageId());
+            Workflow workflow = workflows.get(listItem.getPath());
             if (workflow != null) {
                 if (workflow.getNotifySubmitter() == 1) {
                     // found the first item that needs to be sent
@@ -215,25 +246,55 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
         return paths;
     }
 
+    private int getBulkOperationsBatchSize() {
+        return studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class, 1000);
+    }
+
+    /**
+     * Loads the items for all the paths, in as many queries as batches
+     */
+    private Map<String, Item> getItemsByPath(String site, List<String> paths, int batchSize) {
+        Map<String, Item> itemsByPath = new HashMap<>(paths.size());
+        for (List<String> batch : ListUtils.partition(paths, batchSize)) {
+            for (Item item : itemServiceInternal.getItemsBySiteAndPaths(site, batch)) {
+                itemsByPath.put(item.getPath(), item);
+            }
+        }
+        return itemsByPath;
+    }
+
+    /**
+     * Finds which of the paths are already queued for publishing to the given target
+     */
+    private Set<String> getQueuedPaths(String site, String environment, List<String> paths, int batchSize) {
+        Set<String> queuedPaths = new HashSet<>();
+        for (List<String> batch : ListUtils.partition(paths, batchSize)) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("site_id", site);
+            params.put("environment", environment);
+            params.put("state", PublishRequest.State.READY_FOR_LIVE);
+            params.put("paths", batch);
+            queuedPaths.addAll(publishRequestMapper.getQueuedPaths(params));
+        }
+        return queuedPaths;
+    }
+
     private List<PublishRequest> createItems(String site, String environment, Map<String, List<String>> paths,
-                                             ZonedDateTime scheduledDate, String approver, String submissionComment)
+                                             ZonedDateTime scheduledDate, String approver, String submissionComment,
+                                             Map<String, Item> itemsByPath, Set<String> queuedPaths,
+                                             Map<String, Workflow> workflows)
             throws ServiceLayerException, UserNotFoundException {
         List<PublishRequest> newItems = new ArrayList<>();
 
         String packageId = UUID.randomUUID().toString();
+        User reviewer = userServiceInternal.getUserByIdOrUsername(-1, securityService.getCurrentUser());
 
-        Map<String, Object> params = null;
         for (String action : paths.keySet()) {
             for (String path : paths.get(action)) {
                 PublishRequest publishRequest = new PublishRequest();
-                Item it = itemServiceInternal.getItem(site, path);
+                Item it = itemsByPath.get(path);
                 if (it != null) {
-                    params = new HashMap<>();
-                    params.put("site_id", site);
-                    params.put("environment", environment);
-                    params.put("state", PublishRequest.State.READY_FOR_LIVE);
-                    params.put("path", path);
-                    if (publishRequestMapper.checkItemQueued(params) > 0) {
+                    if (queuedPaths.contains(path)) {
                         logger.info("The publishRequest in site '{}' path '{}' has already been " +
                                 "queued for publishing to the target '{}'. Will not add again.",
                                 site, path, environment);
@@ -258,8 +319,6 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
                         newItems.add(publishRequest);
                     }
 
-
-                    User reviewer = userServiceInternal.getUserByIdOrUsername(-1, securityService.getCurrentUser());
                     Workflow workflow = workflowServiceInternal.getWorkflowEntryForApproval(it.getId());
                     boolean insert = false;
                     if (Objects.isNull(workflow)) {
@@ -282,6 +341,7 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
                     } else {
                         workflowServiceInternal.updateWorkflow(workflow);
                     }
+                    workflows.put(path, workflow);
                 }
             }
         }
@@ -311,6 +371,7 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
         } catch (SiteNotFoundException e) {
             logger.error("Failed to update the publishing status for site '{}'", site, e);
         }
+        applicationContext.publishEvent(new PublishQueueEvent(site, scheduledDate));
     }
 
     private List<PublishRequest> createDeleteItems(String site, String environment, List<String> paths,
@@ -632,6 +693,9 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
         auditLog.setPrimaryTargetValue(siteFeed.getName());
         auditServiceInternal.insertAuditLog(auditLog);
 
+        if (enabled) {
+            applicationContext.publishEvent(new PublishQueueEvent(site));
+        }
         return toRet;
     }
 
@@ -659,6 +723,7 @@ public class DeploymentServiceImpl implements DeploymentService, ApplicationCont
             retryingDatabaseOperationFacade.retry(() -> publishRequestMapper.insertItemForDeployment(request));
         }
         logger.debug("Done adding publish requests for site '{}' target '{}'", site, environment);
+        applicationContext.publishEvent(new PublishQueueEvent(site));
     }
 
     private boolean checkCommitIds(String site, List<String> commitIds) {
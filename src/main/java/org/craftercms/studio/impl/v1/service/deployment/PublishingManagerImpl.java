@@ -18,6 +18,7 @@ package org.craftercms.studio.impl.v1.service.deployment;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.validation.annotations.param.ValidateStringParam;
 import org.craftercms.studio.api.v1.constant.DmConstants;
+import org.craftercms.studio.api.v1.dal.PublishQueueSummary;
 import org.craftercms.studio.api.v1.dal.PublishRequest;
 import org.craftercms.studio.api.v1.dal.PublishRequestMapper;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -382,6 +383,27 @@ public class PublishingManagerImpl implements PublishingManager {
         retryingDatabaseOperationFacade.retry(() -> publishRequestMapper.resetProcessingQueue(params));
     }
 
+    @Override
+    @Valid
+    public PublishQueueSummary getPublishQueueSummary(@ValidateStringParam String site) {
+        List<PublishQueueSummary> summaries =
+                publishRequestMapper.getPublishQueueSummary(getPublishQueueParams(site));
+        return summaries.isEmpty() ? null : summaries.get(0);
+    }
+
+    @Override
+    public List<PublishQueueSummary> getPublishQueueSummaries() {
+        return publishRequestMapper.getPublishQueueSummary(getPublishQueueParams(null));
+    }
+
+    private Map<String, Object> getPublishQueueParams(String site) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("site", site);
+        params.put("state", READY_FOR_LIVE);
+        params.put("now", DateUtils.getCurrentTime());
+        return params;
+    }
+
     public void setContentService(ContentService contentService) {
         this.contentService = contentService;
     }
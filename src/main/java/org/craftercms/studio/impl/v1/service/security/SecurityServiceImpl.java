@@ -233,31 +233,24 @@ public class SecurityServiceImpl implements SecurityService {
         if (roles != null && !roles.isEmpty()) {
             for (String role : roles) {
                 // TODO: SJ: Avoid string literals
-                Map<String, Map<String, List<Node>>> permissionsMap = permissionsConfig.getPermissions();
-                Map<String, List<Node>> siteRoles = permissionsMap.get("###GLOBAL###");
+                Map<String, Map<String, List<PermissionsConfigTO.Rule>>> rulesMap = permissionsConfig.getRules();
+                Map<String, List<PermissionsConfigTO.Rule>> siteRoles = rulesMap.get("###GLOBAL###");
                 if (siteRoles == null || siteRoles.isEmpty()) {
-                    siteRoles = permissionsMap.get("*");
+                    siteRoles = rulesMap.get("*");
                 }
                 if (siteRoles != null && !siteRoles.isEmpty()) {
-                    List<Node> ruleNodes = siteRoles.get(role);
-                    if (ruleNodes == null || ruleNodes.isEmpty()) {
-                        ruleNodes = siteRoles.get("*");
+                    List<PermissionsConfigTO.Rule> rules = siteRoles.get(role);
+                    if (rules == null || rules.isEmpty()) {
+                        rules = siteRoles.get("*");
                     }
-                    if (ruleNodes != null && !ruleNodes.isEmpty()) {
-                        for (Node ruleNode : ruleNodes) {
-                            String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                            if (path.matches(regex)) {
+                    if (rules != null && !rules.isEmpty()) {
+                        for (PermissionsConfigTO.Rule rule : rules) {
+                            if (rule.matches(path)) {
                                 logger.trace("Global permissions found by matching regex '{}' in role '{}'",
-                                        regex, role);
-
-                                List<Node> permissionNodes =
-                                        ruleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                                for (Node permissionNode : permissionNodes) {
-                                    String permission = permissionNode.getText().toLowerCase();
-                                    logger.debug("Add the global permissions '{}' to role '{}' path '{}'",
-                                            permission, role, path);
-                                    permissions.add(permission);
-                                }
+                                        rule.getRegex(), role);
+                                logger.debug("Add the global permissions '{}' to role '{}' path '{}'",
+                                        rule.getPermissions(), role, path);
+                                permissions.addAll(rule.getPermissions());
                             }
                         }
                     } else {
@@ -401,8 +394,8 @@ public class SecurityServiceImpl implements SecurityService {
             // User has no access to the site
             return permissions;
         }
-        Map<String, Map<String, List<Node>>> permissionsMap = permissionsConfig.getPermissions();
-        Map<String, List<Node>> siteRoles = permissionsMap.getOrDefault(site, permissionsMap.get("*"));
+        Map<String, Map<String, List<PermissionsConfigTO.Rule>>> rulesMap = permissionsConfig.getRules();
+        Map<String, List<PermissionsConfigTO.Rule>> siteRoles = rulesMap.getOrDefault(site, rulesMap.get("*"));
         if (MapUtils.isEmpty(siteRoles)) {
             logger.debug("No default role is set site '{}' path '{}'. Add the default permission '{}'",
                     site, path, PERMISSION_CONTENT_READ);
@@ -411,27 +404,21 @@ public class SecurityServiceImpl implements SecurityService {
             return permissions;
         }
         for (String role : roles) {
-            List<Node> ruleNodes = siteRoles.getOrDefault(role, siteRoles.get("*"));
-            if (CollectionUtils.isEmpty(ruleNodes)) {
+            List<PermissionsConfigTO.Rule> rules = siteRoles.getOrDefault(role, siteRoles.get("*"));
+            if (CollectionUtils.isEmpty(rules)) {
                 logger.debug("No default role is set site '{}' path '{}'. Add the default permission '{}'",
                         site, path, PERMISSION_CONTENT_READ);
                 // No rule for this role
                 permissions.add(PERMISSION_CONTENT_READ);
+                continue;
             }
-            for (Node ruleNode : ruleNodes) {
-                String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
-                if (path.matches(regex)) {
+            for (PermissionsConfigTO.Rule rule : rules) {
+                if (rule.matches(path)) {
                     logger.debug("Permissions found in site '{}' matching regex '{}' for role '{}'",
-                            site, regex, role);
-
-                    List<Node> permissionNodes = ruleNode.selectNodes(
-                            StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS);
-                    for (Node permissionNode : permissionNodes) {
-                        String permission = permissionNode.getText().toLowerCase();
-                        logger.trace("Add permission '{}' to site '{}' path '{}' role '{}'",
-                                permission, site, path, role);
-                        permissions.add(permission);
-                    }
+                            site, rule.getRegex(), role);
+                    logger.trace("Add permissions '{}' to site '{}' path '{}' role '{}'",
+                            rule.getPermissions(), site, path, role);
+                    permissions.addAll(rule.getPermissions());
                 }
             }
         }
@@ -511,18 +498,35 @@ public class SecurityServiceImpl implements SecurityService {
             }
 
             List<Node> roleNodes = permissionsRoot.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_ROLE);
+            Map<String, Map<String, List<PermissionsConfigTO.Rule>>> rulesMap = new HashMap<>();
             Map<String, List<Node>> rules = new HashMap<>();
+            Map<String, List<PermissionsConfigTO.Rule>> compiledRules = new HashMap<>();
             for (Node roleNode : roleNodes) {
                 String roleName = roleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_PERMISSIONS_NAME);
                 List<Node> ruleNodes = roleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_PERMISSION_RULE);
                 rules.put(roleName, ruleNodes);
+                compiledRules.put(roleName, compileRules(ruleNodes));
             }
             permissionsMap.put(siteId, rules);
+            rulesMap.put(siteId, compiledRules);
 
             config.setPermissions(permissionsMap);
+            config.setRules(rulesMap);
         }
     }
 
+    protected List<PermissionsConfigTO.Rule> compileRules(List<Node> ruleNodes) {
+        List<PermissionsConfigTO.Rule> rules = new ArrayList<>(ruleNodes.size());
+        for (Node ruleNode : ruleNodes) {
+            String regex = ruleNode.valueOf(StudioXmlConstants.DOCUMENT_ATTR_REGEX);
+            Set<String> permissions = new HashSet<>();
+            for (Node permissionNode : ruleNode.selectNodes(StudioXmlConstants.DOCUMENT_ELM_ALLOWED_PERMISSIONS)) {
+                permissions.add(permissionNode.getText().toLowerCase());
+            }
+            rules.add(new PermissionsConfigTO.Rule(regex, permissions));
+        }
+        return rules;
+    }
 
     protected PermissionsConfigTO loadGlobalPermissionsConfiguration() {
         String globalPermissionsConfigPath = getGlobalConfigPath() + FILE_SEPARATOR + getGlobalPermissionsFileName();
@@ -76,6 +76,7 @@ import org.craftercms.studio.api.v2.service.workflow.internal.WorkflowServiceInt
 import org.craftercms.studio.api.v2.upgrade.StudioUpgradeManager;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
+import org.craftercms.studio.impl.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.craftercms.studio.impl.v2.utils.DependencyUtils;
 import org.craftercms.studio.impl.v2.utils.TimeUtils;
@@ -163,6 +164,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
 
     @Autowired
     protected SiteFeedMapper siteFeedMapper;
+    protected SiteRegistry siteRegistry;
 
     protected EntitlementValidator entitlementValidator;
 
@@ -267,6 +269,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
                 siteFeed.setPublishingStatus(READY);
                 siteFeed.setSandboxBranch(sandboxBranch);
                 retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.createSite(siteFeed));
+                siteRegistry.invalidate(siteId);
 
                 logger.info("Upgrade the site '{}'", siteName);
                 upgradeManager.upgrade(siteId);
@@ -692,6 +695,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
             siteFeed.setPublishingStatus(READY);
             siteFeed.setSandboxBranch(sandboxBranch);
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.createSite(siteFeed));
+            siteRegistry.invalidate(siteId);
 
             upgradeManager.upgrade(siteId);
 
@@ -752,6 +756,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
         try {
             SiteFeed siteFeed = getSite(siteId);
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setSiteState(siteId, STATE_DELETING));
+            siteRegistry.invalidate(siteId);
             applicationContext.publishEvent(new SiteDeletingEvent(siteId, siteFeed.getSiteUuid()));
             logger.debug("Disable publishing for site '{}' prior to deleting it", siteId);
             enablePublishing(siteId, false);
@@ -796,6 +801,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
             SiteFeed siteFeed = getSite(siteId);
             workflowServiceInternal.deleteWorkflowEntriesForSite(siteFeed.getId());
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.deleteSite(siteId, STATE_DELETED));
+            siteRegistry.invalidate(siteId);
             retryingDatabaseOperationFacade.retry(() -> userDao.deleteUserPropertiesBySiteId(siteFeed.getId()));
             dependencyService.deleteSiteDependencies(siteId);
             deploymentService.deleteDeploymentDataForSite(siteId);
@@ -886,7 +892,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
     @Override
     @Valid
     public boolean exists(@ValidateStringParam String site) {
-        return siteFeedMapper.exists(site) > 0;
+        return siteRegistry.exists(site);
     }
 
     @Override
@@ -964,28 +970,23 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
     @Override
     @Valid
     public SiteFeed getSite(@ValidateStringParam String siteId) throws SiteNotFoundException {
-        if (exists(siteId)) {
-            Map<String, Object> params = new HashMap<>();
-            params.put("siteId", siteId);
-            return siteFeedMapper.getSite(params);
-        } else {
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        if (siteFeed == null) {
             throw new SiteNotFoundException();
         }
+        return siteFeed;
     }
 
     @Override
     @RequireSiteExists
     public SiteDetails getSiteDetails(@SiteId String siteId) throws ServiceLayerException {
-        Map<String, Object> params = new HashMap<>();
-        params.put("siteId", siteId);
-
         List<BlobStoreDetails> storeDetails = Collections.emptyList();
         if (!studioConfiguration.getProperty(SERVERLESS_DELIVERY_ENABLED, Boolean.class, false)) {
             String configLocation = studioConfiguration.getProperty(BLOB_STORES_CONFIG_PATH);
             HierarchicalConfiguration<?> xmlConfiguration = configurationService.getXmlConfiguration(siteId, MODULE_STUDIO, configLocation);
             storeDetails = getBlobStoreDetails(xmlConfiguration);
         }
-        return new SiteDetails(siteFeedMapper.getSite(params), storeDetails);
+        return new SiteDetails(siteRegistry.getSite(siteId), storeDetails);
     }
 
     /**
@@ -1047,6 +1048,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
             params.put("siteId", siteId);
             params.put("enabled", enabled ? 1 : 0);
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.enablePublishing(params));
+            siteRegistry.invalidate(siteId);
             return true;
         } else {
             throw new SiteNotFoundException();
@@ -1060,6 +1062,7 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
             throws SiteNotFoundException {
         if (exists(siteId)) {
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.updatePublishingStatus(siteId, status));
+            siteRegistry.invalidate(siteId);
             return true;
         } else {
             throw new SiteNotFoundException();
@@ -1146,21 +1149,25 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
     @Override
     public void setSiteState(String siteId, String state) {
         retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setSiteState(siteId, state));
+        siteRegistry.invalidate(siteId);
     }
 
     @Override
     public String getSiteState(String siteId) {
-        return siteFeedMapper.getSiteState(siteId);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        return siteFeed != null ? siteFeed.getState() : null;
     }
 
     @Override
     public boolean isPublishedRepoCreated(String siteId) {
-        return siteFeedMapper.getPublishedRepoCreated(siteId) > 0;
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        return siteFeed != null && siteFeed.isSitePublishedRepoCreated();
     }
 
     @Override
     public void setPublishedRepoCreated(String siteId) {
         retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setPublishedRepoCreated(siteId));
+        siteRegistry.invalidate(siteId);
     }
 
     public List<String> getDefaultGroups() {
@@ -1180,6 +1187,10 @@ public class SiteServiceImpl implements SiteService, ApplicationContextAware {
         contentRepository = repo;
     }
 
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
+    }
+
     public void setDependencyService(DependencyService dependencyService) {
         this.dependencyService = dependencyService;
     }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.dal;
+
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriter;
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriterFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public class StudioDBSyncWriterFactoryImpl implements StudioDBSyncWriterFactory {
+
+    protected DataSource dataSource;
+    protected int batchSize = 1000;
+
+    @Override
+    public StudioDBSyncWriter getDBSyncWriter() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            return new StudioDBSyncWriterImpl(connection, batchSize);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public void setDataSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.dal;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.ArrayUtils;
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.craftercms.studio.api.v1.constant.DmConstants.SLASH_INDEX_FILE;
+import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
+
+/**
+ * JDBC implementation of {@link StudioDBSyncWriter}.
+ * <p>
+ * Each table has its own ordered stream of statements. Consecutive statements of the same kind are added to the same
+ * JDBC batch, which is executed when the batch is full or when a statement of a different kind arrives, so the
+ * execution order within each table is always the same as the order in which statements were received.
+ * </p>
+ */
+public class StudioDBSyncWriterImpl implements StudioDBSyncWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudioDBSyncWriterImpl.class);
+
+    public static final String ITEM_UPSERT =
+            "INSERT INTO item (site_id, path, preview_url, state, locked_by, created_by, created_on, last_modified_by," +
+                    " last_modified_on, last_published_on, label, content_type_id, system_type, mime_type," +
+                    " locale_code, translation_source_id, size, parent_id, previous_path, ignored)" +
+                    " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)" +
+                    " ON DUPLICATE KEY UPDATE preview_url = VALUES(preview_url), state = VALUES(state)," +
+                    " locked_by = VALUES(locked_by), last_modified_by = VALUES(last_modified_by)," +
+                    " last_modified_on = VALUES(last_modified_on), last_published_on = VALUES(last_published_on)," +
+                    " label = VALUES(label), content_type_id = VALUES(content_type_id)," +
+                    " system_type = VALUES(system_type), mime_type = VALUES(mime_type)," +
+                    " locale_code = VALUES(locale_code), translation_source_id = VALUES(translation_source_id)," +
+                    " size = VALUES(size), parent_id = VALUES(parent_id), previous_path = VALUES(previous_path)," +
+                    " ignored = VALUES(ignored)";
+
+    public static final String ITEM_UPDATE =
+            "UPDATE item SET preview_url = ?, state = (state | ?) & ~?, last_modified_by = ?, last_modified_on = ?," +
+                    " label = ?, content_type_id = ?, system_type = ?, mime_type = ?, size = ?, locked_by = NULL," +
+                    " ignored = ? WHERE site_id = ? AND path = ?";
+
+    public static final String ITEM_DELETE = "DELETE FROM item WHERE site_id = ? AND path = ?";
+
+    public static final String ITEM_MOVE =
+            "UPDATE item SET path = REPLACE(path, ?, ?), locked_by = NULL, state = (state | ?) & ~?" +
+                    " WHERE site_id = ? AND (path = ? OR path LIKE ?)";
+
+    public static final String ITEM_UPDATE_DELETED_PAGE_CHILDREN = "UPDATE item, " +
+            "(SELECT child.id AS childId, " +
+            "(SELECT i.id FROM item i WHERE i.site_id = ? AND i.path = ?) AS newParentId " +
+            "FROM item child INNER JOIN item parent ON child.parent_id = parent.id " +
+            "WHERE child.site_id = ? AND parent.path = CONCAT(?, '/index.xml')) AS updates " +
+            "SET item.parent_id = updates.newParentId " +
+            "WHERE item.id = updates.childId";
+
+    public static final String ITEM_UPDATE_NEW_PAGE_CHILDREN = "UPDATE item, " +
+            "(SELECT child.id AS childId, " +
+            "(SELECT i.id FROM item i WHERE i.site_id = ? AND i.path = CONCAT(?, '/index.xml')) AS newParentId " +
+            "FROM item child INNER JOIN item parent ON child.parent_id = parent.id " +
+            "WHERE child.site_id = ? AND parent.path = ?) AS updates " +
+            "SET item.parent_id = updates.newParentId " +
+            "WHERE item.id = updates.childId";
+
+    // The LIMIT forces the derived table to be materialized, which allows reading the table being updated
+    public static final String ITEM_UPDATE_PARENT_ID =
+            "UPDATE item SET parent_id = (SELECT p.id FROM (SELECT id FROM item WHERE site_id = ?" +
+                    " AND (path = CONCAT(?, '/index.xml') OR path = ?) ORDER BY path DESC LIMIT 1) p)" +
+                    " WHERE site_id = ? AND path = ?";
+
+    public static final String DEPENDENCY_INSERT =
+            "INSERT INTO dependency (site, source_path, target_path, type, valid) VALUES (?, ?, ?, ?, ?)";
+
+    public static final String DEPENDENCY_DELETE_SOURCE =
+            "DELETE FROM dependency WHERE site = ? AND source_path = ?";
+
+    public static final String DEPENDENCY_SET_VALID =
+            "UPDATE dependency SET valid = ? WHERE site = ? AND target_path = ?";
+
+    protected final Connection connection;
+    protected final boolean autoCommit;
+    protected final int batchSize;
+
+    protected final Map<String, PreparedStatement> statements = new HashMap<>();
+    protected final StatementStream itemStream = new StatementStream();
+    protected final StatementStream dependencyStream = new StatementStream();
+    protected final StatementStream parentIdStream = new StatementStream();
+    // Parent id fix-ups are idempotent once all items exist, so repeated ones can be safely dropped
+    protected final Set<DeferredStatement> parentIdUpdates = new LinkedHashSet<>();
+
+    protected long executedStatements = 0;
+    protected long executedBatches = 0;
+    protected final long startTime = System.currentTimeMillis();
+
+    protected StudioDBSyncWriterImpl(Connection connection, int batchSize) throws SQLException {
+        this.connection = connection;
+        this.batchSize = Math.max(1, batchSize);
+        this.autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+    }
+
+    @Override
+    public void insertItem(long siteId, String path, String previewUrl, long state, Long lockedBy, Long createdBy,
+                           ZonedDateTime createdOn, Long lastModifiedBy, ZonedDateTime lastModifiedOn,
+                           ZonedDateTime lastPublishedOn, String label, String contentTypeId, String systemType,
+                           String mimeType, String localeCode, Long translationSourceId, Long size, Long parentId,
+                           String previousPath) throws SQLException {
+        itemStream.add(ITEM_UPSERT, siteId, path, emptyToNull(previewUrl), state, lockedBy, createdBy,
+                toTimestamp(createdOn), lastModifiedBy, toTimestamp(lastModifiedOn), toTimestamp(lastPublishedOn),
+                label, emptyToNull(contentTypeId), systemType, emptyToNull(mimeType), localeCode,
+                translationSourceId, size, parentId, emptyToNull(previousPath), ignoredAsInt(path));
+    }
+
+    @Override
+    public void updateItem(long siteId, String path, String previewUrl, long onStatesBitMap, long offStatesBitMap,
+                           Long lastModifiedBy, ZonedDateTime lastModifiedOn, String label, String contentTypeId,
+                           String systemType, String mimeType, Long size) throws SQLException {
+        itemStream.add(ITEM_UPDATE, emptyToNull(previewUrl), onStatesBitMap, offStatesBitMap, lastModifiedBy,
+                toTimestamp(lastModifiedOn), label, emptyToNull(contentTypeId), systemType, emptyToNull(mimeType),
+                size, ignoredAsInt(path), siteId, path);
+    }
+
+    @Override
+    public void deleteItem(long siteId, String path) throws SQLException {
+        itemStream.add(ITEM_DELETE, siteId, path);
+    }
+
+    @Override
+    public void moveItem(long siteId, String oldPath, String newPath, long onStatesBitMap, long offStatesBitMap)
+            throws SQLException {
+        itemStream.add(ITEM_MOVE, oldPath, newPath, onStatesBitMap, offStatesBitMap, siteId, oldPath,
+                oldPath + "/%");
+    }
+
+    @Override
+    public void updateDeletedPageChildren(long siteId, String folderPath) throws SQLException {
+        itemStream.add(ITEM_UPDATE_DELETED_PAGE_CHILDREN, siteId, folderPath, siteId, folderPath);
+    }
+
+    @Override
+    public void insertDependency(String siteId, String sourcePath, String targetPath, String type, boolean valid)
+            throws SQLException {
+        dependencyStream.add(DEPENDENCY_INSERT, siteId, sourcePath, targetPath, type, valid);
+    }
+
+    @Override
+    public void deleteDependencySourcePath(String siteId, String sourcePath) throws SQLException {
+        dependencyStream.add(DEPENDENCY_DELETE_SOURCE, siteId, sourcePath);
+    }
+
+    @Override
+    public void deleteDependencies(String siteId, String path) throws SQLException {
+        deleteDependencySourcePath(siteId, path);
+        setDependenciesValid(siteId, path, false);
+    }
+
+    @Override
+    public void setDependenciesValid(String siteId, String targetPath, boolean valid) throws SQLException {
+        dependencyStream.add(DEPENDENCY_SET_VALID, valid, siteId, targetPath);
+    }
+
+    @Override
+    public void updateParentId(long siteId, String itemPath, String parentPath) {
+        parentIdUpdates.add(new DeferredStatement(ITEM_UPDATE_PARENT_ID,
+                List.of(siteId, parentPath, parentPath, siteId, itemPath)));
+    }
+
+    @Override
+    public void updateNewPageChildren(long siteId, String path) {
+        String folderPath = removeEnd(path, SLASH_INDEX_FILE);
+        parentIdUpdates.add(new DeferredStatement(ITEM_UPDATE_NEW_PAGE_CHILDREN,
+                List.of(siteId, folderPath, siteId, folderPath)));
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        itemStream.flush();
+        dependencyStream.flush();
+        for (DeferredStatement update : parentIdUpdates) {
+            parentIdStream.add(update.sql(), update.params().toArray());
+        }
+        parentIdUpdates.clear();
+        parentIdStream.flush();
+        connection.commit();
+        logger.debug("Executed '{}' sync statements in '{}' batches in '{}' ms",
+                executedStatements, executedBatches, System.currentTimeMillis() - startTime);
+    }
+
+    @Override
+    public void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.error("Failed to rollback the DB transaction", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (PreparedStatement statement : statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.warn("Failed to close prepared statement", e);
+            }
+        }
+        statements.clear();
+        try {
+            // Restoring the auto-commit mode would commit any pending change
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+            connection.close();
+        } catch (SQLException e) {
+            logger.error("Failed to close the connection to the DB", e);
+        }
+    }
+
+    protected PreparedStatement getStatement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    protected static Timestamp toTimestamp(ZonedDateTime dateTime) {
+        return dateTime == null ? null : new Timestamp(dateTime.toInstant().toEpochMilli());
+    }
+
+    protected static String emptyToNull(String value) {
+        return isEmpty(value) ? null : value;
+    }
+
+    protected static int ignoredAsInt(String path) {
+        return ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(path)) ? 1 : 0;
+    }
+
+    /**
+     * Ordered sequence of statements that is executed in batches of consecutive statements of the same kind
+     */
+    protected class StatementStream {
+
+        protected PreparedStatement current;
+        protected int pending = 0;
+
+        protected void add(String sql, Object... params) throws SQLException {
+            PreparedStatement statement = getStatement(sql);
+            if (statement != current) {
+                flush();
+                current = statement;
+            }
+            for (int i = 0; i < params.length; i++) {
+                statement.setObject(i + 1, params[i]);
+            }
+            statement.addBatch();
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+
+        protected void flush() throws SQLException {
+            if (current == null || pending == 0) {
+                return;
+            }
+            current.executeBatch();
+            executedStatements += pending;
+            executedBatches++;
+            pending = 0;
+        }
+    }
+
+    protected record DeferredStatement(String sql, List<Object> params) {
+    }
+
+}
@@ -16,8 +16,14 @@
 package org.craftercms.studio.impl.v2.event;
 
 import org.craftercms.studio.api.v2.event.BroadcastEvent;
+import org.craftercms.studio.api.v2.event.BroadcastEventBatch;
 import org.craftercms.studio.api.v2.event.GlobalBroadcastEvent;
 import org.craftercms.studio.api.v2.event.SiteBroadcastEvent;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
+import org.craftercms.studio.api.v2.event.content.MoveContentEvent;
+import org.craftercms.studio.api.v2.event.lock.LockContentEvent;
+import org.craftercms.studio.api.v2.event.repository.RepositoryEvent;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
 import org.craftercms.studio.impl.v2.utils.TimeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,17 +32,34 @@ import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.Order;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 /**
  * Implementation of {@link EventListener} that broadcasts events to the message broker
  *
+ * <p>When coalescing is enabled, the first event for a topic is sent right away and opens a window, the events
+ * received during the window are merged (events for the same path and type replace each other) and sent in
+ * {@link BroadcastEventBatch} messages of up to {@code maxBatchSize} events when the window closes. The window stays
+ * open while events keep arriving. The messages sent to each topic are limited to {@code maxMessagesPerSecond}, every
+ * client subscribed to the topic gets them. If too many content events are pending for a site they are replaced by a
+ * single {@link RepositoryEvent} so the clients refresh everything.</p>
+ *
  * @author joseross
  * @since 4.0.0
  */
-public class EventBroadcaster {
+public class EventBroadcaster implements MetricsProvider {
 
     public static final String DESTINATION_ROOT = "/topic/studio";
 
@@ -45,6 +68,38 @@ public class EventBroadcaster {
     @Autowired
     protected SimpMessagingTemplate messagingTemplate;
 
+    protected final Map<String, Topic> topics = new ConcurrentHashMap<>();
+
+    protected final LongAdder eventsIn = new LongAdder();
+    protected final LongAdder mergedEvents = new LongAdder();
+    protected final LongAdder messagesOut = new LongAdder();
+    protected final LongAdder batchesOut = new LongAdder();
+    protected final LongAdder overflows = new LongAdder();
+
+    protected boolean coalescingEnabled = false;
+    protected long windowMillis = 200;
+    protected int maxBatchSize = 200;
+    protected int maxMessagesPerSecond = 10;
+    protected int maxPendingEvents = 5000;
+
+    protected ScheduledExecutorService scheduler;
+
+    public void init() {
+        if (coalescingEnabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "eventBroadcaster");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
     @Order
     @EventListener
     public void publishSiteEvent(final SiteBroadcastEvent event) {
@@ -58,6 +113,70 @@ public class EventBroadcaster {
     }
 
     private void publishEvent(final BroadcastEvent event, final String destination) {
+        eventsIn.increment();
+        if (!coalescingEnabled || scheduler.isShutdown()) {
+            send(event, destination);
+            return;
+        }
+        Topic topic = topics.computeIfAbsent(destination, Topic::new);
+        boolean sendNow;
+        synchronized (topic) {
+            // Single events are sent right away, the window only affects the events that follow them
+            sendNow = !topic.flushScheduled && topic.tryAcquire(1) == 1;
+            if (!sendNow) {
+                topic.add(event);
+            }
+            if (!topic.flushScheduled) {
+                topic.flushScheduled = true;
+                scheduler.schedule(() -> flush(topic), windowMillis, MILLISECONDS);
+            }
+        }
+        if (sendNow) {
+            send(event, destination);
+        }
+    }
+
+    /**
+     * Sends the pending events of the topic, allowed by the rate limit, and keeps the window open if there were any
+     */
+    protected void flush(Topic topic) {
+        List<List<BroadcastEvent>> messages = new ArrayList<>();
+        synchronized (topic) {
+            if (topic.pending.isEmpty()) {
+                topic.flushScheduled = false;
+                return;
+            }
+            int available = topic.tryAcquire((topic.pending.size() + maxBatchSize - 1) / maxBatchSize);
+            Iterator<BroadcastEvent> iterator = topic.pending.values().iterator();
+            for (int i = 0; i < available; i++) {
+                List<BroadcastEvent> events = new ArrayList<>();
+                while (iterator.hasNext() && events.size() < maxBatchSize) {
+                    events.add(iterator.next());
+                    iterator.remove();
+                }
+                messages.add(events);
+            }
+            scheduler.schedule(() -> flush(topic), windowMillis, MILLISECONDS);
+        }
+        for (List<BroadcastEvent> events : messages) {
+            if (events.size() == 1) {
+                send(events.get(0), topic.destination);
+            } else {
+                batchesOut.increment();
+                send(new BroadcastEventBatch(events), topic.destination);
+            }
+        }
+    }
+
+    private void send(final BroadcastEvent event, final String destination) {
+        sendEvent(event, destination);
+        messagesOut.increment();
+    }
+
+    /**
+     * Sends a single message to the broker
+     */
+    protected void sendEvent(final BroadcastEvent event, final String destination) {
         TimeUtils.logExecutionTime(() -> {
             logger.debug("Broadcast event '{}'", event);
             messagingTemplate.convertAndSend(destination, event);
@@ -65,4 +184,122 @@ public class EventBroadcaster {
         }, logger, format("Method 'EventBroadcaster.publishEvent(..)' with parameters %s", Arrays.asList(event, destination)));
     }
 
+    /**
+     * Returns the key used to merge the event with other events of the same window, events without a path are never
+     * merged
+     */
+    protected Object getMergeKey(BroadcastEvent event) {
+        if (event instanceof MoveContentEvent moveEvent) {
+            return event.getEventType() + ":" + moveEvent.getSourcePath() + ":" + moveEvent.getTargetPath();
+        } else if (event instanceof ContentEvent contentEvent) {
+            return event.getEventType() + ":" + contentEvent.getTargetPath();
+        } else if (event instanceof LockContentEvent lockEvent) {
+            return event.getEventType() + ":" + lockEvent.getTargetPath();
+        } else if (event instanceof RepositoryEvent) {
+            return event.getEventType();
+        }
+        return event;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "eventBroadcaster";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        int pending = 0;
+        for (Topic topic : topics.values()) {
+            synchronized (topic) {
+                pending += topic.pending.size();
+            }
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("coalescingEnabled", coalescingEnabled);
+        metrics.put("eventsIn", eventsIn.sum());
+        metrics.put("mergedEvents", mergedEvents.sum());
+        metrics.put("messagesOut", messagesOut.sum());
+        metrics.put("batchesOut", batchesOut.sum());
+        metrics.put("overflows", overflows.sum());
+        metrics.put("pendingEvents", pending);
+        return metrics;
+    }
+
+    public void setCoalescingEnabled(boolean coalescingEnabled) {
+        this.coalescingEnabled = coalescingEnabled;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public void setMaxMessagesPerSecond(int maxMessagesPerSecond) {
+        this.maxMessagesPerSecond = maxMessagesPerSecond;
+    }
+
+    public void setMaxPendingEvents(int maxPendingEvents) {
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    /**
+     * The pending events and the rate limit of a single destination, guarded by its own monitor
+     */
+    protected class Topic {
+
+        protected final String destination;
+        protected final Map<Object, BroadcastEvent> pending = new LinkedHashMap<>();
+        protected boolean flushScheduled;
+        protected double tokens = maxMessagesPerSecond;
+        protected long lastRefill = System.nanoTime();
+
+        protected Topic(String destination) {
+            this.destination = destination;
+        }
+
+        protected void add(BroadcastEvent event) {
+            if (event instanceof ContentEvent contentEvent) {
+                RepositoryEvent repositoryEvent = new RepositoryEvent(contentEvent.getSiteId());
+                Object repositoryKey = getMergeKey(repositoryEvent);
+                if (pending.containsKey(repositoryKey)) {
+                    // The clients will refresh everything anyway
+                    mergedEvents.increment();
+                    return;
+                }
+                if (pending.size() >= maxPendingEvents) {
+                    overflows.increment();
+                    int size = pending.size();
+                    pending.values().removeIf(ContentEvent.class::isInstance);
+                    mergedEvents.add(size - pending.size());
+                    pending.put(repositoryKey, repositoryEvent);
+                    logger.debug("Too many pending events for '{}', replaced the content events with '{}'",
+                            destination, repositoryEvent);
+                    return;
+                }
+            }
+            if (pending.put(getMergeKey(event), event) != null) {
+                mergedEvents.increment();
+            }
+        }
+
+        /**
+         * Takes up to the given number of messages from the rate limit
+         *
+         * @return the number of messages that can be sent
+         */
+        protected int tryAcquire(int messages) {
+            long now = System.nanoTime();
+            tokens = Math.min(maxMessagesPerSecond,
+                    tokens + (now - lastRefill) * maxMessagesPerSecond / 1_000_000_000.0);
+            lastRefill = now;
+            int acquired = Math.min(messages, (int) tokens);
+            tokens -= acquired;
+            return acquired;
+        }
+
+    }
+
 }
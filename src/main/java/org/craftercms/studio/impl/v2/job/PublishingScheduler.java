@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.craftercms.studio.api.v1.dal.PublishQueueSummary;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v1.service.deployment.PublishingManager;
+import org.craftercms.studio.api.v2.event.publish.PublishQueueEvent;
+import org.craftercms.studio.api.v2.job.SiteJob;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
+import org.craftercms.studio.api.v2.utils.spring.context.SystemStatusProvider;
+import org.craftercms.studio.impl.v2.utils.spring.event.BootstrapFinishedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.craftercms.studio.api.v1.constant.StudioConstants.PATTERN_SITE;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.STUDIO_CLOCK_EXECUTOR_SITE_LOCK;
+
+/**
+ * Runs the publisher of a site when there is something to publish, instead of polling the queue of every site on
+ * each clock cycle.
+ * <p>
+ * A site is submitted to the executor as soon as items are added to its queue (see {@link PublishQueueEvent}), and
+ * a wake up is scheduled for the earliest date items are scheduled for. Each site runs at most once at a time,
+ * requests that arrive while it is running are coalesced into a single new run, and the size of the executor limits
+ * how many sites publish at the same time. A periodic check reads the queues of all sites with a single query to pick
+ * up anything that didn't go through an event.
+ * </p>
+ */
+public class PublishingScheduler implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishingScheduler.class);
+
+    protected final Map<String, SiteQueue> queues = new ConcurrentHashMap<>();
+
+    protected final LongAdder runs = new LongAdder();
+    protected final LongAdder wakeUps = new LongAdder();
+    protected final LongAdder lockedRuns = new LongAdder();
+    protected final LongAdder failedRuns = new LongAdder();
+
+    private TaskExecutor taskExecutor;
+    private TaskScheduler taskScheduler;
+    private PublishingManager publishingManager;
+    private GeneralLockService generalLockService;
+    private SystemStatusProvider systemStatusProvider;
+    private StudioPublisherTask publisherTask;
+    private boolean enabled;
+    private long reconcileInterval;
+    private long retryDelay;
+
+    private ScheduledFuture<?> reconcileFuture;
+
+    @EventListener(BootstrapFinishedEvent.class)
+    public synchronized void start() {
+        if (enabled && reconcileInterval > 0 && reconcileFuture == null) {
+            logger.info("Start the publishing scheduler, checking all publishing queues every '{}' ms",
+                    reconcileInterval);
+            reconcileFuture = taskScheduler.scheduleWithFixedDelay(this::reconcile,
+                    Duration.ofMillis(reconcileInterval));
+        }
+    }
+
+    public synchronized void stop() {
+        if (reconcileFuture != null) {
+            reconcileFuture.cancel(false);
+            reconcileFuture = null;
+        }
+        queues.values().forEach(SiteQueue::cancelWakeUp);
+    }
+
+    /**
+     * Wakes up the publisher of the site once the transaction that queued the items is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPublishQueueEvent(PublishQueueEvent event) {
+        if (enabled) {
+            logger.debug("Items queued for publishing in site '{}' scheduled for '{}'", event.getSiteId(),
+                    event.getScheduledDate());
+            schedule(event.getSiteId(), event.getScheduledDate());
+        }
+    }
+
+    /**
+     * Schedules the publisher of the site
+     *
+     * @param siteId the site id
+     * @param scheduledDate the date to run the publisher, null to run it right away
+     */
+    public void schedule(String siteId, ZonedDateTime scheduledDate) {
+        SiteQueue queue = getQueue(siteId);
+        if (scheduledDate == null || !scheduledDate.toInstant().isAfter(Instant.now())) {
+            queue.submit();
+        } else {
+            queue.wakeUpAt(scheduledDate.toInstant());
+        }
+    }
+
+    /**
+     * Indicates if the task is run by this scheduler, so the clock should not run it
+     */
+    public boolean handles(SiteJob siteJob) {
+        return enabled && siteJob == publisherTask;
+    }
+
+    /**
+     * Checks the queues of all sites, submitting the sites with items ready to publish and scheduling the wake ups
+     */
+    protected void reconcile() {
+        if (!systemStatusProvider.isSystemReady()) {
+            return;
+        }
+        try {
+            List<PublishQueueSummary> summaries = publishingManager.getPublishQueueSummaries();
+            Set<String> sites = new HashSet<>();
+            for (PublishQueueSummary summary : summaries) {
+                sites.add(summary.getSite());
+                SiteQueue queue = getQueue(summary.getSite());
+                queue.update(summary);
+                if (summary.getDueItems() > 0) {
+                    queue.submit();
+                }
+                if (summary.getNextScheduledDate() != null) {
+                    queue.wakeUpAt(summary.getNextScheduledDate().toInstant());
+                }
+            }
+            for (String siteId : queues.keySet()) {
+                if (!sites.contains(siteId)) {
+                    queues.computeIfPresent(siteId, (id, queue) -> {
+                        queue.update(null);
+                        return queue.isIdle() ? null : queue;
+                    });
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to check the publishing queues", e);
+        }
+    }
+
+    protected SiteQueue getQueue(String siteId) {
+        return queues.computeIfAbsent(siteId, SiteQueue::new);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "publishingScheduler";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> sites = new TreeMap<>();
+        int activeSites = 0;
+        for (SiteQueue queue : queues.values()) {
+            if (queue.running) {
+                activeSites++;
+            }
+            sites.put(queue.siteId, queue.getMetrics());
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("activeSites", activeSites);
+        metrics.put("runs", runs.sum());
+        metrics.put("wakeUps", wakeUps.sum());
+        metrics.put("lockedRuns", lockedRuns.sum());
+        metrics.put("failedRuns", failedRuns.sum());
+        metrics.put("sites", sites);
+        return metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setTaskExecutor(TaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    public void setPublishingManager(PublishingManager publishingManager) {
+        this.publishingManager = publishingManager;
+    }
+
+    public void setGeneralLockService(GeneralLockService generalLockService) {
+        this.generalLockService = generalLockService;
+    }
+
+    public void setSystemStatusProvider(SystemStatusProvider systemStatusProvider) {
+        this.systemStatusProvider = systemStatusProvider;
+    }
+
+    public void setPublisherTask(StudioPublisherTask publisherTask) {
+        this.publisherTask = publisherTask;
+    }
+
+    public void setReconcileInterval(long reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Publishing state of a single site
+     */
+    protected class SiteQueue implements Runnable {
+
+        protected final String siteId;
+
+        /**
+         * Set while the site is waiting in the executor or running
+         */
+        protected final AtomicBoolean submitted = new AtomicBoolean();
+
+        /**
+         * Set when a run is requested, so requests that arrive during a run trigger a new one
+         */
+        protected final AtomicBoolean pending = new AtomicBoolean();
+
+        protected volatile boolean running;
+        protected volatile int items;
+        protected volatile int dueItems;
+        protected volatile ZonedDateTime nextScheduledDate;
+        protected volatile long lastRunMillis = -1;
+
+        // Guarded by this
+        protected ScheduledFuture<?> wakeUp;
+        protected Instant wakeUpTime;
+
+        protected SiteQueue(String siteId) {
+            this.siteId = siteId;
+        }
+
+        protected void submit() {
+            pending.set(true);
+            if (submitted.compareAndSet(false, true)) {
+                try {
+                    taskExecutor.execute(this);
+                } catch (TaskRejectedException e) {
+                    submitted.set(false);
+                    logger.warn("Failed to submit the publisher of site '{}', retry in '{}' ms", siteId,
+                            retryDelay, e);
+                    wakeUpAt(Instant.now().plusMillis(retryDelay));
+                }
+            }
+        }
+
+        /**
+         * Schedules a wake up at the given time, unless there is already one scheduled earlier
+         */
+        protected synchronized void wakeUpAt(Instant time) {
+            if (wakeUp != null && !wakeUp.isDone() && !time.isBefore(wakeUpTime)) {
+                return;
+            }
+            cancelWakeUp();
+            wakeUpTime = time;
+            wakeUp = taskScheduler.schedule(this::onWakeUp, time);
+        }
+
+        protected synchronized void cancelWakeUp() {
+            if (wakeUp != null) {
+                wakeUp.cancel(false);
+                wakeUp = null;
+                wakeUpTime = null;
+            }
+        }
+
+        protected void onWakeUp() {
+            synchronized (this) {
+                wakeUp = null;
+                wakeUpTime = null;
+            }
+            wakeUps.increment();
+            submit();
+        }
+
+        @Override
+        public void run() {
+            pending.set(false);
+            boolean retry = false;
+            try {
+                retry = !publish();
+            } catch (Exception e) {
+                failedRuns.increment();
+                logger.error("Failed to run the publisher for site '{}'", siteId, e);
+            } finally {
+                submitted.set(false);
+                if (retry) {
+                    wakeUpAt(Instant.now().plusMillis(retryDelay));
+                } else if (pending.get()) {
+                    submit();
+                }
+            }
+        }
+
+        /**
+         * Runs the publisher, returns false if it couldn't run and needs to be retried
+         */
+        protected boolean publish() {
+            if (!systemStatusProvider.isSystemReady()) {
+                return false;
+            }
+            String lock = STUDIO_CLOCK_EXECUTOR_SITE_LOCK.replaceAll(PATTERN_SITE, siteId);
+            if (!generalLockService.tryLock(lock)) {
+                lockedRuns.increment();
+                logger.debug("The publisher of site '{}' is already running, retry in '{}' ms", siteId, retryDelay);
+                return false;
+            }
+            long start = System.currentTimeMillis();
+            running = true;
+            try {
+                publisherTask.executeNow(siteId);
+            } finally {
+                running = false;
+                generalLockService.unlock(lock);
+            }
+            runs.increment();
+            lastRunMillis = System.currentTimeMillis() - start;
+
+            PublishQueueSummary summary = publishingManager.getPublishQueueSummary(siteId);
+            update(summary);
+            if (summary != null && summary.getNextScheduledDate() != null) {
+                wakeUpAt(summary.getNextScheduledDate().toInstant());
+            }
+            return true;
+        }
+
+        protected void update(PublishQueueSummary summary) {
+            items = summary != null ? summary.getItems() : 0;
+            dueItems = summary != null ? summary.getDueItems() : 0;
+            nextScheduledDate = summary != null ? summary.getNextScheduledDate() : null;
+        }
+
+        protected synchronized boolean isIdle() {
+            return !submitted.get() && wakeUp == null && items == 0;
+        }
+
+        protected Map<String, Object> getMetrics() {
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("queueDepth", items);
+            metrics.put("dueItems", dueItems);
+            metrics.put("nextScheduledDate", nextScheduledDate != null ? nextScheduledDate.toString() : null);
+            synchronized (this) {
+                metrics.put("nextWakeUp", wakeUpTime != null ? wakeUpTime.toString() : null);
+            }
+            metrics.put("running", running);
+            metrics.put("lastRunMillis", lastRunMillis);
+            StudioPublisherTask.PublishingLatency latency = publisherTask.getPublishingLatency(siteId);
+            if (latency != null) {
+                metrics.putAll(latency.toMap());
+            }
+            return metrics;
+        }
+
+    }
+
+}
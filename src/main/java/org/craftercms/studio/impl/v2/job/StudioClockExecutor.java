@@ -51,6 +51,7 @@ public class StudioClockExecutor implements Job {
     private GeneralLockService generalLockService;
     private List<Job> globalTasks;
     private List<SiteJob> siteTasks;
+    private PublishingScheduler publishingScheduler;
     private static int threadCounter = 0;
 
     @Override
@@ -79,13 +80,23 @@ public class StudioClockExecutor implements Job {
             job.execute();
         }
 
+        // Tasks handled by the publishing scheduler are triggered by events, not by the clock
+        List<SiteJob> clockSiteTasks = siteTasks;
+        if (publishingScheduler != null) {
+            clockSiteTasks = siteTasks.stream().filter(task -> !publishingScheduler.handles(task)).toList();
+        }
+        if (clockSiteTasks.isEmpty()) {
+            return;
+        }
+
+        List<SiteJob> tasks = clockSiteTasks;
         List<String> sites = siteService.getAllCreatedSites();
         for (String site : sites) {
             taskExecutor.execute(() -> {
                 String tasksLock = STUDIO_CLOCK_EXECUTOR_SITE_LOCK.replaceAll(PATTERN_SITE, site);
                 if (generalLockService.tryLock(tasksLock)) {
                     try {
-                        for (SiteJob siteTask : siteTasks) {
+                        for (SiteJob siteTask : tasks) {
                             siteTask.execute(site);
                         }
                     } finally {
@@ -119,4 +130,8 @@ public class StudioClockExecutor implements Job {
     public void setSystemStatusProvider(SystemStatusProvider systemStatusProvider) {
         this.systemStatusProvider = systemStatusProvider;
     }
+
+    public void setPublishingScheduler(PublishingScheduler publishingScheduler) {
+        this.publishingScheduler = publishingScheduler;
+    }
 }
@@ -74,6 +74,18 @@ public abstract class StudioClockTask implements SiteJob, ApplicationContextAwar
         }
     }
 
+    /**
+     * Executes the task for the given site right away, without checking the cycle counter or waiting for the random
+     * offset. Used when the execution is triggered by an event instead of the clock.
+     *
+     * @param site the site id
+     */
+    public void executeNow(String site) {
+        logger.debug("Clock Task '{}' triggered for site '{}'", this.getClass().getName(), site);
+        executeInternal(site);
+        setCycleCounter(site, executeEveryNCycles);
+    }
+
     public void setExecuteEveryNCycles(int executeEveryNCycles) {
         this.executeEveryNCycles = executeEveryNCycles;
     }
@@ -42,7 +42,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.UncategorizedSQLException;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.toList;
@@ -57,6 +59,9 @@ public class StudioPublisherTask extends StudioClockTask {
     protected static final Map<String, Integer> retryCounter = new HashMap<>();
 
     protected static final Set<String> dbErrorNotifiedSites = new HashSet<>();
+
+    protected final Map<String, PublishingLatency> latencies = new ConcurrentHashMap<>();
+
     private PublishingManager publishingManager;
     private ServicesConfig servicesConfig;
     private NotificationService notificationService;
@@ -184,6 +189,7 @@ public class StudioPublisherTask extends StudioClockTask {
             logger.debug("Generated workflow activity for site '{}' and target '{}'", siteId, environment);
             publishingManager.markItemsCompleted(siteId, environment, itemsToDeploy);
             logger.debug("Items marked completed for site '{}' and target '{}'", siteId, environment);
+            recordPublished(siteId, itemsToDeploy);
             publishingManager.setPublishedState(siteId, environment, itemsToDeploy);
 
             logger.info("Published '{}' items in site '{}' to target '{}'",
@@ -204,6 +210,28 @@ public class StudioPublisherTask extends StudioClockTask {
         }
     }
 
+    /**
+     * Records the time it took to publish the items, measured from the date they were scheduled for
+     */
+    protected void recordPublished(String siteId, List<PublishRequest> items) {
+        PublishingLatency latency = latencies.computeIfAbsent(siteId, id -> new PublishingLatency());
+        for (PublishRequest item : items) {
+            if (item.getScheduledDate() != null && item.getPublishedOn() != null) {
+                latency.record(Duration.between(item.getScheduledDate(), item.getPublishedOn()).toMillis());
+            }
+        }
+    }
+
+    /**
+     * Returns the time to publish stats of the given site
+     *
+     * @param siteId the site id
+     * @return the stats, or null if nothing has been published in the site since startup
+     */
+    public PublishingLatency getPublishingLatency(String siteId) {
+        return latencies.get(siteId);
+    }
+
     private void processPublishingRequest(String siteId, String environment, PublishRequest item,
                                           List<DeploymentItemTO> completeDeploymentItemList, Set<String> processedPaths)
             throws ServiceLayerException, DeploymentException, UserNotFoundException {
@@ -310,4 +338,33 @@ public class StudioPublisherTask extends StudioClockTask {
     public void setActivityStreamServiceInternal(ActivityStreamServiceInternal activityStreamServiceInternal) {
         this.activityStreamServiceInternal = activityStreamServiceInternal;
     }
+
+    /**
+     * Time to publish stats of a site, from the date the items were scheduled for until they were published
+     */
+    public static class PublishingLatency {
+
+        protected long items;
+        protected long totalMillis;
+        protected long maxMillis;
+        protected long lastMillis;
+
+        protected synchronized void record(long millis) {
+            millis = Math.max(0, millis);
+            items++;
+            totalMillis += millis;
+            maxMillis = Math.max(maxMillis, millis);
+            lastMillis = millis;
+        }
+
+        public synchronized Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("publishedItems", items);
+            map.put("averageTimeToPublishMillis", items > 0 ? totalMillis / items : 0);
+            map.put("maxTimeToPublishMillis", maxMillis);
+            map.put("lastTimeToPublishMillis", lastMillis);
+            return map;
+        }
+
+    }
 }
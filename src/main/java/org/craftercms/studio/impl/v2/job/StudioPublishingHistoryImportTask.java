@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.craftercms.studio.api.v1.dal.SiteFeed.STATE_READY;
+
+/**
+ * Imports the publishing history of existing sites from the published repository into the database, a bounded
+ * number of commits per cycle. Once a site has been imported its publishing history is read from the database.
+ */
+public class StudioPublishingHistoryImportTask extends StudioClockTask {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudioPublishingHistoryImportTask.class);
+
+    protected int maxCommits;
+
+    @Override
+    protected void executeInternal(String siteId) {
+        if (!StringUtils.equals(siteService.getSiteState(siteId), STATE_READY)) {
+            return;
+        }
+        try {
+            // The progress of each publishing target is kept in the database, targets already imported are skipped
+            // and the ones added later are imported as well
+            contentRepository.importPublishingHistory(siteId, maxCommits);
+        } catch (Exception e) {
+            logger.error("Failed to import the publishing history for site '{}'", siteId, e);
+        }
+    }
+
+    public void setMaxCommits(int maxCommits) {
+        this.maxCommits = maxCommits;
+    }
+
+}
@@ -17,6 +17,7 @@
 package org.craftercms.studio.impl.v2.repository;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.NotFileFilter;
 import org.apache.commons.io.filefilter.PrefixFileFilter;
@@ -99,6 +100,7 @@ import static org.apache.commons.lang3.StringUtils.*;
 import static org.craftercms.studio.api.v1.constant.GitRepositories.*;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.*;
 import static org.craftercms.studio.api.v2.dal.RepoOperation.Action.*;
+import static org.craftercms.studio.api.v2.utils.DalUtils.escapeLikePattern;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.*;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.*;
 import static org.eclipse.jgit.api.CreateBranchCommand.SetupUpstreamMode.TRACK;
@@ -112,6 +114,11 @@ public class GitContentRepository implements ContentRepository {
 
     private static final Logger logger = LoggerFactory.getLogger(GitContentRepository.class);
 
+    /**
+     * Maximum number of paths recorded in the publishing history per statement
+     */
+    private static final int PUBLISHING_HISTORY_BATCH_SIZE = 1000;
+
     private GitRepositoryHelper helper;
     private StudioConfiguration studioConfiguration;
     private UserServiceInternal userServiceInternal;
@@ -122,10 +129,12 @@ public class GitContentRepository implements ContentRepository {
     private GeneralLockService generalLockService;
     private SiteService siteService;
     private PublishRequestDAO publishRequestDao;
+    private PublishingHistoryDAO publishingHistoryDao;
     private ItemServiceInternal itemServiceInternal;
     private RetryingRepositoryOperationFacade retryingRepositoryOperationFacade;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
     private PublishingProgressServiceInternal publishingProgressServiceInternal;
+    private GitPathIndexCache pathIndexCache;
 
     private ServicesConfig servicesConfig;
 
@@ -425,6 +434,18 @@ public class GitContentRepository implements ContentRepository {
     public List<PublishingHistoryItem> getPublishingHistory(String siteId, String environment, String pathRegex,
                                                             String publisher, ZonedDateTime fromDate,
                                                             ZonedDateTime toDate, int limit) {
+        if (publishingHistoryDao.isPublishingHistoryImported(siteId)) {
+            try {
+                // The git log matches the whole path, anchor the expression to do the same in the database
+                String regex = isNotEmpty(pathRegex) ? "^(" + pathRegex + ")$" : null;
+                return publishingHistoryDao.getPublishingHistory(siteId, trimToNull(environment), null, regex,
+                        getPublisherName(publisher), fromDate, toDate != null ? toDate : DateUtils.getCurrentTime(),
+                        null, limit);
+            } catch (UserNotFoundException | ServiceLayerException e) {
+                logger.error("Failed to get the deployment history for site '{}'", siteId, e);
+                return new ArrayList<>();
+            }
+        }
         List<PublishingHistoryItem> toRet = new ArrayList<>();
         Repository publishedRepo = helper.getRepository(siteId, PUBLISHED);
         if (publishedRepo != null) {
@@ -500,6 +521,150 @@ public class GitContentRepository implements ContentRepository {
         return toRet;
     }
 
+    @Override
+    public List<PublishingHistoryItem> getPublishingHistoryPage(String siteId, String environment,
+                                                                String pathPrefix, String publisher,
+                                                                ZonedDateTime fromDate, ZonedDateTime toDate,
+                                                                Long afterId, int limit)
+            throws ServiceLayerException, UserNotFoundException {
+        String pathPattern = null;
+        if (isNotEmpty(pathPrefix)) {
+            pathPattern = escapeLikePattern(pathPrefix);
+        }
+        return publishingHistoryDao.getPublishingHistory(siteId, trimToNull(environment), pathPattern, null,
+                getPublisherName(publisher), fromDate, toDate, afterId, limit);
+    }
+
+    @Override
+    public boolean importPublishingHistory(String siteId, int maxCommits) {
+        Repository repo = helper.getRepository(siteId, PUBLISHED);
+        if (repo == null) {
+            logger.debug("The published repository for site '{}' doesn't exist yet", siteId);
+            return false;
+        }
+        try (RevWalk revWalk = new RevWalk(repo)) {
+            String sandboxBranch = siteService.getSite(siteId).getSandboxBranch();
+            Map<String, PublishingHistoryImport> imports = new HashMap<>();
+            publishingHistoryDao.getPublishingHistoryImports(siteId)
+                    .forEach(historyImport -> imports.put(historyImport.getEnvironment(), historyImport));
+            for (Ref ref : repo.getRefDatabase().getRefsByPrefix(R_HEADS)) {
+                String environment = Repository.shortenRefName(ref.getName());
+                if (imports.containsKey(environment) || StringUtils.equals(MASTER, environment) ||
+                        StringUtils.equals(sandboxBranch, environment) ||
+                        environment.endsWith(IN_PROGRESS_BRANCH_NAME_SUFFIX)) {
+                    continue;
+                }
+                // Commits after the current head are recorded when they are published
+                String headCommitId = ref.getObjectId().getName();
+                retryingDatabaseOperationFacade.retry(() ->
+                        publishingHistoryDao.insertPublishingHistoryImport(siteId, environment, headCommitId));
+                PublishingHistoryImport historyImport = new PublishingHistoryImport();
+                historyImport.setEnvironment(environment);
+                historyImport.setHeadCommitId(headCommitId);
+                imports.put(environment, historyImport);
+            }
+
+            boolean completed = !imports.isEmpty();
+            for (PublishingHistoryImport historyImport : imports.values()) {
+                if (!historyImport.isCompleted()) {
+                    completed &= importPublishingHistory(siteId, repo, revWalk, historyImport, maxCommits);
+                }
+            }
+            return completed;
+        } catch (IOException | SiteNotFoundException e) {
+            logger.error("Failed to import the publishing history for site '{}'", siteId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Imports the next commits of the publishing history of a publishing target
+     *
+     * @return true if all the commits of the publishing target have been imported
+     */
+    protected boolean importPublishingHistory(String siteId, Repository repo, RevWalk revWalk,
+                                              PublishingHistoryImport historyImport, int maxCommits)
+            throws IOException {
+        String environment = historyImport.getEnvironment();
+        ObjectId headId = ObjectId.fromString(historyImport.getHeadCommitId());
+        boolean completed = true;
+        int importedCommits = historyImport.getImportedCommits();
+        if (repo.getObjectDatabase().has(headId)) {
+            revWalk.reset();
+            // Same as the history read from git, the commit that creates the repository is not a publish
+            revWalk.setRevFilter(NotRevFilter.create(MessageRevFilter.create("Initial commit.")));
+            revWalk.markStart(revWalk.parseCommit(headId));
+            int position = 0;
+            RevCommit commit;
+            // The head is fixed, so the commits are always walked in the same order
+            while (position < importedCommits + maxCommits && (commit = revWalk.next()) != null) {
+                if (position++ >= importedCommits) {
+                    insertPublishingHistory(siteId, environment, repo, commit);
+                }
+            }
+            completed = position < importedCommits + maxCommits;
+            importedCommits = position;
+        } else {
+            logger.warn("Commit '{}' not found in the published repository of site '{}', the publishing history " +
+                    "of target '{}' can't be imported", historyImport.getHeadCommitId(), siteId, environment);
+        }
+        int finalImportedCommits = importedCommits;
+        boolean finalCompleted = completed;
+        retryingDatabaseOperationFacade.retry(() -> publishingHistoryDao.updatePublishingHistoryImport(siteId,
+                environment, finalImportedCommits, finalCompleted));
+        historyImport.setImportedCommits(importedCommits);
+        historyImport.setCompleted(completed);
+        logger.debug("Imported '{}' commits of the publishing history of site '{}' target '{}', completed: '{}'",
+                importedCommits, siteId, environment, completed);
+        if (completed) {
+            logger.info("Completed the import of the publishing history of site '{}' target '{}'", siteId,
+                    environment);
+        }
+        return completed;
+    }
+
+    /**
+     * Records the paths published by a commit in the publishing history, errors are only logged because the
+     * content has already been published
+     */
+    protected void recordPublishingHistory(String siteId, String environment, Repository repo, RevCommit commit) {
+        try {
+            insertPublishingHistory(siteId, environment, repo, commit);
+        } catch (Exception e) {
+            logger.warn("Failed to record commit '{}' in the publishing history of site '{}' target '{}'",
+                    commit.getName(), siteId, environment, e);
+        }
+    }
+
+    protected void insertPublishingHistory(String siteId, String environment, Repository repo, RevCommit commit) {
+        List<String> paths = new ArrayList<>();
+        for (String file : helper.getFilesInCommit(repo, commit)) {
+            if (!ArrayUtils.contains(IGNORE_FILES, Paths.get(file).getFileName().toString())) {
+                paths.add(file);
+            }
+        }
+        if (paths.isEmpty()) {
+            return;
+        }
+        String publisher = commit.getAuthorIdent().getName();
+        ZonedDateTime publishedOn = Instant.ofEpochSecond(commit.getCommitTime()).atZone(UTC);
+        for (List<String> batch : ListUtils.partition(paths, PUBLISHING_HISTORY_BATCH_SIZE)) {
+            retryingDatabaseOperationFacade.retry(() -> publishingHistoryDao.insertPublishingHistory(siteId,
+                    environment, commit.getName(), publisher, publishedOn, batch));
+        }
+    }
+
+    /**
+     * Get the name used as author in the commits of the given user, null if no user is given
+     */
+    protected String getPublisherName(String publisher) throws ServiceLayerException, UserNotFoundException {
+        if (isEmpty(publisher)) {
+            return null;
+        }
+        User user = userServiceInternal.getUserByIdOrUsername(-1, publisher);
+        return helper.getAuthorIdent(user).getName();
+    }
+
     @Override
     public boolean createSiteFromBlueprint(String blueprintLocation, String site, String sandboxBranch,
                                            Map<String, String> params, String creator) {
@@ -562,6 +727,14 @@ public class GitContentRepository implements ContentRepository {
                 sandboxBranchName = studioConfiguration.getProperty(REPO_SANDBOX_BRANCH);
             }
 
+            if (studioConfiguration.getProperty(REPO_PUBLISHED_INDEX_ONLY, Boolean.class, false) &&
+                    publishIndexOnly(site, repo, sandboxBranchName, deploymentItems, environment, author, comment)) {
+                if (repoCreated) {
+                    siteService.setPublishedRepoCreated(site);
+                }
+                return;
+            }
+
             String sandboxLastCommit;
             try (Git git = new Git(repo)) {
                 String inProgressBranchName = environment + IN_PROGRESS_BRANCH_NAME_SUFFIX;
@@ -680,49 +853,21 @@ public class GitContentRepository implements ContentRepository {
                 logger.debug("Checkout deployed files completed for site '{}'", site);
 
                 // commit all deployed files
-                String commitMessage = studioConfiguration.getProperty(REPO_PUBLISHED_COMMIT_MESSAGE);
+                String commitMessage = getPublishCommitMessage(author, comment, sandboxLastCommit, deployedPackages);
 
                 User user = userServiceInternal.getUserByIdOrUsername(-1, author);
                 PersonIdent authorIdent = helper.getAuthorIdent(user);
 
-                commitMessage = commitMessage.replace("{username}", author);
-                commitMessage =
-                        commitMessage.replace("{datetime}",
-                                DateUtils.getCurrentTime().format(
-                                        DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HHmmssSSSX")));
-                commitMessage = commitMessage.replace("{source}", "UI");
-                commitMessage = commitMessage.replace("{message}", comment);
-                StringBuilder sbPackage = new StringBuilder();
-                for (String p : deployedPackages) {
-                    sbPackage.append(p).append(" ");
-                }
-                commitMessage = commitMessage.replace("{commit_id}", sandboxLastCommit);
-                commitMessage = commitMessage.replace("{package_id}", sbPackage.toString().trim());
-
-                String prologue = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_PROLOGUE);
-                String postscript = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_POSTSCRIPT);
-                StringBuilder sbCommitMessage = new StringBuilder();
-                if (StringUtils.isNotEmpty(prologue)) {
-                    sbCommitMessage.append(prologue).append("\n\n");
-                }
-                sbCommitMessage.append(commitMessage);
-                if (StringUtils.isNotEmpty(postscript)) {
-                    sbCommitMessage.append("\n\n").append(postscript);
-                }
-
                 logger.debug("Git commit all published items for site '{}' started", site);
                 CommitCommand commitCommand =
-                        git.commit().setMessage(sbCommitMessage.toString()).setAuthor(authorIdent);
+                        git.commit().setMessage(wrapCommitMessage(commitMessage)).setAuthor(authorIdent);
                 RevCommit revCommit = retryingRepositoryOperationFacade.call(commitCommand);
                 logger.debug("Git commit all published items for site '{}' completed", site);
 
                 int commitTime = revCommit.getCommitTime();
 
                 // tag
-                ZonedDateTime tagDate2 = Instant.ofEpochSecond(commitTime).atZone(UTC);
-                String publishDate = DateUtils.formatCurrentTime("yyyy-MM-dd'T'HHmmssSSSX");
-                String tagName2 = DateUtils.formatDate(tagDate2, "yyyy-MM-dd'T'HHmmssSSSX") +
-                        "_published_on_" + publishDate;
+                String tagName2 = getPublishTagName(commitTime);
                 PersonIdent authorIdent2 = helper.getAuthorIdent(user);
 
                 logger.debug("Git tag started for site '{}'", site);
@@ -747,6 +892,8 @@ public class GitContentRepository implements ContentRepository {
                 logger.debug("Delete the in-progress branch (clean up) for site '{}'", site);
                 deleteBranches(git, inProgressBranchName);
 
+                recordPublishingHistory(site, environment, repo, revCommit);
+
                 if (repoCreated) {
                     siteService.setPublishedRepoCreated(site);
                 }
@@ -761,6 +908,185 @@ public class GitContentRepository implements ContentRepository {
         }
     }
 
+    /**
+     * Publishes the items building the commit directly in the object database of the published repository.
+     * The working tree is not updated, if HEAD points to one of the updated branches it is detached so that the
+     * working tree stays consistent with it and the next checkout brings it up to date.
+     *
+     * @return false if the sandbox branch of the published repository can't be fast-forwarded, in which case the
+     *         working tree based publishing needs to be used
+     */
+    protected boolean publishIndexOnly(String site, Repository repo, String sandboxBranchName,
+                                       List<DeploymentItemTO> deploymentItems, String environment, String author,
+                                       String comment) throws GitAPIException, IOException, ServiceLayerException,
+                                                              UserNotFoundException {
+        try (Git git = new Git(repo);
+             RevWalk revWalk = new RevWalk(repo);
+             ObjectInserter inserter = repo.newObjectInserter()) {
+            logger.debug("Fetch from sandbox in site '{}'", site);
+            retryingRepositoryOperationFacade.call(git.fetch());
+
+            Ref remoteRef = repo.exactRef(R_REMOTES + DEFAULT_REMOTE_NAME + FILE_SEPARATOR + sandboxBranchName);
+            if (remoteRef == null) {
+                logger.debug("Sandbox branch '{}' not found in the published repository of site '{}'",
+                        sandboxBranchName, site);
+                return false;
+            }
+            RevCommit sandboxCommit = revWalk.parseCommit(remoteRef.getObjectId());
+            Ref localRef = repo.exactRef(R_HEADS + sandboxBranchName);
+            if (localRef != null &&
+                    !revWalk.isMergedInto(revWalk.parseCommit(localRef.getObjectId()), sandboxCommit)) {
+                logger.info("Branch '{}' in the published repository of site '{}' can't be fast-forwarded, " +
+                        "publishing using the working tree", sandboxBranchName, site);
+                return false;
+            }
+            revWalk.reset();
+            updateBranch(repo, sandboxBranchName, localRef != null ? localRef.getObjectId() : null, sandboxCommit);
+            String sandboxLastCommit = sandboxCommit.getName();
+            logger.debug("Publishing from commit '{}' in site '{}'", sandboxLastCommit, site);
+
+            logger.debug("Ensure target branch '{}' exists in site '{}'", environment, site);
+            ensureEnvironmentBranch(site, environment, repo, sandboxBranchName);
+            Ref environmentRef = repo.exactRef(R_HEADS + environment);
+            if (environmentRef == null) {
+                throw new DeploymentException(format("Publishing target branch '%s' not found in site '%s'",
+                        environment, site));
+            }
+            RevCommit environmentCommit = revWalk.parseCommit(environmentRef.getObjectId());
+
+            PublishedTreeEditor treeEditor =
+                    new PublishedTreeEditor(repo, environmentCommit.getTree(), sandboxCommit.getTree());
+            Set<String> deployedPackages = new HashSet<>();
+            String currentPackageId = deploymentItems.get(0).getPackageId();
+            for (DeploymentItemTO deploymentItem : deploymentItems) {
+                String path = helper.getGitPath(deploymentItem.getPath());
+                treeEditor.publish(path);
+
+                if (deploymentItem.isMove() &&
+                        !StringUtils.equals(deploymentItem.getPath(), deploymentItem.getOldPath())) {
+                    treeEditor.move(helper.getGitPath(deploymentItem.getOldPath()));
+                }
+                if (deploymentItem.isDelete()) {
+                    // If old path exists, that means the item has not been published after rename, delete the old path instead
+                    treeEditor.delete(helper.getGitPath(
+                            defaultIfEmpty(deploymentItem.getOldPath(), deploymentItem.getPath())), path);
+                }
+                if (StringUtils.isNotEmpty(deploymentItem.getPackageId())) {
+                    deployedPackages.add(deploymentItem.getPackageId());
+                }
+
+                itemServiceInternal.updateLastPublishedOn(site, deploymentItem.getPath(),
+                        DateUtils.getCurrentTime());
+
+                if (!StringUtils.equals(currentPackageId, deploymentItem.getPackageId())) {
+                    currentPackageId = deploymentItem.getPackageId();
+                    publishingProgressServiceInternal.updateObserver(site, currentPackageId);
+                } else {
+                    publishingProgressServiceInternal.updateObserver(site);
+                }
+            }
+
+            String commitMessage = getPublishCommitMessage(author, comment, sandboxLastCommit, deployedPackages);
+            User user = userServiceInternal.getUserByIdOrUsername(-1, author);
+            PersonIdent committer = new PersonIdent(repo);
+
+            logger.debug("Write the published commit for site '{}' started", site);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(treeEditor.writeTree(inserter));
+            commit.setParentId(environmentCommit);
+            commit.setAuthor(helper.getAuthorIdent(user));
+            commit.setCommitter(committer);
+            commit.setMessage(wrapCommitMessage(commitMessage));
+            ObjectId commitId = inserter.insert(commit);
+
+            String tagName = getPublishTagName((int) (committer.getWhen().getTime() / 1000));
+            TagBuilder tag = new TagBuilder();
+            tag.setObjectId(commitId, OBJ_COMMIT);
+            tag.setTag(tagName);
+            tag.setTagger(helper.getAuthorIdent(user));
+            tag.setMessage(commitMessage);
+            ObjectId tagId = inserter.insert(tag);
+            inserter.flush();
+
+            RefUpdate tagUpdate = repo.updateRef(R_TAGS + tagName);
+            tagUpdate.setNewObjectId(tagId);
+            checkRefUpdate(tagUpdate.update(), R_TAGS + tagName);
+            updateBranch(repo, environment, environmentCommit, commitId);
+            logger.debug("Write the published commit for site '{}' completed", site);
+
+            recordPublishingHistory(site, environment, repo, revWalk.parseCommit(commitId));
+        }
+        return true;
+    }
+
+    /**
+     * Moves the branch to the given commit, detaching HEAD first if it points to the branch so it keeps matching
+     * the working tree
+     */
+    protected void updateBranch(Repository repo, String branch, ObjectId expectedOldId, ObjectId newId)
+            throws IOException {
+        String refName = R_HEADS + branch;
+        Ref head = repo.exactRef(HEAD);
+        if (head != null && head.isSymbolic() && refName.equals(head.getTarget().getName()) &&
+                head.getObjectId() != null) {
+            RefUpdate headUpdate = repo.updateRef(HEAD, true);
+            headUpdate.setNewObjectId(head.getObjectId());
+            checkRefUpdate(headUpdate.forceUpdate(), HEAD);
+        }
+        RefUpdate refUpdate = repo.updateRef(refName);
+        refUpdate.setExpectedOldObjectId(expectedOldId != null ? expectedOldId : ObjectId.zeroId());
+        refUpdate.setNewObjectId(newId);
+        refUpdate.setRefLogMessage("publish", false);
+        checkRefUpdate(refUpdate.update(), refName);
+    }
+
+    private void checkRefUpdate(RefUpdate.Result result, String refName) throws IOException {
+        switch (result) {
+            case NEW, FAST_FORWARD, FORCED, NO_CHANGE -> {
+            }
+            default -> throw new IOException(format("Failed to update ref '%s': %s", refName, result));
+        }
+    }
+
+    private String getPublishCommitMessage(String author, String comment, String sandboxLastCommit,
+                                           Set<String> deployedPackages) {
+        String commitMessage = studioConfiguration.getProperty(REPO_PUBLISHED_COMMIT_MESSAGE);
+        commitMessage = commitMessage.replace("{username}", author);
+        commitMessage =
+                commitMessage.replace("{datetime}",
+                        DateUtils.getCurrentTime().format(
+                                DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HHmmssSSSX")));
+        commitMessage = commitMessage.replace("{source}", "UI");
+        commitMessage = commitMessage.replace("{message}", comment);
+        StringBuilder sbPackage = new StringBuilder();
+        for (String p : deployedPackages) {
+            sbPackage.append(p).append(" ");
+        }
+        commitMessage = commitMessage.replace("{commit_id}", sandboxLastCommit);
+        commitMessage = commitMessage.replace("{package_id}", sbPackage.toString().trim());
+        return commitMessage;
+    }
+
+    private String wrapCommitMessage(String commitMessage) {
+        String prologue = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_PROLOGUE);
+        String postscript = studioConfiguration.getProperty(REPO_COMMIT_MESSAGE_POSTSCRIPT);
+        StringBuilder sbCommitMessage = new StringBuilder();
+        if (StringUtils.isNotEmpty(prologue)) {
+            sbCommitMessage.append(prologue).append("\n\n");
+        }
+        sbCommitMessage.append(commitMessage);
+        if (StringUtils.isNotEmpty(postscript)) {
+            sbCommitMessage.append("\n\n").append(postscript);
+        }
+        return sbCommitMessage.toString();
+    }
+
+    private String getPublishTagName(int commitTime) {
+        ZonedDateTime tagDate = Instant.ofEpochSecond(commitTime).atZone(UTC);
+        String publishDate = DateUtils.formatCurrentTime("yyyy-MM-dd'T'HHmmssSSSX");
+        return DateUtils.formatDate(tagDate, "yyyy-MM-dd'T'HHmmssSSSX") + "_published_on_" + publishDate;
+    }
+
     /**
      * Creates environment branch if it does not exist.
      * This method will create a branch in the given repository.
@@ -1045,6 +1371,7 @@ public class GitContentRepository implements ContentRepository {
     public boolean deleteSite(String siteId) {
         // Destroy site context
         contextManager.destroyContext(siteId);
+        pathIndexCache.invalidate(siteId);
         // Delete git repositories (sandbox and published)
         // The helper will take care of locking the repos
         return helper.deleteSiteGitRepo(siteId);
@@ -1061,6 +1388,14 @@ public class GitContentRepository implements ContentRepository {
         try {
             Repository repo = helper.getRepository(site, isEmpty(site) ? GLOBAL : SANDBOX);
             if (repo != null ) {
+                String gitPath = helper.getGitPath(path);
+                if (isEmpty(gitPath) || gitPath.equals(".")) {
+                    return true;
+                }
+                GitPathIndexCache.Lookup lookup = pathIndexCache.lookup(site, repo, gitPath);
+                if (lookup != null) {
+                    return lookup.exists();
+                }
 
                 RevTree tree = helper.getTreeForLastCommit(repo);
                 try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
@@ -1118,6 +1453,10 @@ public class GitContentRepository implements ContentRepository {
         // TODO: SJ: Reconsider this implementation for blob store backed repos
         try {
             Repository repo = helper.getRepository(site, isEmpty(site) ? GLOBAL : SANDBOX);
+            GitPathIndexCache.Lookup lookup = pathIndexCache.lookup(site, repo, helper.getGitPath(path));
+            if (lookup != null) {
+                return lookup.getSize();
+            }
             RevTree tree = helper.getTreeForLastCommit(repo);
             try (TreeWalk tw = TreeWalk.forPath(repo, helper.getGitPath(path), tree)) {
                 if (tw != null && tw.getObjectId(0) != null) {
@@ -1613,7 +1952,7 @@ public class GitContentRepository implements ContentRepository {
                     }
                     // commit all files
                     String commitMessage = StringUtils.isNotEmpty(comment) ? comment : helper.getCommitMessage(REPO_PUBLISH_ALL_COMMIT_MESSAGE);
-                    retryingRepositoryOperationFacade.call(git.commit()
+                    RevCommit commit = retryingRepositoryOperationFacade.call(git.commit()
                                                               .setMessage(commitMessage)
                                                               .setAllowEmpty(false));
                     // checkout target branch
@@ -1622,6 +1961,7 @@ public class GitContentRepository implements ContentRepository {
                     retryingRepositoryOperationFacade.call(git.merge()
                                                               .setCommit(true)
                                                               .include(repo.findRef(inProgressBranchName)));
+                    recordPublishingHistory(siteId, publishingTarget, repo, commit);
                 } catch (EmptyCommitException e) {
                     logger.info("No changes detected in site '{}' for target '{}'", siteId, publishingTarget);
 
@@ -1818,6 +2158,10 @@ public class GitContentRepository implements ContentRepository {
         this.helper = helper;
     }
 
+    public void setPathIndexCache(GitPathIndexCache pathIndexCache) {
+        this.pathIndexCache = pathIndexCache;
+    }
+
     public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
         this.studioConfiguration = studioConfiguration;
     }
@@ -1854,6 +2198,10 @@ public class GitContentRepository implements ContentRepository {
         this.publishRequestDao = publishRequestDao;
     }
 
+    public void setPublishingHistoryDao(PublishingHistoryDAO publishingHistoryDao) {
+        this.publishingHistoryDao = publishingHistoryDao;
+    }
+
     public void setItemServiceInternal(ItemServiceInternal itemServiceInternal) {
         this.itemServiceInternal = itemServiceInternal;
     }
@@ -0,0 +1,370 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.craftercms.studio.api.v1.exception.ServiceLayerException;
+import org.craftercms.studio.api.v2.event.site.SiteDeletedEvent;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Groups the commits of concurrent writes to the same site repository.
+ * <p>
+ * The first write that arrives becomes the leader of a group, waits for the configured window (or until the group
+ * is full) and then commits the changes of every write that joined the group in a single commit, while the other
+ * writers wait for the result. Writes that arrive while a group is being committed start the next group. Each
+ * writer gets the commit id for its own changes, which can be different from the rest of the group when the
+ * group commit fails and the changes are committed one by one.
+ * </p>
+ * <p>
+ * Since writers no longer hold the site locks while they wait, this class also provides a write gate per site: the
+ * writers enter it as readers and the sync from the repository as the only writer, so the sync doesn't see commits
+ * whose writers haven't finished updating the database.
+ * </p>
+ */
+public class GitGroupCommitter implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitGroupCommitter.class);
+
+    protected final Map<String, SiteQueue> queues = new ConcurrentHashMap<>();
+    protected final Map<String, ReentrantReadWriteLock> gates = new ConcurrentHashMap<>();
+
+    protected final LongAdder groups = new LongAdder();
+    protected final LongAdder requests = new LongAdder();
+    protected final LongAccumulator maxGroupSize = new LongAccumulator(Long::max, 0);
+
+    protected boolean enabled = false;
+    protected long windowMillis = 20;
+    protected int maxGroupRequests = 500;
+
+    /**
+     * Commits the changes of the request, together with the ones of any other request for the same site received
+     * during the window.
+     *
+     * @param siteId the id of the site
+     * @param request the changes to commit
+     * @param groupCommit commits the changes of a group, returning the commit id for each request
+     * @return the id of the commit that includes the changes, null if there was nothing to commit
+     * @throws ServiceLayerException if the changes could not be committed
+     */
+    public String commit(String siteId, Request request, GroupCommit groupCommit) throws ServiceLayerException {
+        SiteQueue queue = queues.computeIfAbsent(siteId, id -> new SiteQueue());
+        Group group;
+        boolean leader;
+        synchronized (queue) {
+            if (queue.removed) {
+                throw new ServiceLayerException(format("Failed to commit the changes in site '%s', the site has " +
+                        "been deleted", siteId));
+            }
+            group = queue.open;
+            leader = group == null;
+            if (leader) {
+                group = new Group();
+                queue.open = group;
+            }
+            group.requests.add(request);
+            if (group.requests.size() >= maxGroupRequests) {
+                // Wake up the leader, there is no point on waiting any longer
+                queue.open = null;
+                queue.notifyAll();
+            }
+        }
+
+        if (leader) {
+            awaitWindow(queue, group);
+            commitGroup(siteId, group, groupCommit);
+        }
+        return getResult(siteId, request);
+    }
+
+    /**
+     * Removes the queue and the write gate of a site that has been deleted. The requests waiting in the open group
+     * fail, and any request that still finds the old queue fails as well.
+     *
+     * @param siteId the id of the site
+     */
+    public void removeSite(String siteId) {
+        SiteQueue queue = queues.remove(siteId);
+        if (queue != null) {
+            synchronized (queue) {
+                queue.removed = true;
+                Group group = queue.open;
+                if (group != null) {
+                    queue.open = null;
+                    ServiceLayerException e = new ServiceLayerException(format("Failed to commit the changes in " +
+                            "site '%s', the site has been deleted", siteId));
+                    group.requests.forEach(request -> request.result.completeExceptionally(e));
+                    // Wake up the leader, it will find nothing left to commit
+                    queue.notifyAll();
+                }
+            }
+        }
+        gates.remove(siteId);
+        logger.debug("Removed the group commit queue of site '{}'", siteId);
+    }
+
+    @EventListener
+    public void onSiteDeleted(SiteDeletedEvent event) {
+        removeSite(event.getSiteId());
+    }
+
+    /**
+     * Enters the write gate of the site, blocks while the site is being synced from the repository
+     *
+     * @param siteId the id of the site
+     */
+    public void beginWrite(String siteId) {
+        getGate(siteId).readLock().lock();
+    }
+
+    /**
+     * Leaves the write gate of the site
+     *
+     * @param siteId the id of the site
+     */
+    public void endWrite(String siteId) {
+        // The gate is gone if the site was deleted while writing
+        ReentrantReadWriteLock gate = gates.get(siteId);
+        if (gate != null) {
+            gate.readLock().unlock();
+        }
+    }
+
+    /**
+     * Waits for the writes in progress to finish and keeps new ones out until {@link #unlockWrites(String)} is
+     * called
+     *
+     * @param siteId the id of the site
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if the writes are locked, false if the timeout expired or the thread was interrupted
+     */
+    public boolean lockWrites(String siteId, long timeout, TimeUnit unit) {
+        try {
+            return getGate(siteId).writeLock().tryLock(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Allows writes to the site again
+     *
+     * @param siteId the id of the site
+     */
+    public void unlockWrites(String siteId) {
+        ReentrantReadWriteLock gate = gates.get(siteId);
+        if (gate != null) {
+            gate.writeLock().unlock();
+        }
+    }
+
+    protected ReentrantReadWriteLock getGate(String siteId) {
+        return gates.computeIfAbsent(siteId, id -> new ReentrantReadWriteLock());
+    }
+
+    protected void awaitWindow(SiteQueue queue, Group group) {
+        synchronized (queue) {
+            long deadline = System.nanoTime() + MILLISECONDS.toNanos(windowMillis);
+            long remaining;
+            while (queue.open == group && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    NANOSECONDS.timedWait(queue, remaining);
+                } catch (InterruptedException e) {
+                    // Commit what we have so far, the writers are already waiting for it
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (queue.open == group) {
+                queue.open = null;
+            }
+        }
+    }
+
+    protected void commitGroup(String siteId, Group group, GroupCommit groupCommit) {
+        // The group is closed at this point so no other thread will modify the list. Requests that are already done
+        // failed because the site was removed
+        List<Request> groupRequests = group.requests.stream()
+                .filter(request -> !request.result.isDone())
+                .toList();
+        if (groupRequests.isEmpty()) {
+            return;
+        }
+        groups.increment();
+        requests.add(groupRequests.size());
+        maxGroupSize.accumulate(groupRequests.size());
+        logger.debug("Commit a group of '{}' changes in site '{}'", groupRequests.size(), siteId);
+        try {
+            List<String> commitIds = groupCommit.commit(groupRequests);
+            for (int i = 0; i < groupRequests.size(); i++) {
+                groupRequests.get(i).result.complete(commitIds.get(i));
+            }
+        } catch (Throwable e) {
+            groupRequests.forEach(request -> request.result.completeExceptionally(e));
+        }
+    }
+
+    protected String getResult(String siteId, Request request) throws ServiceLayerException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return request.result.get();
+                } catch (InterruptedException e) {
+                    // The leader will always complete the result, and the changes are already in the index
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new ServiceLayerException(format("Failed to commit the changes in site '%s'", siteId),
+                    e);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "gitGroupCommits";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long groupCount = groups.sum();
+        long requestCount = requests.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("groups", groupCount);
+        metrics.put("requests", requestCount);
+        metrics.put("averageGroupSize", groupCount > 0 ? (double) requestCount / groupCount : 0);
+        metrics.put("maxGroupSize", maxGroupSize.get());
+        return metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    public int getMaxGroupRequests() {
+        return maxGroupRequests;
+    }
+
+    public void setMaxGroupRequests(int maxGroupRequests) {
+        this.maxGroupRequests = maxGroupRequests;
+    }
+
+    /**
+     * The changes of a single writer
+     */
+    public static class Request {
+
+        protected final String comment;
+        protected final PersonIdent author;
+        protected final String[] paths;
+        protected final CompletableFuture<String> result = new CompletableFuture<>();
+
+        public Request(String comment, PersonIdent author, String... paths) {
+            this.comment = comment;
+            this.author = author;
+            this.paths = paths;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+
+        public PersonIdent getAuthor() {
+            return author;
+        }
+
+        public String[] getPaths() {
+            return paths;
+        }
+
+    }
+
+    /**
+     * Commits the changes of all the requests of a group
+     */
+    @FunctionalInterface
+    public interface GroupCommit {
+
+        /**
+         * @param requests the requests of the group, in the order they were received
+         * @return the commit id for each request, in the same order
+         * @throws Exception if the changes could not be committed
+         */
+        List<String> commit(List<Request> requests) throws Exception;
+
+    }
+
+    protected static class SiteQueue {
+
+        /**
+         * The group that is accepting new requests, if any
+         */
+        protected Group open;
+
+        /**
+         * Set once the site has been removed, no more requests are accepted
+         */
+        protected boolean removed;
+
+    }
+
+    protected static class Group {
+
+        protected final List<Request> requests = new ArrayList<>();
+
+    }
+
+}
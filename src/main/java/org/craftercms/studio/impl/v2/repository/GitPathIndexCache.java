@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.apache.commons.lang3.StringUtils;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.eclipse.jgit.lib.Constants.HEAD;
+
+/**
+ * In-memory index of the paths in the HEAD commit of each site repository.
+ * <p>
+ * Each index maps the git path of every file and folder to its object id and mode, and is tied to the commit it
+ * was built from. When HEAD moves the index is updated by diffing the old and new trees, so only the subtrees that
+ * changed are parsed. Lookups return {@code null} whenever the index can't answer for the current HEAD (being
+ * updated by another thread, too big, disabled) and callers should then fall back to walking the tree.
+ * </p>
+ */
+public class GitPathIndexCache implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitPathIndexCache.class);
+
+    protected final Map<String, SiteIndex> indexes = new ConcurrentHashMap<>();
+
+    protected final LongAdder hits = new LongAdder();
+    protected final LongAdder misses = new LongAdder();
+    protected final LongAdder fullBuilds = new LongAdder();
+    protected final LongAdder incrementalUpdates = new LongAdder();
+
+    protected boolean enabled = true;
+    protected int maxEntriesPerSite = 250000;
+
+    /**
+     * Looks up the given path in the HEAD commit of the repository.
+     *
+     * @param siteId the site id, empty for the global repository
+     * @param repository the repository of the site
+     * @param gitPath the path relative to the root of the repository
+     * @return the result of the lookup, or {@code null} if the index can't be used and the tree needs to be walked
+     */
+    public Lookup lookup(String siteId, Repository repository, String gitPath) {
+        if (!enabled || repository == null || gitPath == null) {
+            return null;
+        }
+        String key = StringUtils.stripEnd(gitPath, "/");
+        try {
+            ObjectId head = repository.resolve(HEAD);
+            if (head == null) {
+                return null;
+            }
+            SiteIndex index = indexes.computeIfAbsent(StringUtils.defaultString(siteId), id -> new SiteIndex());
+            if (!head.equals(index.commitId) && !index.update(repository, head)) {
+                misses.increment();
+                return null;
+            }
+            PathEntry entry = index.paths.get(key);
+            // The index could have moved to another commit while reading it
+            if (!head.equals(index.commitId)) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return new Lookup(repository, entry);
+        } catch (IOException e) {
+            logger.debug("Failed to look up path '{}' in the index of site '{}'", gitPath, siteId, e);
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Drops the index of the given site
+     *
+     * @param siteId the site id
+     */
+    public void invalidate(String siteId) {
+        indexes.remove(StringUtils.defaultString(siteId));
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "gitPathIndex";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long entries = 0;
+        for (SiteIndex index : indexes.values()) {
+            entries += index.paths.size();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sites", indexes.size());
+        metrics.put("entries", entries);
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("fullBuilds", fullBuilds.sum());
+        metrics.put("incrementalUpdates", incrementalUpdates.sum());
+        return metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxEntriesPerSite() {
+        return maxEntriesPerSite;
+    }
+
+    public void setMaxEntriesPerSite(int maxEntriesPerSite) {
+        this.maxEntriesPerSite = maxEntriesPerSite;
+    }
+
+    /**
+     * Result of a lookup, {@link #exists()} is false when the path is not part of the HEAD commit
+     */
+    public static class Lookup {
+
+        private final Repository repository;
+        private final PathEntry entry;
+
+        protected Lookup(Repository repository, PathEntry entry) {
+            this.repository = repository;
+            this.entry = entry;
+        }
+
+        public boolean exists() {
+            return entry != null;
+        }
+
+        public boolean isFile() {
+            return entry != null && FileMode.TREE.getBits() != entry.mode;
+        }
+
+        public ObjectId getObjectId() {
+            return entry != null ? entry.objectId : null;
+        }
+
+        /**
+         * @return the size of the object, computed the first time it is requested
+         */
+        public long getSize() throws IOException {
+            if (entry == null) {
+                return -1;
+            }
+            long size = entry.size;
+            if (size < 0) {
+                size = repository.open(entry.objectId).getSize();
+                entry.size = size;
+            }
+            return size;
+        }
+
+    }
+
+    protected static class PathEntry {
+
+        protected final ObjectId objectId;
+        protected final int mode;
+        protected volatile long size = -1;
+
+        protected PathEntry(ObjectId objectId, int mode) {
+            this.objectId = objectId;
+            this.mode = mode;
+        }
+
+    }
+
+    protected class SiteIndex {
+
+        protected final Map<String, PathEntry> paths = new ConcurrentHashMap<>();
+        protected final ReentrantLock updateLock = new ReentrantLock();
+
+        /**
+         * Commit the paths belong to, null while the index is being updated or can't be used
+         */
+        protected volatile ObjectId commitId;
+
+        /**
+         * Set once the repository goes over the maximum number of entries, the index is not used from then on
+         */
+        protected volatile boolean oversized;
+
+        /**
+         * Brings the index to the given commit, returns false if the index can't be used for that commit
+         */
+        protected boolean update(Repository repository, ObjectId head) throws IOException {
+            // Don't make readers wait for the update, they can walk the tree in the meantime
+            if (oversized || !updateLock.tryLock()) {
+                return false;
+            }
+            try {
+                if (head.equals(commitId)) {
+                    return true;
+                }
+                ObjectId previousCommitId = commitId;
+                commitId = null;
+                try (RevWalk revWalk = new RevWalk(repository)) {
+                    ObjectId headTree = revWalk.parseCommit(head).getTree();
+                    boolean updated = false;
+                    if (previousCommitId != null) {
+                        try {
+                            ObjectId previousTree = revWalk.parseCommit(previousCommitId).getTree();
+                            updated = applyChanges(repository, previousTree, headTree);
+                        } catch (MissingObjectException e) {
+                            logger.debug("Commit '{}' is no longer available, rebuilding the path index",
+                                    previousCommitId.name());
+                        }
+                    }
+                    if (!updated && !rebuild(repository, headTree)) {
+                        logger.debug("Repository '{}' has more than '{}' paths, the path index will not be used",
+                                repository.getDirectory(), maxEntriesPerSite);
+                        oversized = true;
+                        paths.clear();
+                        return false;
+                    }
+                }
+                commitId = head;
+                return true;
+            } finally {
+                updateLock.unlock();
+            }
+        }
+
+        protected boolean rebuild(Repository repository, ObjectId tree) throws IOException {
+            paths.clear();
+            Map<String, PathEntry> entries = new HashMap<>();
+            try (TreeWalk treeWalk = new TreeWalk(repository)) {
+                treeWalk.addTree(tree);
+                treeWalk.setRecursive(true);
+                // Also return the folders
+                treeWalk.setPostOrderTraversal(true);
+                while (treeWalk.next()) {
+                    if (entries.size() >= maxEntriesPerSite) {
+                        return false;
+                    }
+                    entries.put(treeWalk.getPathString(),
+                            new PathEntry(treeWalk.getObjectId(0), treeWalk.getRawMode(0)));
+                }
+            }
+            paths.putAll(entries);
+            fullBuilds.increment();
+            return true;
+        }
+
+        protected boolean applyChanges(Repository repository, ObjectId fromTree, ObjectId toTree) throws IOException {
+            try (TreeWalk treeWalk = new TreeWalk(repository)) {
+                treeWalk.addTree(fromTree);
+                treeWalk.addTree(toTree);
+                treeWalk.setRecursive(true);
+                treeWalk.setPostOrderTraversal(true);
+                // Identical subtrees are skipped without being parsed
+                treeWalk.setFilter(TreeFilter.ANY_DIFF);
+                while (treeWalk.next()) {
+                    String path = treeWalk.getPathString();
+                    if (treeWalk.getRawMode(1) == FileMode.MISSING.getBits()) {
+                        // A file replaced by a folder (or the opposite) shows up twice, keep the new one
+                        ObjectId removedId = treeWalk.getObjectId(0);
+                        paths.computeIfPresent(path, (p, entry) -> removedId.equals(entry.objectId) ? null : entry);
+                    } else {
+                        paths.put(path, new PathEntry(treeWalk.getObjectId(1), treeWalk.getRawMode(1)));
+                    }
+                }
+            }
+            if (paths.size() > maxEntriesPerSite) {
+                return false;
+            }
+            incrementalUpdates.increment();
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheBuilder;
+import org.eclipse.jgit.dircache.DirCacheEntry;
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.PathFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+import static org.apache.commons.lang3.StringUtils.stripEnd;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.INDEX_FILE;
+import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.EMPTY_FILE;
+
+/**
+ * Builds the tree of a publishing commit directly in the object database, without touching the working tree of
+ * the published repository.
+ * <p>
+ * The editor starts from the tree of the publishing target branch and applies the same changes the working tree
+ * based publishing does: deleted and moved items are removed together with the folders they leave empty (or the
+ * whole folder for pages), and published items are copied from the sandbox commit once all removals are done.
+ * </p>
+ */
+public class PublishedTreeEditor {
+
+    private static final char SEPARATOR = '/';
+
+    private final Repository repository;
+    private final AnyObjectId sourceTree;
+    private final NavigableMap<String, DirCacheEntry> entries = new TreeMap<>();
+    private final Set<String> publishedPaths = new LinkedHashSet<>();
+
+    /**
+     * @param repository the published repository
+     * @param baseTree the tree of the publishing target branch, null for an empty tree
+     * @param sourceTree the tree of the sandbox commit being published
+     */
+    public PublishedTreeEditor(Repository repository, AnyObjectId baseTree, AnyObjectId sourceTree)
+            throws IOException {
+        this.repository = repository;
+        this.sourceTree = sourceTree;
+        if (baseTree != null) {
+            try (TreeWalk treeWalk = new TreeWalk(repository)) {
+                treeWalk.addTree(baseTree);
+                treeWalk.setRecursive(true);
+                while (treeWalk.next()) {
+                    entries.put(treeWalk.getPathString(), newEntry(treeWalk));
+                }
+            }
+        }
+    }
+
+    /**
+     * Publishes the file or folder from the sandbox commit, the copy happens in {@link #writeTree(ObjectInserter)}
+     */
+    public void publish(String path) {
+        String gitPath = stripEnd(path, FILE_SEPARATOR);
+        if (isNotEmpty(gitPath) && !".".equals(gitPath)) {
+            publishedPaths.add(gitPath);
+        }
+    }
+
+    /**
+     * Removes a deleted item, including the parent folder of {@code path} if it is left empty or if the deleted
+     * item was a page.
+     *
+     * @param deletePath the path to remove
+     * @param path the path of the deployment item
+     */
+    public void delete(String deletePath, String path) {
+        remove(deletePath);
+        deleteParentFolder(getParent(path), deletePath.endsWith(FILE_SEPARATOR + INDEX_FILE));
+    }
+
+    /**
+     * Removes the old path of a moved item and all the folders it leaves empty
+     */
+    public void move(String oldPath) {
+        remove(oldPath);
+        cleanUpMoveFolders(oldPath);
+    }
+
+    /**
+     * Copies the published paths from the sandbox commit and writes the resulting tree
+     *
+     * @param inserter the inserter used to write the tree objects
+     * @return the id of the new tree
+     */
+    public ObjectId writeTree(ObjectInserter inserter) throws IOException {
+        if (!publishedPaths.isEmpty()) {
+            try (TreeWalk treeWalk = new TreeWalk(repository)) {
+                treeWalk.addTree(sourceTree);
+                treeWalk.setRecursive(true);
+                for (String path : publishedPaths) {
+                    treeWalk.reset(sourceTree);
+                    treeWalk.setFilter(PathFilter.create(path));
+                    while (treeWalk.next()) {
+                        put(treeWalk.getPathString(), newEntry(treeWalk));
+                    }
+                }
+            }
+        }
+
+        DirCache dirCache = DirCache.newInCore();
+        DirCacheBuilder builder = dirCache.builder();
+        entries.values().forEach(builder::add);
+        builder.finish();
+        return dirCache.writeTree(inserter);
+    }
+
+    protected void cleanUpMoveFolders(String path) {
+        String parent = getParent(path);
+        if (parent == null) {
+            return;
+        }
+        deleteParentFolder(parent, path.endsWith(FILE_SEPARATOR + INDEX_FILE));
+        if (!exists(parent)) {
+            cleanUpMoveFolders(parent);
+        }
+    }
+
+    protected void deleteParentFolder(String folder, boolean wasPage) {
+        if (folder == null || !exists(folder)) {
+            return;
+        }
+        boolean hasFolders = false;
+        int files = 0;
+        boolean onlyEmptyFile = true;
+        String prefix = folder + SEPARATOR;
+        for (String child : entries.subMap(prefix, true, folder + (char) (SEPARATOR + 1), false).keySet()) {
+            String name = child.substring(prefix.length());
+            if (name.indexOf(SEPARATOR) >= 0) {
+                hasFolders = true;
+                break;
+            }
+            files++;
+            onlyEmptyFile &= EMPTY_FILE.equals(name);
+        }
+        if (wasPage || (!hasFolders && (files == 0 || files < 2 && onlyEmptyFile))) {
+            remove(folder);
+        }
+    }
+
+    /**
+     * Adds the entry replacing any file or folder that conflicts with its path
+     */
+    protected void put(String path, DirCacheEntry entry) {
+        remove(path);
+        for (String parent = getParent(path); parent != null; parent = getParent(parent)) {
+            entries.remove(parent);
+        }
+        entries.put(path, entry);
+    }
+
+    /**
+     * Removes the entry for the path and everything under it
+     */
+    protected void remove(String path) {
+        entries.remove(path);
+        entries.subMap(path + SEPARATOR, true, path + (char) (SEPARATOR + 1), false).clear();
+    }
+
+    protected boolean exists(String path) {
+        if (entries.containsKey(path)) {
+            return true;
+        }
+        String next = entries.ceilingKey(path + SEPARATOR);
+        return next != null && next.startsWith(path + SEPARATOR);
+    }
+
+    protected String getParent(String path) {
+        int index = path.lastIndexOf(SEPARATOR);
+        return index > 0 ? path.substring(0, index) : null;
+    }
+
+    private DirCacheEntry newEntry(TreeWalk treeWalk) {
+        DirCacheEntry entry = new DirCacheEntry(treeWalk.getRawPath());
+        entry.setFileMode(FileMode.fromBits(treeWalk.getRawMode(0)));
+        entry.setObjectId(treeWalk.getObjectId(0));
+        return entry;
+    }
+
+}
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.apache.commons.collections4.keyvalue.MultiKey;
 import org.apache.commons.collections4.map.MultiKeyMap;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.config.PublishingTargetResolver;
@@ -36,6 +37,7 @@ import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteRepository
 import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteRepositoryException;
 import org.craftercms.studio.api.v1.exception.repository.InvalidRemoteUrlException;
 import org.craftercms.studio.api.v1.exception.repository.RemoteRepositoryNotFoundException;
+import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.repository.ContentRepository;
 import org.craftercms.studio.api.v1.repository.RepositoryItem;
 import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
@@ -57,6 +59,7 @@ import org.craftercms.studio.model.rest.content.DetailedItem;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -369,6 +372,45 @@ public class BlobAwareContentRepository implements ContentRepository, StudioBlob
         }
     }
 
+    @Override
+    public String copyContent(String site, String fromPath, String toPath, Map<String, Resource> contents) {
+        logger.debug("Copy '{}' items in site '{}' from '{}' to '{}'", contents.size(), site, fromPath, toPath);
+        try {
+            Map<String, Resource> localContents = new LinkedHashMap<>(contents.size());
+            for (Map.Entry<String, Resource> entry : contents.entrySet()) {
+                String path = entry.getKey();
+                StudioBlobStore store = getBlobStoreIfConfigured(site, path);
+                if (store == null) {
+                    localContents.put(path, entry.getValue());
+                } else if (entry.getValue() == null) {
+                    store.createFolder(site, normalize(FilenameUtils.getFullPathNoEndSeparator(path)),
+                            FilenameUtils.getName(path));
+                    localContents.put(path, null);
+                } else {
+                    try (InputStream content = entry.getValue().getInputStream()) {
+                        store.writeContent(site, normalize(path), content);
+                    }
+                    Blob reference = store.getReference(normalize(path));
+                    localContents.put(appendIfMissing(path, "." + fileExtension),
+                            new ByteArrayResource(objectMapper.writeValueAsBytes(reference)));
+                }
+            }
+            return localRepositoryV1.copyContent(site, fromPath, toPath, localContents);
+        } catch (Exception e) {
+            logger.error("Failed to copy '{}' items in site '{}' from '{}' to '{}'",
+                    contents.size(), site, fromPath, toPath, e);
+            return null;
+        }
+    }
+
+    protected StudioBlobStore getBlobStoreIfConfigured(String site, String path) throws ServiceLayerException {
+        try {
+            return getBlobStore(site, path);
+        } catch (BlobStoreConfigurationMissingException e) {
+            return null;
+        }
+    }
+
     @Override
     public RepositoryItem[] getContentChildren(String site, String path) {
         RepositoryItem[] children = localRepositoryV1.getContentChildren(site, path);
@@ -699,6 +741,21 @@ public class BlobAwareContentRepository implements ContentRepository, StudioBlob
         return localRepositoryV2.getPublishingHistory(siteId, environment, path, publisher, fromDate, toDate, limit);
     }
 
+    @Override
+    public List<PublishingHistoryItem> getPublishingHistoryPage(String siteId, String environment,
+                                                                String pathPrefix, String publisher,
+                                                                ZonedDateTime fromDate, ZonedDateTime toDate,
+                                                                Long afterId, int limit)
+            throws ServiceLayerException, UserNotFoundException {
+        return localRepositoryV2.getPublishingHistoryPage(siteId, environment, pathPrefix, publisher, fromDate,
+                toDate, afterId, limit);
+    }
+
+    @Override
+    public boolean importPublishingHistory(String siteId, int maxCommits) {
+        return localRepositoryV2.importPublishingHistory(siteId, maxCommits);
+    }
+
     @Override
     public Item getItem(String siteId, String path, boolean flatten) {
         return localRepositoryV2.getItem(siteId, path, flatten);
@@ -0,0 +1,278 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob.s3;
+
+import org.apache.commons.collections4.ListUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.craftercms.studio.impl.v1.service.aws.AwsUtils.COPY_PART_SIZE;
+import static org.craftercms.studio.impl.v1.service.aws.AwsUtils.DELETE_BATCH_SIZE;
+import static org.craftercms.studio.impl.v1.service.aws.AwsUtils.copyFile;
+
+/**
+ * Copies and deletes large numbers of S3 objects, used to publish blobs.
+ * <p>
+ * Copies are sent through the async client with a bounded number of requests in flight, deletes are sent in batches
+ * of {@link org.craftercms.studio.impl.v1.service.aws.AwsUtils#DELETE_BATCH_SIZE} keys. Throttling and server errors
+ * are retried with an exponential backoff. Objects too large for a single copy request are copied with a multipart
+ * copy once all the other copies are done.
+ * </p>
+ */
+public class S3BulkOperations {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3BulkOperations.class);
+
+    /**
+     * Error codes returned by S3 for individual keys of a batch delete that can be retried
+     */
+    protected static final Set<String> RETRYABLE_ERROR_CODES = Set.of("SlowDown", "InternalError",
+            "ServiceUnavailable", "RequestTimeout");
+
+    /**
+     * Error code returned by S3 when the source of a single copy request is too large
+     */
+    protected static final String INVALID_REQUEST_ERROR_CODE = "InvalidRequest";
+
+    protected int maxConcurrentCopies = 32;
+    protected int maxAttempts = 3;
+    protected long initialBackoffMillis = 200;
+
+    /**
+     * Copies objects between buckets
+     *
+     * @param asyncClient the client used for the copies
+     * @param client the client used for multipart copies
+     * @param sourceBucket the bucket to copy from
+     * @param targetBucket the bucket to copy to
+     * @param keys the keys to copy, mapping each target key to its source key
+     * @return the target keys that could not be copied with the error for each one, empty if all copies succeeded
+     */
+    public Map<String, Throwable> copyObjects(S3AsyncClient asyncClient, S3Client client, String sourceBucket,
+                                              String targetBucket, Map<String, String> keys) {
+        long start = System.nanoTime();
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        Map<String, String> multipartCopies = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(maxConcurrentCopies);
+        List<CompletableFuture<Void>> copies = new ArrayList<>(keys.size());
+        for (Map.Entry<String, String> entry : keys.entrySet()) {
+            String targetKey = entry.getKey();
+            String sourceKey = entry.getValue();
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(targetKey, e);
+                continue;
+            }
+            copies.add(copyObject(asyncClient, sourceBucket, sourceKey, targetBucket, targetKey, 1)
+                    .handle((response, error) -> {
+                        permits.release();
+                        if (error != null) {
+                            Throwable cause = unwrap(error);
+                            if (isCopySourceTooLarge(cause)) {
+                                multipartCopies.put(targetKey, sourceKey);
+                            } else {
+                                logger.debug("Failed to copy '{}/{}' to '{}/{}'",
+                                        sourceBucket, sourceKey, targetBucket, targetKey, cause);
+                                failures.put(targetKey, cause);
+                            }
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(copies.toArray(new CompletableFuture[0])).join();
+
+        // Multipart copies are blocking and rare, so there is no point on running them in parallel
+        multipartCopies.forEach((targetKey, sourceKey) -> {
+            try {
+                copyFile(sourceBucket, sourceKey, targetBucket, targetKey, COPY_PART_SIZE, client);
+            } catch (Exception e) {
+                logger.debug("Failed to copy '{}/{}' to '{}/{}'", sourceBucket, sourceKey, targetBucket, targetKey, e);
+                failures.put(targetKey, e);
+            }
+        });
+
+        logger.debug("Copied '{}' objects from bucket '{}' to bucket '{}' with '{}' failures in '{}' ms",
+                keys.size(), sourceBucket, targetBucket, failures.size(),
+                NANOSECONDS.toMillis(System.nanoTime() - start));
+        return failures;
+    }
+
+    /**
+     * Deletes objects from a bucket
+     *
+     * @param client the client used for the deletes
+     * @param bucket the bucket to delete from
+     * @param keys the keys to delete
+     * @return the keys that could not be deleted with the error for each one, empty if all deletes succeeded
+     */
+    public Map<String, String> deleteObjects(S3Client client, String bucket, Collection<String> keys) {
+        long start = System.nanoTime();
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (List<String> batch : ListUtils.partition(new ArrayList<>(keys), DELETE_BATCH_SIZE)) {
+            List<String> pending = batch;
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                List<String> retry = new ArrayList<>();
+                try {
+                    List<S3Error> errors = client.deleteObjects(getDeleteRequest(bucket, pending)).errors();
+                    for (S3Error error : errors) {
+                        if (attempt < maxAttempts && RETRYABLE_ERROR_CODES.contains(error.code())) {
+                            retry.add(error.key());
+                        } else {
+                            failures.put(error.key(), error.code() + ": " + error.message());
+                        }
+                    }
+                } catch (Exception e) {
+                    if (attempt < maxAttempts && isRetryable(e)) {
+                        retry = pending;
+                    } else {
+                        for (String key : pending) {
+                            failures.put(key, e.getMessage());
+                        }
+                    }
+                }
+                if (!retry.isEmpty() && !sleep(getBackoffMillis(attempt))) {
+                    retry.forEach(key -> failures.put(key, "Interrupted"));
+                    retry = List.of();
+                }
+                pending = retry;
+            }
+        }
+        logger.debug("Deleted '{}' objects from bucket '{}' with '{}' failures in '{}' ms",
+                keys.size(), bucket, failures.size(), NANOSECONDS.toMillis(System.nanoTime() - start));
+        return failures;
+    }
+
+    protected CompletableFuture<Void> copyObject(S3AsyncClient asyncClient, String sourceBucket, String sourceKey,
+                                                 String targetBucket, String targetKey, int attempt) {
+        CopyObjectRequest request = CopyObjectRequest.builder()
+                .sourceBucket(sourceBucket)
+                .sourceKey(sourceKey)
+                .destinationBucket(targetBucket)
+                .destinationKey(targetKey)
+                .build();
+        CompletableFuture<?> copy;
+        try {
+            copy = asyncClient.copyObject(request);
+        } catch (Exception e) {
+            copy = CompletableFuture.failedFuture(e);
+        }
+        return copy.handle((response, error) -> {
+            if (error == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            Throwable cause = unwrap(error);
+            if (attempt < maxAttempts && isRetryable(cause)) {
+                long backoff = getBackoffMillis(attempt);
+                logger.trace("Retry copy of '{}/{}' in '{}' ms", sourceBucket, sourceKey, backoff);
+                return CompletableFuture.runAsync(() -> {}, delayedExecutor(backoff, MILLISECONDS))
+                        .thenCompose(ignored -> copyObject(asyncClient, sourceBucket, sourceKey, targetBucket,
+                                targetKey, attempt + 1));
+            }
+            return CompletableFuture.<Void>failedFuture(cause);
+        }).thenCompose(Function.identity());
+    }
+
+    protected DeleteObjectsRequest getDeleteRequest(String bucket, List<String> keys) {
+        List<ObjectIdentifier> identifiers = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            identifiers.add(ObjectIdentifier.builder().key(key).build());
+        }
+        return DeleteObjectsRequest.builder()
+                .bucket(bucket)
+                .delete(Delete.builder().objects(identifiers).quiet(true).build())
+                .build();
+    }
+
+    protected boolean isRetryable(Throwable error) {
+        if (error instanceof SdkServiceException serviceException) {
+            return serviceException.isThrottlingException() || serviceException.statusCode() >= 500;
+        }
+        return error instanceof SdkClientException;
+    }
+
+    protected boolean isCopySourceTooLarge(Throwable error) {
+        return error instanceof S3Exception s3Exception && s3Exception.statusCode() == 400 &&
+                s3Exception.awsErrorDetails() != null &&
+                INVALID_REQUEST_ERROR_CODE.equals(s3Exception.awsErrorDetails().errorCode());
+    }
+
+    protected long getBackoffMillis(int attempt) {
+        long backoff = initialBackoffMillis << Math.min(attempt - 1, 10);
+        // Add some jitter so throttled requests don't all come back at the same time
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    protected boolean sleep(long millis) {
+        try {
+            MILLISECONDS.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    protected Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) &&
+                error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    public void setMaxConcurrentCopies(int maxConcurrentCopies) {
+        this.maxConcurrentCopies = maxConcurrentCopies;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public void setInitialBackoffMillis(long initialBackoffMillis) {
+        this.initialBackoffMillis = initialBackoffMillis;
+    }
+
+}
@@ -15,7 +15,10 @@
  */
 package org.craftercms.studio.impl.v2.repository.blob.s3;
 
-import org.apache.commons.collections4.ListUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.configuration2.tree.ImmutableNode;
 import org.apache.commons.lang.StringUtils;
@@ -44,8 +47,10 @@ import java.beans.ConstructorProperties;
 import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.io.FilenameUtils.getExtension;
 import static org.apache.commons.lang3.StringUtils.*;
 import static org.craftercms.commons.config.ConfigUtils.getBooleanProperty;
@@ -69,6 +74,17 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
 
     private final ThreadPoolTaskExecutor taskExecutor;
 
+    protected S3BulkOperations bulkOperations = new S3BulkOperations();
+
+    /**
+     * Metadata of the objects in the buckets, to avoid sending the same HEAD requests over and over while building
+     * listings and deployment packages. Entries are removed when the objects are changed by this store.
+     */
+    protected Cache<String, ObjectMetadata> metadataCache = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(30, SECONDS)
+            .build();
+
     @ConstructorProperties({"servicesConfig", "taskExecutor"})
     public StudioAwsS3BlobStore(final ServicesConfig servicesConfig, final ThreadPoolTaskExecutor taskExecutor) {
         this.servicesConfig = servicesConfig;
@@ -106,12 +122,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
     public Blob getReference(String path) {
         Mapping mapping = getMapping(publishingTargetResolver.getPublishingTarget());
         try {
-            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                    .bucket(mapping.target)
-                    .key(getKey(mapping, path))
-                    .build();
-            HeadObjectResponse headObjectResponse = getClient().headObject(headObjectRequest);
-            return new Blob(id, headObjectResponse.eTag());
+            return new Blob(id, getExistingMetadata(mapping, path).eTag);
         } catch (Exception e) {
             throw new BlobStoreException(format("Error creating reference for content at '%s'", getFullKey(mapping, path)), e);
         }
@@ -129,14 +140,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         Mapping mapping = getMapping(publishingTargetResolver.getPublishingTarget());
         logger.debug("Check if content exists at site '{}' path '{}'", site, getFullKey(mapping, path));
         try {
-            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                    .bucket(mapping.target)
-                    .key(getKey(mapping, path))
-                    .build();
-            getClient().headObject(headObjectRequest);
-            return true;
-        } catch (NoSuchKeyException e) {
-            return false;
+            return getMetadata(mapping, path).exists;
         } catch (Exception e) {
             logger.error("Failed to check if content exists at site '{}' path '{}'",
                     site, getFullKey(mapping, path), e);
@@ -180,12 +184,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         Mapping previewMapping = getMapping(publishingTargetResolver.getPublishingTarget());
         logger.debug("Get content size from site '{}' path '{}'", site, getFullKey(previewMapping, path));
         try {
-            HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-                    .bucket(previewMapping.target)
-                    .key(getKey(previewMapping, path))
-                    .build();
-            HeadObjectResponse headObjectResponse = getClient().headObject(headObjectRequest);
-            return headObjectResponse.contentLength();
+            return getExistingMetadata(previewMapping, path).size;
         } catch (Exception e) {
             logger.error("Failed to get content size from site '{}' path '{}'",
                     site, getFullKey(previewMapping, path), e);
@@ -202,6 +201,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         try {
             uploadStream(previewMapping.target,
                     getKey(previewMapping, path), getClient(), MIN_PART_SIZE, path, content);
+            invalidateMetadata(previewMapping.target, getKey(previewMapping, path));
             return OK;
         } catch (Exception e) {
             logger.error("Failed to upload content to site '{}' path '{}'",
@@ -223,6 +223,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         checkReadWriteMode();
         Mapping previewMapping = getMapping(publishingTargetResolver.getPublishingTarget());
         logger.debug("Delete content at site '{}' path '{}'", site, getFullKey(previewMapping, path));
+        invalidateMetadata(previewMapping, path);
         if (!isFolder(path)) {
             try {
                 deleteS3Object(getClient(), previewMapping.target, getKey(previewMapping, path));
@@ -274,6 +275,8 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         Mapping previewMapping = getMapping(publishingTargetResolver.getPublishingTarget());
         logger.debug("Move content in site '{}' from '{}' to '{}'", site,
                 getFullKey(previewMapping, fromPath), getFullKey(previewMapping, toPath));
+        invalidateMetadata(previewMapping, fromPath);
+        invalidateMetadata(previewMapping, toPath);
         if (isEmpty(newName)) {
             if (isFolder(fromPath)) {
                 ListObjectsV2Request request = ListObjectsV2Request.builder()
@@ -356,6 +359,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         Mapping previewMapping = getMapping(publishingTargetResolver.getPublishingTarget());
         logger.debug("Copy content in site '{}' from '{}' to '{}'",
                 site, getFullKey(previewMapping, fromPath), getFullKey(previewMapping, toPath));
+        invalidateMetadata(previewMapping, toPath);
         if (isFolder(fromPath)) {
             ListObjectsV2Request request = ListObjectsV2Request.builder()
                     .bucket(previewMapping.target)
@@ -430,61 +434,64 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         Mapping envMapping = getMapping(environment);
         logger.debug("Publish content in site '{}' from bucket '{}' to bucket '{}'",
                 site, previewMapping.target, envMapping.target);
+
+        // Collect the final operation for each key, so the copies and deletes can be sent in any order
+        Map<String, String> copies = new LinkedHashMap<>();
+        Set<String> deletes = new LinkedHashSet<>();
         for (DeploymentItemTO item : deploymentItems) {
+            String key = getKey(envMapping, item.getPath());
             if (item.isDelete()) {
                 logger.trace("Delete content at site '{}' path '{}'", site, getFullKey(envMapping, item.getPath()));
-                try {
-                    deleteS3Object(getClient(), envMapping.target, getKey(envMapping, item.getPath()));
-                    if (isNotEmpty(item.getOldPath())) {
-                        logger.trace("Delete content at site '{}' path '{}'",
-                                site, getFullKey(envMapping, item.getOldPath()));
-                        deleteS3Object(getClient(), envMapping.target, getKey(envMapping, item.getOldPath()));
-                    }
-                } catch (Exception e) {
-                    logger.error("Failed to delete content at site '{}' path '{}'",
-                            site, getFullKey(previewMapping, item.getPath()), e);
-                    throw new BlobStoreException(format("Failed to delete content at site '%s' path '%s'",
-                            site, getFullKey(previewMapping, item.getPath())), e);
-                }
-            } else if (item.isMove()) {
-                logger.trace("Move content in site '{}' from '{}' to '{}'",
-                        site, getFullKey(envMapping, item.getOldPath()), getFullKey(envMapping, item.getPath()));
-                try {
-                    copyFile(previewMapping.target, getKey(previewMapping, item.getPath()), envMapping.target,
-                            getKey(envMapping, item.getPath()), COPY_PART_SIZE, getClient());
-                    if (!StringUtils.equals(item.getOldPath(), item.getPath())) {
-                        deleteS3Object(getClient(), envMapping.target, getKey(envMapping, item.getOldPath()));
-                    }
-                } catch (Exception e) {
-                    logger.error("Failed to move content in site '{}' from '{}' to '{}'",
-                            site,
-                            getFullKey(envMapping, item.getOldPath()),
-                            getFullKey(envMapping, item.getPath()),
-                            e);
-                    throw new BlobStoreException(format("Failed to move content in site '%s' from '%s' to '%s'",
-                            site,
-                            getFullKey(envMapping, item.getOldPath()),
-                            getFullKey(envMapping, item.getPath())), e);
+                copies.remove(key);
+                deletes.add(key);
+                if (isNotEmpty(item.getOldPath())) {
+                    logger.trace("Delete content at site '{}' path '{}'",
+                            site, getFullKey(envMapping, item.getOldPath()));
+                    String oldKey = getKey(envMapping, item.getOldPath());
+                    copies.remove(oldKey);
+                    deletes.add(oldKey);
                 }
             } else {
                 logger.trace("Copy content in site '{}' from '{}' to '{}'",
                         site, getFullKey(previewMapping, item.getPath()), getFullKey(envMapping, item.getPath()));
-                try {
-                    copyFile(previewMapping.target, getKey(previewMapping, item.getPath()), envMapping.target,
-                            getKey(envMapping, item.getPath()), COPY_PART_SIZE, getClient());
-                } catch (Exception e) {
-                    logger.error("Failed to copy content in site '{}' from '{}' to '{}'",
-                            site,
-                            getFullKey(previewMapping, item.getPath()),
-                            getFullKey(envMapping, item.getPath()),
-                            e);
-                    throw new BlobStoreException(format("Failed to copy content in site '%s' from '%s' to '%s'",
-                            site,
-                            getFullKey(previewMapping, item.getPath()),
-                            getFullKey(envMapping, item.getPath())), e);
+                deletes.remove(key);
+                copies.put(key, getKey(previewMapping, item.getPath()));
+                if (item.isMove() && isNotEmpty(item.getOldPath()) &&
+                        !StringUtils.equals(item.getOldPath(), item.getPath())) {
+                    logger.trace("Delete content at site '{}' path '{}'",
+                            site, getFullKey(envMapping, item.getOldPath()));
+                    String oldKey = getKey(envMapping, item.getOldPath());
+                    copies.remove(oldKey);
+                    deletes.add(oldKey);
                 }
             }
         }
+
+        try {
+            Map<String, Throwable> failedCopies = bulkOperations.copyObjects(getAsyncClient(), getClient(),
+                    previewMapping.target, envMapping.target, copies);
+            if (!failedCopies.isEmpty()) {
+                Map.Entry<String, Throwable> failure = failedCopies.entrySet().iterator().next();
+                logger.error("Failed to copy '{}' items in site '{}' from bucket '{}' to bucket '{}': '{}'",
+                        failedCopies.size(), site, previewMapping.target, envMapping.target, failedCopies.keySet(),
+                        failure.getValue());
+                throw new BlobStoreException(format("Failed to copy '%d' items in site '%s' from bucket '%s' " +
+                                "to bucket '%s', first failure was '%s'", failedCopies.size(), site,
+                        previewMapping.target, envMapping.target, failure.getKey()), failure.getValue());
+            }
+
+            Map<String, String> failedDeletes = bulkOperations.deleteObjects(getClient(), envMapping.target, deletes);
+            if (!failedDeletes.isEmpty()) {
+                logger.error("Failed to delete '{}' items in site '{}' from bucket '{}': '{}'",
+                        failedDeletes.size(), site, envMapping.target, failedDeletes);
+                throw new BlobStoreException(format("Failed to delete '%d' items in site '%s' from bucket '%s', " +
+                                "first failure was '%s'", failedDeletes.size(), site, envMapping.target,
+                        failedDeletes.keySet().iterator().next()));
+            }
+        } finally {
+            copies.keySet().forEach(key -> invalidateMetadata(envMapping.target, key));
+            deletes.forEach(key -> invalidateMetadata(envMapping.target, key));
+        }
     }
 
     @Override
@@ -502,6 +509,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         logger.debug("Perform initial publish for site '{}' to target 'live'", siteId);
         copyFolder(previewMapping.target, previewMapping.prefix, liveMapping.target, liveMapping.prefix,
                 MIN_PART_SIZE, getClient());
+        invalidateMetadataPrefix(liveMapping.target, liveMapping.prefix);
 
         if (servicesConfig.isStagingEnvironmentEnabled(siteId)) {
             Mapping statingMapping = getMapping(servicesConfig.getStagingEnvironment(siteId));
@@ -509,6 +517,7 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
             logger.debug("Perform initial publish for site '{}' to target 'staging'", siteId);
             copyFolder(previewMapping.target, previewMapping.prefix, statingMapping.target, statingMapping.prefix,
                     MIN_PART_SIZE, getClient());
+            invalidateMetadataPrefix(statingMapping.target, statingMapping.prefix);
         }
     }
 
@@ -538,22 +547,38 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
 
         logger.info("Perform Publish All for site '{}' to target '{}'", siteId, targetMapping);
 
+        Map<String, String> pathsByKey = new HashMap<>();
+        Map<String, String> copies = new LinkedHashMap<>();
         for (String updatedPath : changes.getUpdatedPaths()) {
-            try {
-                // TODO: check if readonly? Or just ignore?
-                copyFile(previewMapping.target, getKey(previewMapping, updatedPath), targetMapping.target,
-                        getKey(targetMapping, updatedPath), COPY_PART_SIZE, getClient());
-            } catch (Exception e) {
-                logger.error("Failed to copy '{}' from bucket '{}' to bucket '{}' for site '{}': {}", updatedPath, previewMapping.target,
-                        targetMapping.target, siteId, e.getMessage());
-                changes.getFailedPaths().add(updatedPath);
-            }
+            String key = getKey(targetMapping, updatedPath);
+            pathsByKey.put(key, updatedPath);
+            copies.put(key, getKey(previewMapping, updatedPath));
         }
-
-        for (List<String> batch : ListUtils.partition(new LinkedList<>(changes.getDeletedPaths()), DELETE_BATCH_SIZE)) {
-            String[] keys = batch.stream().map(path -> getKey(targetMapping, path)).toArray(String[]::new);
-            deleteS3Objects(getClient(), targetMapping.target, keys);
+        Map<String, Throwable> failedCopies = bulkOperations.copyObjects(getAsyncClient(), getClient(),
+                previewMapping.target, targetMapping.target, copies);
+        failedCopies.forEach((key, error) -> {
+            String updatedPath = pathsByKey.get(key);
+            logger.error("Failed to copy '{}' from bucket '{}' to bucket '{}' for site '{}': {}", updatedPath,
+                    previewMapping.target, targetMapping.target, siteId, error.getMessage());
+            changes.getFailedPaths().add(updatedPath);
+        });
+
+        List<String> deletes = new ArrayList<>();
+        for (String deletedPath : changes.getDeletedPaths()) {
+            String key = getKey(targetMapping, deletedPath);
+            pathsByKey.put(key, deletedPath);
+            deletes.add(key);
         }
+        Map<String, String> failedDeletes = bulkOperations.deleteObjects(getClient(), targetMapping.target, deletes);
+        failedDeletes.forEach((key, error) -> {
+            String deletedPath = pathsByKey.get(key);
+            logger.error("Failed to delete '{}' from bucket '{}' for site '{}': {}", deletedPath,
+                    targetMapping.target, siteId, error);
+            changes.getFailedPaths().add(deletedPath);
+        });
+
+        copies.keySet().forEach(key -> invalidateMetadata(targetMapping.target, key));
+        deletes.forEach(key -> invalidateMetadata(targetMapping.target, key));
 
         logger.info("Completed Publish All for site '{}' to target '{}'", siteId, targetMapping);
     }
@@ -587,6 +612,83 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         AwsUtils.copyObjects(getAsyncClient(), taskExecutor.getThreadPoolExecutor(),
                 sourceMapping.target, sourceMapping.prefix,
                 targetMapping.target, targetMapping.prefix, items);
+        invalidateMetadataPrefix(targetMapping.target, targetMapping.prefix);
+    }
+
+    /**
+     * Returns the metadata of an object, using the cache when possible
+     */
+    protected ObjectMetadata getMetadata(Mapping mapping, String path) {
+        String key = getKey(mapping, path);
+        try {
+            return metadataCache.get(getMetadataCacheKey(mapping.target, key), () -> {
+                try {
+                    HeadObjectResponse response = getClient().headObject(HeadObjectRequest.builder()
+                            .bucket(mapping.target)
+                            .key(key)
+                            .build());
+                    return new ObjectMetadata(true, response.contentLength(), response.eTag());
+                } catch (NoSuchKeyException e) {
+                    return ObjectMetadata.MISSING;
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new BlobStoreException(format("Failed to get the metadata for '%s'", getFullKey(mapping, path)),
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Returns the metadata of an object that must exist
+     *
+     * @throws NoSuchKeyException if the object doesn't exist
+     */
+    protected ObjectMetadata getExistingMetadata(Mapping mapping, String path) {
+        ObjectMetadata metadata = getMetadata(mapping, path);
+        if (!metadata.exists) {
+            throw NoSuchKeyException.builder()
+                    .message(format("Object '%s' does not exist", getFullKey(mapping, path)))
+                    .build();
+        }
+        return metadata;
+    }
+
+    /**
+     * Removes the cached metadata for a path, and for everything under it if the path is a folder
+     */
+    protected void invalidateMetadata(Mapping mapping, String path) {
+        if (isFolder(path)) {
+            invalidateMetadataPrefix(mapping.target, appendIfMissing(getKey(mapping, path), "/"));
+        } else {
+            invalidateMetadata(mapping.target, getKey(mapping, path));
+        }
+    }
+
+    protected void invalidateMetadata(String bucket, String key) {
+        metadataCache.invalidate(getMetadataCacheKey(bucket, key));
+    }
+
+    protected void invalidateMetadataPrefix(String bucket, String prefix) {
+        String cacheKeyPrefix = getMetadataCacheKey(bucket, defaultString(prefix));
+        metadataCache.asMap().keySet().removeIf(cacheKey -> cacheKey.startsWith(cacheKeyPrefix));
+    }
+
+    protected String getMetadataCacheKey(String bucket, String key) {
+        return bucket + "/" + key;
+    }
+
+    public void setBulkOperations(S3BulkOperations bulkOperations) {
+        this.bulkOperations = bulkOperations;
+    }
+
+    /**
+     * Sets the spec for the metadata cache, see {@link CacheBuilder#from(String)}
+     */
+    public void setMetadataCacheSpec(String metadataCacheSpec) {
+        this.metadataCache = CacheBuilder.from(metadataCacheSpec).build();
     }
 
     /**
@@ -621,4 +723,24 @@ public class StudioAwsS3BlobStore extends AwsS3BlobStore implements StudioBlobSt
         client.deleteObjects(request);
         identifiers.clear();
     }
+
+    /**
+     * The cached metadata of an object
+     */
+    protected static class ObjectMetadata {
+
+        protected static final ObjectMetadata MISSING = new ObjectMetadata(false, 0, null);
+
+        protected final boolean exists;
+        protected final long size;
+        protected final String eTag;
+
+        protected ObjectMetadata(boolean exists, long size, String eTag) {
+            this.exists = exists;
+            this.size = size;
+            this.eTag = eTag;
+        }
+
+    }
+
 }
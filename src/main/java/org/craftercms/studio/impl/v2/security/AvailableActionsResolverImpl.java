@@ -36,9 +36,12 @@ import org.dom4j.Element;
 import org.dom4j.Node;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
 
 import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.MODULE_STUDIO;
@@ -182,15 +185,31 @@ public class AvailableActionsResolverImpl implements AvailableActionsResolver {
         return mappings;
     }
 
+    @Override
+    public Map<String, Long> getContentItemAvailableActions(String username, String siteId, Collection<String> paths)
+            throws ServiceLayerException, UserNotFoundException {
+        SitePermissionMappings sitePermissionMappings = findSitePermissionMappings(siteId);
+        SortedSet<String> roles = getRoles(username, sitePermissionMappings);
+        Map<String, Long> toReturn = new HashMap<>(paths.size());
+        for (String path : paths) {
+            toReturn.put(path, sitePermissionMappings.getAvailableActions(roles, path));
+        }
+        return toReturn;
+    }
+
     private long calculateAvailableActions(String username, String path,
                                            SitePermissionMappings sitePermissionMappings)
             throws ServiceLayerException, UserNotFoundException {
-        long toReturn = 0L;
+        return sitePermissionMappings.getAvailableActions(getRoles(username, sitePermissionMappings), path);
+    }
+
+    private SortedSet<String> getRoles(String username, SitePermissionMappings sitePermissionMappings)
+            throws ServiceLayerException, UserNotFoundException {
         List<Group> groups = userServiceInternal.getUserGroups(-1, username);
-        if (CollectionUtils.isNotEmpty(groups)) {
-            toReturn = sitePermissionMappings.getAvailableActions(username, groups, path);
+        if (CollectionUtils.isEmpty(groups)) {
+            return Collections.emptySortedSet();
         }
-        return toReturn;
+        return sitePermissionMappings.getRoles(username, groups);
     }
 
 }
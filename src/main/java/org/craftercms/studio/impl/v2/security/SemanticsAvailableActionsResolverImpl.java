@@ -38,7 +38,11 @@ import org.craftercms.studio.impl.v1.util.ContentUtils;
 import org.craftercms.studio.model.rest.Person;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.apache.commons.lang3.StringUtils.appendIfMissing;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
@@ -65,7 +69,43 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
     @Override
     public long calculateContentItemAvailableActions(String username, String siteId, Item item)
             throws ServiceLayerException, UserNotFoundException {
-        long userPermissionsBitmap = availableActionsResolver.getContentItemAvailableActions(username, siteId, item.getPath());
+        ContentTypeDependencies dependencies = getContentTypeDependencies(siteId, item.getContentTypeId());
+        Map<String, Long> userPermissions = availableActionsResolver.getContentItemAvailableActions(username, siteId,
+                dependencies.addPaths(new HashSet<>(), item.getPath()));
+        return calculateContentItemAvailableActions(username, siteId, item, userPermissions, dependencies);
+    }
+
+    @Override
+    public void calculateContentItemsAvailableActions(String username, String siteId, List<Item> items)
+            throws ServiceLayerException, UserNotFoundException {
+        if (CollectionUtils.isEmpty(items)) {
+            return;
+        }
+        // Items of the same content type share the controller and template
+        Map<String, ContentTypeDependencies> dependenciesByContentType = new HashMap<>();
+        Set<String> paths = new HashSet<>();
+        for (Item item : items) {
+            String contentTypeId = item.getContentTypeId();
+            ContentTypeDependencies dependencies = dependenciesByContentType.get(contentTypeId);
+            if (dependencies == null) {
+                dependencies = getContentTypeDependencies(siteId, contentTypeId);
+                dependenciesByContentType.put(contentTypeId, dependencies);
+            }
+            dependencies.addPaths(paths, item.getPath());
+        }
+        Map<String, Long> userPermissions =
+                availableActionsResolver.getContentItemAvailableActions(username, siteId, paths);
+        for (Item item : items) {
+            item.setAvailableActions(calculateContentItemAvailableActions(username, siteId, item, userPermissions,
+                    dependenciesByContentType.get(item.getContentTypeId())));
+        }
+    }
+
+    private long calculateContentItemAvailableActions(String username, String siteId, Item item,
+                                                      Map<String, Long> userPermissions,
+                                                      ContentTypeDependencies dependencies)
+            throws ServiceLayerException, UserNotFoundException {
+        long userPermissionsBitmap = userPermissions.getOrDefault(item.getPath(), 0L);
         long systemTypeBitmap = getPossibleActionsForObject(item.getSystemType());
         Person lockOwner = item.getLockOwner();
         String lockOwnerUsername = lockOwner != null ? lockOwner.getUsername() : null;
@@ -76,13 +116,16 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         Person modifier = item.getModifier();
         String modifierUsername = modifier != null ? modifier.getUsername() : null;
         return applySpecialUseCaseFilters(username, siteId, item.getPath(), item.getMimeType(),
-                item.getSystemType(), item.getContentTypeId(), modifierUsername, item.getState(), result);
+                item.getSystemType(), modifierUsername, item.getState(), result, userPermissions, dependencies);
     }
 
     @Override
     public long calculateContentItemAvailableActions(String username, String siteId, DetailedItem detailedItem)
             throws ServiceLayerException, UserNotFoundException {
-        long userPermissionsBitmap = availableActionsResolver.getContentItemAvailableActions(username, siteId, detailedItem.getPath());
+        ContentTypeDependencies dependencies = getContentTypeDependencies(siteId, detailedItem.getContentTypeId());
+        Map<String, Long> userPermissions = availableActionsResolver.getContentItemAvailableActions(username, siteId,
+                dependencies.addPaths(new HashSet<>(), detailedItem.getPath()));
+        long userPermissionsBitmap = userPermissions.getOrDefault(detailedItem.getPath(), 0L);
         long systemTypeBitmap = getPossibleActionsForObject(detailedItem.getSystemType());
         Person lockOwner = detailedItem.getLockOwner();
         String lockOwnerUsername = lockOwner != null ? lockOwner.getUsername() : null;
@@ -93,15 +136,23 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         Person modifier = detailedItem.getSandbox().getModifier();
         String modifierUsername = modifier != null ? modifier.getUsername() : null;
         return applySpecialUseCaseFilters(username, siteId, detailedItem.getPath(), detailedItem.getMimeType(),
-                detailedItem.getSystemType(), detailedItem.getContentTypeId(), modifierUsername,
-                detailedItem.getState(),
-                result);
+                detailedItem.getSystemType(), modifierUsername, detailedItem.getState(), result, userPermissions,
+                dependencies);
+    }
+
+    private ContentTypeDependencies getContentTypeDependencies(String siteId, String contentTypeId)
+            throws ServiceLayerException {
+        if (isNotEmpty(contentTypeId)) {
+            return new ContentTypeDependencies(contentTypeServiceInternal.getContentTypeControllerPath(contentTypeId),
+                    contentTypeServiceInternal.getContentTypeTemplatePath(siteId, contentTypeId));
+        }
+        return ContentTypeDependencies.NONE;
     }
 
     private long applySpecialUseCaseFilters(String username, String siteId, String itemPath, String itemMimeType,
-                                            String itemSystemType, String itemContentTypeId, String itemModifier,
-                                            long itemState,
-                                            long availableActions)
+                                            String itemSystemType, String itemModifier, long itemState,
+                                            long availableActions, Map<String, Long> userPermissions,
+                                            ContentTypeDependencies dependencies)
             throws ServiceLayerException, UserNotFoundException {
         long result = availableActions;
 
@@ -159,12 +210,10 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         }
 
         // controller and template
-        if (isNotEmpty(itemContentTypeId)) {
-            String controllerPath = contentTypeServiceInternal.getContentTypeControllerPath(itemContentTypeId);
-            result = checkActionForDependency(siteId, username, controllerPath, result,
+        if (dependencies != ContentTypeDependencies.NONE) {
+            result = checkActionForDependency(userPermissions, dependencies.controllerPath, result,
                     CONTENT_EDIT_CONTROLLER, CONTENT_EDIT, CONTENT_DELETE_CONTROLLER, CONTENT_DELETE);
-            String templatePath = contentTypeServiceInternal.getContentTypeTemplatePath(siteId, itemContentTypeId);
-            result = checkActionForDependency(siteId, username, templatePath, result,
+            result = checkActionForDependency(userPermissions, dependencies.templatePath, result,
                     CONTENT_EDIT_TEMPLATE, CONTENT_EDIT, CONTENT_DELETE_TEMPLATE, CONTENT_DELETE);
         }
 
@@ -199,12 +248,11 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         return result;
     }
 
-    private long checkActionForDependency(String siteId, String username, String dependencyPath,
+    private long checkActionForDependency(Map<String, Long> userPermissions, String dependencyPath,
                                           long actions, long itemEditMask, long depEditMask,
-                                          long itemDeleteMask, long depDeleteMask)
-            throws UserNotFoundException, ServiceLayerException {
+                                          long itemDeleteMask, long depDeleteMask) {
         if (isNotEmpty(dependencyPath)) {
-            long depAvailableActions = availableActionsResolver.getContentItemAvailableActions(username, siteId, dependencyPath);
+            long depAvailableActions = userPermissions.getOrDefault(dependencyPath, 0L);
             actions = updateForDependency(actions, depAvailableActions, itemEditMask, depEditMask);
             actions = updateForDependency(actions, depAvailableActions, itemDeleteMask, depDeleteMask);
         } else {
@@ -259,4 +307,34 @@ public class SemanticsAvailableActionsResolverImpl implements SemanticsAvailable
         this.securityServiceV1 = securityServiceV1;
     }
 
+
+    /**
+     * Controller and template of a content type, their permissions are required to edit or delete the items
+     */
+    private static class ContentTypeDependencies {
+
+        private static final ContentTypeDependencies NONE = new ContentTypeDependencies(null, null);
+
+        private final String controllerPath;
+        private final String templatePath;
+
+        private ContentTypeDependencies(String controllerPath, String templatePath) {
+            this.controllerPath = controllerPath;
+            this.templatePath = templatePath;
+        }
+
+        /**
+         * Adds the given item path and the dependency paths to the set
+         */
+        private Set<String> addPaths(Set<String> paths, String itemPath) {
+            paths.add(itemPath);
+            if (isNotEmpty(controllerPath)) {
+                paths.add(controllerPath);
+            }
+            if (isNotEmpty(templatePath)) {
+                paths.add(templatePath);
+            }
+            return paths;
+        }
+    }
 }
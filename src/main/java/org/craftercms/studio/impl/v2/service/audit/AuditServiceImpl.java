@@ -59,9 +59,10 @@ public class AuditServiceImpl implements AuditService {
                                       String origin,
                                       String clusterNodeId,
                                       String sort,
-                                      String order) throws SiteNotFoundException {
+                                      String order,
+                                      Long afterId) throws SiteNotFoundException {
         return auditServiceInternal.getAuditLog(siteId, offset, limit, user, operations, includeParameters,
-                dateFrom, dateTo, target, origin, clusterNodeId, sort, order);
+                dateFrom, dateTo, target, origin, clusterNodeId, sort, order, afterId);
     }
 
     @Override
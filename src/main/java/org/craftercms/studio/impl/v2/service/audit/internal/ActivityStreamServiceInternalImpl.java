@@ -16,26 +16,28 @@
 
 package org.craftercms.studio.impl.v2.service.audit.internal;
 
+import org.apache.commons.collections4.ListUtils;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
-import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v2.dal.ActivityStreamDAO;
 import org.craftercms.studio.api.v2.dal.Item;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.dal.WorkflowItem;
 import org.craftercms.studio.api.v2.service.audit.internal.ActivityStreamServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.model.rest.dashboard.Activity;
 
 import java.time.ZonedDateTime;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
 
 public class ActivityStreamServiceInternalImpl implements ActivityStreamServiceInternal {
 
-    private SiteFeedMapper siteFeedMapper;
+    private SiteRegistry siteRegistry;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
     private ActivityStreamDAO activityStreamDAO;
+    private StudioConfiguration studioConfiguration;
 
     @Override
     public void insertActivity(long siteId, long userId, String action, ZonedDateTime actionTimestamp, Item item,
@@ -44,6 +46,16 @@ public class ActivityStreamServiceInternalImpl implements ActivityStreamServiceI
                 packageId));
     }
 
+    @Override
+    public void insertActivities(long siteId, long userId, String action, ZonedDateTime actionTimestamp,
+                                 List<WorkflowItem> entries) {
+        int batchSize = studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class, 1000);
+        for (List<WorkflowItem> batch : ListUtils.partition(entries, batchSize)) {
+            retryingDatabaseOperationFacade.retry(() -> activityStreamDAO.insertActivities(siteId, userId, action,
+                    actionTimestamp, batch));
+        }
+    }
+
     @Override
     public int getActivitiesForUsersTotal(String siteId, List<String> usernames, List<String> actions,
                                           ZonedDateTime dateForm, ZonedDateTime dateTo) {
@@ -58,14 +70,12 @@ public class ActivityStreamServiceInternalImpl implements ActivityStreamServiceI
     }
 
     private long getSiteId(String site) {
-        Map<String, Object> params = new HashMap<>();
-        params.put(SITE_ID, site);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(site);
         return siteFeed.getId();
     }
 
-    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
-        this.siteFeedMapper = siteFeedMapper;
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
     }
 
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
@@ -75,4 +85,8 @@ public class ActivityStreamServiceInternalImpl implements ActivityStreamServiceI
     public void setActivityStreamDAO(ActivityStreamDAO activityStreamDAO) {
         this.activityStreamDAO = activityStreamDAO;
     }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
 }
@@ -0,0 +1,330 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.service.audit.internal;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.craftercms.studio.api.v2.dal.AuditDAO;
+import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.craftercms.studio.impl.v2.utils.DateUtils.getCurrentTime;
+
+/**
+ * Writes the audit log entries to the database.
+ * <p>
+ * When enabled, the entries are added to a bounded queue and a single thread inserts them in batches, using one
+ * statement for all the entries of a batch that have no parameters. Callers only wait for the database when the
+ * queue is full: after waiting for the configured time they insert their entry themselves, so entries are never
+ * dropped. The entries still in the queue are written when the application shuts down.
+ * </p>
+ * <p>
+ * Queries that need the entry of a commit (like the sync from the repository) must call
+ * {@link #awaitWritten(Collection)} first, otherwise they could miss entries that are still queued.
+ * </p>
+ */
+public class AuditLogWriter implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    /**
+     * Time in milliseconds the writer thread waits for new entries before checking if it should stop
+     */
+    protected static final long POLL_TIMEOUT_MILLIS = 500;
+
+    protected final ReentrantReadWriteLock stateLock = new ReentrantReadWriteLock();
+    protected final Map<String, Integer> pendingCommits = new HashMap<>();
+
+    protected final LongAdder queuedEntries = new LongAdder();
+    protected final LongAdder writtenEntries = new LongAdder();
+    protected final LongAdder batches = new LongAdder();
+    protected final LongAdder overflows = new LongAdder();
+    protected final LongAdder failures = new LongAdder();
+
+    protected AuditDAO auditDao;
+    protected RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+
+    protected boolean enabled = false;
+    protected int queueCapacity = 10000;
+    protected int batchSize = 500;
+    protected long offerTimeoutMillis = 100;
+
+    protected BlockingQueue<AuditLog> queue;
+    protected Thread writerThread;
+    protected volatile boolean running;
+
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "auditLogWriter");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Audit log entries will be written in batches of up to '{}' entries", batchSize);
+    }
+
+    public void destroy() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        writerThread.join();
+        logger.info("Writing '{}' queued audit log entries before shutting down", queue.size());
+        writeQueued();
+    }
+
+    /**
+     * Writes the given entry, queuing it when possible
+     *
+     * @param auditLog the entry to write
+     * @return true if the entry was queued or inserted
+     */
+    public boolean write(AuditLog auditLog) {
+        if (!enabled) {
+            return writeEntry(auditLog);
+        }
+        if (auditLog.getOperationTimestamp() == null) {
+            // Use the time of the operation, not the time the entry is written
+            auditLog.setOperationTimestamp(getCurrentTime());
+        }
+        stateLock.readLock().lock();
+        try {
+            if (running) {
+                addPending(auditLog);
+                boolean queued = false;
+                try {
+                    queued = queue.offer(auditLog, offerTimeoutMillis, MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    if (!queued) {
+                        removePending(List.of(auditLog));
+                    }
+                }
+                if (queued) {
+                    queuedEntries.increment();
+                    return true;
+                }
+                overflows.increment();
+                logger.debug("The audit log queue is full, writing the entry for operation '{}' directly",
+                        auditLog.getOperation());
+            }
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        return writeEntry(auditLog);
+    }
+
+    /**
+     * Waits until the queued entries for the given commits, if any, have been written
+     *
+     * @param commitIds the ids of the commits
+     */
+    public void awaitWritten(Collection<String> commitIds) {
+        if (!enabled || !isPending(commitIds)) {
+            return;
+        }
+        // Write what is queued in this thread, the writer thread could be busy with a previous batch
+        writeQueued();
+        synchronized (pendingCommits) {
+            while (isPending(commitIds)) {
+                try {
+                    pendingCommits.wait(POLL_TIMEOUT_MILLIS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    protected void runWriter() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                AuditLog auditLog = queue.poll(POLL_TIMEOUT_MILLIS, MILLISECONDS);
+                if (auditLog != null) {
+                    batch.add(auditLog);
+                    queue.drainTo(batch, batchSize - 1);
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in the audit log writer", e);
+                batch.clear();
+            }
+        }
+    }
+
+    protected void writeQueued() {
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeBatch(batch);
+            batch.clear();
+        }
+    }
+
+    protected void writeBatch(List<AuditLog> batch) {
+        try {
+            List<AuditLog> entries = new ArrayList<>(batch.size());
+            for (AuditLog auditLog : batch) {
+                if (CollectionUtils.isEmpty(auditLog.getParameters())) {
+                    entries.add(auditLog);
+                } else {
+                    // The id of the entry is needed to insert its parameters
+                    writeEntrySafely(auditLog);
+                }
+            }
+            if (!entries.isEmpty()) {
+                try {
+                    retryingDatabaseOperationFacade.retry(() -> auditDao.insertAuditLogs(entries));
+                    batches.increment();
+                    writtenEntries.add(entries.size());
+                } catch (Exception e) {
+                    logger.error("Failed to insert a batch of '{}' audit log entries, inserting them one by one",
+                            entries.size(), e);
+                    entries.forEach(this::writeEntrySafely);
+                }
+            }
+        } finally {
+            removePending(batch);
+        }
+    }
+
+    protected void writeEntrySafely(AuditLog auditLog) {
+        try {
+            writeEntry(auditLog);
+        } catch (Exception e) {
+            failures.increment();
+            logger.error("Failed to insert the audit log entry for operation '{}' on '{}'", auditLog.getOperation(),
+                    auditLog.getPrimaryTargetValue(), e);
+        }
+    }
+
+    protected boolean writeEntry(AuditLog auditLog) {
+        int result = retryingDatabaseOperationFacade.retry(() -> auditDao.insertAuditLog(auditLog));
+        if (CollectionUtils.isNotEmpty(auditLog.getParameters())) {
+            Map<String, Object> params = new HashMap<>();
+            params.put("auditId", auditLog.getId());
+            params.put("parameters", auditLog.getParameters());
+            retryingDatabaseOperationFacade.retry(() -> auditDao.insertAuditLogParams(params));
+        }
+        writtenEntries.increment();
+        return result > 0;
+    }
+
+    protected void addPending(AuditLog auditLog) {
+        if (auditLog.getCommitId() != null) {
+            synchronized (pendingCommits) {
+                pendingCommits.merge(auditLog.getCommitId(), 1, Integer::sum);
+            }
+        }
+    }
+
+    protected void removePending(List<AuditLog> auditLogs) {
+        synchronized (pendingCommits) {
+            for (AuditLog auditLog : auditLogs) {
+                if (auditLog.getCommitId() != null) {
+                    pendingCommits.computeIfPresent(auditLog.getCommitId(),
+                            (commitId, count) -> count > 1 ? count - 1 : null);
+                }
+            }
+            pendingCommits.notifyAll();
+        }
+    }
+
+    protected boolean isPending(Collection<String> commitIds) {
+        synchronized (pendingCommits) {
+            if (pendingCommits.isEmpty()) {
+                return false;
+            }
+            return commitIds.stream().anyMatch(pendingCommits::containsKey);
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "auditLogWriter";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("queueSize", queue != null ? queue.size() : 0);
+        metrics.put("queuedEntries", queuedEntries.sum());
+        metrics.put("writtenEntries", writtenEntries.sum());
+        metrics.put("batches", batches.sum());
+        metrics.put("overflows", overflows.sum());
+        metrics.put("failures", failures.sum());
+        return metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setOfferTimeoutMillis(long offerTimeoutMillis) {
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    public void setAuditDao(AuditDAO auditDao) {
+        this.auditDao = auditDao;
+    }
+
+    public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
+        this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
+    }
+
+}
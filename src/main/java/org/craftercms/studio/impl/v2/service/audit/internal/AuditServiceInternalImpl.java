@@ -17,6 +17,7 @@
 package org.craftercms.studio.impl.v2.service.audit.internal;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v2.dal.AuditDAO;
 import org.craftercms.studio.api.v2.dal.AuditLog;
@@ -28,10 +29,14 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
@@ -41,16 +46,20 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
 
     private static final Logger logger = LoggerFactory.getLogger(AuditServiceInternalImpl.class);
 
+    private static final int COMMIT_IDS_BATCH_SIZE = 1000;
+
     private AuditDAO auditDao;
+    private AuditLogWriter auditLogWriter;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
 
     @Override
     public List<AuditLog> getAuditLog(String siteId, int offset, int limit, String user,
                                       List<String> operations, boolean includeParameters, ZonedDateTime dateFrom,
                                       ZonedDateTime dateTo, String target, String origin, String clusterNodeId,
-                                      String sort, String order) {
+                                      String sort, String order, Long afterId) {
         Map<String, Object> params = new HashMap<>();
-        params.put(OFFSET, offset);
+        // With keyset pagination the filter already skips the previous pages
+        params.put(OFFSET, afterId != null ? 0 : offset);
         params.put(LIMIT, limit);
         if (StringUtils.isNotEmpty(siteId)) {
             params.put(SITE_ID, siteId);
@@ -90,6 +99,9 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
                 params.put(ORDER, "ASC");
             }
         }
+        if (afterId != null) {
+            params.put(AFTER_ID, afterId);
+        }
         params.put(INCLUDE_PARAMETERS, includeParameters);
         return auditDao.getAuditLog(params);
     }
@@ -144,14 +156,7 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
     @Override
     // TODO: after login insert LOGIN audit
     public boolean insertAuditLog(AuditLog auditLog) {
-        int result = retryingDatabaseOperationFacade.retry(() -> auditDao.insertAuditLog(auditLog));
-        if (CollectionUtils.isNotEmpty(auditLog.getParameters())) {
-            Map<String, Object> params = new HashMap<>();
-            params.put("auditId", auditLog.getId());
-            params.put("parameters", auditLog.getParameters());
-            retryingDatabaseOperationFacade.retry(() -> auditDao.insertAuditLogParams(params));
-        }
-        return result > 0;
+        return auditLogWriter.write(auditLog);
     }
 
     @Override
@@ -191,18 +196,34 @@ public class AuditServiceInternalImpl implements AuditServiceInternal {
 
     @Override
     public Person getAuthor(String commitId) {
+        auditLogWriter.awaitWritten(List.of(commitId));
         return auditDao.getCommitAuthor(commitId);
     }
 
     @Override
     public boolean isAudited(long siteId, String commitId) {
+        auditLogWriter.awaitWritten(List.of(commitId));
         return auditDao.isAudited(siteId, commitId);
     }
 
+    @Override
+    public Set<String> getAuditedCommits(long siteId, Collection<String> commitIds) {
+        auditLogWriter.awaitWritten(commitIds);
+        Set<String> auditedCommits = new HashSet<>();
+        for (List<String> batch : ListUtils.partition(new ArrayList<>(commitIds), COMMIT_IDS_BATCH_SIZE)) {
+            auditedCommits.addAll(auditDao.getAuditedCommits(siteId, batch));
+        }
+        return auditedCommits;
+    }
+
     public void setAuditDao(AuditDAO auditDao) {
         this.auditDao = auditDao;
     }
 
+    public void setAuditLogWriter(AuditLogWriter auditLogWriter) {
+        this.auditLogWriter = auditLogWriter;
+    }
+
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
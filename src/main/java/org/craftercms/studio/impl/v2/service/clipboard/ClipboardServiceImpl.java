@@ -60,6 +60,16 @@ public class ClipboardServiceImpl implements ClipboardService {
         return clipboardServiceInternal.pasteItems(siteId, operation, targetPath, item);
     }
 
+    @Override
+    @RequireSiteReady
+    @HasPermission(type = DefaultPermission.class, action = PERMISSION_CONTENT_WRITE)
+    public String pasteItemsInBackground(@SiteId String siteId,
+                                         Operation operation,
+                                         @ProtectedResourceId(PATH_RESOURCE_ID) String targetPath,
+                                         PasteItem item) throws ServiceLayerException {
+        return clipboardServiceInternal.pasteItemsInBackground(siteId, operation, targetPath, item);
+    }
+
     @Override
     @RequireSiteReady
     @RequireContentExists
@@ -21,6 +21,7 @@ import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.annotation.ContentPath;
 import org.craftercms.studio.api.v2.annotation.RequireContentExists;
 import org.craftercms.studio.api.v2.annotation.SiteId;
+import org.craftercms.studio.api.v2.event.content.PasteItemsEvent;
 import org.craftercms.studio.api.v2.exception.content.ContentMoveInvalidLocation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,21 +30,33 @@ import org.craftercms.studio.api.v1.service.workflow.WorkflowService;
 import org.craftercms.studio.api.v1.to.ContentItemTO;
 import org.craftercms.studio.api.v2.exception.InvalidParametersException;
 import org.craftercms.studio.api.v2.service.clipboard.internal.ClipboardServiceInternal;
+import org.craftercms.studio.api.v2.service.security.SecurityService;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
+import org.craftercms.studio.impl.v2.sync.SyncFromRepositoryTask;
 import org.craftercms.studio.model.clipboard.Operation;
 import org.craftercms.studio.model.clipboard.PasteItem;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
 
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 
 import static java.lang.String.format;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.io.FilenameUtils.getFullPathNoEndSeparator;
 import static org.apache.commons.lang3.StringUtils.removeEnd;
 import static org.craftercms.studio.api.v1.constant.DmConstants.SLASH_INDEX_FILE;
+import static org.craftercms.studio.api.v2.event.content.PasteItemsEvent.Status.COMPLETED;
+import static org.craftercms.studio.api.v2.event.content.PasteItemsEvent.Status.FAILED;
+import static org.craftercms.studio.api.v2.event.content.PasteItemsEvent.Status.IN_PROGRESS;
+import static org.craftercms.studio.api.v2.event.content.PasteItemsEvent.Status.STARTED;
+import static org.craftercms.studio.model.clipboard.Operation.COPY;
 import static org.craftercms.studio.model.clipboard.Operation.CUT;
 
 /**
@@ -58,8 +71,16 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
 
     private static final Logger logger = LoggerFactory.getLogger(ClipboardServiceInternalImpl.class);
 
+    /**
+     * Number of items between the progress events of a paste running in the background
+     */
+    protected static final int PROGRESS_EVENT_INTERVAL = 100;
+
     protected ContentService contentService;
     protected WorkflowService workflowService;
+    protected SecurityService securityService;
+    protected SyncFromRepositoryTask syncFromRepoTask;
+    protected Executor taskExecutor;
     protected ApplicationContext applicationContext;
 
     protected void validatePasteItemsAction(final String siteId, Operation operation, final String sourcePath, final String targetPath)
@@ -100,8 +121,56 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
     public List<String> pasteItems(String siteId, Operation operation, String targetPath, PasteItem item)
             throws ServiceLayerException, UserNotFoundException {
         validatePasteItemsAction(siteId, operation, item.getPath(), targetPath);
-        var pastedItems = new LinkedList<String>();
-        pasteItemsInternal(siteId, operation, targetPath, List.of(item), pastedItems);
+        return pasteItems(siteId, operation, targetPath, item, null);
+    }
+
+    @Override
+    public String pasteItemsInBackground(String siteId, Operation operation, String targetPath, PasteItem item)
+            throws ServiceLayerException {
+        validatePasteItemsAction(siteId, operation, item.getPath(), targetPath);
+        String jobId = UUID.randomUUID().toString();
+        Authentication authentication = securityService.getAuthentication();
+        applicationContext.publishEvent(new PasteItemsEvent(authentication, siteId, jobId, operation,
+                item.getPath(), targetPath, STARTED, 0, 0, null));
+        // The paste runs with the permissions of the current user
+        taskExecutor.execute(new DelegatingSecurityContextRunnable(() -> {
+            try {
+                BiConsumer<Integer, Integer> progressListener = (processed, total) -> {
+                    if (processed % PROGRESS_EVENT_INTERVAL == 0) {
+                        applicationContext.publishEvent(new PasteItemsEvent(authentication, siteId, jobId,
+                                operation, item.getPath(), targetPath, IN_PROGRESS, processed, total, null));
+                    }
+                };
+                List<String> pastedItems = pasteItems(siteId, operation, targetPath, item, progressListener);
+                applicationContext.publishEvent(new PasteItemsEvent(authentication, siteId, jobId, operation,
+                        item.getPath(), targetPath, COMPLETED, pastedItems.size(), pastedItems.size(),
+                        pastedItems));
+            } catch (Exception e) {
+                logger.error("Background paste '{}' failed in site '{}' item '{}' to target path '{}'",
+                        jobId, siteId, item.getPath(), targetPath, e);
+                applicationContext.publishEvent(new PasteItemsEvent(authentication, siteId, jobId, operation,
+                        item.getPath(), targetPath, FAILED, 0, 0, null));
+            }
+        }));
+        return jobId;
+    }
+
+    protected List<String> pasteItems(String siteId, Operation operation, String targetPath, PasteItem item,
+                                      BiConsumer<Integer, Integer> progressListener)
+            throws ServiceLayerException, UserNotFoundException {
+        List<String> pastedItems;
+        if (COPY == operation) {
+            // The whole tree is copied in a single commit, instead of one commit for each item
+            pastedItems = contentService.copyContentBulk(siteId, item.getPath(), targetPath, item.getChildren(),
+                    progressListener);
+            // The copies don't go through the content processors, the sync adds them to the database in batches
+            if (syncFromRepoTask != null) {
+                syncFromRepoTask.syncRepository(siteId);
+            }
+        } else {
+            pastedItems = new LinkedList<>();
+            pasteItemsInternal(siteId, operation, targetPath, List.of(item), pastedItems);
+        }
         logger.trace("'{}' items pasted in site '{}' from '{}' to '{}'",
                 pastedItems.size(), siteId, item.getPath(), targetPath);
         return pastedItems;
@@ -179,4 +248,16 @@ public class ClipboardServiceInternalImpl implements ClipboardServiceInternal, A
         this.workflowService = workflowService;
     }
 
+    public void setSecurityService(SecurityService securityService) {
+        this.securityService = securityService;
+    }
+
+    public void setSyncFromRepoTask(SyncFromRepositoryTask syncFromRepoTask) {
+        this.syncFromRepoTask = syncFromRepoTask;
+    }
+
+    public void setTaskExecutor(Executor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
 }
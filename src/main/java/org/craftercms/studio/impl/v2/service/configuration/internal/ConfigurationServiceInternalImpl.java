@@ -16,6 +16,10 @@
 package org.craftercms.studio.impl.v2.service.configuration.internal;
 
 import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.configuration2.ConfigurationUtils;
 import org.apache.commons.configuration2.HierarchicalConfiguration;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -46,11 +50,13 @@ import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInternal;
 import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
 import org.craftercms.studio.api.v2.service.security.SecurityService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.api.v2.utils.cache.CacheInvalidator;
 import org.craftercms.studio.impl.v2.utils.XsltUtils;
+import org.craftercms.studio.impl.v2.utils.cache.SiteIndexedCache;
 import org.craftercms.studio.model.config.TranslationConfiguration;
 import org.craftercms.studio.model.rest.ConfigurationHistory;
 import org.dom4j.*;
@@ -70,13 +76,21 @@ import java.io.InputStream;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import static java.lang.String.format;
 import static java.lang.String.join;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.apache.commons.io.FilenameUtils.getExtension;
 import static org.apache.commons.io.FilenameUtils.normalize;
 import static org.apache.commons.lang3.StringUtils.*;
@@ -89,7 +103,8 @@ import static org.craftercms.studio.api.v2.utils.StudioConfiguration.*;
 /**
  * Internal implementation of {@link ConfigurationService}.
  */
-public class ConfigurationServiceInternalImpl implements ConfigurationService, ApplicationEventPublisherAware {
+public class ConfigurationServiceInternalImpl implements ConfigurationService, ApplicationEventPublisherAware,
+        MetricsProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationServiceInternalImpl.class);
 
@@ -101,6 +116,10 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
     public static final String CONFIG_KEY_TRANSLATION_DEFAULT_LOCALE = "defaultLocaleCode";
     public static final String CONFIG_KEY_TRANSLATION_LOCALES = "localeCodes.localeCode";
 
+    /**
+     * Max number of cache keys with their own statistics, the least recently used ones are dropped
+     */
+    private static final int MAX_CACHE_STATISTICS_KEYS = 1000;
     private static final String READ_ONLY_BLOB_STORES_TEMPLATE_LOCATION = "/crafter/studio/utils/readonly-blob-stores.xslt";
 
     private ContentService contentService;
@@ -118,6 +137,12 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
     private String translationConfig;
     private Cache<String, Object> configurationCache;
     private List<CacheInvalidator<String, Object>> cacheInvalidators;
+    private final Map<String, ConfigurationCacheStatistics> cacheStatistics = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHE_STATISTICS_KEYS)
+            .<String, ConfigurationCacheStatistics>build()
+            .asMap();
+    // Kept apart so the totals include the keys whose statistics have been dropped
+    private final ConfigurationCacheStatistics totalCacheStatistics = new ConfigurationCacheStatistics();
     private ContextManager contextManager;
     private ApplicationEventPublisher applicationEventPublisher;
     private GeneralLockService generalLockService;
@@ -222,25 +247,24 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
                                                String path, String environment) throws ServiceLayerException {
         var normalizedPath = normalize(path);
         var cacheKey = getCacheKey(siteId, module, normalizedPath, environment);
-        Document doc = (Document) configurationCache.getIfPresent(cacheKey);
-        if (doc == null) {
+        Document doc = getCachedConfiguration(cacheKey, ServiceLayerException.class, () -> {
             try {
                 logger.debug("Cache miss in site '{}' cache key '{}'", siteId, cacheKey);
                 String content = getEnvironmentConfiguration(siteId, module, normalizedPath, environment);
-                if (isNotEmpty(content)) {
-                    SAXReader saxReader = new SAXReader();
-                    try {
-                        saxReader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-                        saxReader.setFeature("http://xml.org/sax/features/external-general-entities", false);
-                        saxReader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-                    } catch (SAXException e) {
-                        logger.error("Failed to turn off external entity loading, " +
-                                "this could be pose a security risk.", e);
-                    }
-                    try (InputStream is = IOUtils.toInputStream(content, UTF_8)) {
-                        doc = saxReader.read(is);
-                        configurationCache.put(cacheKey, doc);
-                    }
+                if (isEmpty(content)) {
+                    return null;
+                }
+                SAXReader saxReader = new SAXReader();
+                try {
+                    saxReader.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                    saxReader.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                    saxReader.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                } catch (SAXException e) {
+                    logger.error("Failed to turn off external entity loading, " +
+                            "this could be pose a security risk.", e);
+                }
+                try (InputStream is = IOUtils.toInputStream(content, UTF_8)) {
+                    return saxReader.read(is);
                 }
             } catch (IOException | DocumentException e) {
                 logger.error("Failed to load configuration from site '{}' module '{}' " +
@@ -248,90 +272,86 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
                 throw new ServiceLayerException(format("Failed to load configuration from site '%s' module " +
                         "'%s' path '%s' environment '%s'", siteId, module, path, environment), e);
             }
-        }
-        return doc;
+        });
+        return copyOf(doc);
     }
 
     @Override
     public HierarchicalConfiguration<?> getXmlConfiguration(String siteId, String path) throws ConfigurationException {
         var cacheKey = getCacheKey(siteId, null, path, null, "commons");
-        HierarchicalConfiguration<?> config = (HierarchicalConfiguration<?>) configurationCache.getIfPresent(cacheKey);
-        if (config == null) {
+        HierarchicalConfiguration<?> config = getCachedConfiguration(cacheKey, ConfigurationException.class, () -> {
             try {
                 logger.debug("Cache miss in site '{}' cache key '{}'", siteId, cacheKey);
-                if (contentServiceInternal.contentExists(siteId, path)) {
-                    config = configurationReader.readXmlConfiguration(contentService.getContent(siteId, path), getConfigLookupVariables(siteId));
-                    configurationCache.put(cacheKey, config);
+                if (!contentServiceInternal.contentExists(siteId, path)) {
+                    return null;
                 }
+                return configurationReader.readXmlConfiguration(contentService.getContent(siteId, path),
+                        getConfigLookupVariables(siteId));
             } catch (ContentNotFoundException | org.craftercms.commons.config.ConfigurationException e) {
                 logger.error("Failed to load configuration from site '{}' path '{}'", siteId, path, e);
                 throw new ConfigurationException(format("Failed to load configuration from site " +
                         "'%s' path '%s'", siteId, path), e);
             }
-        }
-        return config;
+        });
+        return copyOf(config);
     }
 
     @Override
     public HierarchicalConfiguration<?> getXmlConfiguration(String siteId, String module, String path) throws ConfigurationException {
         String environment = studioConfiguration.getProperty(CONFIGURATION_ENVIRONMENT_ACTIVE);
         String cacheKey = getCacheKey(siteId, module, path, environment);
-        HierarchicalConfiguration<?> config = (HierarchicalConfiguration<?>) configurationCache.getIfPresent(cacheKey);
-        if (config != null) {
-            return config;
-        }
-        try {
-            String fullConfigurationPath = getConfigurationPath(siteId, module, path, environment);
-            logger.debug("Cache miss in site '{}' cache key '{}'", siteId, cacheKey);
-            if (contentServiceInternal.contentExists(siteId, fullConfigurationPath)) {
-                config = configurationReader.readXmlConfiguration(contentService.getContent(siteId, fullConfigurationPath), getConfigLookupVariables(siteId));
-                configurationCache.put(cacheKey, config);
+        HierarchicalConfiguration<?> config = getCachedConfiguration(cacheKey, ConfigurationException.class, () -> {
+            try {
+                String fullConfigurationPath = getConfigurationPath(siteId, module, path, environment);
+                logger.debug("Cache miss in site '{}' cache key '{}'", siteId, cacheKey);
+                if (!contentServiceInternal.contentExists(siteId, fullConfigurationPath)) {
+                    return null;
+                }
+                return configurationReader.readXmlConfiguration(
+                        contentService.getContent(siteId, fullConfigurationPath), getConfigLookupVariables(siteId));
+            } catch (ContentNotFoundException | org.craftercms.commons.config.ConfigurationException |
+                     SiteNotFoundException e) {
+                logger.error("Failed to load configuration from site '{}' module '{}' env '{}' path '{}'", siteId, module, environment, path, e);
+                throw new ConfigurationException(format("Failed to load configuration from site " +
+                        "'%s' module '%s' env '%s' path '%s'", siteId, module, environment, path), e);
             }
-            return config;
-        } catch (ContentNotFoundException | org.craftercms.commons.config.ConfigurationException |
-                 SiteNotFoundException e) {
-            logger.error("Failed to load configuration from site '{}' module '{}' env '{}' path '{}'", siteId, module, environment, path, e);
-            throw new ConfigurationException(format("Failed to load configuration from site " +
-                    "'%s' module '%s' env '%s' path '%s'", siteId, module, environment, path), e);
-        }
+        });
+        return copyOf(config);
     }
 
     @Override
     public HierarchicalConfiguration<?> getGlobalXmlConfiguration(String path) throws ConfigurationException {
         var cacheKey = path + ":commons";
-        HierarchicalConfiguration<?> config = (HierarchicalConfiguration<?>) configurationCache.getIfPresent(cacheKey);
-        if (config == null) {
+        HierarchicalConfiguration<?> config = getCachedConfiguration(cacheKey, ConfigurationException.class, () -> {
             try {
                 logger.debug("Cache miss in the Global repository cache key '{}'", cacheKey);
-                if (contentServiceInternal.contentExists(EMPTY, path)) {
-                    config = configurationReader.readXmlConfiguration(contentService.getContent(EMPTY, path), emptyMap());
-                    configurationCache.put(cacheKey, config);
+                if (!contentServiceInternal.contentExists(EMPTY, path)) {
+                    return null;
                 }
+                return configurationReader.readXmlConfiguration(contentService.getContent(EMPTY, path), emptyMap());
             } catch (ContentNotFoundException | org.craftercms.commons.config.ConfigurationException e) {
                 logger.error("Failed to load configuration from the Global repository path '{}'",
                         path, e);
                 throw new ConfigurationException(format("Failed to load configuration from the Global " +
                         "repository path '%s'", path), e);
             }
-        }
-        return config;
+        });
+        return copyOf(config);
     }
 
     @Override
     public Document getGlobalConfigurationAsDocument(String path) throws ServiceLayerException {
-        Document doc = (Document) configurationCache.getIfPresent(path);
-        if (doc == null) {
+        Document doc = getCachedConfiguration(path, ServiceLayerException.class, () -> {
             try {
                 logger.debug("Cache miss in the Global repository path '{}'", path);
-                doc = contentService.getContentAsDocument(EMPTY, path);
-                configurationCache.put(path, doc);
+                return contentService.getContentAsDocument(EMPTY, path);
             } catch (DocumentException e) {
                 logger.error("Failed to load the Global config at path '{}'", path, e);
                 throw new ServiceLayerException(format("Failed to load the Global config at path '%s'",
                         path), e);
             }
-        }
-        return doc;
+        });
+        return copyOf(doc);
     }
 
     @Override
@@ -694,9 +714,14 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
     @Override
     public void invalidateConfiguration(String siteId) {
         logger.debug("Invalidate configuration cache in site '{}'", siteId);
-        configurationCache.asMap().keySet().stream()
-                .filter(key -> startsWithIgnoreCase(key, siteId + ":"))
-                .forEach(this::invalidateCache);
+        if (configurationCache instanceof SiteIndexedCache) {
+            // Every key of the site is invalidated, so there is no need to run the invalidators
+            ((SiteIndexedCache<Object>) configurationCache).invalidateSite(siteId);
+        } else {
+            configurationCache.asMap().keySet().stream()
+                    .filter(key -> startsWithIgnoreCase(key, siteId + ":"))
+                    .forEach(this::invalidateCache);
+        }
     }
 
     @Override
@@ -729,6 +754,104 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
         cacheInvalidators.forEach(invalidator -> invalidator.invalidate(configurationCache, key));
     }
 
+    /**
+     * Returns the cached configuration for the given key, loading it if needed. Concurrent requests for the same key
+     * wait for a single load instead of reading and parsing the same file several times. Configurations that don't
+     * exist (the loader returns null) are not cached.
+     *
+     * @param cacheKey the cache key
+     * @param exceptionType the type of the exception thrown by the loader
+     * @param loader loads the configuration
+     * @return the cached configuration, null if it doesn't exist
+     * @throws E if the configuration could not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    protected <T, E extends Exception> T getCachedConfiguration(String cacheKey, Class<E> exceptionType,
+                                                                ConfigurationLoader<T, E> loader) throws E {
+        var stats = cacheStatistics.computeIfAbsent(cacheKey, key -> new ConfigurationCacheStatistics());
+        var loaded = new AtomicBoolean(false);
+        try {
+            T value = (T) configurationCache.get(cacheKey, () -> {
+                loaded.set(true);
+                long start = System.nanoTime();
+                try {
+                    T loadedValue = loader.load();
+                    if (loadedValue == null) {
+                        throw ConfigurationNotFoundException.INSTANCE;
+                    }
+                    return loadedValue;
+                } finally {
+                    long loadNanos = System.nanoTime() - start;
+                    stats.recordLoad(loadNanos);
+                    totalCacheStatistics.recordLoad(loadNanos);
+                }
+            });
+            if (!loaded.get()) {
+                stats.hits.increment();
+                totalCacheStatistics.hits.increment();
+            }
+            return value;
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            Throwable cause = e.getCause();
+            if (cause == ConfigurationNotFoundException.INSTANCE) {
+                return null;
+            }
+            stats.failures.increment();
+            totalCacheStatistics.failures.increment();
+            if (exceptionType.isInstance(cause)) {
+                throw exceptionType.cast(cause);
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(format("Failed to load configuration for cache key '%s'", cacheKey),
+                    cause);
+        }
+    }
+
+    /**
+     * Cached documents are shared between threads, so callers always get their own copy
+     */
+    protected Document copyOf(Document document) {
+        return document != null ? (Document) document.clone() : null;
+    }
+
+    /**
+     * Cached configurations are shared between threads, so callers always get their own copy. Cloning a
+     * hierarchical configuration only copies the node model, the nodes themselves are immutable and shared.
+     */
+    protected HierarchicalConfiguration<?> copyOf(HierarchicalConfiguration<?> config) {
+        return config != null ? (HierarchicalConfiguration<?>) ConfigurationUtils.cloneConfiguration(config) : null;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "configurationCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long hits = totalCacheStatistics.hits.sum();
+        long misses = totalCacheStatistics.misses.sum();
+        long loadNanos = totalCacheStatistics.loadNanos.sum();
+        Map<String, Object> files = new TreeMap<>();
+        cacheStatistics.forEach((key, stats) -> files.put(key, stats.toMap()));
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", configurationCache.size());
+        if (configurationCache instanceof SiteIndexedCache) {
+            metrics.put("indexedKeys", ((SiteIndexedCache<Object>) configurationCache).getIndexSize());
+        }
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0);
+        metrics.put("totalLoadMillis", NANOSECONDS.toMillis(loadNanos));
+        metrics.put("files", files);
+        return metrics;
+    }
+
     // Moved from SiteServiceImpl to be able to properly cache the object
     // TODO: JM: Remove unused method?
     @Override
@@ -757,10 +880,8 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
         String finalEnv = env;
 
         var objCacheKey = xmlCacheKey + ":map";
-        Map<String, Object> map = (Map<String, Object>) configurationCache.getIfPresent(objCacheKey);
-        if (map == null) {
-            Document doc = (Document) configurationCache.getIfPresent(xmlCacheKey);
-            if (doc == null) {
+        return getCachedConfiguration(objCacheKey, ServiceLayerException.class, () -> {
+            Document doc = getCachedConfiguration(xmlCacheKey, ServiceLayerException.class, () -> {
                 try {
                     logger.debug("Cache miss in site '{}' key '{}'", site, xmlCacheKey);
                     String configContent;
@@ -773,16 +894,13 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
                     configContent = configContent.replaceAll("\\n([\\s]+)?+", "");
                     configContent = configContent.replaceAll("<!--(.*?)-->", "");
 
-                    doc = DocumentHelper.parseText(configContent);
-                    configurationCache.put(xmlCacheKey, doc);
+                    return DocumentHelper.parseText(configContent);
                 } catch (DocumentException e) {
                     throw new ServiceLayerException("Failed to load configuration", e);
                 }
-            }
-            map = createMap(doc.getRootElement());
-            configurationCache.put(objCacheKey, map);
-        }
-        return map;
+            });
+            return unmodifiableMap(createMap(doc.getRootElement()));
+        });
     }
 
     @SuppressWarnings("rawtypes,unchecked")
@@ -898,4 +1016,62 @@ public class ConfigurationServiceInternalImpl implements ConfigurationService, A
     public void setGeneralLockService(GeneralLockService generalLockService) {
         this.generalLockService = generalLockService;
     }
+
+    /**
+     * Loads a configuration that is not in the cache
+     */
+    @FunctionalInterface
+    protected interface ConfigurationLoader<T, E extends Exception> {
+
+        /**
+         * @return the configuration, null if it doesn't exist
+         * @throws E if the configuration could not be loaded
+         */
+        T load() throws E;
+
+    }
+
+    /**
+     * Hit, miss and load time statistics for a single cache key
+     */
+    protected static class ConfigurationCacheStatistics {
+
+        protected final LongAdder hits = new LongAdder();
+        protected final LongAdder misses = new LongAdder();
+        protected final LongAdder failures = new LongAdder();
+        protected final LongAdder loadNanos = new LongAdder();
+        protected final LongAccumulator maxLoadNanos = new LongAccumulator(Long::max, 0);
+
+        protected void recordLoad(long nanos) {
+            misses.increment();
+            loadNanos.add(nanos);
+            maxLoadNanos.accumulate(nanos);
+        }
+
+        protected Map<String, Object> toMap() {
+            long loads = misses.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hits", hits.sum());
+            map.put("misses", loads);
+            map.put("failures", failures.sum());
+            map.put("averageLoadMillis", loads > 0 ? NANOSECONDS.toMillis(loadNanos.sum()) / (double) loads : 0);
+            map.put("maxLoadMillis", NANOSECONDS.toMillis(maxLoadNanos.get()));
+            return map;
+        }
+
+    }
+
+    /**
+     * Used by the loaders to signal that the configuration doesn't exist, so nothing is cached
+     */
+    private static class ConfigurationNotFoundException extends Exception {
+
+        private static final ConfigurationNotFoundException INSTANCE = new ConfigurationNotFoundException();
+
+        private ConfigurationNotFoundException() {
+            super("Configuration not found", null, false, false);
+        }
+
+    }
+
 }
@@ -19,7 +19,6 @@ package org.craftercms.studio.impl.v2.service.content.internal;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.rest.parameters.SortField;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
-import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
@@ -33,6 +32,7 @@ import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
+import org.craftercms.studio.impl.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.model.history.ItemVersion;
 import org.craftercms.studio.model.rest.content.DetailedItem;
 import org.craftercms.studio.model.rest.content.GetChildrenBulkRequest.PathParams;
@@ -57,7 +57,6 @@ import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.*;
 import static org.craftercms.studio.api.v2.dal.PublishRequest.State.COMPLETED;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 import static org.craftercms.studio.api.v2.utils.DalUtils.mapSortFields;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONTENT_ITEM_EDITABLE_TYPES;
 
@@ -68,7 +67,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
     private ContentRepository contentRepository;
     private ItemDAO itemDao;
     private ServicesConfig servicesConfig;
-    private SiteFeedMapper siteFeedMapper;
+    private SiteRegistry siteRegistry;
     private SecurityService securityService;
     private StudioConfiguration studioConfiguration;
     private SemanticsAvailableActionsResolver semanticsAvailableActionsResolver;
@@ -107,9 +106,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
             throw new ContentNotFoundException(path, siteId, "Content not found at path " + path + " site " + siteId);
         }
         String parentFolderPath = StringUtils.replace(path, FILE_SEPARATOR + INDEX_FILE, "");
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         int total = itemDao.getChildrenByPathTotal(siteFeed.getId(), parentFolderPath, locale, keyword, systemTypes,
                 excludes, List.of(CONTENT_TYPE_LEVEL_DESCRIPTOR));
         List<Item> resultSet = itemDao.getChildrenByPath(siteFeed.getId(), parentFolderPath,
@@ -171,9 +168,8 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
             return toRet;
         }
         String user = securityService.getCurrentUser();
+        semanticsAvailableActionsResolver.calculateContentItemsAvailableActions(user, siteId, resultSet);
         for (Item child : resultSet) {
-            child.setAvailableActions(
-                    semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, child));
             children.add(SandboxItem.getInstance(child));
         }
         return toRet;
@@ -191,9 +187,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
 
     @Override
     public List<DetailedItem> getItemsByStates(String siteId, long statesBitMap, List<String> systemTypes, List<SortField> sortFields, int offset, int limit) throws UserNotFoundException, ServiceLayerException {
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         String stagingEnv = servicesConfig.getStagingEnvironment(siteId);
         String liveEnv = servicesConfig.getLiveEnvironment(siteId);
         List<org.craftercms.studio.api.v2.dal.DetailedItem> items = itemDao.getDetailedItemsByStates(siteFeed.getId(), statesBitMap,
@@ -214,9 +208,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         if (!contentRepository.contentExists(siteId, path)) {
             throw new ContentNotFoundException(path, siteId, format("Content not found at path '%s' site '%s'", path, siteId));
         }
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         org.craftercms.studio.api.v2.dal.DetailedItem item;
         String stagingEnv = servicesConfig.getStagingEnvironment(siteId);
         String liveEnv = servicesConfig.getLiveEnvironment(siteId);
@@ -235,6 +227,34 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         return detailedItem;
     }
 
+    @Override
+    public List<DetailedItem> getItemsByPath(String siteId, List<String> paths)
+            throws ServiceLayerException, UserNotFoundException {
+        if (isEmpty(paths)) {
+            return emptyList();
+        }
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        String stagingEnv = servicesConfig.getStagingEnvironment(siteId);
+        String liveEnv = servicesConfig.getLiveEnvironment(siteId);
+        Map<String, org.craftercms.studio.api.v2.dal.DetailedItem> items =
+                itemDao.getDetailedItemsByPath(siteFeed.getId(), paths, CONTENT_TYPE_FOLDER, COMPLETED, stagingEnv,
+                                liveEnv)
+                        .stream()
+                        .collect(toMap(org.craftercms.studio.api.v2.dal.DetailedItem::getPath, identity()));
+        List<DetailedItem> result = new ArrayList<>(paths.size());
+        for (String path : paths) {
+            org.craftercms.studio.api.v2.dal.DetailedItem item = items.get(path);
+            if (item == null || !contentRepository.contentExists(siteId, path)) {
+                logger.warn("Content not found in site '{}' path '{}'", siteId, path);
+                continue;
+            }
+            DetailedItem detailedItem = DetailedItem.getInstance(item);
+            populateDetailedItemPropertiesFromRepository(siteId, detailedItem);
+            result.add(detailedItem);
+        }
+        return result;
+    }
+
     private void populateDetailedItemPropertiesFromRepository(String siteId, DetailedItem detailedItem)
             throws ServiceLayerException, UserNotFoundException {
         if (Objects.nonNull(detailedItem)) {
@@ -247,9 +267,7 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
     @Override
     public List<SandboxItem> getSandboxItemsByPath(String siteId, List<String> paths, boolean preferContent)
             throws ServiceLayerException, UserNotFoundException {
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         List<Item> items = itemDao.getSandboxItemsByPath(siteFeed.getId(), paths, CONTENT_TYPE_FOLDER, preferContent);
         return calculatePossibleActions(siteId, items);
     }
@@ -271,17 +289,20 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         if (isEmpty(items)) {
             return emptyList();
         }
-        List<SandboxItem> toRet = new ArrayList<>();
-        String user = securityService.getCurrentUser();
+        List<Item> existingItems = new ArrayList<>(items.size());
         for (Item item : items) {
             if (!contentRepository.contentExists(siteId, item.getPath())) {
                 logger.warn("Content not found in site '{}' path '{}'", siteId, item.getPath());
             } else {
-                item.setAvailableActions(
-                        semanticsAvailableActionsResolver.calculateContentItemAvailableActions(user, siteId, item));
-                toRet.add(SandboxItem.getInstance(item));
+                existingItems.add(item);
             }
         }
+        String user = securityService.getCurrentUser();
+        semanticsAvailableActionsResolver.calculateContentItemsAvailableActions(user, siteId, existingItems);
+        List<SandboxItem> toRet = new ArrayList<>(existingItems.size());
+        for (Item item : existingItems) {
+            toRet.add(SandboxItem.getInstance(item));
+        }
         return toRet;
     }
 
@@ -344,8 +365,8 @@ public class ContentServiceInternalImpl implements ContentServiceInternal {
         this.servicesConfig = servicesConfig;
     }
 
-    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
-        this.siteFeedMapper = siteFeedMapper;
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
     }
 
     public void setSecurityService(SecurityService securityService) {
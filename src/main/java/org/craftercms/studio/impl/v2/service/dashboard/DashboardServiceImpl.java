@@ -46,15 +46,19 @@ import org.craftercms.studio.model.rest.content.SandboxItem;
 import org.craftercms.studio.model.rest.dashboard.*;
 import org.craftercms.studio.model.search.SearchParams;
 import org.craftercms.studio.model.search.SearchResult;
+import org.craftercms.studio.model.search.SearchResultItem;
 
 import java.beans.ConstructorProperties;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.craftercms.studio.api.v1.dal.PublishRequest.Action.NEW;
 import static org.craftercms.studio.api.v1.dal.PublishRequest.Action.UPDATE;
@@ -231,16 +235,18 @@ public class DashboardServiceImpl implements DashboardService {
 
     protected ExpiringContentResult processResults(String siteId, SearchResult results) throws ServiceLayerException, UserNotFoundException {
         List<ExpiringContentItem> items = new ArrayList<>();
+        Map<String, SandboxItem> sandboxItems = emptyMap();
+        if (!isEmpty(results.getItems())) {
+            var paths = results.getItems().stream().map(SearchResultItem::getPath).distinct().collect(toList());
+            sandboxItems = contentServiceInternal.getSandboxItemsByPath(siteId, paths, false).stream()
+                    .collect(toMap(SandboxItem::getPath, identity(), (first, second) -> first));
+        }
         for (var item : results.getItems()) {
-            SandboxItem  sandboxItem =
-                    contentServiceInternal.getSandboxItemsByPath(siteId, Arrays.asList(item.getPath()), false)
-                    .stream()
-                    .findFirst().orElse(null);
             ExpiringContentItem contentItem = new ExpiringContentItem(
                     item.getName(),
                     item.getPath(),
                     parseDateIso((String) item.getAdditionalFields().get(getExpireFieldName())),
-                    sandboxItem
+                    sandboxItems.get(item.getPath())
             );
             items.add(contentItem);
         }
@@ -270,13 +276,7 @@ public class DashboardServiceImpl implements DashboardService {
         }
 
         var paths = items.stream().map(PublishRequest::getPath).collect(toList());
-        List<DetailedItem> result = new ArrayList<>();
-        for (String path : paths) {
-            var item = contentServiceInternal.getItemByPath(siteId, path, false);
-            result.add(item);
-        }
-
-        return result;
+        return contentServiceInternal.getItemsByPath(siteId, paths);
     }
 
     @Override
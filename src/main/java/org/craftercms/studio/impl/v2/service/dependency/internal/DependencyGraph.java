@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v2.dal.Dependency;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.craftercms.studio.api.v1.constant.StudioConstants.FILE_SEPARATOR;
+
+/**
+ * In-memory copy of the dependencies of a site, indexed by source path and by target path so both the dependencies
+ * of an item and the items depending on it can be found without querying the database.
+ * <p>
+ * Paths are interned per graph, each path is stored once no matter how many dependencies reference it. The graph
+ * is safe for concurrent use, queries share a read lock and updates take a write lock.
+ * </p>
+ */
+public class DependencyGraph {
+
+    /**
+     * Depth to use for transitive queries without a limit
+     */
+    public static final int UNLIMITED_DEPTH = -1;
+
+    protected final Map<String, String> paths = new HashMap<>();
+    protected final Map<String, List<Edge>> dependencies = new HashMap<>();
+    // Sorted so the dependents of a folder can be found with a range query
+    protected final NavigableMap<String, List<Edge>> dependents = new TreeMap<>();
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    protected int size = 0;
+
+    public DependencyGraph(Collection<Dependency> rows) {
+        rows.forEach(this::addEdge);
+    }
+
+    /**
+     * Replaces all the dependencies of the given source path
+     *
+     * @param sourcePath the source path
+     * @param rows the new dependencies
+     */
+    public void replaceDependencies(String sourcePath, Collection<Dependency> rows) {
+        lock.writeLock().lock();
+        try {
+            removeEdges(sourcePath);
+            rows.forEach(this::addEdge);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a dependency
+     *
+     * @param row the dependency
+     */
+    public void addDependency(Dependency row) {
+        lock.writeLock().lock();
+        try {
+            addEdge(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the dependencies of the given source path
+     *
+     * @param sourcePath the source path
+     */
+    public void removeDependencies(String sourcePath) {
+        lock.writeLock().lock();
+        try {
+            removeEdges(sourcePath);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marks all the dependencies pointing to the given target path as valid or invalid
+     *
+     * @param targetPath the target path
+     * @param valid true if the target exists
+     */
+    public void setValid(String targetPath, boolean valid) {
+        lock.writeLock().lock();
+        try {
+            List<Edge> edges = dependents.get(targetPath);
+            if (edges != null) {
+                edges.forEach(edge -> edge.valid = valid);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the valid dependencies of the given source paths
+     *
+     * @param sourcePaths the source paths
+     * @return the target path of each dependency mapped to the source path that depends on it
+     */
+    public List<Map.Entry<String, String>> getDependencies(Collection<String> sourcePaths) {
+        lock.readLock().lock();
+        try {
+            Set<Map.Entry<String, String>> result = new LinkedHashSet<>();
+            for (String sourcePath : sourcePaths) {
+                for (Edge edge : dependencies.getOrDefault(sourcePath, List.of())) {
+                    if (edge.valid) {
+                        result.add(Map.entry(edge.sourcePath, edge.targetPath));
+                    }
+                }
+            }
+            return new ArrayList<>(result);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Follows the valid dependencies of the given source paths
+     *
+     * @param sourcePaths the source paths
+     * @param maxDepth maximum number of dependencies to follow, {@link #UNLIMITED_DEPTH} to follow all of them
+     * @return each reachable target path mapped to the first source path found that depends on it
+     */
+    public Map<String, String> getTransitiveDependencies(Collection<String> sourcePaths, int maxDepth) {
+        lock.readLock().lock();
+        try {
+            return traverse(sourcePaths, maxDepth, dependencies, false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the source paths with valid dependencies to the given paths or to any path under them
+     *
+     * @param targetPaths the target paths
+     * @return the source paths
+     */
+    public Set<String> getDependents(Collection<String> targetPaths) {
+        lock.readLock().lock();
+        try {
+            Set<String> result = new LinkedHashSet<>();
+            for (String targetPath : targetPaths) {
+                addSources(dependents.get(targetPath), result);
+                String folder = removeEnd(targetPath, FILE_SEPARATOR) + FILE_SEPARATOR;
+                // '/' + 1 is '0', so this is the range of all the paths starting with the folder
+                for (List<Edge> edges : dependents.subMap(folder, true,
+                        removeEnd(targetPath, FILE_SEPARATOR) + (char) (FILE_SEPARATOR.charAt(0) + 1),
+                        false).values()) {
+                    addSources(edges, result);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Follows the valid dependencies pointing to the given target paths
+     *
+     * @param targetPaths the target paths
+     * @param maxDepth maximum number of dependencies to follow, {@link #UNLIMITED_DEPTH} to follow all of them
+     * @return each source path that depends directly or indirectly on the targets mapped to the first target found
+     */
+    public Map<String, String> getTransitiveDependents(Collection<String> targetPaths, int maxDepth) {
+        lock.readLock().lock();
+        try {
+            return traverse(targetPaths, maxDepth, dependents, true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get all the dependencies in the graph, valid or not
+     *
+     * @return the dependencies
+     */
+    public List<Dependency> getAllDependencies() {
+        lock.readLock().lock();
+        try {
+            List<Dependency> result = new ArrayList<>(size);
+            for (List<Edge> edges : dependencies.values()) {
+                for (Edge edge : edges) {
+                    Dependency row = new Dependency();
+                    row.setSourcePath(edge.sourcePath);
+                    row.setTargetPath(edge.targetPath);
+                    row.setType(edge.type);
+                    row.setValid(edge.valid);
+                    result.add(row);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the number of dependencies in the graph
+     *
+     * @return the number of dependencies
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    protected Map<String, String> traverse(Collection<String> startPaths, int maxDepth,
+                                           Map<String, List<Edge>> index, boolean reverse) {
+        Map<String, String> result = new LinkedHashMap<>();
+        Queue<String> pending = new ArrayDeque<>(startPaths);
+        Set<String> visited = new LinkedHashSet<>(startPaths);
+        for (int depth = 0; !pending.isEmpty() && (maxDepth < 0 || depth < maxDepth); depth++) {
+            // Process one level of the graph at a time to honor the depth
+            for (int i = pending.size(); i > 0; i--) {
+                String path = pending.poll();
+                for (Edge edge : index.getOrDefault(path, List.of())) {
+                    if (!edge.valid) {
+                        continue;
+                    }
+                    String next = reverse ? edge.sourcePath : edge.targetPath;
+                    result.putIfAbsent(next, path);
+                    if (visited.add(next)) {
+                        pending.add(next);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    protected void addSources(List<Edge> edges, Set<String> result) {
+        if (edges != null) {
+            for (Edge edge : edges) {
+                if (edge.valid) {
+                    result.add(edge.sourcePath);
+                }
+            }
+        }
+    }
+
+    protected void addEdge(Dependency row) {
+        Edge edge = new Edge(intern(row.getSourcePath()), intern(row.getTargetPath()), row.getType().intern(),
+                row.isValid());
+        dependencies.computeIfAbsent(edge.sourcePath, key -> new ArrayList<>(2)).add(edge);
+        dependents.computeIfAbsent(edge.targetPath, key -> new ArrayList<>(2)).add(edge);
+        size++;
+    }
+
+    protected void removeEdges(String sourcePath) {
+        List<Edge> edges = dependencies.remove(sourcePath);
+        if (edges == null) {
+            return;
+        }
+        for (Edge edge : edges) {
+            List<Edge> targetEdges = dependents.get(edge.targetPath);
+            targetEdges.remove(edge);
+            if (targetEdges.isEmpty()) {
+                dependents.remove(edge.targetPath);
+                releasePath(edge.targetPath);
+            }
+            size--;
+        }
+        releasePath(sourcePath);
+    }
+
+    protected String intern(String path) {
+        return paths.computeIfAbsent(path, key -> key);
+    }
+
+    protected void releasePath(String path) {
+        if (!dependencies.containsKey(path) && !dependents.containsKey(path)) {
+            paths.remove(path);
+        }
+    }
+
+    /**
+     * A dependency, the same instance is referenced by both indexes
+     */
+    protected static class Edge {
+
+        protected final String sourcePath;
+        protected final String targetPath;
+        protected final String type;
+        protected boolean valid;
+
+        protected Edge(String sourcePath, String targetPath, String type, boolean valid) {
+            this.sourcePath = sourcePath;
+            this.targetPath = targetPath;
+            this.type = type;
+            this.valid = valid;
+        }
+
+    }
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v2.dal.Dependency;
+import org.craftercms.studio.api.v2.dal.DependencyDAO;
+import org.craftercms.studio.api.v2.event.site.SiteDeletedEvent;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link DependencyGraph} of each site in memory. Graphs are loaded from the database the first time they
+ * are needed and then updated with every change written to the database, the database is still the source of truth
+ * and a graph can be checked against it or rebuilt at any time.
+ */
+public class DependencyGraphCache implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyGraphCache.class);
+
+    protected final Map<String, DependencyGraph> graphs = new ConcurrentHashMap<>();
+    protected final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    protected final LongAdder loads = new LongAdder();
+    protected final LongAdder incrementalUpdates = new LongAdder();
+    protected final LongAdder evictions = new LongAdder();
+
+    protected DependencyDAO dependencyDao;
+    protected boolean enabled = true;
+
+    /**
+     * Get the graph of the given site, loading it from the database if needed
+     *
+     * @param siteId the site id
+     * @return the graph
+     */
+    public DependencyGraph getGraph(String siteId) {
+        DependencyGraph graph = graphs.get(siteId);
+        if (graph == null) {
+            // Updates take the same lock, so none can be lost while the graph is being loaded
+            synchronized (getLock(siteId)) {
+                graph = graphs.get(siteId);
+                if (graph == null) {
+                    graph = load(siteId);
+                    graphs.put(siteId, graph);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Applies a change to the graph of the given site, if it has been loaded. If there is a transaction in progress
+     * the change is applied once it is committed, and the graph is discarded if it is rolled back.
+     *
+     * @param siteId the site id
+     * @param change the change to apply
+     */
+    public void update(String siteId, Consumer<DependencyGraph> change) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        apply(siteId, change);
+                    } else {
+                        evict(siteId);
+                    }
+                }
+            });
+        } else {
+            apply(siteId, change);
+        }
+    }
+
+    /**
+     * Discards the graph of the given site, it will be loaded again the next time it is needed
+     *
+     * @param siteId the site id
+     */
+    public void evict(String siteId) {
+        synchronized (getLock(siteId)) {
+            if (graphs.remove(siteId) != null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Loads the graph of the given site from the database again
+     *
+     * @param siteId the site id
+     */
+    public void rebuild(String siteId) {
+        synchronized (getLock(siteId)) {
+            graphs.put(siteId, load(siteId));
+        }
+    }
+
+    /**
+     * Compares the graph of the given site with the dependencies stored in the database
+     *
+     * @param siteId the site id
+     * @return true if the graph has not been loaded or it has the same dependencies as the database
+     */
+    public boolean check(String siteId) {
+        synchronized (getLock(siteId)) {
+            DependencyGraph graph = graphs.get(siteId);
+            if (graph == null) {
+                return true;
+            }
+            Map<String, Integer> differences = new HashMap<>();
+            for (Dependency row : dependencyDao.getSiteDependencies(siteId)) {
+                differences.merge(getKey(row), 1, Integer::sum);
+            }
+            for (Dependency row : graph.getAllDependencies()) {
+                differences.merge(getKey(row), -1, Integer::sum);
+            }
+            differences.values().removeIf(count -> count == 0);
+            if (!differences.isEmpty()) {
+                logger.warn("The dependency graph of site '{}' has '{}' differences with the database",
+                        siteId, differences.size());
+                logger.debug("Differences between the dependency graph of site '{}' and the database: '{}'",
+                        siteId, differences);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    @EventListener
+    public void onSiteDeleted(SiteDeletedEvent event) {
+        evict(event.getSiteId());
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "dependencyGraph";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long dependencies = 0;
+        for (DependencyGraph graph : graphs.values()) {
+            dependencies += graph.size();
+        }
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sites", graphs.size());
+        metrics.put("dependencies", dependencies);
+        metrics.put("loads", loads.sum());
+        metrics.put("incrementalUpdates", incrementalUpdates.sum());
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+
+    protected void apply(String siteId, Consumer<DependencyGraph> change) {
+        synchronized (getLock(siteId)) {
+            DependencyGraph graph = graphs.get(siteId);
+            if (graph != null) {
+                change.accept(graph);
+                incrementalUpdates.increment();
+            }
+        }
+    }
+
+    protected DependencyGraph load(String siteId) {
+        long start = System.currentTimeMillis();
+        List<Dependency> rows = dependencyDao.getSiteDependencies(siteId);
+        DependencyGraph graph = new DependencyGraph(rows);
+        loads.increment();
+        logger.debug("Loaded '{}' dependencies of site '{}' in '{}' ms", rows.size(), siteId,
+                System.currentTimeMillis() - start);
+        return graph;
+    }
+
+    protected Object getLock(String siteId) {
+        return locks.computeIfAbsent(siteId, key -> new Object());
+    }
+
+    protected String getKey(Dependency row) {
+        return String.join("|", row.getSourcePath(), row.getTargetPath(), row.getType(),
+                String.valueOf(row.isValid()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setDependencyDao(DependencyDAO dependencyDao) {
+        this.dependencyDao = dependencyDao;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v2.dal.Dependency;
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriter;
+
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Sync writer that records the dependency changes sent to the database and applies them to the dependency graphs
+ * once they are committed. If the changes are rolled back the graphs of the affected sites are discarded.
+ */
+public class DependencyGraphSyncWriter implements StudioDBSyncWriter {
+
+    protected final StudioDBSyncWriter writer;
+    protected final DependencyGraphCache dependencyGraphCache;
+    protected final Map<String, List<Consumer<DependencyGraph>>> changes = new LinkedHashMap<>();
+
+    public DependencyGraphSyncWriter(StudioDBSyncWriter writer, DependencyGraphCache dependencyGraphCache) {
+        this.writer = writer;
+        this.dependencyGraphCache = dependencyGraphCache;
+    }
+
+    @Override
+    public void insertItem(long siteId, String path, String previewUrl, long state, Long lockedBy, Long createdBy,
+                           ZonedDateTime createdOn, Long lastModifiedBy, ZonedDateTime lastModifiedOn,
+                           ZonedDateTime lastPublishedOn, String label, String contentTypeId, String systemType,
+                           String mimeType, String localeCode, Long translationSourceId, Long size, Long parentId,
+                           String previousPath) throws SQLException {
+        writer.insertItem(siteId, path, previewUrl, state, lockedBy, createdBy, createdOn, lastModifiedBy,
+                lastModifiedOn, lastPublishedOn, label, contentTypeId, systemType, mimeType, localeCode,
+                translationSourceId, size, parentId, previousPath);
+    }
+
+    @Override
+    public void updateItem(long siteId, String path, String previewUrl, long onStatesBitMap, long offStatesBitMap,
+                           Long lastModifiedBy, ZonedDateTime lastModifiedOn, String label, String contentTypeId,
+                           String systemType, String mimeType, Long size) throws SQLException {
+        writer.updateItem(siteId, path, previewUrl, onStatesBitMap, offStatesBitMap, lastModifiedBy, lastModifiedOn,
+                label, contentTypeId, systemType, mimeType, size);
+    }
+
+    @Override
+    public void deleteItem(long siteId, String path) throws SQLException {
+        writer.deleteItem(siteId, path);
+    }
+
+    @Override
+    public void moveItem(long siteId, String oldPath, String newPath, long onStatesBitMap, long offStatesBitMap)
+            throws SQLException {
+        writer.moveItem(siteId, oldPath, newPath, onStatesBitMap, offStatesBitMap);
+    }
+
+    @Override
+    public void updateDeletedPageChildren(long siteId, String folderPath) throws SQLException {
+        writer.updateDeletedPageChildren(siteId, folderPath);
+    }
+
+    @Override
+    public void insertDependency(String siteId, String sourcePath, String targetPath, String type, boolean valid)
+            throws SQLException {
+        writer.insertDependency(siteId, sourcePath, targetPath, type, valid);
+        Dependency dependency = new Dependency();
+        dependency.setSite(siteId);
+        dependency.setSourcePath(sourcePath);
+        dependency.setTargetPath(targetPath);
+        dependency.setType(type);
+        dependency.setValid(valid);
+        record(siteId, graph -> graph.addDependency(dependency));
+    }
+
+    @Override
+    public void deleteDependencySourcePath(String siteId, String sourcePath) throws SQLException {
+        writer.deleteDependencySourcePath(siteId, sourcePath);
+        record(siteId, graph -> graph.removeDependencies(sourcePath));
+    }
+
+    @Override
+    public void deleteDependencies(String siteId, String path) throws SQLException {
+        writer.deleteDependencies(siteId, path);
+        record(siteId, graph -> {
+            graph.removeDependencies(path);
+            graph.setValid(path, false);
+        });
+    }
+
+    @Override
+    public void setDependenciesValid(String siteId, String targetPath, boolean valid) throws SQLException {
+        writer.setDependenciesValid(siteId, targetPath, valid);
+        record(siteId, graph -> graph.setValid(targetPath, valid));
+    }
+
+    @Override
+    public void updateParentId(long siteId, String itemPath, String parentPath) throws SQLException {
+        writer.updateParentId(siteId, itemPath, parentPath);
+    }
+
+    @Override
+    public void updateNewPageChildren(long siteId, String path) throws SQLException {
+        writer.updateNewPageChildren(siteId, path);
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        writer.commit();
+        changes.forEach((siteId, siteChanges) ->
+                dependencyGraphCache.update(siteId, graph -> siteChanges.forEach(change -> change.accept(graph))));
+        changes.clear();
+    }
+
+    @Override
+    public void rollback() {
+        writer.rollback();
+        discardChanges();
+    }
+
+    @Override
+    public void close() {
+        writer.close();
+        // Anything not committed at this point has been rolled back
+        discardChanges();
+    }
+
+    protected void record(String siteId, Consumer<DependencyGraph> change) {
+        changes.computeIfAbsent(siteId, key -> new ArrayList<>()).add(change);
+    }
+
+    protected void discardChanges() {
+        // Some of the changes could have been committed already if there is a commit interval
+        changes.keySet().forEach(dependencyGraphCache::evict);
+        changes.clear();
+    }
+
+}
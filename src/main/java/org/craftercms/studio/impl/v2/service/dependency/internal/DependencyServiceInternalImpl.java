@@ -17,6 +17,7 @@
 package org.craftercms.studio.impl.v2.service.dependency.internal;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -29,7 +30,9 @@ import org.craftercms.studio.api.v2.annotation.RequireSiteExists;
 import org.craftercms.studio.api.v2.annotation.SiteId;
 import org.craftercms.studio.api.v2.dal.Dependency;
 import org.craftercms.studio.api.v2.dal.DependencyDAO;
+import org.craftercms.studio.api.v2.dal.Item;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriter;
 import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
@@ -41,6 +44,8 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static java.lang.String.format;
@@ -53,12 +58,15 @@ import static org.craftercms.studio.api.v2.dal.DependencyDAO.SOURCE_PATH_COLUMN_
 import static org.craftercms.studio.api.v2.dal.DependencyDAO.TARGET_PATH_COLUMN_NAME;
 import static org.craftercms.studio.api.v2.dal.ItemState.MODIFIED_MASK;
 import static org.craftercms.studio.api.v2.dal.ItemState.NEW_MASK;
+import static org.craftercms.studio.api.v2.dal.ItemState.isModified;
+import static org.craftercms.studio.api.v2.dal.ItemState.isNew;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS;
 
 public class DependencyServiceInternalImpl implements DependencyServiceInternal {
 
     private static final Logger logger = LoggerFactory.getLogger(DependencyServiceInternalImpl.class);
     private static final String UPSERT_DEPENDENCIES_LOCK = ":upsertDependencies";
+    private static final int ITEM_STATES_BATCH_SIZE = 1000;
 
     private StudioConfiguration studioConfiguration;
     private DependencyDAO dependencyDao;
@@ -67,15 +75,36 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     private ServicesConfig servicesConfig;
     private GeneralLockService generalLockService;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    private DependencyGraphCache dependencyGraphCache;
 
     @Override
-    @LogExecutionTime
     public Collection<String> getSoftDependencies(String site, List<String> paths) {
-        logger.trace("Get all soft dependencies for site '{}' paths '{}'", site, paths);
+        return getSoftDependencies(site, paths, DependencyGraph.UNLIMITED_DEPTH);
+    }
+
+    @Override
+    @LogExecutionTime
+    public Collection<String> getSoftDependencies(String site, List<String> paths, int maxDepth) {
+        logger.trace("Get soft dependencies for site '{}' paths '{}' max depth '{}'", site, paths, maxDepth);
         Set<String> pathsParams = new HashSet<>(paths);
         Set<String> result = new HashSet<>();
+        if (useDependencyGraph()) {
+            Set<String> targetPaths = dependencyGraphCache.getGraph(site)
+                    .getTransitiveDependencies(pathsParams, maxDepth).keySet();
+            List<Pattern> patterns = compilePatterns(getItemSpecificDependenciesPatterns());
+            Map<String, Long> states = getItemStates(site, targetPaths);
+            for (String targetPath : targetPaths) {
+                Long state = states.get(targetPath);
+                // Same as the query: item specific dependencies are skipped only if they match all the patterns
+                if (state != null && isModified(state) && !isNew(state) && !pathsParams.contains(targetPath) &&
+                        (patterns.isEmpty() || !patterns.stream().allMatch(p -> p.matcher(targetPath).find()))) {
+                    result.add(targetPath);
+                }
+            }
+            return result;
+        }
         List<Map<String, String>> deps = dependencyDao.getSoftDependenciesForList(site, pathsParams, getItemSpecificDependenciesPatterns(),
-                MODIFIED_MASK, NEW_MASK);
+                MODIFIED_MASK, NEW_MASK, maxDepth);
         for (Map<String, String> d : deps) {
             String targetPath = d.get(TARGET_PATH_COLUMN_NAME);
             if (!pathsParams.contains(targetPath)) {
@@ -85,6 +114,30 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
         return result;
     }
 
+    /**
+     * Indicates if the queries should use the in-memory dependency graph instead of the database
+     */
+    protected boolean useDependencyGraph() {
+        return dependencyGraphCache != null && dependencyGraphCache.isEnabled();
+    }
+
+    protected List<Pattern> compilePatterns(List<String> patterns) {
+        // RLIKE is case-insensitive and matches anywhere in the path
+        return patterns.stream()
+                .map(pattern -> Pattern.compile(pattern, Pattern.CASE_INSENSITIVE))
+                .collect(Collectors.toList());
+    }
+
+    protected Map<String, Long> getItemStates(String site, Collection<String> paths) {
+        Map<String, Long> states = new HashMap<>();
+        for (List<String> batch : ListUtils.partition(new ArrayList<>(paths), ITEM_STATES_BATCH_SIZE)) {
+            for (Item item : itemServiceInternal.getItemsBySiteAndPaths(site, batch)) {
+                states.put(item.getPath(), item.getState());
+            }
+        }
+        return states;
+    }
+
     protected List<String> getItemSpecificDependenciesPatterns() {
         StringTokenizer st = new StringTokenizer(
                 studioConfiguration.getProperty(CONFIGURATION_DEPENDENCY_ITEM_SPECIFIC_PATTERNS), ",");
@@ -182,23 +235,45 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     }
 
     private List<Map<String, String>> calculateHardDependenciesForListFromDB(String site, Set<String> paths) {
+        if (useDependencyGraph()) {
+            return calculateHardDependenciesForListFromGraph(site, paths);
+        }
         return dependencyDao.getHardDependenciesForList(site, paths, getItemSpecificDependenciesPatterns(),
                 MODIFIED_MASK, NEW_MASK);
     }
 
+    private List<Map<String, String>> calculateHardDependenciesForListFromGraph(String site, Set<String> paths) {
+        List<Map.Entry<String, String>> dependencies = dependencyGraphCache.getGraph(site).getDependencies(paths);
+        Set<String> targetPaths = dependencies.stream().map(Map.Entry::getValue).collect(Collectors.toSet());
+        Map<String, Long> states = getItemStates(site, targetPaths);
+        List<Pattern> patterns = compilePatterns(getItemSpecificDependenciesPatterns());
+        List<Map<String, String>> result = new ArrayList<>();
+        for (Map.Entry<String, String> dependency : dependencies) {
+            String targetPath = dependency.getValue();
+            Long state = states.get(targetPath);
+            if (state != null && (isNew(state) || (isModified(state) &&
+                    patterns.stream().anyMatch(p -> p.matcher(targetPath).find())))) {
+                result.add(Map.of(SOURCE_PATH_COLUMN_NAME, dependency.getKey(), TARGET_PATH_COLUMN_NAME, targetPath));
+            }
+        }
+        return result;
+    }
+
     @Override
     public List<String> getDependentPaths(String siteId, List<String> paths) {
         if (CollectionUtils.isEmpty(paths)) {
             return new ArrayList<>();
         }
+        if (useDependencyGraph()) {
+            return new ArrayList<>(dependencyGraphCache.getGraph(siteId).getDependents(paths));
+        }
         List<String> result = dependencyDao.getDependentItems(siteId, paths);
         return result.stream().distinct().collect(Collectors.toList());
     }
 
     @Override
     public List<DependencyItem> getDependentItems(String siteId, String path) {
-        List<String> dependentPaths = dependencyDao.getDependentItems(siteId, Collections.singletonList(path))
-                .stream().distinct().collect(Collectors.toList());
+        List<String> dependentPaths = getDependentPaths(siteId, Collections.singletonList(path));
 
         return dependentPaths.stream()
                 .map(dep -> DependencyItem.getInstance(itemServiceInternal.getItem(siteId, dep)))
@@ -215,6 +290,13 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     @Override
     public List<String> getItemSpecificDependencies(String siteId, List<String> paths) {
         if (isNotEmpty(paths)) {
+            if (useDependencyGraph()) {
+                List<Pattern> patterns = compilePatterns(getItemSpecificDependenciesPatterns());
+                return dependencyGraphCache.getGraph(siteId).getDependencies(paths).stream()
+                        .map(Map.Entry::getValue)
+                        .filter(targetPath -> patterns.stream().anyMatch(p -> p.matcher(targetPath).find()))
+                        .collect(Collectors.toList());
+            }
             return dependencyDao.getItemSpecificDependencies(siteId, paths, getItemSpecificDependenciesPatterns());
         } else {
             return new ArrayList<>();
@@ -262,6 +344,7 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
             if (isNotEmpty(dependencies)) {
                 retryingDatabaseOperationFacade.retry(() -> dependencyDao.insertItemDependencies(dependencies));
             }
+            updateDependencyGraph(site, graph -> graph.replaceDependencies(path, dependencies));
         } catch (Exception e) {
             logger.error("Failed to upsert dependencies for site '{}' path '{}'", site, path, e);
             throw new ServiceLayerException(format("Failed to upsert dependencies for site '%s' path '%s'",
@@ -275,6 +358,7 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     public void deleteItemDependencies(String site, String sourcePath) throws ServiceLayerException {
         try {
             retryingDatabaseOperationFacade.retry(() -> dependencyDao.deleteItemDependencies(site, sourcePath));
+            updateDependencyGraph(site, graph -> graph.removeDependencies(sourcePath));
         } catch (Exception e) {
             logger.error("Failed to delete dependencies for site '{}' path '{}'", site, sourcePath, e);
             throw new ServiceLayerException(format("Failed to delete dependencies for site '%s' path '%s'",
@@ -286,6 +370,7 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     public void invalidateDependencies(String siteId, String targetPath) throws ServiceLayerException {
         try {
             retryingDatabaseOperationFacade.retry(() -> dependencyDao.invalidateDependencies(siteId, targetPath));
+            updateDependencyGraph(siteId, graph -> graph.setValid(targetPath, false));
         } catch (Exception e) {
             logger.error("Failed to invalidate dependencies for site '{}' path '{}'", siteId, targetPath, e);
             throw new ServiceLayerException(format("Failed to invalidate dependencies for site '%s' path '%s'",
@@ -297,6 +382,7 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     public void validateDependencies(String siteId, String targetPath) throws ServiceLayerException {
         try {
             retryingDatabaseOperationFacade.retry(() -> dependencyDao.validateDependencies(siteId, targetPath));
+            updateDependencyGraph(siteId, graph -> graph.setValid(targetPath, true));
         } catch (Exception e) {
             logger.error("Failed to validate dependencies for site '{}' path '{}'", siteId, targetPath, e);
             throw new ServiceLayerException(format("Failed to validate dependencies for site '%s' path '%s'",
@@ -304,6 +390,32 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
         }
     }
 
+    @Override
+    public StudioDBSyncWriter trackDependencyChanges(StudioDBSyncWriter writer) {
+        if (useDependencyGraph()) {
+            return new DependencyGraphSyncWriter(writer, dependencyGraphCache);
+        }
+        return writer;
+    }
+
+    @Override
+    public boolean checkDependencyGraph(String siteId) {
+        return !useDependencyGraph() || dependencyGraphCache.check(siteId);
+    }
+
+    @Override
+    public void rebuildDependencyGraph(String siteId) {
+        if (useDependencyGraph()) {
+            dependencyGraphCache.rebuild(siteId);
+        }
+    }
+
+    protected void updateDependencyGraph(String siteId, Consumer<DependencyGraph> change) {
+        if (useDependencyGraph()) {
+            dependencyGraphCache.update(siteId, change);
+        }
+    }
+
     public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
         this.studioConfiguration = studioConfiguration;
     }
@@ -331,4 +443,8 @@ public class DependencyServiceInternalImpl implements DependencyServiceInternal
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public void setDependencyGraphCache(DependencyGraphCache dependencyGraphCache) {
+        this.dependencyGraphCache = dependencyGraphCache;
+    }
 }
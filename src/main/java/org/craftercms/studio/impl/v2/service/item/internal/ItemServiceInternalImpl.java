@@ -23,7 +23,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.rest.parameters.SortField;
 import org.craftercms.studio.api.v1.constant.DmConstants;
 import org.craftercms.studio.api.v1.dal.SiteFeed;
-import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v1.service.GeneralLockService;
@@ -35,6 +34,7 @@ import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
 import org.craftercms.studio.impl.v1.util.ContentUtils;
+import org.craftercms.studio.impl.v2.service.site.internal.SiteRegistry;
 import org.craftercms.studio.impl.v2.utils.DateUtils;
 import org.craftercms.studio.model.rest.dashboard.PublishingDashboardItem;
 
@@ -44,7 +44,7 @@ import java.util.*;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.*;
 import static org.craftercms.studio.api.v2.dal.ItemState.*;
 import static org.craftercms.studio.api.v2.dal.PublishRequest.State.COMPLETED;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+import static org.craftercms.studio.api.v2.utils.DalUtils.escapeLikePattern;
 import static org.craftercms.studio.api.v2.utils.DalUtils.mapSortFields;
 
 public class ItemServiceInternalImpl implements ItemServiceInternal {
@@ -55,14 +55,20 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
     public final static String DISABLED = "/*[1]/disabled";
     public final static String LOCALE_CODE = "/*[1]/locale-code";
 
+    /**
+     * Path regex that matches all items, totals for it can be read from the item state counters
+     */
+    protected static final String ALL_PATHS_REGEX = ".*";
+
     private UserServiceInternal userServiceInternal;
-    private SiteFeedMapper siteFeedMapper;
+    private SiteRegistry siteRegistry;
     private ItemDAO itemDao;
     private ServicesConfig servicesConfig;
     private ContentServiceInternal contentServiceInternal;
     private ContentService contentService;
     private GeneralLockService generalLockService;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    private boolean itemStateCountersEnabled = true;
 
     @Override
     public boolean upsertEntry(Item item) {
@@ -84,9 +90,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public Item getItem(String siteId, String path, boolean preferContent) {
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         if (Objects.isNull(siteFeed)) {
             return null;
         }
@@ -113,17 +117,22 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public List<Item> getItems(String siteId, List<String> paths, boolean preferContent) {
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         return itemDao.getSandboxItemsByPath(siteFeed.getId(), paths, CONTENT_TYPE_FOLDER, preferContent);
     }
 
+    @Override
+    public List<Item> getItemsBySiteAndPaths(String siteId, List<String> paths) {
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
+        if (Objects.isNull(siteFeed) || paths.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return itemDao.getItemsBySiteAndPaths(siteFeed.getId(), paths);
+    }
+
     @Override
     public void deleteItem(String siteId, String path) {
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         retryingDatabaseOperationFacade.retry(() -> itemDao.deleteBySiteAndPath(siteFeed.getId(), path));
     }
 
@@ -150,18 +159,14 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     private void setStatesBySiteAndPathBulk(String siteId, List<String> paths, long statesBitMap) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            Map<String, String> params = new HashMap<>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.retry(() -> itemDao.setStatesBySiteAndPathBulk(siteFeed.getId(), paths, statesBitMap));
         }
     }
 
     private void resetStatesBySiteAndPathBulk(String siteId, List<String> paths, long statesBitMap) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            Map<String, String> params = new HashMap<>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.retry(() -> itemDao.resetStatesBySiteAndPathBulk(siteFeed.getId(), paths, statesBitMap));
         }
     }
@@ -181,9 +186,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
     private void updateStatesBySiteAndPathBulk(String siteId, Collection<String> paths, long onStateBitMap,
                                                long offStateBitMap) {
         if (CollectionUtils.isNotEmpty(paths)) {
-            Map<String, String> params = new HashMap<>();
-            params.put(SITE_ID, siteId);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.retry(() -> itemDao.updateStatesBySiteAndPathBulk(siteFeed.getId(), paths,
                     onStateBitMap, offStateBitMap));
         }
@@ -194,9 +197,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         Item item = getItem(siteName, path);
         if (Objects.isNull(item)) {
             item = new Item();
-            Map<String, String> params = new HashMap<>();
-            params.put(SITE_ID, siteName);
-            SiteFeed siteFeed = siteFeedMapper.getSite(params);
+            SiteFeed siteFeed = siteRegistry.getSite(siteName);
             item.setSiteId(siteFeed.getId());
             item.setSiteName(siteName);
             item.setPath(path);
@@ -443,7 +444,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public List<String> getChangeSetForSubtree(String siteId, String path) {
-        String likePath = path + (path.endsWith(FILE_SEPARATOR) ? "" : FILE_SEPARATOR) + "%";
+        String likePath = escapeLikePattern(path) + (path.endsWith(FILE_SEPARATOR) ? "" : FILE_SEPARATOR) + "%";
         return itemDao.getChangeSetForSubtree(siteId, path, likePath,
                 List.of(CONTENT_TYPE_FOLDER, CONTENT_TYPE_UNKNOWN), IN_PROGRESS_MASK);
     }
@@ -467,9 +468,30 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public int getItemStatesTotal(String siteId, String path, Long states, List<String> systemTypes) {
+        if (itemStateCountersEnabled && Objects.nonNull(states) &&
+                (Objects.isNull(path) || ALL_PATHS_REGEX.equals(path))) {
+            return getItemStateCountsTotal(siteId, states, systemTypes);
+        }
         return itemDao.getItemStatesTotal(siteId, path, states, systemTypes);
     }
 
+    /**
+     * Sums the item state counters of the site, the counters are maintained by the database triggers on the item
+     * table and need to be rebuilt only after a delete cascades to the children of an item.
+     */
+    protected int getItemStateCountsTotal(String siteId, long states, List<String> systemTypes) {
+        Integer total = itemDao.getItemStateCountsTotal(siteId, states, systemTypes);
+        if (Objects.isNull(total)) {
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
+            if (Objects.isNull(siteFeed)) {
+                return 0;
+            }
+            retryingDatabaseOperationFacade.retry(() -> itemDao.rebuildItemStateCounts(siteFeed.getId()));
+            total = itemDao.getItemStateCountsTotal(siteId, states, systemTypes);
+        }
+        return Objects.nonNull(total) ? total : 0;
+    }
+
     @Override
     public List<Item> getItemStates(String siteId, String path, Long states, List<String> systemTypes, List<SortField> sortFields, int offset, int limit) {
         return itemDao.getItemStates(siteId, path, states, systemTypes, mapSortFields(sortFields, ItemDAO.SORT_FIELD_MAP), offset, limit);
@@ -482,7 +504,7 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
             long setStatesMask = getSetStatesMask(live, staged, isNew, modified);
             long resetStatesMask = getResetStatesMask(clearSystemProcessing, clearUserLocked, live, staged, isNew, modified);
 
-            SiteFeed siteFeed = siteFeedMapper.getSite(Collections.singletonMap(SITE_ID, siteId));
+            SiteFeed siteFeed = siteRegistry.getSite(siteId);
             retryingDatabaseOperationFacade.retry(() -> itemDao.updateStatesBySiteAndPathBulk(siteFeed.getId(), paths, setStatesMask,
                     resetStatesMask));
         }
@@ -541,15 +563,13 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
 
     @Override
     public List<String> getSubtreeForDelete(String siteId, String path) {
-        String likePath = path + (path.endsWith(FILE_SEPARATOR) ? "" : FILE_SEPARATOR) + "%";
+        String likePath = escapeLikePattern(path) + (path.endsWith(FILE_SEPARATOR) ? "" : FILE_SEPARATOR) + "%";
         return itemDao.getSubtreeForDelete(siteId, likePath);
     }
 
     @Override
     public void updateStatesForSite(String siteId, long onStateBitMap, long offStateBitMap) {
-        Map<String, String> params = new HashMap<>();
-        params.put(SITE_ID, siteId);
-        SiteFeed siteFeed = siteFeedMapper.getSite(params);
+        SiteFeed siteFeed = siteRegistry.getSite(siteId);
         retryingDatabaseOperationFacade.retry(() -> itemDao.updateStatesForSite(siteFeed.getId(), onStateBitMap, offStateBitMap));
     }
 
@@ -562,8 +582,8 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
         this.userServiceInternal = userServiceInternal;
     }
 
-    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
-        this.siteFeedMapper = siteFeedMapper;
+    public void setSiteRegistry(SiteRegistry siteRegistry) {
+        this.siteRegistry = siteRegistry;
     }
 
     public void setItemDao(ItemDAO itemDao) {
@@ -589,4 +609,8 @@ public class ItemServiceInternalImpl implements ItemServiceInternal {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public void setItemStateCountersEnabled(boolean itemStateCountersEnabled) {
+        this.itemStateCountersEnabled = itemStateCountersEnabled;
+    }
 }
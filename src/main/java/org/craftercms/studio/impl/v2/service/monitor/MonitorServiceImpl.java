@@ -44,4 +44,10 @@ public class MonitorServiceImpl implements MonitorService {
     public List<Map<String, Object>> getLogEvents(final String siteId, final long since) {
         return monitorServiceInternal.getLogEvents(siteId, since);
     }
+
+    @Override
+    @HasPermission(type = DefaultPermission.class, action = PERMISSION_VIEW_LOGS, acceptManagementToken = true)
+    public Map<String, Map<String, Object>> getMetrics() {
+        return monitorServiceInternal.getMetrics();
+    }
 }
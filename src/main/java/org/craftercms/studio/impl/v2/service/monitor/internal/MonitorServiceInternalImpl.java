@@ -16,19 +16,41 @@
 package org.craftercms.studio.impl.v2.service.monitor.internal;
 
 import org.craftercms.engine.util.logging.CircularQueueLogAppender;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
 import org.craftercms.studio.api.v2.service.monitor.MonitorService;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
 
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Default internal implementation for {@link MonitorService}.
  *
  * @author jmendeza
  */
-public class MonitorServiceInternalImpl implements MonitorService {
+public class MonitorServiceInternalImpl implements MonitorService, ApplicationContextAware {
+
+    protected ApplicationContext applicationContext;
+
     @Override
     public List<Map<String, Object>> getLogEvents(final String siteId, final long since) {
         return CircularQueueLogAppender.getLoggedEvents(siteId, since);
     }
+
+    @Override
+    public Map<String, Map<String, Object>> getMetrics() {
+        Map<String, Map<String, Object>> metrics = new TreeMap<>();
+        for (MetricsProvider provider : applicationContext.getBeansOfType(MetricsProvider.class).values()) {
+            metrics.put(provider.getMetricsName(), provider.getMetrics());
+        }
+        return metrics;
+    }
+
+    @Override
+    public void setApplicationContext(@NotNull final ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
 }
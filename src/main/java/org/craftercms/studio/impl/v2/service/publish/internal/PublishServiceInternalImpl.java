@@ -21,6 +21,7 @@ import org.craftercms.commons.rest.parameters.SortField;
 import org.craftercms.commons.security.permissions.annotations.ProtectedResourceId;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
+import org.craftercms.studio.api.v1.exception.security.UserNotFoundException;
 import org.craftercms.studio.api.v2.dal.*;
 import org.craftercms.studio.api.v2.event.publish.PublishEvent;
 import org.craftercms.studio.api.v2.repository.ContentRepository;
@@ -114,6 +115,15 @@ public class PublishServiceInternalImpl implements PublishServiceInternal, Appli
         return contentRepository.getPublishingHistory(siteId, environment, path, publisher, dateFrom, dateTo, limit);
     }
 
+    @Override
+    public List<PublishingHistoryItem> getPublishingHistoryPage(String siteId, String environment, String pathPrefix,
+                                                                String publisher, ZonedDateTime dateFrom,
+                                                                ZonedDateTime dateTo, Long afterId, int limit)
+            throws ServiceLayerException, UserNotFoundException {
+        return contentRepository.getPublishingHistoryPage(siteId, environment, pathPrefix, publisher, dateFrom,
+                dateTo, afterId, limit);
+    }
+
     @Override
     public int getPublishingHistoryDetailTotalItems(String siteId, String packageId) {
         return publishRequestDao.getPublishingHistoryDetailTotalItems(siteId, packageId);
@@ -17,6 +17,7 @@ package org.craftercms.studio.impl.v2.service.security.internal;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.craftercms.commons.crypto.CryptoException;
 import org.craftercms.commons.crypto.TextEncryptor;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
@@ -41,6 +42,7 @@ import org.jose4j.jwt.JwtClaims;
 import org.jose4j.jwt.MalformedClaimException;
 import org.jose4j.jwt.NumericDate;
 import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
 import org.jose4j.jwt.consumer.JwtConsumerBuilder;
 import org.jose4j.keys.HmacKey;
 import org.jose4j.keys.PbkdfKey;
@@ -59,6 +61,7 @@ import java.security.Key;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -89,6 +92,9 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
     private static final Logger logger = LoggerFactory.getLogger(AccessTokenServiceInternalImpl.class);
 
     public static final String ACTIVITY_CACHE_CONFIG_KEY = "studio.security.activity.cache.config";
+    public static final String VERIFIED_TOKEN_CACHE_CONFIG_KEY = "studio.security.token.cache.config";
+    public static final String LOGIN_AUDIT_INTERVAL_KEY = "studio.security.token.loginAuditInterval";
+    private static final int MAX_AUDITED_LOGINS = 10000;
     private static final String CRAFTER_SITE_COOKIE_NAME = "crafterSite";
     private static final String JWE_ALGORITHM_HEADER_VALUE = PBES2_HS512_A256KW;
     private static final String JWE_ENCRYPTION_METHOD_HEADER_VALUE = AES_256_CBC_HMAC_SHA_512;
@@ -141,8 +147,19 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
      */
     protected Cache<Long, Instant> userActivity;
 
+    /**
+     * Cache of the tokens already validated, indexed by the hash of the token
+     */
+    protected Cache<String, VerifiedToken> verifiedTokens;
+
+    /**
+     * Time of the last login audited for each access token, null if all logins should be audited
+     */
+    protected Cache<Long, Instant> auditedLogins;
+
     protected Key jwtSignKey;
     protected Key jwtEncryptKey;
+    protected volatile JwtConsumer jwtConsumer;
 
     protected final SecurityDAO securityDao;
     protected final SecurityService securityService;
@@ -191,6 +208,14 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
     @Override
     public void afterPropertiesSet() {
         userActivity = CacheBuilder.from(studioConfiguration.getProperty(ACTIVITY_CACHE_CONFIG_KEY)).build();
+        verifiedTokens = CacheBuilder.from(studioConfiguration.getProperty(VERIFIED_TOKEN_CACHE_CONFIG_KEY)).build();
+        int loginAuditInterval = studioConfiguration.getProperty(LOGIN_AUDIT_INTERVAL_KEY, Integer.class, 0);
+        if (loginAuditInterval > 0) {
+            auditedLogins = CacheBuilder.newBuilder()
+                    .maximumSize(MAX_AUDITED_LOGINS)
+                    .expireAfterWrite(loginAuditInterval, TimeUnit.MINUTES)
+                    .build();
+        }
         jwtSignKey = new HmacKey(signPassword.getBytes(UTF_8));
         jwtEncryptKey = new PbkdfKey(encryptPassword);
         refreshTokenCookieGenerator.setCookieHttpOnly(true); // Always HTTPOnly to protect the refresh token
@@ -336,6 +361,9 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
         var userId = getUserId(auth);
 
         retryingDatabaseOperationFacade.retry(() -> securityDao.updateAccessToken(userId, tokenId, enabled));
+        if (!enabled) {
+            invalidateVerifiedToken(tokenId);
+        }
 
         createAuditLog(auth, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_UPDATE);
 
@@ -347,6 +375,7 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
         var auth = SecurityContextHolder.getContext().getAuthentication();
 
         retryingDatabaseOperationFacade.retry(() -> securityDao.deleteAccessToken(getUserId(auth), tokenId));
+        invalidateVerifiedToken(tokenId);
 
         createAuditLog(auth, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_DELETE);
     }
@@ -355,26 +384,64 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
         return isNotEmpty(audience)? audience : instanceService.getInstanceId();
     }
 
-    @Override
-    public String getUsername(String token) {
-        try {
-            AlgorithmConstraints constraints = getAlgorithmConstraints();
-            var jwtConsumer = new JwtConsumerBuilder()
+    /**
+     * Removes the access token from the cache of verified tokens so the next request needs to validate it again
+     *
+     * @param tokenId the id of the access token
+     */
+    protected void invalidateVerifiedToken(long tokenId) {
+        verifiedTokens.asMap().values().removeIf(verifiedToken -> Objects.equals(verifiedToken.tokenId, tokenId));
+        if (auditedLogins != null) {
+            auditedLogins.invalidate(tokenId);
+        }
+    }
+
+    /**
+     * Returns the consumer used to validate the tokens, it is built on first use because the audience can depend on
+     * the instance id
+     */
+    protected JwtConsumer getJwtConsumer() {
+        JwtConsumer consumer = jwtConsumer;
+        if (consumer == null) {
+            consumer = new JwtConsumerBuilder()
                     .setEnableRequireEncryption()
                     .setRequireSubject()
                     .setExpectedIssuers(true, validIssuers)
                     .setExpectedAudience(getActualAudience())
                     .setVerificationKey(jwtSignKey)
                     .setDecryptionKey(jwtEncryptKey)
-                    .setJweAlgorithmConstraints(constraints)
+                    .setJweAlgorithmConstraints(getAlgorithmConstraints())
                     .build();
+            jwtConsumer = consumer;
+        }
+        return consumer;
+    }
 
-            var claims = jwtConsumer.processToClaims(token);
+    @Override
+    public String getUsername(String token) {
+        // Only the hash is kept in memory, the token itself is a credential
+        var tokenHash = DigestUtils.sha256Hex(token);
+        var verifiedToken = verifiedTokens.getIfPresent(tokenHash);
+        if (verifiedToken != null) {
+            if (!verifiedToken.isExpired()) {
+                logger.trace("Using cached validation of JWT for user '{}'", verifiedToken.username);
+                if (verifiedToken.tokenId != null) {
+                    auditLogin(verifiedToken.username, verifiedToken.tokenId);
+                }
+                return verifiedToken.username;
+            }
+            // Validate it again so the expiration is handled as always
+            verifiedTokens.invalidate(tokenHash);
+        }
+
+        try {
+            var claims = getJwtConsumer().processToClaims(token);
 
             var username = claims.getSubject();
             var jwtId = claims.getJwtId();
+            Long tokenId = null;
             if (isNotEmpty(jwtId)) {
-                var tokenId = parseLong(jwtId);
+                tokenId = parseLong(jwtId);
                 var storedToken = securityDao.getAccessTokenById(tokenId);
                 if (storedToken == null) {
                     // someone is trying to use a deleted token!
@@ -392,11 +459,15 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
                 }
 
                 logger.debug("Successfully validated JWT with ID '{}' for user '{}'", tokenId, username);
-                createAuditLog(username, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_LOGIN);
+                auditLogin(username, tokenId);
             } else {
                 logger.debug("Successfully validated JWT with for user '{}'", username);
             }
 
+            var expirationTime = claims.getExpirationTime();
+            verifiedTokens.put(tokenHash, new VerifiedToken(username, tokenId,
+                    expirationTime != null ? Instant.ofEpochMilli(expirationTime.getValueInMillis()) : null));
+
             // Return the user
             return username;
         } catch (InvalidJwtException | MalformedClaimException e) {
@@ -408,6 +479,17 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
         return null;
     }
 
+    /**
+     * Audits the login with an access token, only once per token in the configured interval
+     */
+    protected void auditLogin(String username, long tokenId) {
+        if (auditedLogins != null && auditedLogins.asMap().putIfAbsent(tokenId, now()) != null) {
+            logger.trace("Login with JWT with ID '{}' for user '{}' already audited", tokenId, username);
+            return;
+        }
+        createAuditLog(username, tokenId, TARGET_TYPE_ACCESS_TOKEN, OPERATION_LOGIN);
+    }
+
     protected long getUserId(Authentication auth) {
         return ((User) auth.getPrincipal()).getId();
     }
@@ -496,4 +578,24 @@ public class AccessTokenServiceInternalImpl implements AccessTokenServiceInterna
     public void setPreviewCookieGenerator(final CookieGenerator previewCookieGenerator) {
         this.previewCookieGenerator = previewCookieGenerator;
     }
+
+    /**
+     * Result of the validation of a token
+     */
+    protected static class VerifiedToken {
+
+        protected final String username;
+        protected final Long tokenId;
+        protected final Instant expiresAt;
+
+        protected VerifiedToken(String username, Long tokenId, Instant expiresAt) {
+            this.username = username;
+            this.tokenId = tokenId;
+            this.expiresAt = expiresAt;
+        }
+
+        protected boolean isExpired() {
+            return expiresAt != null && !now().isBefore(expiresAt);
+        }
+    }
 }
@@ -0,0 +1,261 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.site.internal;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
+import org.craftercms.studio.impl.v2.utils.spring.event.BootstrapFinishedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
+
+/**
+ * Keeps the metadata of all sites in memory, indexed by site id and by numeric id, so it doesn't need to be read from
+ * the database on every request.
+ * <p>
+ * Sites are loaded when the bootstrap finishes and on the first lookup after being evicted. Changes made by this node
+ * evict the site right away (see {@link #invalidate(String)}), and every change to the {@code site} table increases
+ * the {@code version} column, which is checked periodically to evict the sites changed by other nodes of the cluster.
+ * </p>
+ * <p>
+ * The returned {@link SiteFeed} instances are shared by all callers and must be treated as read-only.
+ * </p>
+ */
+public class SiteRegistry implements MetricsProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteRegistry.class);
+
+    protected final Map<String, SiteFeed> sitesBySiteId = new ConcurrentHashMap<>();
+    protected final Map<Long, SiteFeed> sitesById = new ConcurrentHashMap<>();
+
+    /**
+     * Increased on every eviction, a site read from the database is only added if there were no evictions while it
+     * was being read, otherwise it could be older than the change that caused the eviction
+     */
+    protected long generation;
+
+    protected final LongAdder hits = new LongAdder();
+    protected final LongAdder misses = new LongAdder();
+    protected final LongAdder loads = new LongAdder();
+    protected final LongAdder evictions = new LongAdder();
+    protected final LongAdder polls = new LongAdder();
+
+    protected SiteFeedMapper siteFeedMapper;
+    protected TaskScheduler taskScheduler;
+    protected boolean enabled = true;
+    protected long pollInterval;
+
+    private ScheduledFuture<?> pollFuture;
+
+    @EventListener(BootstrapFinishedEvent.class)
+    public synchronized void start() {
+        if (!enabled) {
+            return;
+        }
+        reload();
+        if (pollInterval > 0 && pollFuture == null) {
+            logger.info("Start the site registry, checking the site versions every '{}' ms", pollInterval);
+            pollFuture = taskScheduler.scheduleWithFixedDelay(this::poll, Duration.ofMillis(pollInterval));
+        }
+    }
+
+    public synchronized void stop() {
+        if (pollFuture != null) {
+            pollFuture.cancel(false);
+            pollFuture = null;
+        }
+    }
+
+    /**
+     * Get a site by its site id
+     *
+     * @param siteId the site id
+     * @return the site, null if it does not exist or has been deleted
+     */
+    public SiteFeed getSite(String siteId) {
+        if (enabled && siteId != null) {
+            SiteFeed site = sitesBySiteId.get(siteId);
+            if (site != null) {
+                hits.increment();
+                return site;
+            }
+        }
+        misses.increment();
+        long expectedGeneration = getGeneration();
+        SiteFeed site = siteFeedMapper.getSite(Collections.singletonMap(SITE_ID, siteId));
+        add(site, expectedGeneration);
+        return site;
+    }
+
+    /**
+     * Get a site by its numeric id
+     *
+     * @param id the numeric id of the site
+     * @return the site, null if it does not exist or has been deleted
+     */
+    public SiteFeed getSite(long id) {
+        if (enabled) {
+            SiteFeed site = sitesById.get(id);
+            if (site != null) {
+                hits.increment();
+                return site;
+            }
+        }
+        misses.increment();
+        long expectedGeneration = getGeneration();
+        SiteFeed site = siteFeedMapper.getSiteById(id);
+        add(site, expectedGeneration);
+        return site;
+    }
+
+    /**
+     * Indicates if the given site exists and has not been deleted
+     *
+     * @param siteId the site id
+     * @return true if the site exists
+     */
+    public boolean exists(String siteId) {
+        return getSite(siteId) != null;
+    }
+
+    /**
+     * Evicts the given site after it has been changed. If there is a transaction in progress the site is evicted again
+     * once it completes, so a lookup done before the commit can't leave the old values in the registry.
+     *
+     * @param siteId the site id
+     */
+    public void invalidate(String siteId) {
+        evict(siteId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(siteId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Loads all sites from the database
+     */
+    public void reload() {
+        long start = System.currentTimeMillis();
+        long expectedGeneration = getGeneration();
+        List<SiteFeed> sites = siteFeedMapper.getSites();
+        sites.forEach(site -> add(site, expectedGeneration));
+        logger.debug("Loaded '{}' sites in '{}' ms", sites.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Evicts the sites that have been changed or deleted in the database, including the changes made by other nodes
+     */
+    protected void poll() {
+        try {
+            polls.increment();
+            Map<Long, SiteFeed> versions = new HashMap<>();
+            for (SiteFeed site : siteFeedMapper.getSiteVersions()) {
+                versions.put(site.getId(), site);
+            }
+            for (SiteFeed cached : sitesBySiteId.values()) {
+                SiteFeed current = versions.get(cached.getId());
+                if (current == null || current.getVersion() != cached.getVersion() ||
+                        !current.getSiteId().equals(cached.getSiteId())) {
+                    logger.debug("Site '{}' has changed in the database, it will be evicted", cached.getSiteId());
+                    evict(cached.getSiteId());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Failed to check the site versions in the database", e);
+        }
+    }
+
+    protected synchronized long getGeneration() {
+        return generation;
+    }
+
+    protected synchronized void add(SiteFeed site, long expectedGeneration) {
+        if (!enabled || site == null || generation != expectedGeneration) {
+            return;
+        }
+        SiteFeed previous = sitesBySiteId.put(site.getSiteId(), site);
+        if (previous != null) {
+            sitesById.remove(previous.getId());
+        }
+        sitesById.put(site.getId(), site);
+        loads.increment();
+    }
+
+    protected synchronized void evict(String siteId) {
+        generation++;
+        SiteFeed site = sitesBySiteId.remove(siteId);
+        if (site != null) {
+            sitesById.remove(site.getId());
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "siteRegistry";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sites", sitesBySiteId.size());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("loads", loads.sum());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("polls", polls.sum());
+        return metrics;
+    }
+
+    public void setSiteFeedMapper(SiteFeedMapper siteFeedMapper) {
+        this.siteFeedMapper = siteFeedMapper;
+    }
+
+    public void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setPollInterval(long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+}
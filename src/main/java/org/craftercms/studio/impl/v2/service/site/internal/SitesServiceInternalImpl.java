@@ -61,7 +61,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.UUID;
 
 import static java.lang.String.format;
@@ -69,7 +68,6 @@ import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.SITE_UUID_FILENAME;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
-import static org.craftercms.studio.api.v2.dal.QueryParameterNames.SITE_ID;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.*;
 
 public class SitesServiceInternalImpl implements SitesService, ApplicationContextAware {
@@ -82,6 +80,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
     private final StudioConfiguration studioConfiguration;
     private final SiteFeedMapper siteFeedMapper;
     private final SiteDAO siteDao;
+    private final SiteRegistry siteRegistry;
     private final RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
     private final SiteService siteServiceV1;
     private final Deployer deployer;
@@ -93,14 +92,14 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
     @ConstructorProperties({"descriptorReader", "contentRepository",
             "blobAwareRepository",
             "studioConfiguration", "siteFeedMapper",
-            "siteDao",
+            "siteDao", "siteRegistry",
             "retryingDatabaseOperationFacade", "siteServiceV1",
             "deployer", "configurationService",
             "securityService", "auditServiceInternal"})
     public SitesServiceInternalImpl(PluginDescriptorReader descriptorReader, ContentRepository contentRepository,
                                     StudioBlobAwareContentRepository blobAwareRepository,
                                     StudioConfiguration studioConfiguration, SiteFeedMapper siteFeedMapper,
-                                    SiteDAO siteDao,
+                                    SiteDAO siteDao, SiteRegistry siteRegistry,
                                     RetryingDatabaseOperationFacade retryingDatabaseOperationFacade, SiteService siteServiceV1,
                                     Deployer deployer, ConfigurationService configurationService,
                                     SecurityService securityService, AuditServiceInternal auditServiceInternal) {
@@ -110,6 +109,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
         this.studioConfiguration = studioConfiguration;
         this.siteFeedMapper = siteFeedMapper;
         this.siteDao = siteDao;
+        this.siteRegistry = siteRegistry;
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
         this.siteServiceV1 = siteServiceV1;
         this.deployer = deployer;
@@ -215,6 +215,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
             throw new SiteAlreadyExistsException("A site with name " + name + " already exists");
         }
         int updated = retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.updateSite(siteId, name, description));
+        siteRegistry.invalidate(siteId);
         if (updated != 1) {
             throw new SiteNotFoundException();
         }
@@ -223,11 +224,12 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
     @Override
     public void unlockSite(String siteId) {
         retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setSiteState(siteId, SiteFeed.STATE_READY));
+        siteRegistry.invalidate(siteId);
     }
 
     @Override
     public boolean exists(String siteId) {
-        return siteDao.exists(siteId);
+        return siteRegistry.exists(siteId);
     }
 
     @Override
@@ -290,6 +292,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
         tryOperation(() -> {
             logger.debug("Mark the site '{}' as DELETED", siteId);
             retryingDatabaseOperationFacade.retry(() -> siteDao.completeSiteDelete(siteId));
+            siteRegistry.invalidate(siteId);
             insertDeleteSiteAuditLog(siteId, site.getName(), OPERATION_DELETE);
             logger.info("Site '{}' deleted", siteId);
             applicationContext.publishEvent(new SiteDeletedEvent(siteId, site.getSiteUuid()));
@@ -298,7 +301,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
 
     @Override
     public void checkSiteState(final String siteId, final String requiredState) throws InvalidSiteStateException, SiteNotFoundException {
-        SiteFeed site = siteFeedMapper.getSite(Map.of(SITE_ID, siteId));
+        SiteFeed site = siteRegistry.getSite(siteId);
         if (site == null) {
             throw new SiteNotFoundException(format("Site '%s' not found.", siteId));
         }
@@ -393,6 +396,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
             logger.debug("Mark the site '{}' as DELETING", siteId);
             insertDeleteSiteAuditLog(site.getSiteId(), site.getName(), OPERATION_START_DELETE);
             retryingDatabaseOperationFacade.retry(() -> siteDao.startSiteDelete(siteId));
+            siteRegistry.invalidate(siteId);
         }, "Failed to start the site '%s' deletion", siteId, exceptions);
 
         try {
@@ -457,6 +461,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
     @Override
     public void enablePublishing(String siteId, boolean enabled) {
         retryingDatabaseOperationFacade.retry(() -> siteDao.enablePublishing(siteId, enabled));
+        siteRegistry.invalidate(siteId);
     }
 
     @Override
@@ -489,6 +494,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
                 siteServiceV1.enablePublishing(sourceSiteId, false);
             }
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setSiteState(sourceSiteId, SiteFeed.STATE_LOCKED));
+            siteRegistry.invalidate(sourceSiteId);
             readOnlyBlobStores = readOnlyBlobStores && !studioConfiguration.getProperty(SERVERLESS_DELIVERY_ENABLED, Boolean.class, false);
 
             // Copy site repos in disk
@@ -500,6 +506,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
             // Create site in db (site state is INITIALIZING) and copy all db data
             logger.debug("Duplicate site DB data from '{}' to '{}'", sourceSiteId, siteId);
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.duplicate(sourceSiteId, siteId, siteName, description, sandboxBranch, siteUuid));
+            siteRegistry.invalidate(siteId);
 
             // Duplicate site in deployer
             logger.debug("Duplicate site deployer targets from '{}' to '{}'", sourceSiteId, siteId);
@@ -518,6 +525,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
 
             // Set site state to READY
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setSiteState(siteId, SiteFeed.STATE_READY));
+            siteRegistry.invalidate(siteId);
             siteServiceV1.enablePublishing(siteId, true);
             applicationContext.publishEvent(new SiteReadyEvent(siteId, siteUuid));
             logger.info("Site duplicate from '{}' to '{}' - COMPLETE", sourceSiteId, siteId);
@@ -530,6 +538,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
         } finally {
             // Unlock source site
             retryingDatabaseOperationFacade.retry(() -> siteFeedMapper.setSiteState(sourceSiteId, SiteFeed.STATE_READY));
+            siteRegistry.invalidate(sourceSiteId);
             if (publishingEnabled) {
                 siteServiceV1.enablePublishing(sourceSiteId, true);
             }
@@ -549,7 +558,7 @@ public class SitesServiceInternalImpl implements SitesService, ApplicationContex
      * @param siteName     the new site name
      */
     protected void auditSiteDuplicate(final String sourceSiteId, final String siteId, final String siteName) {
-        SiteFeed globalSiteFeed = siteFeedMapper.getSite(Map.of(SITE_ID, studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE)));
+        SiteFeed globalSiteFeed = siteRegistry.getSite(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE));
         AuditLog auditLog = auditServiceInternal.createAuditLogEntry();
         auditLog.setOperation(OPERATION_DUPLICATE);
         auditLog.setSiteId(globalSiteFeed.getId());
@@ -17,6 +17,7 @@
 package org.craftercms.studio.impl.v2.service.workflow;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.craftercms.commons.security.permissions.DefaultPermission;
 import org.craftercms.commons.security.permissions.annotations.HasPermission;
@@ -50,7 +51,6 @@ import org.craftercms.studio.api.v2.service.security.internal.UserServiceInterna
 import org.craftercms.studio.api.v2.service.workflow.WorkflowService;
 import org.craftercms.studio.api.v2.service.workflow.internal.WorkflowServiceInternal;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
-import org.craftercms.studio.model.rest.content.GetChildrenResult;
 import org.craftercms.studio.model.rest.content.SandboxItem;
 import org.craftercms.studio.permissions.CompositePermission;
 import org.slf4j.Logger;
@@ -70,6 +70,7 @@ import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
 import static org.craftercms.studio.api.v2.dal.ItemState.*;
 import static org.craftercms.studio.api.v2.dal.Workflow.STATE_APPROVED;
 import static org.craftercms.studio.api.v2.dal.Workflow.STATE_OPENED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_PUBLISHED_LIVE;
 import static org.craftercms.studio.impl.v2.utils.DateUtils.getCurrentTime;
 import static org.craftercms.studio.permissions.CompositePermissionResolverImpl.PATH_LIST_RESOURCE_ID;
@@ -142,7 +143,6 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
     public List<SandboxItem> getWorkflowAffectedPaths(@SiteId String siteId,
                                                       @ProtectedResourceId(PATH_RESOURCE_ID)
                                                       String path) throws UserNotFoundException, ServiceLayerException {
-        List<String> affectedPaths = new LinkedList<>();
         List<SandboxItem> result = new LinkedList<>();
         List<SandboxItem> sandboxItems = contentServiceInternal.getSandboxItemsByPath(siteId, List.of(path), false);
         if (CollectionUtils.isEmpty(sandboxItems)) {
@@ -151,44 +151,41 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
         }
         SandboxItem sandboxItem = sandboxItems.get(0);
         if (isInWorkflowOrScheduled(sandboxItem.getState())) {
+            Set<String> affectedPaths = new LinkedHashSet<>();
             affectedPaths.add(path);
             boolean isNew = isNew(sandboxItem.getState());
             boolean isRenamed = isNotEmpty(sandboxItem.getPreviousPath());
             if (isNew || isRenamed) {
                 affectedPaths.addAll(getMandatoryDescendants(siteId, path));
             }
-            List<String> dependencyPaths = new LinkedList<>(dependencyServiceInternal.getHardDependencies(siteId, affectedPaths));
-            affectedPaths.addAll(dependencyPaths);
-            List<String> candidates = new LinkedList<>();
-            for (String p : affectedPaths) {
-                if (!candidates.contains(p)) {
-                    candidates.add(p);
-                }
-            }
+            affectedPaths.addAll(dependencyServiceInternal.getHardDependencies(siteId, List.copyOf(affectedPaths)));
 
-            List<SandboxItem> candidateItems = contentServiceInternal.getSandboxItemsByPath(siteId, candidates, true);
-            result = candidateItems.stream().filter(i -> isInWorkflowOrScheduled(i.getState())).collect(toList());
+            // Filter by state using only the item table, the full sandbox items are only needed for the result
+            List<String> candidates = getItemsBySiteAndPaths(siteId, List.copyOf(affectedPaths)).stream()
+                    .filter(i -> isInWorkflowOrScheduled(i.getState()))
+                    .map(Item::getPath)
+                    .collect(toList());
+            if (CollectionUtils.isNotEmpty(candidates)) {
+                result = contentServiceInternal.getSandboxItemsByPath(siteId, candidates, true);
+            }
         }
         return result;
     }
 
-    private List<String> getMandatoryDescendants(String site, String path)
-            throws UserNotFoundException, ServiceLayerException {
-        List<String> descendants = new LinkedList<>();
-        GetChildrenResult result = contentServiceInternal.getChildrenByPath(site, path, null, null, null, null, null,
-                null, 0, Integer.MAX_VALUE);
-        if (result != null) {
-            if (Objects.nonNull(result.getLevelDescriptor())) {
-                descendants.add(result.getLevelDescriptor().getPath());
-            }
-            if (CollectionUtils.isNotEmpty(result.getChildren())) {
-                for (SandboxItem item : result.getChildren()) {
-                    descendants.add(item.getPath());
-                    descendants.addAll(getMandatoryDescendants(site, item.getPath()));
-                }
-            }
+    /**
+     * Get all the items in the subtree of the given path with a single query
+     * (the whole folder for pages, nothing for other files)
+     */
+    private List<String> getMandatoryDescendants(String site, String path) {
+        return itemServiceInternal.getSubtreeForDelete(site, StringUtils.removeEnd(path, FILE_SEPARATOR + INDEX_FILE));
+    }
+
+    private List<Item> getItemsBySiteAndPaths(String siteId, List<String> paths) {
+        List<Item> items = new ArrayList<>(paths.size());
+        for (List<String> batch : ListUtils.partition(paths, getBulkOperationsBatchSize())) {
+            items.addAll(itemServiceInternal.getItemsBySiteAndPaths(siteId, batch));
         }
-        return descendants;
+        return items;
     }
 
     @Override
@@ -247,9 +244,11 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
                                        boolean sendEmailNotifications)
             throws UserNotFoundException, ServiceLayerException {
         User userObj = userServiceInternal.getUserByIdOrUsername(-1, submittedBy);
-        List<Workflow> workflowEntries = new LinkedList<>();
+        Map<String, Item> itemsByPath = new HashMap<>(paths.size());
+        getItemsBySiteAndPaths(siteId, paths).forEach(item -> itemsByPath.put(item.getPath(), item));
+        List<Workflow> workflowEntries = new ArrayList<>(paths.size());
         for (String path : paths) {
-            Item it = itemServiceInternal.getItem(siteId, path);
+            Item it = itemsByPath.get(path);
             if (it == null) {
                 throw new ContentNotFoundException(path, siteId, format("Failed to retrieve item at path '%s' in site '%s'", path, siteId));
             }
@@ -332,7 +331,6 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
         auditLog.setParameters(auditLogParameters);
         auditServiceInternal.insertAuditLog(auditLog);
 
-        // TODO: Can we do a bulk getWorkflowEntries?
         recordActivityForPaths(submittedPaths, siteFeed, user.getId(), OPERATION_REQUEST_PUBLISH);
     }
 
@@ -400,17 +398,13 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
     }
 
     private void recordActivityForPaths(List<String> paths, SiteFeed site, long userId, String operation, String state) {
-        List<WorkflowItem> items = paths.stream()
-                .map(path -> workflowServiceInternal.getWorkflowItem(site.getSiteId(), path, state))
-                .filter(Objects::nonNull) // there is no workflow entry for direct publishes
-                .collect(toList());
+        // there is no workflow entry for direct publishes
+        List<WorkflowItem> items = workflowServiceInternal.getWorkflowItems(site.getSiteId(), paths, state);
         recordActivityForItems(items, site, userId, operation);
     }
 
     private void recordActivityForItems(List<WorkflowItem> items, SiteFeed site, long userId, String operation) {
-        items.forEach(entry ->
-                activityStreamServiceInternal.insertActivity(site.getId(), userId, operation, getCurrentTime(),
-                        entry.getItem(), entry.getPublishingPackageId()));
+        activityStreamServiceInternal.insertActivities(site.getId(), userId, operation, getCurrentTime(), items);
     }
 
     private void createPublishAuditLogEntry(String siteId, List<String> pathsToPublish, String publishedBy)
@@ -546,10 +540,7 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
             Set<String> submitterList = new HashSet<>();
 
             // Fetch the workflow entries before deleting them
-            List<WorkflowItem> workflowItems = pathsToCancelWorkflow.stream()
-                    .map(path -> workflowServiceInternal.getWorkflowEntry(siteId, path))
-                    .filter(Objects::nonNull)
-                    .collect(toList());
+            List<WorkflowItem> workflowItems = workflowServiceInternal.getWorkflowEntries(siteId, pathsToCancelWorkflow);
 
             for (WorkflowItem workflowItem : workflowItems) {
                 shouldNotify = shouldNotify || workflowItem.getNotifySubmitter() == 1;
@@ -678,6 +669,10 @@ public class WorkflowServiceImpl implements WorkflowService, ApplicationContextA
         return deletePackage;
     }
 
+    private int getBulkOperationsBatchSize() {
+        return studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class, 1000);
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
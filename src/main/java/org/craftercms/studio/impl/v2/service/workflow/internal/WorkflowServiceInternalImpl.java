@@ -16,32 +16,55 @@
 
 package org.craftercms.studio.impl.v2.service.workflow.internal;
 
+import org.apache.commons.collections4.ListUtils;
 import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
 import org.craftercms.studio.api.v2.dal.Workflow;
 import org.craftercms.studio.api.v2.dal.WorkflowDAO;
 import org.craftercms.studio.api.v2.dal.WorkflowItem;
 import org.craftercms.studio.api.v2.service.workflow.internal.WorkflowServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.model.rest.dashboard.DashboardPublishingPackage;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.craftercms.studio.api.v2.dal.Workflow.STATE_OPENED;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
 
 public class WorkflowServiceInternalImpl implements WorkflowServiceInternal {
 
     private WorkflowDAO workflowDao;
     private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    private StudioConfiguration studioConfiguration;
 
     @Override
     public WorkflowItem getWorkflowItem(String siteId, String path, String state) {
         return workflowDao.getWorkflowEntryOpened(siteId, path, state);
     }
 
+    @Override
+    public List<WorkflowItem> getWorkflowItems(String siteId, List<String> paths, String state) {
+        Map<String, WorkflowItem> entries = new LinkedHashMap<>(paths.size());
+        for (List<String> batch : ListUtils.partition(paths, getBulkOperationsBatchSize())) {
+            // Keep the first entry for each path, same as the single item lookup
+            workflowDao.getWorkflowEntriesOpened(siteId, batch, state)
+                    .forEach(entry -> entries.putIfAbsent(entry.getItem().getPath(), entry));
+        }
+        return new ArrayList<>(entries.values());
+    }
+
     @Override
     public WorkflowItem getWorkflowEntry(String siteId, String path) {
         return getWorkflowItem(siteId, path, STATE_OPENED);
     }
 
+    @Override
+    public List<WorkflowItem> getWorkflowEntries(String siteId, List<String> paths) {
+        return getWorkflowItems(siteId, paths, STATE_OPENED);
+    }
+
     @Override
     public Workflow getWorkflowEntryForApproval(Long itemId) {
         return workflowDao.getWorkflowEntryForApproval(itemId, STATE_OPENED);
@@ -59,7 +82,9 @@ public class WorkflowServiceInternalImpl implements WorkflowServiceInternal {
 
     @Override
     public void insertWorkflowEntries(List<Workflow> workflowEntries) {
-        retryingDatabaseOperationFacade.retry(() -> workflowDao.insertWorkflowEntries(workflowEntries));
+        for (List<Workflow> batch : ListUtils.partition(workflowEntries, getBulkOperationsBatchSize())) {
+            retryingDatabaseOperationFacade.retry(() -> workflowDao.insertWorkflowEntries(batch));
+        }
     }
 
     @Override
@@ -102,6 +127,10 @@ public class WorkflowServiceInternalImpl implements WorkflowServiceInternal {
         return workflowDao.getContentPendingApprovalDetail(siteId, packageId);
     }
 
+    private int getBulkOperationsBatchSize() {
+        return studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class, 1000);
+    }
+
     public void setWorkflowDao(WorkflowDAO workflowDao) {
         this.workflowDao = workflowDao;
     }
@@ -109,4 +138,8 @@ public class WorkflowServiceInternalImpl implements WorkflowServiceInternal {
     public void setRetryingDatabaseOperationFacade(RetryingDatabaseOperationFacade retryingDatabaseOperationFacade) {
         this.retryingDatabaseOperationFacade = retryingDatabaseOperationFacade;
     }
+
+    public void setStudioConfiguration(StudioConfiguration studioConfiguration) {
+        this.studioConfiguration = studioConfiguration;
+    }
 }
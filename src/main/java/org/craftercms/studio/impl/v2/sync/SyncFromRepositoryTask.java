@@ -16,7 +16,6 @@
 
 package org.craftercms.studio.impl.v2.sync;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -33,10 +32,12 @@ import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
 import org.craftercms.studio.api.v2.service.config.ConfigurationService;
 import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
 import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
+import org.craftercms.studio.api.v2.service.monitor.MetricsProvider;
 import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
 import org.craftercms.studio.api.v2.service.site.SitesService;
 import org.craftercms.studio.api.v2.utils.StudioConfiguration;
 import org.craftercms.studio.api.v2.utils.StudioUtils;
+import org.craftercms.studio.impl.v2.repository.GitGroupCommitter;
 import org.craftercms.studio.impl.v2.utils.DependencyUtils;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
@@ -48,43 +49,51 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.Async;
 
 import java.beans.ConstructorProperties;
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.String.format;
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.nonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.lang3.StringUtils.*;
 import static org.craftercms.studio.api.v1.constant.DmConstants.*;
 import static org.craftercms.studio.api.v1.constant.StudioConstants.*;
 import static org.craftercms.studio.api.v1.constant.StudioXmlConstants.*;
 import static org.craftercms.studio.api.v2.dal.AuditLogConstants.*;
 import static org.craftercms.studio.api.v2.dal.ItemState.*;
-import static org.craftercms.studio.api.v2.utils.SqlStatementGeneratorUtils.*;
+import static org.craftercms.studio.api.v1.service.dependency.DependencyResolver.ResolvedDependency;
 import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_PATH_PATTERNS;
-import static org.craftercms.studio.api.v2.utils.StudioUtils.getStudioTemporaryFilesRoot;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_SYNC_METADATA_MAX_IN_FLIGHT;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.GIT_REPO_USER_USERNAME;
 import static org.craftercms.studio.impl.v1.repository.git.GitContentRepositoryConstants.IGNORE_FILES;
 
 /**
  * Listens to {@link SyncFromRepoEvent} events and performs the sync from repository.
+ * <p>
+ * The metadata of the changed files (label, content type, size, dependencies, ...) is extracted in parallel using
+ * the metadata task executor, while a single thread applies the results to the database in the original order.
+ * </p>
  */
-public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
+public class SyncFromRepositoryTask implements ApplicationEventPublisherAware, MetricsProvider {
 
     private static final Logger logger = LoggerFactory.getLogger(SyncFromRepositoryTask.class);
-    private final static String REPO_OPERATIONS_SCRIPT_PREFIX = "repoOperations_";
-    private final static String UPDATE_PARENT_ID_SCRIPT_PREFIX = "updateParentId_";
 
-    protected StudioDBScriptRunnerFactory studioDBScriptRunnerFactory;
+    private static final long GROUPED_WRITES_LOCK_TIMEOUT_SECONDS = 30;
+
+    protected StudioDBSyncWriterFactory studioDBSyncWriterFactory;
 
     private final SitesService sitesService;
     private final GeneralLockService generalLockService;
@@ -96,24 +105,32 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
     private final ConfigurationService configurationService;
     private final ContentRepository contentRepository;
     private final StudioConfiguration studioConfiguration;
+    private final TaskExecutor metadataTaskExecutor;
     private ApplicationEventPublisher eventPublisher;
+    private GitGroupCommitter groupCommitter;
+
+    private final AtomicLong syncedFiles = new AtomicLong();
+    private final AtomicLong syncTimeMillis = new AtomicLong();
+    private final AtomicInteger metadataQueueDepth = new AtomicInteger();
+    private volatile double lastSyncFilesPerSecond = 0;
 
     @ConstructorProperties({"sitesService", "generalLockService",
             "auditServiceInternal",
-            "studioDBScriptRunnerFactory", "dependencyServiceInternal",
+            "studioDBSyncWriterFactory", "dependencyServiceInternal",
             "userServiceInternal", "itemServiceInternal",
             "contentService", "configurationService",
-            "contentRepository", "studioConfiguration"})
+            "contentRepository", "studioConfiguration", "metadataTaskExecutor"})
     public SyncFromRepositoryTask(SitesService sitesService, GeneralLockService generalLockService,
                                   AuditServiceInternal auditServiceInternal,
-                                  StudioDBScriptRunnerFactory studioDBScriptRunnerFactory, DependencyServiceInternal dependencyServiceInternal,
+                                  StudioDBSyncWriterFactory studioDBSyncWriterFactory, DependencyServiceInternal dependencyServiceInternal,
                                   UserServiceInternal userServiceInternal, ItemServiceInternal itemServiceInternal,
                                   ContentService contentService, ConfigurationService configurationService,
-                                  ContentRepository contentRepository, StudioConfiguration studioConfiguration) {
+                                  ContentRepository contentRepository, StudioConfiguration studioConfiguration,
+                                  TaskExecutor metadataTaskExecutor) {
         this.sitesService = sitesService;
         this.generalLockService = generalLockService;
         this.auditServiceInternal = auditServiceInternal;
-        this.studioDBScriptRunnerFactory = studioDBScriptRunnerFactory;
+        this.studioDBSyncWriterFactory = studioDBSyncWriterFactory;
         this.dependencyServiceInternal = dependencyServiceInternal;
         this.userServiceInternal = userServiceInternal;
         this.itemServiceInternal = itemServiceInternal;
@@ -121,6 +138,7 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
         this.configurationService = configurationService;
         this.contentRepository = contentRepository;
         this.studioConfiguration = studioConfiguration;
+        this.metadataTaskExecutor = metadataTaskExecutor;
     }
 
     @Async
@@ -130,12 +148,13 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
     }
 
     /**
-     * Sync the database with the repository in the given site.
+     * Sync the database with the repository in the given site. Bulk operations that write directly to the
+     * repository call this to have their changes in the database before they finish.
      *
      * @param siteId The site ID.
      * @throws ServiceLayerException If an error occurs while syncing the database with the repository.
      */
-    private void syncRepository(final String siteId) throws ServiceLayerException {
+    public void syncRepository(final String siteId) throws ServiceLayerException {
         logger.debug("Sync the database with the repository in site '{}'", siteId);
 
         Site site = sitesService.getSite(siteId);
@@ -145,6 +164,8 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
             return;
         }
         String syncFromRepoLockKey = StudioUtils.getSyncFromRepoLockKey(siteId);
+        // Writes with group commits don't take the sync lock, wait for the ones in progress to finish
+        boolean writesLocked = lockGroupedWrites(siteId);
         generalLockService.lock(syncFromRepoLockKey);
         try {
             // Get the last commit to be used along the sync process (instead of 'HEAD',
@@ -160,9 +181,10 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
 
             String currentLastProcessedCommit = lastProcessedCommit;
             String lastUnprocessedCommit = null;
+            Set<String> auditedCommits = auditServiceInternal.getAuditedCommits(site.getId(), unprocessedCommits);
             // This loop will iterate throw commits and find commit sequences that are not audited yet
             for (String commitId : unprocessedCommits) {
-                if (auditServiceInternal.isAudited(site.getId(), commitId)) {
+                if (auditedCommits.contains(commitId)) {
                     // If commit is already audited, ingest the changes in between, if any
                     if (lastUnprocessedCommit != null) {
                         ingestChanges(site, currentLastProcessedCommit, lastUnprocessedCommit);
@@ -185,7 +207,29 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
             throw new ServiceLayerException(format("Failed to sync repository for site '%s'", siteId), e);
         } finally {
             generalLockService.unlock(syncFromRepoLockKey);
+            if (writesLocked) {
+                groupCommitter.unlockWrites(siteId);
+            }
+        }
+    }
+
+    /**
+     * Keeps the writes with group commits out of the site during the sync
+     *
+     * @param siteId the site ID
+     * @return true if the writes were locked and need to be unlocked after the sync
+     * @throws ServiceLayerException if the writes in progress don't finish in time, the sync is aborted and the
+     *                               commits are left for the next one
+     */
+    private boolean lockGroupedWrites(final String siteId) throws ServiceLayerException {
+        if (groupCommitter == null || !groupCommitter.isEnabled()) {
+            return false;
+        }
+        if (groupCommitter.lockWrites(siteId, GROUPED_WRITES_LOCK_TIMEOUT_SECONDS, SECONDS)) {
+            return true;
         }
+        throw new ServiceLayerException(format("Timed out waiting for the writes in progress in site '%s', " +
+                "the sync has been aborted", siteId));
     }
 
     private void updateLastCommitId(String siteId, String commitId) {
@@ -262,33 +306,23 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
      *
      * @param site                The site being synced
      * @param repoOperationsDelta The repo operations to apply
+     * @throws ServiceLayerException if the changes could not be written, in which case none of them are applied
      */
-    private void syncDatabaseWithRepo(Site site, List<RepoOperation> repoOperationsDelta) throws IOException, UserNotFoundException, ServiceLayerException {
-        StudioDBScriptRunner studioDBScriptRunner = studioDBScriptRunnerFactory.getDBScriptRunner();
-        Path repoOperationsScriptPath = null;
-        Path updateParentIdScriptPath = null;
-        try {
-            Path studioTempDir = getStudioTemporaryFilesRoot();
-            String repoOperationsScriptFilename = REPO_OPERATIONS_SCRIPT_PREFIX + UUID.randomUUID();
-            repoOperationsScriptPath = Files.createTempFile(studioTempDir, repoOperationsScriptFilename, SQL_SCRIPT_SUFFIX);
-            String updateParentIdScriptFilename = UPDATE_PARENT_ID_SCRIPT_PREFIX + UUID.randomUUID();
-            updateParentIdScriptPath = Files.createTempFile(studioTempDir, updateParentIdScriptFilename, SQL_SCRIPT_SUFFIX);
-            processRepoOperations(site, repoOperationsDelta, repoOperationsScriptPath,
-                    updateParentIdScriptPath);
-            studioDBScriptRunner.execute(repoOperationsScriptPath.toFile());
-            studioDBScriptRunner.execute(updateParentIdScriptPath.toFile());
-        } catch (IOException e) {
-            logger.error("Failed to create the database script for processing the created files in site '{}'", site);
-            throw e;
-        } finally {
-            if (repoOperationsScriptPath != null) {
-                logger.debug("Deleting temporary file '{}'", repoOperationsScriptPath);
-                FileUtils.deleteQuietly(repoOperationsScriptPath.toFile());
-            }
-            if (updateParentIdScriptPath != null) {
-                logger.debug("Deleting temporary file '{}'", updateParentIdScriptPath);
-                FileUtils.deleteQuietly(updateParentIdScriptPath.toFile());
+    private void syncDatabaseWithRepo(Site site, List<RepoOperation> repoOperationsDelta) throws UserNotFoundException, ServiceLayerException {
+        try (StudioDBSyncWriter writer = dependencyServiceInternal.trackDependencyChanges(
+                studioDBSyncWriterFactory.getDBSyncWriter())) {
+            try {
+                processRepoOperations(site, repoOperationsDelta, writer);
+                writer.commit();
+            } catch (SQLException e) {
+                writer.rollback();
+                // The commits must not be marked as synced, the next sync will process them again
+                throw new ServiceLayerException(format("Failed to sync the database with the repository in site '%s'",
+                        site.getSiteId()), e);
             }
+        } catch (SQLException e) {
+            throw new ServiceLayerException(format("Failed to open a connection to the DB to sync site '%s'",
+                    site.getSiteId()), e);
         }
     }
 
@@ -328,32 +362,98 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
     }
 
     /**
-     * Processes the given repo operations and generates the database script to apply them
+     * Processes the given repo operations and sends the resulting database changes to the sync writer.
+     * The metadata for upcoming operations is extracted in parallel, bounded by
+     * {@value StudioConfiguration#REPO_SYNC_METADATA_MAX_IN_FLIGHT}, while operations are applied in order.
      *
-     * @param site                     The site being synced
-     * @param repoOperations           The repo operations to apply
-     * @param repoOperationsScriptPath The path to the generated database script
-     * @param updateParentIdScriptPath The path to the generated database script
-     * @throws IOException if an error occurs while generating the database script
+     * @param site           The site being synced
+     * @param repoOperations The repo operations to apply
+     * @param writer         The writer for the database changes
+     * @throws SQLException if an error occurs while executing the database changes
      */
-    private void processRepoOperations(Site site, List<RepoOperation> repoOperations,
-                                       Path repoOperationsScriptPath, Path updateParentIdScriptPath) throws IOException, UserNotFoundException, ServiceLayerException {
+    private void processRepoOperations(Site site, List<RepoOperation> repoOperations, StudioDBSyncWriter writer)
+            throws SQLException, UserNotFoundException, ServiceLayerException {
         Map<String, User> cachedUsers = new HashMap<>();
-        for (RepoOperation repoOperation : repoOperations) {
-            User user = getRepoOperationUser(repoOperation.getAuthor(), cachedUsers);
-            switch (repoOperation.getAction()) {
-                case CREATE, COPY ->
-                        processCreate(site, repoOperation, user, repoOperationsScriptPath, updateParentIdScriptPath);
-                case UPDATE -> processUpdate(site, repoOperation, user, repoOperationsScriptPath);
-                case DELETE -> processDelete(site, repoOperation, repoOperationsScriptPath);
-                case MOVE -> processMove(site, repoOperation, user, repoOperationsScriptPath, updateParentIdScriptPath);
-                default -> logger.error("Failed to process unknown repo operation '{}' in site '{}'",
-                        site.getSiteId(), repoOperation.getAction());
+        // Deletes are always processed first, so once an ancestor is inserted it will not be removed by this sync
+        Set<String> processedAncestors = new HashSet<>();
+        int maxInFlight = Math.max(1, studioConfiguration.getProperty(REPO_SYNC_METADATA_MAX_IN_FLIGHT, Integer.class, 1));
+        Deque<PendingOperation> pendingOperations = new ArrayDeque<>(maxInFlight);
+        Iterator<RepoOperation> iterator = repoOperations.iterator();
+        long start = System.currentTimeMillis();
+        // The metadata of later operations can be extracted before the earlier ones are applied, so the configuration
+        // changed by this batch must not be read from the cache
+        invalidateConfigurationCacheIfRequired(site.getSiteId(), repoOperations);
+        try {
+            while (iterator.hasNext() || !pendingOperations.isEmpty()) {
+                while (iterator.hasNext() && pendingOperations.size() < maxInFlight) {
+                    pendingOperations.add(extractMetadataAsync(site.getSiteId(), iterator.next()));
+                }
+                metadataQueueDepth.set(pendingOperations.size());
+                PendingOperation pendingOperation = pendingOperations.poll();
+                RepoOperation repoOperation = pendingOperation.repoOperation();
+                ItemMetadata metadata = pendingOperation.getMetadata();
+                User user = getRepoOperationUser(repoOperation.getAuthor(), cachedUsers);
+                switch (repoOperation.getAction()) {
+                    case CREATE, COPY -> processCreate(site, repoOperation, metadata, user, processedAncestors, writer);
+                    case UPDATE -> processUpdate(site, repoOperation, metadata, user, writer);
+                    case DELETE -> processDelete(site, repoOperation, writer);
+                    case MOVE -> processMove(site, repoOperation, metadata, user, processedAncestors, writer);
+                    default -> logger.error("Failed to process unknown repo operation '{}' in site '{}'",
+                            site.getSiteId(), repoOperation.getAction());
+                }
+                invalidateConfigurationCacheIfRequired(site.getSiteId(), repoOperation.getPath());
             }
-            invalidateConfigurationCacheIfRequired(site.getSiteId(), repoOperation.getPath());
+        } finally {
+            pendingOperations.forEach(pendingOperation -> pendingOperation.metadata().cancel(false));
+            metadataQueueDepth.set(0);
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            syncedFiles.addAndGet(repoOperations.size());
+            syncTimeMillis.addAndGet(elapsed);
+            lastSyncFilesPerSecond = repoOperations.size() * 1000.0 / elapsed;
+            logger.debug("Processed '{}' repo operations in site '{}' in '{}' ms",
+                    repoOperations.size(), site.getSiteId(), elapsed);
         }
     }
 
+    /**
+     * Starts the metadata extraction for the given operation in the metadata task executor
+     *
+     * @param siteId        The site id
+     * @param repoOperation The repo operation
+     * @return the pending operation
+     */
+    private PendingOperation extractMetadataAsync(String siteId, RepoOperation repoOperation) {
+        if (repoOperation.getAction() == RepoOperation.Action.DELETE) {
+            return new PendingOperation(repoOperation, CompletableFuture.completedFuture(null));
+        }
+        return new PendingOperation(repoOperation,
+                CompletableFuture.supplyAsync(() -> extractMetadata(siteId, repoOperation), metadataTaskExecutor));
+    }
+
+    /**
+     * Extracts all the metadata required to apply the given operation
+     *
+     * @param siteId        The site id
+     * @param repoOperation The repo operation
+     * @return the item metadata
+     */
+    private ItemMetadata extractMetadata(String siteId, RepoOperation repoOperation) {
+        String path = repoOperation.getPath();
+        String metadataPath = repoOperation.getAction() == RepoOperation.Action.MOVE ?
+                repoOperation.getMoveToPath() : path;
+        ItemMetadata metadata = getItemMetadata(siteId, metadataPath);
+        if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(path)) ||
+                ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(metadataPath))) {
+            return metadata;
+        }
+        metadata.systemType = contentService.getContentTypeClass(siteId, path);
+        metadata.mimeType = StudioUtils.getMimeType(FilenameUtils.getName(path));
+        metadata.size = contentRepository.getContentSize(siteId, path);
+        logger.debug("Extract dependencies from site '{}' path '{}'", siteId, metadataPath);
+        metadata.dependencies = dependencyServiceInternal.resolveDependencies(siteId, metadataPath);
+        return metadata;
+    }
+
     /**
      * Gets the item metadata for the given site and path when the item is an XML file.
      * When the file is not an XML, metadata is not extracted from the item file
@@ -390,46 +490,34 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
         return result;
     }
 
-    private void processCreate(Site site, RepoOperation repoOperation, User user,
-                               Path repoOperationsScriptPath, Path updateParentIdScriptPath) throws IOException, ServiceLayerException {
-
-        ItemMetadata metadata = getItemMetadata(site.getSiteId(), repoOperation.getPath());
+    private void processCreate(Site site, RepoOperation repoOperation, ItemMetadata metadata, User user,
+                               Set<String> processedAncestors, StudioDBSyncWriter writer) throws SQLException {
         processAncestors(site.getId(), repoOperation.getPath(), user.getId(),
-                repoOperation.getDateTime(), repoOperationsScriptPath);
+                repoOperation.getDateTime(), processedAncestors, writer);
         long state = NEW.value;
         if (metadata.disabled) {
             state = state | DISABLED.value;
         }
 
         if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
-            addUpdateParentIdScriptSnippets(site.getId(), repoOperation.getPath(),
-                    updateParentIdScriptPath);
+            addUpdateParentIdStatements(site.getId(), repoOperation.getPath(), writer);
         } else {
-            Files.write(repoOperationsScriptPath, insertItemRow(site.getId(),
+            writer.insertItem(site.getId(),
                     repoOperation.getPath(), metadata.previewUrl, state, null, user.getId(),
                     repoOperation.getDateTime(), user.getId(), repoOperation.getDateTime(),
-                    null, metadata.label, metadata.contentTypeId,
-                    contentService.getContentTypeClass(site.getSiteId(), repoOperation.getPath()),
-                    StudioUtils.getMimeType(FilenameUtils.getName(repoOperation.getPath())),
-                    Locale.US.toString(), null,
-                    contentRepository.getContentSize(site.getSiteId(), repoOperation.getPath()), null,
-                    null).getBytes(UTF_8), StandardOpenOption.APPEND);
-            Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-            logger.debug("Extract dependencies from site '{}' path '{}'",
-                    site.getSiteId(), repoOperation.getPath());
-            addUpdateParentIdScriptSnippets(site.getId(), repoOperation.getPath(),
-                    updateParentIdScriptPath);
-            DependencyUtils.addDependenciesScriptSnippets(site.getSiteId(), repoOperation.getPath(), null,
-                    repoOperationsScriptPath, dependencyServiceInternal);
+                    null, metadata.label, metadata.contentTypeId, metadata.systemType, metadata.mimeType,
+                    Locale.US.toString(), null, metadata.size, null, null);
+            addUpdateParentIdStatements(site.getId(), repoOperation.getPath(), writer);
+            DependencyUtils.addDependencies(site.getSiteId(), repoOperation.getPath(), null,
+                    metadata.dependencies, writer);
         }
     }
 
-    private void processUpdate(Site site, RepoOperation repoOperation, User user,
-                               Path repoOperationsScriptPath) throws IOException, ServiceLayerException {
+    private void processUpdate(Site site, RepoOperation repoOperation, ItemMetadata metadata, User user,
+                               StudioDBSyncWriter writer) throws SQLException {
         if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath()))) {
             return;
         }
-        ItemMetadata metadata = getItemMetadata(site.getSiteId(), repoOperation.getPath());
         long onStateBitMap = SAVE_AND_CLOSE_ON_MASK;
         long offStateBitmap = SAVE_AND_CLOSE_OFF_MASK;
         if (metadata.disabled) {
@@ -438,25 +526,18 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
             offStateBitmap = offStateBitmap | DISABLED.value;
         }
 
-        Files.write(repoOperationsScriptPath, updateItemRow(site.getId(),
+        writer.updateItem(site.getId(),
                 repoOperation.getPath(), metadata.previewUrl, onStateBitMap, offStateBitmap, user.getId(),
-                repoOperation.getDateTime(), metadata.label, metadata.contentTypeId,
-                contentService.getContentTypeClass(site.getSiteId(), repoOperation.getPath()),
-                StudioUtils.getMimeType(FilenameUtils.getName(repoOperation.getPath())),
-                contentRepository.getContentSize(site.getSiteId(), repoOperation.getPath())).getBytes(UTF_8), StandardOpenOption.APPEND);
-        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-        logger.debug("Extract dependencies from site '{}' path '{}'",
-                site.getSiteId(), repoOperation.getPath());
-        DependencyUtils.addDependenciesScriptSnippets(site.getSiteId(), repoOperation.getPath(), null,
-                repoOperationsScriptPath, dependencyServiceInternal);
+                repoOperation.getDateTime(), metadata.label, metadata.contentTypeId, metadata.systemType,
+                metadata.mimeType, metadata.size);
+        DependencyUtils.addDependencies(site.getSiteId(), repoOperation.getPath(), null,
+                metadata.dependencies, writer);
     }
 
-    private void processMove(Site site, RepoOperation repoOperation, User user,
-                             Path repoOperationsScriptPath, Path updateParentIdScriptPath) throws IOException, ServiceLayerException {
-
-        ItemMetadata metadata = getItemMetadata(site.getSiteId(), repoOperation.getMoveToPath());
+    private void processMove(Site site, RepoOperation repoOperation, ItemMetadata metadata, User user,
+                             Set<String> processedAncestors, StudioDBSyncWriter writer) throws SQLException {
         processAncestors(site.getId(), repoOperation.getMoveToPath(), user.getId(),
-                repoOperation.getDateTime(), repoOperationsScriptPath);
+                repoOperation.getDateTime(), processedAncestors, writer);
         long onStateBitMap = SAVE_AND_CLOSE_ON_MASK;
         long offStateBitmap = SAVE_AND_CLOSE_OFF_MASK;
         if (metadata.disabled) {
@@ -466,52 +547,55 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
         }
         if (ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getPath())) ||
                 ArrayUtils.contains(IGNORE_FILES, FilenameUtils.getName(repoOperation.getMoveToPath()))) {
-            addUpdateParentIdScriptSnippets(site.getId(), repoOperation.getMoveToPath(),
-                    updateParentIdScriptPath);
+            addUpdateParentIdStatements(site.getId(), repoOperation.getMoveToPath(), writer);
         } else {
-            Files.write(repoOperationsScriptPath, moveItemRow(site.getSiteId(), repoOperation.getPath(),
-                            repoOperation.getMoveToPath(), onStateBitMap, offStateBitmap).getBytes(UTF_8),
-                    StandardOpenOption.APPEND);
-            Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-            Files.write(repoOperationsScriptPath, updateItemRow(site.getId(),
+            writer.moveItem(site.getId(), repoOperation.getPath(),
+                    repoOperation.getMoveToPath(), onStateBitMap, offStateBitmap);
+            writer.updateItem(site.getId(),
                     repoOperation.getPath(), metadata.previewUrl, onStateBitMap, offStateBitmap, user.getId(),
-                    repoOperation.getDateTime(), metadata.label, metadata.contentTypeId,
-                    contentService.getContentTypeClass(site.getSiteId(), repoOperation.getPath()),
-                    StudioUtils.getMimeType(FilenameUtils.getName(repoOperation.getPath())),
-                    contentRepository.getContentSize(site.getSiteId(), repoOperation.getPath()))
-                    .getBytes(UTF_8), StandardOpenOption.APPEND);
-            Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-            addUpdateParentIdScriptSnippets(site.getId(), repoOperation.getMoveToPath(), updateParentIdScriptPath);
-            DependencyUtils.addDependenciesScriptSnippets(site.getSiteId(), repoOperation.getMoveToPath(),
-                    repoOperation.getPath(), repoOperationsScriptPath, dependencyServiceInternal);
+                    repoOperation.getDateTime(), metadata.label, metadata.contentTypeId, metadata.systemType,
+                    metadata.mimeType, metadata.size);
+            addUpdateParentIdStatements(site.getId(), repoOperation.getMoveToPath(), writer);
+            DependencyUtils.addDependencies(site.getSiteId(), repoOperation.getMoveToPath(),
+                    repoOperation.getPath(), metadata.dependencies, writer);
         }
         invalidateConfigurationCacheIfRequired(site.getSiteId(), repoOperation.getMoveToPath());
     }
 
-    private void processDelete(Site site, RepoOperation repoOperation, Path repoOperationsScriptPath) throws IOException {
+    private void processDelete(Site site, RepoOperation repoOperation, StudioDBSyncWriter writer) throws SQLException {
         String folder = FILE_SEPARATOR + FilenameUtils.getPathNoEndSeparator(repoOperation.getPath());
         boolean folderExists = contentRepository.contentExists(site.getSiteId(), folder);
 
         // If the folder exists and the deleted file is the index file, then we need to update the parent id for the children
         if (folderExists && startsWith(repoOperation.getPath(), ROOT_PATTERN_PAGES) &&
                 endsWith(repoOperation.getPath(), SLASH_INDEX_FILE)) {
-            Files.write(repoOperationsScriptPath,
-                    updateDeletedPageChildren(site.getId(), folder).getBytes(UTF_8), StandardOpenOption.APPEND);
+            writer.updateDeletedPageChildren(site.getId(), folder);
         }
 
-        Files.write(repoOperationsScriptPath,
-                deleteItemRow(site.getId(), repoOperation.getPath()).getBytes(UTF_8),
-                StandardOpenOption.APPEND);
+        writer.deleteItem(site.getId(), repoOperation.getPath());
         if (!folderExists) {
-            Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-            Files.write(repoOperationsScriptPath,
-                    deleteItemRow(site.getId(), folder).getBytes(UTF_8), StandardOpenOption.APPEND);
+            writer.deleteItem(site.getId(), folder);
+        }
+        writer.deleteDependencies(site.getSiteId(), repoOperation.getPath());
+    }
+
+    /**
+     * Invalidates the cached configuration for all the paths changed by the given repo operations
+     *
+     * @param siteId         The site id
+     * @param repoOperations The repo operations
+     */
+    protected void invalidateConfigurationCacheIfRequired(String siteId, List<RepoOperation> repoOperations) {
+        String[] configurationPatterns = studioConfiguration.getArray(CONFIGURATION_PATH_PATTERNS, String.class);
+        for (RepoOperation repoOperation : repoOperations) {
+            if (RegexUtils.matchesAny(repoOperation.getPath(), configurationPatterns)) {
+                configurationService.invalidateConfiguration(siteId, repoOperation.getPath());
+            }
+            if (repoOperation.getAction() == RepoOperation.Action.MOVE &&
+                    RegexUtils.matchesAny(repoOperation.getMoveToPath(), configurationPatterns)) {
+                configurationService.invalidateConfiguration(siteId, repoOperation.getMoveToPath());
+            }
         }
-        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
-        Files.write(repoOperationsScriptPath,
-                deleteDependencyRows(site.getSiteId(), repoOperation.getPath()).getBytes(UTF_8),
-                StandardOpenOption.APPEND);
-        Files.write(repoOperationsScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
     }
 
     protected void invalidateConfigurationCacheIfRequired(String siteId, String path) {
@@ -522,17 +606,18 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
     }
 
     /**
-     * Add the script snippets to insert the parents of the given path.
+     * Add the statements to insert the parents of the given path.
      *
-     * @param siteId               The site id
-     * @param path                 The path
-     * @param userId               The user id
-     * @param now                  The current date time
-     * @param createFileScriptPath The path to the script file
-     * @throws IOException If an error occurs
+     * @param siteId             The site id
+     * @param path               The path
+     * @param userId             The user id
+     * @param now                The current date time
+     * @param processedAncestors The ancestors already inserted during this sync
+     * @param writer             The sync writer
+     * @throws SQLException If an error occurs
      */
     private void processAncestors(long siteId, String path, long userId, ZonedDateTime now,
-                                  Path createFileScriptPath) throws IOException {
+                                  Set<String> processedAncestors, StudioDBSyncWriter writer) throws SQLException {
         Path p = Paths.get(path);
         if (!nonNull(p.getParent())) {
             return;
@@ -544,43 +629,57 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
         for (Path ancestor : parts) {
             if (isNotEmpty(ancestor.toString())) {
                 currentPath = currentPath + FILE_SEPARATOR + ancestor;
-                Files.write(createFileScriptPath, insertItemRow(siteId, currentPath, null, NEW.value, null, userId
-                                , now, userId, now, null, ancestor.toString(), null, CONTENT_TYPE_FOLDER, null,
-                                Locale.US.toString(), null, 0L, null, null).getBytes(UTF_8),
-                        StandardOpenOption.APPEND);
-                Files.write(createFileScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+                if (processedAncestors.add(currentPath)) {
+                    writer.insertItem(siteId, currentPath, null, NEW.value, null, userId,
+                            now, userId, now, null, ancestor.toString(), null, CONTENT_TYPE_FOLDER, null,
+                            Locale.US.toString(), null, 0L, null, null);
+                }
             }
         }
     }
 
     /**
-     * Adds a path to the 'update parent id' script.
+     * Adds the parent id update for a path.
      * It will also add the parent paths recursively.
      * TODO: JM: try to remove recursion
      *
-     * @param siteId                   the site id
-     * @param path                     the path
-     * @param updateParentIdScriptPath the update parent id script path
-     * @throws IOException if an error occurs while updating the script
+     * @param siteId the site id
+     * @param path   the path
+     * @param writer the sync writer
+     * @throws SQLException if an error occurs while queueing the statements
      */
-    private void addUpdateParentIdScriptSnippets(long siteId, String path, Path updateParentIdScriptPath) throws IOException {
+    private void addUpdateParentIdStatements(long siteId, String path, StudioDBSyncWriter writer) throws SQLException {
         String parentPath = FilenameUtils.getPrefix(path) +
                 FilenameUtils.getPathNoEndSeparator(replace(path, SLASH_INDEX_FILE, ""));
         if (isEmpty(parentPath) || StringUtils.equals(parentPath, path)) {
             return;
         }
-        addUpdateParentIdScriptSnippets(siteId, parentPath, updateParentIdScriptPath);
+        addUpdateParentIdStatements(siteId, parentPath, writer);
         if (endsWith(path, SLASH_INDEX_FILE)) {
-            addUpdateParentIdScriptSnippets(siteId, replace(path,
-                    "/index.xml", ""), updateParentIdScriptPath);
+            addUpdateParentIdStatements(siteId, replace(path,
+                    "/index.xml", ""), writer);
             if (startsWith(path, ROOT_PATTERN_PAGES)) {
-                Files.write(updateParentIdScriptPath, updateNewPageChildren(siteId, path).getBytes(UTF_8),
-                        StandardOpenOption.APPEND);
+                writer.updateNewPageChildren(siteId, path);
             }
         }
-        Files.write(updateParentIdScriptPath, updateParentId(siteId, path, parentPath).getBytes(UTF_8),
-                StandardOpenOption.APPEND);
-        Files.write(updateParentIdScriptPath, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+        writer.updateParentId(siteId, path, parentPath);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "syncFromRepository";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        long files = syncedFiles.get();
+        long time = syncTimeMillis.get();
+        return Map.of(
+                "syncedFiles", files,
+                "syncTimeMillis", time,
+                "averageFilesPerSecond", time > 0 ? files * 1000.0 / time : 0,
+                "lastSyncFilesPerSecond", lastSyncFilesPerSecond,
+                "metadataQueueDepth", metadataQueueDepth.get());
     }
 
     @Override
@@ -588,6 +687,10 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
         this.eventPublisher = applicationEventPublisher;
     }
 
+    public void setGroupCommitter(final GitGroupCommitter groupCommitter) {
+        this.groupCommitter = groupCommitter;
+    }
+
     /**
      * Convenience class to store item metadata, so we can load the content item only once.
      */
@@ -596,9 +699,31 @@ public class SyncFromRepositoryTask implements ApplicationEventPublisherAware {
         String label;
         String contentTypeId = EMPTY;
         boolean disabled = false;
+        String systemType;
+        String mimeType;
+        long size;
+        Map<String, Set<ResolvedDependency>> dependencies;
 
         public ItemMetadata(final String path) {
             label = FilenameUtils.getName(path);
         }
     }
+
+    /**
+     * Repo operation waiting for its metadata to be extracted
+     */
+    private record PendingOperation(RepoOperation repoOperation, CompletableFuture<ItemMetadata> metadata) {
+
+        ItemMetadata getMetadata() throws ServiceLayerException {
+            try {
+                return metadata.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceLayerException("Interrupted while extracting the metadata for " +
+                        repoOperation.getPath(), e);
+            } catch (ExecutionException e) {
+                throw new ServiceLayerException("Failed to extract the metadata for " + repoOperation.getPath(), e);
+            }
+        }
+    }
 }
@@ -19,12 +19,14 @@ package org.craftercms.studio.impl.v2.utils;
 import org.apache.commons.collections4.MapUtils;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.service.dependency.DependencyResolver.ResolvedDependency;
+import org.craftercms.studio.api.v2.dal.StudioDBSyncWriter;
 import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
 import java.util.Map;
 import java.util.Set;
 
@@ -76,4 +78,38 @@ public class DependencyUtils {
             }
         }
     }
+
+    /**
+     * Add the statements to update the dependencies for the given path
+     *
+     * @param siteId       the site id
+     * @param path         the content item path
+     * @param oldPath      the content item old path
+     * @param dependencies the resolved dependencies of the content item
+     * @param writer       the sync writer
+     * @throws SQLException if an error occurs while executing the statements
+     */
+    public static void addDependencies(String siteId, String path, String oldPath,
+                                       Map<String, Set<ResolvedDependency>> dependencies, StudioDBSyncWriter writer)
+            throws SQLException {
+        if (isEmpty(oldPath)) {
+            writer.deleteDependencySourcePath(siteId, path);
+        } else {
+            writer.deleteDependencySourcePath(siteId, oldPath);
+            // Invalidate existing dependencies pointing to the old item path
+            writer.setDependenciesValid(siteId, oldPath, false);
+        }
+
+        // Validate existing broken dependencies pointing to the item path
+        writer.setDependenciesValid(siteId, path, true);
+
+        if (MapUtils.isEmpty(dependencies)) {
+            return;
+        }
+        for (Map.Entry<String, Set<ResolvedDependency>> entry : dependencies.entrySet()) {
+            for (ResolvedDependency dependency : entry.getValue()) {
+                writer.insertDependency(siteId, path, dependency.path(), entry.getKey(), dependency.valid());
+            }
+        }
+    }
 }
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * Runs external processes. The output and error streams of a process are drained while it runs, so it can't block
+ * on a full pipe, and the process (with any child it started) is destroyed if it doesn't exit before the timeout.
+ */
+public class ProcessRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessRunner.class);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // Threads used to drain the process streams, only alive while there are processes running
+    private static final AtomicInteger ioThreadCount = new AtomicInteger();
+    private static final ExecutorService ioExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "processIO-" + ioThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int timeoutSecs;
+    private final int destroyTimeoutSecs;
+    private final int maxErrorOutputBytes;
+
+    /**
+     * @param timeoutSecs         the max number of seconds to wait for a process to exit
+     * @param destroyTimeoutSecs  the max number of seconds to wait for a destroyed process to exit, and for the
+     *                            streams of a process that exited to be read
+     * @param maxErrorOutputBytes the max number of bytes of the error output that are kept
+     */
+    public ProcessRunner(int timeoutSecs, int destroyTimeoutSecs, int maxErrorOutputBytes) {
+        this.timeoutSecs = timeoutSecs;
+        this.destroyTimeoutSecs = destroyTimeoutSecs;
+        this.maxErrorOutputBytes = maxErrorOutputBytes;
+    }
+
+    /**
+     * Starts the process and waits for it to exit
+     *
+     * @param processBuilder the process to start
+     * @param inputWriter    writes the standard input of the process, null if nothing is sent to it
+     * @param outputParser   parses the standard output of the process as it is produced, any output that it doesn't
+     *                       read is discarded
+     * @return the exit value and outputs of the process
+     * @throws ProcessTimeoutException if the process didn't exit before the timeout, it has been destroyed
+     * @throws IOException             if the process can't be started or its output can't be read
+     */
+    public <T> ProcessResult<T> run(ProcessBuilder processBuilder, InputWriter inputWriter,
+                                    OutputParser<T> outputParser) throws IOException, InterruptedException {
+        List<String> commandLine = processBuilder.command();
+        Process process = processBuilder.start();
+        try {
+            CompletableFuture<T> output = CompletableFuture.supplyAsync(
+                    () -> parseOutput(process, outputParser), ioExecutor);
+            CompletableFuture<String> errorOutput = CompletableFuture.supplyAsync(
+                    () -> readErrorOutput(process), ioExecutor);
+            CompletableFuture<Void> input = CompletableFuture.runAsync(
+                    () -> writeInput(process, inputWriter), ioExecutor);
+
+            if (!process.waitFor(timeoutSecs, TimeUnit.SECONDS)) {
+                destroy(process);
+                throw new ProcessTimeoutException(format("Timeout while waiting for command '%s' to exit",
+                        commandLine), errorOutput.getNow(StringUtils.EMPTY));
+            }
+
+            String stdError = getStreamResult(errorOutput);
+            T result = getStreamResult(output);
+            getStreamResult(input);
+
+            return new ProcessResult<>(process.exitValue(), result, stdError);
+        } finally {
+            if (process.isAlive()) {
+                destroy(process);
+            }
+        }
+    }
+
+    /**
+     * Reads the whole stream, keeping only the first bytes
+     *
+     * @param in       the stream
+     * @param maxBytes the max number of bytes kept
+     * @return the kept bytes as a string in the default charset
+     */
+    public static String readOutput(InputStream in, int maxBytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            int kept = Math.min(read, maxBytes - output.size());
+            if (kept > 0) {
+                output.write(buffer, 0, kept);
+            }
+        }
+        return output.toString(Charset.defaultCharset());
+    }
+
+    private <T> T parseOutput(Process process, OutputParser<T> outputParser) {
+        try (InputStream in = process.getInputStream()) {
+            try {
+                return outputParser.parse(in);
+            } finally {
+                // Discard whatever the parser didn't need, so the process can finish
+                in.transferTo(OutputStream.nullOutputStream());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String readErrorOutput(Process process) {
+        try (InputStream in = process.getErrorStream()) {
+            return readOutput(in, maxErrorOutputBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void writeInput(Process process, InputWriter inputWriter) {
+        try (OutputStream out = process.getOutputStream()) {
+            if (inputWriter != null) {
+                inputWriter.write(out);
+            }
+        } catch (IOException e) {
+            // The process exited without reading the whole input, its exit value tells what happened
+            logger.debug("Failed to write the input of the process with PID '{}'", process.pid(), e);
+        }
+    }
+
+    private <T> T getStreamResult(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            // The streams are closed once the process exits, this should not wait for long
+            return future.get(destroyTimeoutSecs, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof IllegalStateException && e.getCause().getCause() != null ?
+                    e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to read the output of the process", cause);
+        } catch (TimeoutException e) {
+            throw new IOException("Timeout while reading the output of the process", e);
+        }
+    }
+
+    /**
+     * Destroys the process and any process started by it. It waits for the process to exit, and destroys it forcibly
+     * if it doesn't exit in time.
+     *
+     * @param process the process
+     */
+    protected void destroy(Process process) {
+        try {
+            logger.debug("Destroying process with PID '{}'", process.pid());
+            // Children that are still running would keep the pipes open
+            List<ProcessHandle> descendants = process.descendants().toList();
+            descendants.forEach(ProcessHandle::destroy);
+            process.destroy();
+            if (!process.waitFor(destroyTimeoutSecs, TimeUnit.SECONDS)) {
+                logger.warn("Process with PID '{}' did not exit after '{}' seconds, destroying it", process.pid(),
+                        destroyTimeoutSecs);
+                process.destroyForcibly();
+                process.waitFor();
+                logger.debug("Process with PID '{}' destroyed", process.pid());
+            }
+            descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for process with PID '{}' to exit", process.pid(), e);
+        }
+    }
+
+    /**
+     * Exit value and outputs of a process
+     *
+     * @param exitValue   the exit value
+     * @param output      the result of the output parser
+     * @param errorOutput the first bytes of the error output
+     */
+    public record ProcessResult<T>(int exitValue, T output, String errorOutput) {
+    }
+
+    /**
+     * Parses the standard output of a process while it runs
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface OutputParser<T> {
+
+        T parse(InputStream in) throws IOException;
+
+    }
+
+    /**
+     * Writes the standard input of a process, the stream is closed afterwards
+     */
+    @FunctionalInterface
+    public interface InputWriter {
+
+        void write(OutputStream out) throws IOException;
+
+    }
+
+    /**
+     * Thrown when a process doesn't exit before the timeout
+     */
+    public static class ProcessTimeoutException extends IOException {
+
+        private final String errorOutput;
+
+        public ProcessTimeoutException(String message, String errorOutput) {
+            super(message);
+            this.errorOutput = errorOutput;
+        }
+
+        /**
+         * @return the error output produced before the process was destroyed
+         */
+        public String getErrorOutput() {
+            return errorOutput;
+        }
+
+    }
+
+}
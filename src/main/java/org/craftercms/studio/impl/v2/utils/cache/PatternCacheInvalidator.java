@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import org.craftercms.studio.api.v2.utils.cache.CacheInvalidator;
 
 import java.beans.ConstructorProperties;
+import java.util.Collection;
 
 import static java.util.function.Predicate.not;
 import static java.util.stream.Collectors.toList;
@@ -51,6 +52,7 @@ public class PatternCacheInvalidator<K extends String, V> implements CacheInvali
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void invalidate(Cache<K, V> cache, K key) {
         var tokens = key.split(":");
         var siteId = tokens.length > 1? tokens[0] : null;
@@ -60,10 +62,18 @@ public class PatternCacheInvalidator<K extends String, V> implements CacheInvali
         }
 
         logger.debug("Look for keys matching the pattern '{}'", pattern);
-        var matchingKeys = cache.asMap().keySet().stream()
+        Collection<? extends String> keys;
+        if (isNotEmpty(siteId) && cache instanceof SiteIndexedCache) {
+            // Only the keys of the site need to be checked
+            keys = ((SiteIndexedCache<?>) cache).getSiteKeys(siteId);
+        } else {
+            keys = cache.asMap().keySet();
+        }
+        var matchingKeys = keys.stream()
                 .filter(k -> k.matches(pattern)) // include keys that match the pattern
                 .filter(k -> isEmpty(siteId) || startsWith(k, siteId)) // include only keys for the same site
                 .filter(not(key::equals)) // exclude the original to avoid double invalidation
+                .map(k -> (K) k)
                 .collect(toList());
         logger.debug("Invalidate the cache for keys '{}'", matchingKeys);
         cache.invalidateAll(matchingKeys);
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.utils.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.ForwardingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+import java.beans.ConstructorProperties;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.substringBefore;
+
+/**
+ * Cache that keeps an index of its keys by site, so all the entries of a site can be found without scanning the
+ * whole cache.
+ * <p>
+ * Keys are expected to use the format built by the configuration service: {@code <site>:<path>[:<suffix>]} for
+ * site entries and {@code <path>[:<suffix>]} for global entries, which are indexed under the empty site.
+ * </p>
+ *
+ * @param <V> the type for the values
+ */
+public class SiteIndexedCache<V> extends ForwardingCache<String, V> {
+
+    protected final Cache<String, V> delegate;
+
+    /**
+     * Keys of the cache indexed by site
+     */
+    protected final Map<String, Set<String>> index = new ConcurrentHashMap<>();
+
+    @ConstructorProperties({"maxSize"})
+    public SiteIndexedCache(long maxSize) {
+        delegate = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    @Override
+    protected Cache<String, V> delegate() {
+        return delegate;
+    }
+
+    @Override
+    public V get(String key, Callable<? extends V> valueLoader) throws ExecutionException {
+        V value = delegate.get(key, valueLoader);
+        // The key is always indexed after the value is in the cache, see onRemoval
+        addToIndex(key);
+        return value;
+    }
+
+    @Override
+    public void put(String key, V value) {
+        delegate.put(key, value);
+        addToIndex(key);
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> map) {
+        delegate.putAll(map);
+        map.keySet().forEach(this::addToIndex);
+    }
+
+    /**
+     * Returns the keys of all the entries for the given site
+     *
+     * @param siteId the id of the site, empty for the global entries
+     * @return a snapshot of the keys
+     */
+    public Set<String> getSiteKeys(String siteId) {
+        Set<String> keys = index.get(siteId);
+        return keys != null ? new HashSet<>(keys) : new HashSet<>();
+    }
+
+    /**
+     * Invalidates all the entries for the given site
+     *
+     * @param siteId the id of the site
+     * @return the keys that were invalidated
+     */
+    public Collection<String> invalidateSite(String siteId) {
+        Set<String> keys = getSiteKeys(siteId);
+        delegate.invalidateAll(keys);
+        return keys;
+    }
+
+    /**
+     * Returns the number of keys in the index, used for monitoring
+     */
+    public long getIndexSize() {
+        return index.values().stream()
+                .mapToLong(Set::size)
+                .sum();
+    }
+
+    protected void addToIndex(String key) {
+        index.computeIfAbsent(getSite(key), site -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    protected void onRemoval(RemovalNotification<String, V> notification) {
+        if (notification.getCause() == RemovalCause.REPLACED) {
+            return;
+        }
+        String key = notification.getKey();
+        Set<String> keys = index.get(getSite(key));
+        if (keys != null) {
+            keys.remove(key);
+            // A new value could have been added for the key while the old one was being removed, since keys are
+            // indexed after the value is in the cache, checking again after the removal is enough to keep it
+            if (delegate.asMap().containsKey(key)) {
+                keys.add(key);
+            }
+        }
+    }
+
+    protected String getSite(String key) {
+        return key.startsWith("/") ? EMPTY : substringBefore(key, ":");
+    }
+
+}
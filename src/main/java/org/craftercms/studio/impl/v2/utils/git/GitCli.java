@@ -21,6 +21,10 @@ import org.apache.commons.lang3.StringUtils;
 import org.craftercms.studio.api.v2.exception.git.cli.GitCliException;
 import org.craftercms.studio.api.v2.exception.git.cli.GitCliOutputException;
 import org.craftercms.studio.api.v2.utils.git.cli.GitCliOutputExceptionResolver;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner.OutputParser;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner.ProcessResult;
+import org.craftercms.studio.impl.v2.utils.ProcessRunner.ProcessTimeoutException;
 import org.craftercms.studio.impl.v2.utils.git.cli.CompositeGitCliExceptionResolver;
 import org.craftercms.studio.impl.v2.utils.git.cli.NoChangesToCommitExceptionResolver;
 import org.craftercms.studio.impl.v2.utils.git.cli.RepositoryLockedExceptionResolver;
@@ -29,21 +33,26 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 /**
  * Allows doing Git operations throw the CLI.
  * <br />
  * If you ever use this class, please lock/synchronize the calls (hopefully with the
  * {@link org.craftercms.studio.api.v1.service.GeneralLockService})
+ * <br />
+ * The commands are run with a {@link ProcessRunner}, so commands with large outputs can't block on a full pipe, and
+ * the paths of a command are sent through its standard input instead of the command line, so
+ * any number of paths is handled by a single process.
  *
  * @author Sumer Jabri
  * @author Alfonso Vasquez
@@ -56,6 +65,8 @@ public class GitCli {
     private static final String DEFAULT_GIT_COMMAND_NAME = "git";
     private static final int DEFAULT_GIT_PROC_WAIT_FOR_TIMEOUT = 60 * 5; // 5 minutes
     private static final int DEFAULT_GIT_PROC_DESTROY_WAIT_FOR_TIMEOUT = 30;
+    // Max number of bytes of the error output kept for the exception messages
+    private static final int MAX_ERROR_OUTPUT_BYTES = 64 * 1024;
 
     // Exception resolvers
     public final GitCliOutputExceptionResolver DEFAULT_EX_RESOLVER = RepositoryLockedExceptionResolver.INSTANCE;
@@ -65,17 +76,22 @@ public class GitCli {
     private final String gitProcName;
     private final int gitProcWaitForTimeoutSecs;
     private final int gitProcDestroyWaitForTimeoutSecs;
+    private final ProcessRunner processRunner;
 
     public GitCli() {
         this.gitProcName = DEFAULT_GIT_COMMAND_NAME;
         this.gitProcWaitForTimeoutSecs = DEFAULT_GIT_PROC_WAIT_FOR_TIMEOUT;
         this.gitProcDestroyWaitForTimeoutSecs = DEFAULT_GIT_PROC_DESTROY_WAIT_FOR_TIMEOUT;
+        this.processRunner = new ProcessRunner(gitProcWaitForTimeoutSecs, gitProcDestroyWaitForTimeoutSecs,
+                MAX_ERROR_OUTPUT_BYTES);
     }
 
     public GitCli(String gitProcName, int gitProcWaitForTimeoutSecs, int gitProcDestroyWaitForTimeoutSecs) {
         this.gitProcName = gitProcName;
         this.gitProcWaitForTimeoutSecs = gitProcWaitForTimeoutSecs;
         this.gitProcDestroyWaitForTimeoutSecs = gitProcDestroyWaitForTimeoutSecs;
+        this.processRunner = new ProcessRunner(gitProcWaitForTimeoutSecs, gitProcDestroyWaitForTimeoutSecs,
+                MAX_ERROR_OUTPUT_BYTES);
     }
 
     protected String executeGitCommand(String directory, GitCommandLine commandLine)
@@ -85,48 +101,59 @@ public class GitCli {
 
     protected String executeGitCommand(String directory, GitCommandLine commandLine, GitCliOutputExceptionResolver exceptionResolver)
             throws IOException, InterruptedException {
+        String output = executeGitCommand(directory, commandLine, exceptionResolver,
+                in -> IOUtils.toString(in, Charset.defaultCharset()));
+        logger.debug("Git command successfully executed on '{}':\n'{}'", directory, output);
+        return output;
+    }
+
+    /**
+     * Executes the command, passing its standard output to the given parser as it is produced
+     *
+     * @param directory the git repository directory
+     * @param commandLine the command to execute
+     * @param exceptionResolver resolves the exception to throw when the command fails
+     * @param outputParser parses the standard output of the command, any output that it doesn't read is discarded
+     * @return the result of the parser
+     */
+    protected <T> T executeGitCommand(String directory, GitCommandLine commandLine,
+                                      GitCliOutputExceptionResolver exceptionResolver, OutputParser<T> outputParser)
+            throws IOException, InterruptedException {
         checkGitDirectory(directory);
 
         ProcessBuilder pb = new ProcessBuilder(commandLine).directory(new File(directory));
         logger.debug("Executing git command: '{}'", commandLine);
 
-        // Start process
-        Process p = pb.start();
-
-        InputStream processInputStream = p.getInputStream();
-        InputStream processErrorStream = p.getErrorStream();
+        ProcessResult<T> result;
         try {
-            // Wait for the process to finish, up to gitProcWaitForTimeoutSecs
-            boolean exited = p.waitFor(gitProcWaitForTimeoutSecs, TimeUnit.SECONDS);
-            if (!exited) {
-                handleProcessTimeout(p, directory, processInputStream, processErrorStream);
-            }
+            result = processRunner.run(pb, out -> writeInput(out, commandLine.input), outputParser);
+        } catch (ProcessTimeoutException e) {
+            String errorMessage = format("Timeout while waiting for git command to exit on '%s'\nSTDERR: '%s'",
+                    directory, e.getErrorOutput());
+            logger.debug(errorMessage);
+            throw new GitCliException(errorMessage, e);
+        }
 
-            int exitValue = p.exitValue();
-            if (exitValue != 0) {
-                handleErrorExitValue(directory, exceptionResolver, p, processInputStream);
-            }
+        if (result.exitValue() != 0) {
+            handleErrorExitValue(directory, exceptionResolver, result.exitValue(),
+                    result.output() instanceof String stdOutput ? stdOutput : StringUtils.EMPTY,
+                    result.errorOutput());
+        }
+        return result.output();
+    }
 
-            // Read std output if process has finished successfully
-            String output = IOUtils.toString(p.getInputStream(), Charset.defaultCharset());
-            logger.debug("Git command successfully executed on '{}':\n'{}'", directory, output);
-            return output;
-        } finally {
-            IOUtils.closeQuietly(processInputStream);
-            IOUtils.closeQuietly(processErrorStream);
-            if (p.isAlive()) {
-                // Destroy process
-                destroyProcess(p);
+    private void writeInput(OutputStream out, List<String> input) throws IOException {
+        if (input != null) {
+            for (String line : input) {
+                out.write(line.getBytes(UTF_8));
+                // The paths are NUL separated, so they can contain any character
+                out.write(0);
             }
         }
     }
 
     private void handleErrorExitValue(String directory, GitCliOutputExceptionResolver exceptionResolver,
-                                      Process p, InputStream processInputStream) throws IOException {
-        int exitValue = p.exitValue();
-        String errorOutput = IOUtils.toString(p.getErrorStream(), Charset.defaultCharset());
-        String stdOutput = IOUtils.toString(processInputStream, Charset.defaultCharset());
-
+                                      int exitValue, String stdOutput, String errorOutput) throws IOException {
         String errorMessage = format("Git command failed with exit value '%s' on '%s':\n\nSTDOUT: '%s'\nSTDERR: '%s'", exitValue, directory, stdOutput, errorOutput);
         logger.debug(errorMessage);
 
@@ -136,38 +163,6 @@ public class GitCli {
                 .orElse(new GitCliOutputException(exitValue, errorMessage));
     }
 
-    private void handleProcessTimeout(Process p, String directory, InputStream processInputStream, InputStream processErrorStream) throws IOException {
-        // Read available bytes, avoiding blocking
-        String stdOutput = new String(processInputStream.readNBytes(processInputStream.available()));
-        String errorOutput = new String(processErrorStream.readNBytes(processErrorStream.available()));
-        destroyProcess(p);
-        String errorMessage = format("Timeout while waiting for git command to exit on '%s'\nSTDOUT: '%s'\nSTDERR: '%s'", directory, stdOutput, errorOutput);
-        logger.debug(errorMessage);
-        throw new GitCliException(errorMessage);
-    }
-
-    /**
-     * Destroys the process. It will wait for {@link #gitProcDestroyWaitForTimeoutSecs} seconds for the process to
-     * exit, and if it does not, it will destroy it forcibly.
-     *
-     * @param process the process
-     */
-    private void destroyProcess(Process process) {
-        try {
-            logger.debug("Destroying process with PID '{}'", process.pid());
-            process.destroy();
-            boolean destroyed = process.waitFor(gitProcDestroyWaitForTimeoutSecs, TimeUnit.SECONDS);
-            if (!destroyed) {
-                logger.warn("Git process with PID '{}' did not exit after '{}' seconds, destroying it", process.pid(), gitProcDestroyWaitForTimeoutSecs);
-                process.destroyForcibly();
-                process.waitFor();
-                logger.debug("Process with PID '{}' destroyed", process.pid());
-            }
-        } catch (InterruptedException e) {
-            logger.warn("Interrupted while waiting for process with PID '{}' to exit", process.pid(), e);
-        }
-    }
-
     /**
      * Checks if the given directory exists and is a Git repository.
      *
@@ -184,8 +179,10 @@ public class GitCli {
     }
 
     public void add(String directory, String... paths) throws GitCliException {
+        GitCommandLine addCl = new GitCommandLine("add");
+        addCl.addPathspecs(paths);
         try {
-            executeGitCommand(directory, new GitCommandLine("add", paths));
+            executeGitCommand(directory, addCl);
         } catch (Exception e) {
             throw new GitCliException("Git add failed on directory " + directory + " for paths " +
                     ArrayUtils.toString(paths), e);
@@ -203,7 +200,7 @@ public class GitCli {
         restoreCl.addParam("--source=HEAD");
         restoreCl.addParam("--staged");
         restoreCl.addParam("--worktree");
-        restoreCl.addParams(paths);
+        restoreCl.addPathspecs(paths);
         try {
             return StringUtils.trim(executeGitCommand(directory, restoreCl));
         } catch (Exception e) {
@@ -217,7 +214,7 @@ public class GitCli {
 
         commitCl.addOption("--author", author);
         commitCl.addOption("--message", message);
-        commitCl.addParams(paths);
+        commitCl.addPathspecs(paths);
 
         try {
             executeGitCommand(directory, commitCl, COMMIT_EX_RESOLVER);
@@ -234,10 +231,9 @@ public class GitCli {
         statusCl.addParam("--porcelain");
 
         try {
-            String result = executeGitCommand(directory, statusCl, DEFAULT_EX_RESOLVER);
-
-            // No result means there's no changes, so the repo is clean
-            return StringUtils.isEmpty(result);
+            // No output means there's no changes, so the repo is clean. There is no need to read (or keep in
+            // memory) the whole list of changes
+            return executeGitCommand(directory, statusCl, DEFAULT_EX_RESOLVER, in -> in.read() == -1);
         } catch (Exception e) {
             throw new GitCliException("Git GC failed on directory " + directory, e);
         }
@@ -245,6 +241,11 @@ public class GitCli {
 
     protected class GitCommandLine extends ArrayList<String> {
 
+        /**
+         * Lines written to the standard input of the process, each one followed by a NUL
+         */
+        protected List<String> input;
+
         public GitCommandLine(String command) {
             add(gitProcName);
             add(command);
@@ -268,6 +269,18 @@ public class GitCli {
             }
         }
 
+        /**
+         * Adds the pathspecs the command applies to, they are sent through the standard input so they are not
+         * limited by the max length of the command line
+         */
+        public void addPathspecs(String... pathspecs) {
+            if (ArrayUtils.isNotEmpty(pathspecs)) {
+                addParam("--pathspec-from-file=-");
+                addParam("--pathspec-file-nul");
+                input = List.of(pathspecs);
+            }
+        }
+
         public void addOption(String optName, String optValue) {
             addParam(optName);
             addParam("\"" + optValue + "\"");
@@ -58,6 +58,11 @@ public class PasteRequest {
     @NotNull
     protected PasteItem item;
 
+    /**
+     * Indicates if the operation should run in the background, returning only the id of the job
+     */
+    protected boolean background;
+
     public String getSiteId() {
         return siteId;
     }
@@ -90,4 +95,12 @@ public class PasteRequest {
         this.item = item;
     }
 
+    public boolean isBackground() {
+        return background;
+    }
+
+    public void setBackground(boolean background) {
+        this.background = background;
+    }
+
 }
@@ -180,6 +180,14 @@ BEGIN
 		-- Item will cascade delete workflow
         DELETE FROM item WHERE site_id = id;
 
+        -- item state counters
+        DELETE FROM item_state_count WHERE site_id = id;
+        DELETE FROM item_state_count_site WHERE site_id = id;
+
+        -- publishing history
+        DELETE FROM publishing_history WHERE site_id = id;
+        DELETE FROM publishing_history_import WHERE site_id = id;
+
         -- user_properties
         DELETE FROM user_properties WHERE site_id = id;
 
@@ -207,7 +215,7 @@ CREATE TABLE _meta (
   PRIMARY KEY (`version`)
 ) ;
 
-INSERT INTO _meta (version, studio_id) VALUES ('4.2.0.9', UUID()) ;
+INSERT INTO _meta (version, studio_id) VALUES ('4.2.0.14', UUID()) ;
 
 CREATE TABLE IF NOT EXISTS `audit` (
   `id`                        BIGINT(20)    NOT NULL AUTO_INCREMENT,
@@ -228,7 +236,10 @@ CREATE TABLE IF NOT EXISTS `audit` (
   KEY `audit_actor_idx` (`actor_id`),
   KEY `audit_site_idx` (`site_id`),
   KEY `audit_operation_idx` (`operation`),
-  KEY `audit_origin_idx` (`origin`)
+  KEY `audit_origin_idx` (`origin`),
+  KEY `audit_commit_id_idx` (`commit_id`),
+  KEY `audit_site_timestamp_idx` (`site_id`, `operation_timestamp`),
+  KEY `audit_target_value_idx` (`primary_target_value`(255))
 )
   ENGINE = InnoDB
   DEFAULT CHARSET = utf8
@@ -259,7 +270,8 @@ CREATE TABLE IF NOT EXISTS `dependency` (
   `valid`       BIT         NOT NULL DEFAULT 1,
   PRIMARY KEY (`id`),
   KEY `dependency_site_idx` (`site`),
-  KEY `dependency_sourcepath_idx` (`source_path`(1000))
+  KEY `dependency_sourcepath_idx` (`source_path`(1000)),
+  KEY `dependency_site_targetpath_idx` (`site`, `target_path`(900))
 )
   ENGINE = InnoDB
   DEFAULT CHARSET = utf8
@@ -318,6 +330,7 @@ CREATE TABLE IF NOT EXISTS `site` (
   `sandbox_branch`                  VARCHAR(255)  NOT NULL DEFAULT 'master',
   `published_repo_created`          INT           NOT NULL DEFAULT 0,
   `state`                           VARCHAR(50)   NOT NULL DEFAULT 'INITIALIZING',
+  `version`                         BIGINT        NOT NULL DEFAULT 0,
   PRIMARY KEY (`id`),
   UNIQUE INDEX `id_unique` (`id` ASC),
   UNIQUE INDEX `site_uuid_site_id_unique` (`site_uuid` ASC, `site_id` ASC),
@@ -520,6 +533,123 @@ CREATE TABLE IF NOT EXISTS `item` (
     DEFAULT CHARSET = utf8
     ROW_FORMAT = DYNAMIC ;
 
+CREATE TABLE IF NOT EXISTS `item_state_count` (
+  `site_id`     BIGINT(20)  NOT NULL,
+  `system_type` VARCHAR(64) NOT NULL,
+  `state`       BIGINT(20)  NOT NULL,
+  `count`       BIGINT(20)  NOT NULL DEFAULT 0,
+  PRIMARY KEY (`site_id`, `system_type`, `state`)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+-- Sites whose counters in item_state_count are complete, counters of other sites are rebuilt before they are used
+CREATE TABLE IF NOT EXISTS `item_state_count_site` (
+  `site_id`     BIGINT(20)  NOT NULL,
+  PRIMARY KEY (`site_id`)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+/* Count the items that are visible in the dashboard (same filters as ItemDAO.getItemStatesTotal) */
+CREATE TRIGGER item_state_count_insert AFTER INSERT ON item FOR EACH ROW
+BEGIN
+    IF NEW.ignored = 0 AND NEW.system_type <> 'folder' THEN
+        INSERT INTO item_state_count (site_id, system_type, state, count)
+            VALUES (NEW.site_id, NEW.system_type, NEW.state, 1)
+            ON DUPLICATE KEY UPDATE count = count + 1;
+    END IF;
+END ;
+
+CREATE TRIGGER item_state_count_update AFTER UPDATE ON item FOR EACH ROW
+BEGIN
+    IF NOT (OLD.state <=> NEW.state AND OLD.system_type <=> NEW.system_type AND OLD.ignored <=> NEW.ignored
+            AND OLD.site_id <=> NEW.site_id) THEN
+        IF OLD.ignored = 0 AND OLD.system_type <> 'folder' THEN
+            UPDATE item_state_count SET count = count - 1
+            WHERE site_id = OLD.site_id AND system_type = OLD.system_type AND state = OLD.state AND count > 0;
+        END IF;
+        IF NEW.ignored = 0 AND NEW.system_type <> 'folder' THEN
+            INSERT INTO item_state_count (site_id, system_type, state, count)
+                VALUES (NEW.site_id, NEW.system_type, NEW.state, 1)
+                ON DUPLICATE KEY UPDATE count = count + 1;
+        END IF;
+    END IF;
+END ;
+
+/* Rows removed by the parent_id cascade don't fire triggers, so deleting a parent invalidates the site counters */
+CREATE TRIGGER item_state_count_delete BEFORE DELETE ON item FOR EACH ROW
+BEGIN
+    IF OLD.ignored = 0 AND OLD.system_type <> 'folder' THEN
+        UPDATE item_state_count SET count = count - 1
+        WHERE site_id = OLD.site_id AND system_type = OLD.system_type AND state = OLD.state AND count > 0;
+    END IF;
+    IF EXISTS (SELECT 1 FROM item WHERE parent_id = OLD.id) THEN
+        DELETE FROM item_state_count_site WHERE site_id = OLD.site_id;
+    END IF;
+END ;
+
+CREATE PROCEDURE rebuildItemStateCounts(IN siteId BIGINT)
+BEGIN
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    START TRANSACTION;
+
+    DELETE FROM item_state_count WHERE site_id = siteId;
+
+    INSERT INTO item_state_count (site_id, system_type, state, count)
+        SELECT site_id, system_type, state, count(1)
+        FROM item
+        WHERE site_id = siteId AND ignored = 0 AND system_type <> 'folder'
+        GROUP BY site_id, system_type, state
+        ON DUPLICATE KEY UPDATE count = VALUES(count);
+
+    INSERT IGNORE INTO item_state_count_site (site_id) VALUES (siteId);
+
+    COMMIT;
+END ;
+
+-- Paths are case-sensitive like in the repository, the unique key uses the SHA-1 of the path because the whole path
+-- doesn't fit in an index
+CREATE TABLE IF NOT EXISTS `publishing_history` (
+  `id`            BIGINT(20)    NOT NULL AUTO_INCREMENT,
+  `site_id`       BIGINT(20)    NOT NULL,
+  `environment`   VARCHAR(20)   NOT NULL,
+  `commit_id`     VARCHAR(40)   NOT NULL,
+  `path`          VARCHAR(2000) CHARACTER SET utf8 COLLATE utf8_bin NOT NULL,
+  `path_hash`     CHAR(40)      NOT NULL,
+  `publisher`     VARCHAR(255)  NULL,
+  `published_on`  TIMESTAMP     NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE `uq_ph_commit_path` (`site_id`, `environment`, `commit_id`, `path_hash`),
+  INDEX `ph_site_published_on_idx` (`site_id`, `published_on`, `id`),
+  INDEX `ph_site_environment_published_on_idx` (`site_id`, `environment`, `published_on`, `id`),
+  INDEX `ph_site_publisher_published_on_idx` (`site_id`, `publisher`, `published_on`, `id`),
+  INDEX `ph_site_path_idx` (`site_id`, `path`(900))
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+-- Progress of the import of the existing history of each publishing target from the published repository
+CREATE TABLE IF NOT EXISTS `publishing_history_import` (
+  `site_id`           BIGINT(20)  NOT NULL,
+  `environment`       VARCHAR(20) NOT NULL,
+  `head_commit_id`    VARCHAR(40) NOT NULL,
+  `imported_commits`  INT         NOT NULL DEFAULT 0,
+  `completed`         TINYINT     NOT NULL DEFAULT 0,
+  PRIMARY KEY (`site_id`, `environment`)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
 CREATE TABLE IF NOT EXISTS `item_translation` (
   `id`                      BIGINT(20) NOT NULL AUTO_INCREMENT,
   `record_last_updated`     TIMESTAMP       NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+-- Paths are case-sensitive like in the repository, the unique key uses the SHA-1 of the path because the whole path
+-- doesn't fit in an index
+CREATE TABLE IF NOT EXISTS `publishing_history` (
+  `id`            BIGINT(20)    NOT NULL AUTO_INCREMENT,
+  `site_id`       BIGINT(20)    NOT NULL,
+  `environment`   VARCHAR(20)   NOT NULL,
+  `commit_id`     VARCHAR(40)   NOT NULL,
+  `path`          VARCHAR(2000) CHARACTER SET utf8 COLLATE utf8_bin NOT NULL,
+  `path_hash`     CHAR(40)      NOT NULL,
+  `publisher`     VARCHAR(255)  NULL,
+  `published_on`  TIMESTAMP     NULL,
+  PRIMARY KEY (`id`),
+  UNIQUE `uq_ph_commit_path` (`site_id`, `environment`, `commit_id`, `path_hash`),
+  INDEX `ph_site_published_on_idx` (`site_id`, `published_on`, `id`),
+  INDEX `ph_site_environment_published_on_idx` (`site_id`, `environment`, `published_on`, `id`),
+  INDEX `ph_site_publisher_published_on_idx` (`site_id`, `publisher`, `published_on`, `id`),
+  INDEX `ph_site_path_idx` (`site_id`, `path`(900))
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+-- Progress of the import of the existing history of each publishing target from the published repository
+CREATE TABLE IF NOT EXISTS `publishing_history_import` (
+  `site_id`           BIGINT(20)  NOT NULL,
+  `environment`       VARCHAR(20) NOT NULL,
+  `head_commit_id`    VARCHAR(40) NOT NULL,
+  `imported_commits`  INT         NOT NULL DEFAULT 0,
+  `completed`         TINYINT     NOT NULL DEFAULT 0,
+  PRIMARY KEY (`site_id`, `environment`)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+-- Remove the publishing history of deleted sites
+DROP PROCEDURE IF EXISTS deleteSiteRelatedItems ;
+
+CREATE PROCEDURE deleteSiteRelatedItems(
+    IN siteId VARCHAR(50))
+BEGIN
+	DECLARE id BIGINT(20);
+
+    IF EXISTS (SELECT (1) FROM site WHERE site_id = siteId AND deleted = 0)
+    THEN
+		SELECT s.id into id
+		FROM site s
+		WHERE site_id = siteId AND deleted = 0;
+
+		-- Item will cascade delete workflow
+        DELETE FROM item WHERE site_id = id;
+
+        -- item state counters
+        DELETE FROM item_state_count WHERE site_id = id;
+        DELETE FROM item_state_count_site WHERE site_id = id;
+
+        -- publishing history
+        DELETE FROM publishing_history WHERE site_id = id;
+        DELETE FROM publishing_history_import WHERE site_id = id;
+
+        -- user_properties
+        DELETE FROM user_properties WHERE site_id = id;
+
+        -- dependencies
+        DELETE FROM dependency WHERE site = siteId;
+
+        -- deployment data
+        DELETE FROM publish_request WHERE site = siteId;
+
+        -- sequences
+        DELETE FROM navigation_order_sequence WHERE site = siteId;
+
+        -- remote repositories
+        DELETE FROM remote_repository WHERE site_id = siteId;
+
+        -- audit log
+        DELETE FROM audit WHERE site_id = id;
+    END IF;
+END ;
+
+UPDATE `_meta` SET `version` = '4.2.0.11' ;
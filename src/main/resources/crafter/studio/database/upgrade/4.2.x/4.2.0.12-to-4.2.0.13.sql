@@ -0,0 +1,23 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+ALTER TABLE `audit`
+    ADD INDEX `audit_commit_id_idx` (`commit_id`),
+    ADD INDEX `audit_site_timestamp_idx` (`site_id`, `operation_timestamp`),
+    ADD INDEX `audit_target_value_idx` (`primary_target_value`(255)) ;
+
+UPDATE `_meta` SET `version` = '4.2.0.13' ;
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+CREATE TABLE IF NOT EXISTS `item_state_count` (
+  `site_id`     BIGINT(20)  NOT NULL,
+  `system_type` VARCHAR(64) NOT NULL,
+  `state`       BIGINT(20)  NOT NULL,
+  `count`       BIGINT(20)  NOT NULL DEFAULT 0,
+  PRIMARY KEY (`site_id`, `system_type`, `state`)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+-- Sites whose counters in item_state_count are complete, counters of other sites are rebuilt before they are used
+CREATE TABLE IF NOT EXISTS `item_state_count_site` (
+  `site_id`     BIGINT(20)  NOT NULL,
+  PRIMARY KEY (`site_id`)
+)
+    ENGINE = InnoDB
+    DEFAULT CHARSET = utf8
+    ROW_FORMAT = DYNAMIC ;
+
+/* Count the items that are visible in the dashboard (same filters as ItemDAO.getItemStatesTotal) */
+CREATE TRIGGER item_state_count_insert AFTER INSERT ON item FOR EACH ROW
+BEGIN
+    IF NEW.ignored = 0 AND NEW.system_type <> 'folder' THEN
+        INSERT INTO item_state_count (site_id, system_type, state, count)
+            VALUES (NEW.site_id, NEW.system_type, NEW.state, 1)
+            ON DUPLICATE KEY UPDATE count = count + 1;
+    END IF;
+END ;
+
+CREATE TRIGGER item_state_count_update AFTER UPDATE ON item FOR EACH ROW
+BEGIN
+    IF NOT (OLD.state <=> NEW.state AND OLD.system_type <=> NEW.system_type AND OLD.ignored <=> NEW.ignored
+            AND OLD.site_id <=> NEW.site_id) THEN
+        IF OLD.ignored = 0 AND OLD.system_type <> 'folder' THEN
+            UPDATE item_state_count SET count = count - 1
+            WHERE site_id = OLD.site_id AND system_type = OLD.system_type AND state = OLD.state AND count > 0;
+        END IF;
+        IF NEW.ignored = 0 AND NEW.system_type <> 'folder' THEN
+            INSERT INTO item_state_count (site_id, system_type, state, count)
+                VALUES (NEW.site_id, NEW.system_type, NEW.state, 1)
+                ON DUPLICATE KEY UPDATE count = count + 1;
+        END IF;
+    END IF;
+END ;
+
+/* Rows removed by the parent_id cascade don't fire triggers, so deleting a parent invalidates the site counters */
+CREATE TRIGGER item_state_count_delete BEFORE DELETE ON item FOR EACH ROW
+BEGIN
+    IF OLD.ignored = 0 AND OLD.system_type <> 'folder' THEN
+        UPDATE item_state_count SET count = count - 1
+        WHERE site_id = OLD.site_id AND system_type = OLD.system_type AND state = OLD.state AND count > 0;
+    END IF;
+    IF EXISTS (SELECT 1 FROM item WHERE parent_id = OLD.id) THEN
+        DELETE FROM item_state_count_site WHERE site_id = OLD.site_id;
+    END IF;
+END ;
+
+CREATE PROCEDURE rebuildItemStateCounts(IN siteId BIGINT)
+BEGIN
+    DECLARE EXIT HANDLER FOR SQLEXCEPTION
+    BEGIN
+        ROLLBACK;
+        RESIGNAL;
+    END;
+
+    START TRANSACTION;
+
+    DELETE FROM item_state_count WHERE site_id = siteId;
+
+    INSERT INTO item_state_count (site_id, system_type, state, count)
+        SELECT site_id, system_type, state, count(1)
+        FROM item
+        WHERE site_id = siteId AND ignored = 0 AND system_type <> 'folder'
+        GROUP BY site_id, system_type, state
+        ON DUPLICATE KEY UPDATE count = VALUES(count);
+
+    INSERT IGNORE INTO item_state_count_site (site_id) VALUES (siteId);
+
+    COMMIT;
+END ;
+
+-- Remove the item state counters of deleted sites
+DROP PROCEDURE IF EXISTS deleteSiteRelatedItems ;
+
+CREATE PROCEDURE deleteSiteRelatedItems(
+    IN siteId VARCHAR(50))
+BEGIN
+	DECLARE id BIGINT(20);
+
+    IF EXISTS (SELECT (1) FROM site WHERE site_id = siteId AND deleted = 0)
+    THEN
+		SELECT s.id into id
+		FROM site s
+		WHERE site_id = siteId AND deleted = 0;
+
+		-- Item will cascade delete workflow
+        DELETE FROM item WHERE site_id = id;
+
+        -- item state counters
+        DELETE FROM item_state_count WHERE site_id = id;
+        DELETE FROM item_state_count_site WHERE site_id = id;
+
+        -- user_properties
+        DELETE FROM user_properties WHERE site_id = id;
+
+        -- dependencies
+        DELETE FROM dependency WHERE site = siteId;
+
+        -- deployment data
+        DELETE FROM publish_request WHERE site = siteId;
+
+        -- sequences
+        DELETE FROM navigation_order_sequence WHERE site = siteId;
+
+        -- remote repositories
+        DELETE FROM remote_repository WHERE site_id = siteId;
+
+        -- audit log
+        DELETE FROM audit WHERE site_id = id;
+    END IF;
+END ;
+
+UPDATE `_meta` SET `version` = '4.2.0.10' ;
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.dal.security;
+
+import org.craftercms.studio.api.v2.dal.Group;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SitePermissionMappingsTest {
+
+    private static final long READ = 1L;
+    private static final long WRITE = 2L;
+    private static final long PUBLISH = 4L;
+
+    private SitePermissionMappings mappings;
+
+    @BeforeEach
+    public void setUp() {
+        mappings = new SitePermissionMappings();
+        mappings.addGroupToRolesMapping("authors", List.of("author"));
+        mappings.addGroupToRolesMapping("publishers", List.of("publisher"));
+        mappings.addGroupToRolesMapping("jane", List.of("reviewer"));
+        mappings.addRolePermissionMapping("author", role("author", Map.of("~DASHBOARD~", 0L,
+                "/site/.*", READ | WRITE)));
+        mappings.addRolePermissionMapping("publisher", role("publisher", Map.of("/site/website/.*", PUBLISH)));
+        mappings.addRolePermissionMapping("reviewer", role("reviewer", Map.of("/.*", READ)));
+    }
+
+    @Test
+    public void rolesIncludeUserAndGroupMappingsTest() {
+        SortedSet<String> roles = mappings.getRoles("jane", List.of(group("authors"), group("unknown")));
+
+        assertEquals(List.of("author", "reviewer"), List.copyOf(roles));
+    }
+
+    @Test
+    public void availableActionsCombineAllRolesTest() {
+        List<Group> groups = List.of(group("authors"), group("publishers"));
+
+        assertEquals(READ | WRITE | PUBLISH, mappings.getAvailableActions("john", groups, "/site/website/index.xml"));
+        assertEquals(READ | WRITE, mappings.getAvailableActions("john", groups, "/site/components/a.xml"));
+        assertEquals(0L, mappings.getAvailableActions("john", groups, "/static-assets/a.png"));
+        assertEquals(READ, mappings.getAvailableActions("jane", List.of(), "/static-assets/a.png"));
+    }
+
+    @Test
+    public void availableActionsWithoutRolesTest() {
+        SortedSet<String> roles = mappings.getRoles("john", List.of(group("unknown")));
+
+        assertTrue(roles.isEmpty());
+        assertEquals(0L, mappings.getAvailableActions(roles, "/site/website/index.xml"));
+    }
+
+    @Test
+    public void updatedRulesReplaceRememberedActionsTest() {
+        SortedSet<String> roles = mappings.getRoles("john", List.of(group("publishers")));
+        assertEquals(PUBLISH, mappings.getAvailableActions(roles, "/site/website/index.xml"));
+
+        mappings.addRolePermissionMapping("publisher", role("publisher", Map.of("/site/.*", READ)));
+
+        assertEquals(READ, mappings.getAvailableActions(roles, "/site/website/index.xml"));
+    }
+
+    private RolePermissionMappings role(String name, Map<String, Long> rules) {
+        RolePermissionMappings role = new RolePermissionMappings();
+        role.setRole(name);
+        rules.forEach(role::addRuleContentItemPermissionsMapping);
+        return role;
+    }
+
+    private Group group(String name) {
+        Group group = new Group();
+        group.setGroupName(name);
+        return group;
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.craftercms.studio.api.v2.utils.ContentTypeClassifierTest.ASSET_PATTERNS;
+import static org.craftercms.studio.api.v2.utils.ContentTypeClassifierTest.COMPONENT_PATTERNS;
+import static org.craftercms.studio.api.v2.utils.ContentTypeClassifierTest.PAGE_PATTERNS;
+import static org.craftercms.studio.api.v2.utils.ContentTypeClassifierTest.SCRIPT_PATTERNS;
+import static org.craftercms.studio.api.v2.utils.ContentTypeClassifierTest.TEMPLATE_PATTERNS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Classifies a large set of paths calling {@link String#matches(String)} for every pattern, like
+ * {@code ContentServiceImpl.getContentTypeClass} did, and with a {@link ContentTypeClassifier} built once.
+ */
+@Benchmark
+public class ContentTypeClassifierBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ContentTypeClassifierBenchmarkTest.class);
+
+    private static final int PATHS = Integer.getInteger("studio.benchmark.classifierPaths", 100_000);
+
+    private static final String[] PATH_TEMPLATES = {
+            "/site/website/section-%d/index.xml",
+            "/site/website/section-%d/crafter-level-descriptor.level.xml",
+            "/site/components/component-%d.xml",
+            "/static-assets/images/image-%d.png",
+            "/templates/web/template-%d.ftl",
+            "/scripts/rest/script-%d.get.groovy",
+            "/config/studio/file-%d.xml",
+            "/other/file-%d.txt"
+    };
+
+    @Test
+    public void comparePerPatternAndCompiledClassification() {
+        List<String> paths = new ArrayList<>(PATHS);
+        for (int i = 0; i < PATHS; i++) {
+            paths.add(String.format(PATH_TEMPLATES[i % PATH_TEMPLATES.length], i));
+        }
+        ContentTypeClassifier classifier = ContentTypeClassifierTest.buildClassifier();
+
+        // Warm up both approaches before measuring
+        for (String path : paths.subList(0, Math.min(PATHS, 10_000))) {
+            assertEquals(classifyPerPattern(path), classifier.classify(path), path);
+        }
+
+        long start = System.nanoTime();
+        int perPatternPages = 0;
+        for (String path : paths) {
+            if ("page".equals(classifyPerPattern(path))) {
+                perPatternPages++;
+            }
+        }
+        long perPatternTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int compiledPages = 0;
+        for (String path : paths) {
+            if ("page".equals(classifier.classify(path))) {
+                compiledPages++;
+            }
+        }
+        long compiledTime = System.nanoTime() - start;
+
+        logger.info("Classified '{}' paths: per pattern took '{}' ms, compiled classifier took '{}' ms", PATHS,
+                perPatternTime / 1_000_000, compiledTime / 1_000_000);
+        assertEquals(perPatternPages, compiledPages, "Both approaches should classify the same pages");
+    }
+
+    private String classifyPerPattern(String path) {
+        if (path.endsWith("/crafter-level-descriptor.level.xml")) {
+            return "levelDescriptor";
+        } else if (matchesPatterns(path, PAGE_PATTERNS)) {
+            return "page";
+        } else if (matchesPatterns(path, COMPONENT_PATTERNS)) {
+            return "component";
+        } else if (matchesPatterns(path, ASSET_PATTERNS)) {
+            return "asset";
+        } else if (matchesPatterns(path, TEMPLATE_PATTERNS)) {
+            return "renderingTemplate";
+        } else if (path.startsWith("/config/studio/content-types")) {
+            return "content type";
+        } else if (matchesPatterns(path, List.of("/site/taxonomy/([^<]+)\\.xml"))) {
+            return "taxonomy";
+        } else if (matchesPatterns(path, SCRIPT_PATTERNS)) {
+            return "script";
+        } else if (matchesPatterns(path, List.of("/config/([^<]+)"))) {
+            return "configuration";
+        }
+        return "file";
+    }
+
+    private boolean matchesPatterns(String path, List<String> patterns) {
+        for (String pattern : patterns) {
+            if (path.matches(pattern)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ContentTypeClassifierTest {
+
+    static final List<String> PAGE_PATTERNS = List.of("/site/website/([^<]+)\\.xml");
+    static final List<String> COMPONENT_PATTERNS = List.of("/site/components/([^<]+)\\.xml", "/site/([^<]+)\\.xml");
+    static final List<String> ASSET_PATTERNS = List.of("/static-assets/([^<]+)");
+    static final List<String> TEMPLATE_PATTERNS = List.of("/templates/([^<]+)");
+    static final List<String> SCRIPT_PATTERNS = List.of("/scripts/([^<]+)", ".*\\.groovy");
+
+    static ContentTypeClassifier buildClassifier() {
+        return new ContentTypeClassifier.Builder()
+                .withSuffix("levelDescriptor", "/crafter-level-descriptor.level.xml")
+                .withPatterns("page", PAGE_PATTERNS)
+                .withPatterns("component", COMPONENT_PATTERNS)
+                .withPatterns("document", null)
+                .withPatterns("asset", ASSET_PATTERNS)
+                .withPatterns("renderingTemplate", TEMPLATE_PATTERNS)
+                .withPrefix("content type", "/config/studio/content-types")
+                .withPatterns("taxonomy", List.of("/site/taxonomy/([^<]+)\\.xml"))
+                .withPatterns("script", SCRIPT_PATTERNS)
+                .withPatterns("configuration", List.of("/config/([^<]+)", "(invalid"))
+                .build("file");
+    }
+
+    @Test
+    public void classifyTest() {
+        ContentTypeClassifier classifier = buildClassifier();
+        assertEquals("levelDescriptor", classifier.classify("/site/website/crafter-level-descriptor.level.xml"));
+        assertEquals("page", classifier.classify("/site/website/index.xml"));
+        assertEquals("component", classifier.classify("/site/components/header.xml"));
+        // Rules are evaluated in order, the taxonomy pattern comes after the components ones
+        assertEquals("component", classifier.classify("/site/taxonomy/categories.xml"));
+        assertEquals("asset", classifier.classify("/static-assets/images/logo.png"));
+        assertEquals("renderingTemplate", classifier.classify("/templates/web/page.ftl"));
+        assertEquals("content type", classifier.classify("/config/studio/content-types/page/form-definition.xml"));
+        assertEquals("script", classifier.classify("/scripts/rest/get.groovy"));
+        assertEquals("script", classifier.classify("/other/job.groovy"));
+        assertEquals("configuration", classifier.classify("/config/studio/site-config.xml"));
+        assertEquals("file", classifier.classify("/other/readme.txt"));
+    }
+
+    @Test
+    public void classifyMatchesFullPathTest() {
+        ContentTypeClassifier classifier = buildClassifier();
+        // The patterns must match the whole path, not only its prefix
+        assertEquals("file", classifier.classify("/site/website/index.json"));
+        assertEquals("file", classifier.classify("/static-assets"));
+    }
+
+    @Test
+    public void classifyCollectionTest() {
+        ContentTypeClassifier classifier = buildClassifier();
+        Map<String, String> classes = classifier.classify(List.of("/site/website/index.xml",
+                "/static-assets/css/main.css", "/site/website/index.xml", "/other/readme.txt"));
+        assertEquals(List.of("/site/website/index.xml", "/static-assets/css/main.css", "/other/readme.txt"),
+                List.copyOf(classes.keySet()));
+        assertEquals(List.of("page", "asset", "file"), List.copyOf(classes.values()));
+    }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class DalUtilsTest {
+
+    @Test
+    public void escapeLikePatternTest() {
+        assertEquals("/site/website/my\\_page", DalUtils.escapeLikePattern("/site/website/my_page"));
+        assertEquals("/static-assets/100\\%", DalUtils.escapeLikePattern("/static-assets/100%"));
+    }
+
+    @Test
+    public void getRegexPrefixPatternTest() {
+        assertEquals("/site/website/%", DalUtils.getRegexPrefixPattern("^/site/website/.*"));
+        assertEquals("/site/website/index.xml%", DalUtils.getRegexPrefixPattern("^/site/website/index\\.xml$"));
+        assertEquals("/site/my\\_folder/%", DalUtils.getRegexPrefixPattern("^/site/my_folder/.*"));
+        // The last character is optional
+        assertEquals("/site/websit%", DalUtils.getRegexPrefixPattern("^/site/website?/.*"));
+        assertEquals("/site/website%", DalUtils.getRegexPrefixPattern("^/site/website+/.*"));
+
+        // Not anchored, the regex can match anywhere in the path
+        assertNull(DalUtils.getRegexPrefixPattern("/site/website/.*"));
+        assertNull(DalUtils.getRegexPrefixPattern(".*"));
+        assertNull(DalUtils.getRegexPrefixPattern("^.*"));
+        assertNull(DalUtils.getRegexPrefixPattern("^/site/website/.*|^/static-assets/.*"));
+        assertNull(DalUtils.getRegexPrefixPattern(null));
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.api.v2.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RegexPrefixUtilsTest {
+
+    @Test
+    public void getLiteralPrefixTest() {
+        assertEquals("/site/website/", RegexPrefixUtils.getLiteralPrefix("/site/website/.*\\.xml"));
+        assertEquals("/static-assets/", RegexPrefixUtils.getLiteralPrefix("/static-assets/([^<]+)"));
+        // The alternatives are inside a group, the text before it is still required
+        assertEquals("/site/", RegexPrefixUtils.getLiteralPrefix("/site/(website|components)/.*"));
+        assertEquals("a.b", RegexPrefixUtils.getLiteralPrefix("a\\.b\\d"));
+        assertEquals("", RegexPrefixUtils.getLiteralPrefix(".*\\.ftl"));
+        assertEquals("", RegexPrefixUtils.getLiteralPrefix("a|b"));
+        assertEquals("", RegexPrefixUtils.getLiteralPrefix("\\Qa|b\\E"));
+        assertEquals("", RegexPrefixUtils.getLiteralPrefix(null));
+    }
+
+    @Test
+    public void hasSimpleStructureTest() {
+        assertTrue(RegexPrefixUtils.hasSimpleStructure("/site/(website|components)/.*"));
+        assertTrue(RegexPrefixUtils.hasSimpleStructure("/site/[|]/.*"));
+        assertFalse(RegexPrefixUtils.hasSimpleStructure("/site/website/.*|/static-assets/.*"));
+        assertFalse(RegexPrefixUtils.hasSimpleStructure("\\Q/site\\E"));
+        assertFalse(RegexPrefixUtils.hasSimpleStructure("/site/(website"));
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.image.transformation;
+
+import org.craftercms.studio.api.v1.exception.ImageTransformationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Replaces the ImageMagick executable with shell scripts, so the process handling can be tested without it
+ */
+@DisabledOnOs(OS.WINDOWS)
+public class ImageMagickTransformerTest {
+
+    @TempDir
+    Path tmpDir;
+
+    private Path source;
+    private Path target;
+    private ImageMagickTransformer transformer;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        source = Files.writeString(tmpDir.resolve("source image.jpg"), "image");
+        target = tmpDir.resolve("target image.jpg");
+        transformer = new ImageMagickTransformer();
+        transformer.setProcessTimeoutSecs(2);
+    }
+
+    @Test
+    public void transformPassesEachArgumentSeparately() throws Exception {
+        // Copies the source to the target and appends the options, paths with spaces must arrive as one argument
+        transformer.setImgMgkPath(createScript("src=\"$1\"; shift; eval \"dst=\\${$#}\"; " +
+                "cat \"$src\" > \"$dst\"; echo \" $#\" >> \"$dst\""));
+
+        transformer.transform(source, target, Map.of("options", "-quality 20% -strip"));
+
+        assertEquals("image 4", Files.readString(target).trim());
+    }
+
+    @Test
+    public void transformDrainsLargeOutputs() throws Exception {
+        // Writes more than the pipe buffers can hold before exiting
+        transformer.setImgMgkPath(createScript("head -c 1048576 /dev/zero; head -c 1048576 /dev/zero >&2; " +
+                "eval \"dst=\\${$#}\"; touch \"$dst\""));
+
+        transformer.transform(source, target, Map.of());
+
+        assertTrue(Files.exists(target));
+    }
+
+    @Test
+    public void transformFailsOnErrorExitValue() throws Exception {
+        transformer.setImgMgkPath(createScript("echo 'unable to open image' >&2; exit 1"));
+
+        ImageTransformationException e = assertThrows(ImageTransformationException.class,
+                () -> transformer.transform(source, target, Map.of()));
+        assertTrue(e.getMessage().contains("unable to open image"));
+    }
+
+    @Test
+    public void transformFailsOnTimeout() throws Exception {
+        transformer.setImgMgkPath(createScript("sleep 30"));
+
+        long start = System.nanoTime();
+        assertThrows(ImageTransformationException.class, () -> transformer.transform(source, target, Map.of()));
+        assertTrue(System.nanoTime() - start < 20_000_000_000L, "The process should be destroyed on timeout");
+    }
+
+    private String createScript(String body) throws Exception {
+        Path script = Files.createTempFile(tmpDir, "convert", ".sh",
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        Files.writeString(script, "#!/bin/sh\n" + body + "\n");
+        return script.toString();
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeneralLockServiceImplTest {
+
+    private static final String SITE = "test";
+    private static final String SANDBOX_LOCK = SITE + "_SANDBOX_REPOSITORY_GIT_LOCK";
+
+    @Test
+    public void testIdleLocksAreRemoved() {
+        GeneralLockServiceImpl lockService = new GeneralLockServiceImpl();
+        for (int i = 0; i < 100; i++) {
+            lockService.lockContentItem(SITE, "/site/website/page-" + i + "/index.xml");
+            lockService.unlockContentItem(SITE, "/site/website/page-" + i + "/index.xml");
+        }
+        assertTrue(lockService.nodeLocks.isEmpty());
+    }
+
+    @Test
+    public void testReentrantLockIsKeptUntilFullyReleased() {
+        GeneralLockServiceImpl lockService = new GeneralLockServiceImpl();
+        lockService.lock(SANDBOX_LOCK);
+        assertTrue(lockService.tryLock(SANDBOX_LOCK));
+        lockService.unlock(SANDBOX_LOCK);
+        assertEquals(1, lockService.nodeLocks.size());
+        lockService.unlock(SANDBOX_LOCK);
+        assertTrue(lockService.nodeLocks.isEmpty());
+    }
+
+    @Test
+    public void testTimedLockFailsWhileHeldByAnotherThread() {
+        GeneralLockServiceImpl lockService = new GeneralLockServiceImpl();
+        lockService.lock(SANDBOX_LOCK);
+        try {
+            assertFalse(CompletableFuture.supplyAsync(() ->
+                    lockService.tryLock(SANDBOX_LOCK, 10, TimeUnit.MILLISECONDS)).join());
+            assertFalse(CompletableFuture.supplyAsync(() -> lockService.tryLock(SANDBOX_LOCK)).join());
+            assertEquals(1, lockService.nodeLocks.get(SANDBOX_LOCK).users);
+        } finally {
+            lockService.unlock(SANDBOX_LOCK);
+        }
+        assertTrue(lockService.nodeLocks.isEmpty());
+    }
+
+    @Test
+    public void testUnlockByNonOwnerKeepsLock() {
+        GeneralLockServiceImpl lockService = new GeneralLockServiceImpl();
+        lockService.lock(SANDBOX_LOCK);
+        assertThrows(IllegalMonitorStateException.class, () -> {
+            try {
+                CompletableFuture.runAsync(() -> lockService.unlock(SANDBOX_LOCK)).join();
+            } catch (RuntimeException e) {
+                throw e.getCause();
+            }
+        });
+        assertEquals(1, lockService.nodeLocks.size());
+        lockService.unlock(SANDBOX_LOCK);
+        assertTrue(lockService.nodeLocks.isEmpty());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStatsAreGroupedByFamily() {
+        GeneralLockServiceImpl lockService = new GeneralLockServiceImpl();
+        lockService.lock(SANDBOX_LOCK);
+        lockService.lockContentItem(SITE, "/site/website/index.xml");
+
+        Map<String, Object> metrics = lockService.getMetrics();
+        Map<String, Object> sandbox = (Map<String, Object>) metrics.get("sandboxRepository");
+        Map<String, Object> contentItem = (Map<String, Object>) metrics.get("contentItem");
+        assertEquals(1, sandbox.get("held"));
+        assertEquals(1L, sandbox.get("acquisitions"));
+        assertEquals(1, contentItem.get("held"));
+        assertEquals(2, ((Map<String, String>) metrics.get("holders")).size());
+
+        lockService.unlock(SANDBOX_LOCK);
+        lockService.unlockContentItem(SITE, "/site/website/index.xml");
+        sandbox = (Map<String, Object>) lockService.getMetrics().get("sandboxRepository");
+        assertEquals(0, sandbox.get("held"));
+    }
+
+}
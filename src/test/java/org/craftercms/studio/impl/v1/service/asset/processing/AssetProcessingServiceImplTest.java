@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.asset.processing;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.io.FileUtils;
+import org.craftercms.studio.api.v1.asset.Asset;
+import org.craftercms.studio.api.v1.asset.processing.AssetProcessingConfigReader;
+import org.craftercms.studio.api.v1.asset.processing.AssetProcessorResolver;
+import org.craftercms.studio.api.v1.asset.processing.ProcessorConfiguration;
+import org.craftercms.studio.api.v1.asset.processing.ProcessorPipelineConfiguration;
+import org.craftercms.studio.api.v1.exception.AssetProcessingException;
+import org.craftercms.studio.api.v1.service.content.ContentService;
+import org.craftercms.studio.api.v2.service.config.ConfigurationService;
+import org.craftercms.studio.impl.v1.asset.processing.AssetProcessorPipelineResolverImpl;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.craftercms.studio.api.v2.utils.StudioUtils.getStudioTemporaryFilesRoot;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.*;
+
+public class AssetProcessingServiceImplTest {
+
+    private static final String SITE = "test";
+    private static final String CONFIG_PATH = "/config/studio/asset-processing/asset-processing-config.xml";
+    private static final String UPLOAD_FOLDER = "/static-assets/images/upload";
+    private static final String INPUT_PATH_PATTERN = "/static-assets/images/upload/([^/]+)\\.jpg";
+    private static final String OUTPUT_PATH_FORMAT = "/static-assets/images/%s/$1.jpg";
+
+    private ContentService contentService;
+    private AssetProcessingConfigReader configReader;
+    private ExecutorService executor;
+    private AssetProcessingServiceImpl service;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        File tmpRoot = getStudioTemporaryFilesRoot().toFile();
+        if (!tmpRoot.exists()) {
+            FileUtils.forceMkdir(tmpRoot);
+        }
+
+        contentService = mock(ContentService.class);
+        when(contentService.getContent(SITE, CONFIG_PATH)).thenAnswer(invocation ->
+                new ByteArrayInputStream(new byte[0]));
+        when(contentService.writeContentAsset(anyString(), anyString(), anyString(), any(InputStream.class),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull()))
+                .thenAnswer(invocation -> Map.of("success", true, "message",
+                        invocation.getArgument(1, String.class) + invocation.getArgument(2, String.class)));
+
+        configReader = mock(AssetProcessingConfigReader.class);
+        when(configReader.readConfig(any(InputStream.class)))
+                .thenReturn(List.of(createPipelineConfig("web"), createPipelineConfig("mobile")));
+
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(configurationService.getCacheKey(SITE, null, CONFIG_PATH, null, "object"))
+                .thenReturn(SITE + ":" + CONFIG_PATH + ":object");
+        Cache<String, List<ProcessorPipelineConfiguration>> cache = CacheBuilder.newBuilder().build();
+
+        executor = Executors.newFixedThreadPool(4);
+
+        service = new AssetProcessingServiceImpl(CONFIG_PATH, contentService, configReader,
+                new AssetProcessorPipelineResolverImpl(createProcessorResolver()));
+        service.setConfigurationService(configurationService);
+        service.setConfigurationCache(cache);
+        service.setTaskExecutor(executor);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConfigIsReadOnce() throws Exception {
+        service.processAsset(SITE, UPLOAD_FOLDER, "a.jpg", input(), null, null, null, null, null, null, null);
+        service.processAsset(SITE, UPLOAD_FOLDER, "b.jpg", input(), null, null, null, null, null, null, null);
+
+        verify(contentService, times(1)).getContent(SITE, CONFIG_PATH);
+        verify(configReader, times(1)).readConfig(any(InputStream.class));
+    }
+
+    @Test
+    public void testUnmatchedAssetIsWrittenDirectly() throws Exception {
+        InputStream in = input();
+        Map<String, Object> result = service.processAsset(SITE, "/static-assets/docs", "a.pdf", in, null, null, null,
+                null, null, null, null);
+
+        assertEquals(result.get("message"), "/static-assets/docs/a.pdf");
+        verify(contentService).writeContentAsset(eq(SITE), eq("/static-assets/docs"), eq("a.pdf"), eq(in),
+                isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+    }
+
+    @Test
+    public void testPipelinesOutputsAreWrittenInOrder() throws Exception {
+        Map<String, Object> result = service.processAsset(SITE, UPLOAD_FOLDER, "a.jpg", input(), null, null, null,
+                null, null, null, null);
+
+        // The result of the first output is returned
+        assertEquals(result.get("message"), "/static-assets/images/web/a.jpg");
+        verify(contentService).writeContentAsset(eq(SITE), eq("/static-assets/images/web/"), eq("a.jpg"),
+                any(InputStream.class), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+        verify(contentService).writeContentAsset(eq(SITE), eq("/static-assets/images/mobile/"), eq("a.jpg"),
+                any(InputStream.class), isNull(), isNull(), isNull(), isNull(), isNull(), isNull(), isNull());
+    }
+
+    @Test
+    public void testTempFilesAreDeleted() throws Exception {
+        List<Path> outputFiles = Collections.synchronizedList(new ArrayList<>());
+        service = new AssetProcessingServiceImpl(CONFIG_PATH, contentService, configReader,
+                new AssetProcessorPipelineResolverImpl(config -> (processorConfig, matcher, input) -> {
+                    Asset output = createOutput(processorConfig, matcher);
+                    outputFiles.add(output.getFilePath());
+                    return output;
+                }));
+        service.setTaskExecutor(executor);
+
+        service.processAsset(SITE, UPLOAD_FOLDER, "a.jpg", input(), null, null, null, null, null, null, null);
+
+        assertEquals(outputFiles.size(), 2);
+        outputFiles.forEach(file -> assertFalse(Files.exists(file), "Temp file " + file + " was not deleted"));
+    }
+
+    private InputStream input() {
+        return new ByteArrayInputStream("image".getBytes());
+    }
+
+    private ProcessorPipelineConfiguration createPipelineConfig(String rendition) {
+        ProcessorConfiguration processorConfig = new ProcessorConfiguration();
+        processorConfig.setType("test");
+        processorConfig.setOutputPathFormat(String.format(OUTPUT_PATH_FORMAT, rendition));
+
+        ProcessorPipelineConfiguration config = new ProcessorPipelineConfiguration();
+        config.setKeepOriginal(false);
+        config.setInputPathPattern(INPUT_PATH_PATTERN);
+        config.setProcessorsConfig(List.of(processorConfig));
+
+        return config;
+    }
+
+    private AssetProcessorResolver createProcessorResolver() {
+        return config -> (processorConfig, matcher, input) -> createOutput(processorConfig, matcher);
+    }
+
+    private Asset createOutput(ProcessorConfiguration processorConfig, Matcher matcher)
+            throws AssetProcessingException {
+        try {
+            String repoPath = processorConfig.getOutputPathFormat().replace("$1", matcher.group(1));
+            return new Asset(repoPath, Files.createTempFile(getStudioTemporaryFilesRoot(), "output", ".jpg"));
+        } catch (Exception e) {
+            throw new AssetProcessingException(e);
+        }
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.content;
+
+import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
+import org.craftercms.studio.api.v1.exception.ServiceLayerException;
+import org.craftercms.studio.api.v1.repository.ContentRepository;
+import org.craftercms.studio.api.v1.repository.RepositoryItem;
+import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
+import org.craftercms.studio.api.v1.service.content.ContentItemIdGenerator;
+import org.craftercms.studio.api.v1.service.content.DmPageNavigationOrderService;
+import org.craftercms.studio.api.v1.service.dependency.DependencyService;
+import org.craftercms.studio.api.v1.to.ContentItemTO;
+import org.craftercms.studio.impl.v1.service.content.ContentServiceImpl.BulkCopyItem;
+import org.craftercms.studio.model.clipboard.PasteItem;
+import org.dom4j.Document;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_PAGE_GROUP_ID;
+import static org.craftercms.studio.api.v1.constant.DmConstants.KEY_PAGE_ID;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ContentServiceImplBulkCopyTest {
+
+    private static final String SITE = "my_test_site";
+    private static final String PAGE = "/site/website/a/index.xml";
+    private static final String CHILD_PAGE = "/site/website/a/b/index.xml";
+    private static final String TARGET = "/site/website/target";
+
+    private static final String PAGE_CONTENT = """
+            <page>
+              <objectId>old-id</objectId>
+              <objectGroupId>old-group</objectGroupId>
+              <file-name>index.xml</file-name>
+              <folder-name>a</folder-name>
+              <internal-name>Page A</internal-name>
+            </page>
+            """;
+
+    private ContentRepository contentRepository;
+    private DmPageNavigationOrderService navigationOrderService;
+    private ContentServiceImpl contentService;
+
+    @BeforeMethod
+    public void setUp() throws ServiceLayerException {
+        contentRepository = mock(ContentRepository.class);
+        navigationOrderService = mock(DmPageNavigationOrderService.class);
+        ContentItemIdGenerator idGenerator = mock(ContentItemIdGenerator.class);
+        when(idGenerator.getIds()).thenAnswer(invocation -> {
+            Map<String, String> ids = new HashMap<>();
+            ids.put(KEY_PAGE_ID, "new-id");
+            ids.put(KEY_PAGE_GROUP_ID, "new-group");
+            return ids;
+        });
+
+        contentService = spy(new ContentServiceImpl());
+        contentService.setContentRepository(contentRepository);
+        contentService.setDmPageNavigationOrderService(navigationOrderService);
+        contentService.setContentItemIdGenerator(idGenerator);
+        contentService.setServicesConfig(mock(ServicesConfig.class));
+        contentService.setDependencyService(mock(DependencyService.class));
+
+        doReturn(getContentItem(false)).when(contentService).getContentItem(anyString(), anyString(), anyInt());
+        doReturn(getContentItem(false)).when(contentService).getContentItem(anyString(), anyString());
+    }
+
+    @Test(testName = "Plan the copy of a tree, parents before children")
+    public void testPlanBulkCopy() throws ServiceLayerException {
+        Map<String, BulkCopyItem> copies = new HashMap<>();
+        List<BulkCopyItem> pending = new ArrayList<>();
+        List<String> pastedPaths = new LinkedList<>();
+
+        contentService.planBulkCopy(SITE, List.of(getPasteItem()), TARGET, copies, pending, pastedPaths);
+
+        assertEquals(2, copies.size());
+        assertEquals(List.of(TARGET + "/a/index.xml", TARGET + "/a/b/index.xml"),
+                pending.stream().map(copy -> copy.newPath).toList());
+        assertEquals(CHILD_PAGE, copies.get(TARGET + "/a/b/index.xml").fromPath);
+        // The root is the last pasted path
+        assertEquals(List.of(TARGET + "/a/b/index.xml", TARGET + "/a/index.xml"), pastedPaths);
+    }
+
+    @Test(testName = "Plan the copy of a tree into a folder with the same name")
+    public void testPlanBulkCopyOnCollision() throws ServiceLayerException {
+        when(contentRepository.contentExists(SITE, TARGET + "/a/index.xml")).thenReturn(true);
+        RepositoryItem existing = new RepositoryItem();
+        existing.path = TARGET;
+        existing.name = "a";
+        existing.isFolder = true;
+        when(contentRepository.getContentChildren(SITE, TARGET)).thenReturn(new RepositoryItem[] { existing });
+
+        Map<String, BulkCopyItem> copies = new HashMap<>();
+        List<BulkCopyItem> pending = new ArrayList<>();
+        List<String> pastedPaths = new LinkedList<>();
+
+        contentService.planBulkCopy(SITE, List.of(getPasteItem()), TARGET, copies, pending, pastedPaths);
+
+        BulkCopyItem root = pending.get(0);
+        assertEquals(TARGET + "/a-copy-1/index.xml", root.newPath);
+        assertEquals("1", root.pathMap.modifier);
+        // The children follow the new name of the parent
+        assertEquals(TARGET + "/a-copy-1/b/index.xml", pending.get(1).newPath);
+    }
+
+    @Test(testName = "Rewrite the content of a copy")
+    public void testRewriteBulkCopyItem() throws ServiceLayerException, IOException {
+        doReturn(getPageContent()).when(contentService).getContent(SITE, PAGE);
+        BulkCopyItem copy = new BulkCopyItem(PAGE, getPathMap(TARGET + "/a-copy-1/index.xml", "a-copy-1", "1"),
+                getContentItem(false));
+
+        List<BulkCopyItem> dependencies = contentService.rewriteBulkCopyItem(SITE, copy, new HashMap<>());
+
+        assertTrue(dependencies.isEmpty());
+        assertFalse(copy.failed);
+        Document document = copy.document;
+        assertNotNull(document);
+        assertEquals("new-id", document.getRootElement().elementText("objectId"));
+        assertEquals("new-group", document.getRootElement().elementText("objectGroupId"));
+        assertEquals("a-copy-1", document.getRootElement().elementText("folder-name"));
+        assertEquals("Page A (Copy 1)", document.getRootElement().elementText("internal-name"));
+        // The nav order is assigned later, one copy at a time
+        verify(navigationOrderService, never()).addNavOrder(anyString(), anyString(), any(Document.class));
+
+        contentService.writeBulkCopyDocument(SITE, copy);
+
+        verify(navigationOrderService).addNavOrder(SITE, TARGET + "/a-copy-1", document);
+        assertNull(copy.document);
+        try (InputStream content = copy.content.getInputStream()) {
+            String xml = new String(content.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(xml.contains("<objectId>new-id</objectId>"));
+        }
+    }
+
+    @Test(testName = "A copy that can't be read is marked as failed")
+    public void testRewriteBulkCopyItemFailure() throws ServiceLayerException, IOException {
+        doThrow(new ContentNotFoundException()).when(contentService).getContent(SITE, PAGE);
+        BulkCopyItem copy = new BulkCopyItem(PAGE, getPathMap(TARGET + "/a/index.xml", "a", ""),
+                getContentItem(false));
+
+        contentService.rewriteBulkCopyItem(SITE, copy, new HashMap<>());
+
+        assertTrue(copy.failed);
+        assertNull(copy.document);
+        assertNull(copy.content);
+    }
+
+    private PasteItem getPasteItem() {
+        PasteItem child = new PasteItem();
+        child.setPath(CHILD_PAGE);
+        PasteItem item = new PasteItem();
+        item.setPath(PAGE);
+        item.setChildren(List.of(child));
+        return item;
+    }
+
+    private ContentItemTO getContentItem(boolean folder) {
+        ContentItemTO item = new ContentItemTO();
+        item.setFolder(folder);
+        item.setContentType("/page/entry");
+        return item;
+    }
+
+    private ContentServiceImpl.PastedPathMap getPathMap(String filePath, String folder, String modifier) {
+        ContentServiceImpl.PastedPathMap pathMap = contentService.new PastedPathMap();
+        pathMap.filePath = filePath;
+        pathMap.fileName = "index.xml";
+        pathMap.fileFolder = folder;
+        pathMap.modifier = modifier;
+        return pathMap;
+    }
+
+    private InputStream getPageContent() {
+        return new ByteArrayInputStream(PAGE_CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
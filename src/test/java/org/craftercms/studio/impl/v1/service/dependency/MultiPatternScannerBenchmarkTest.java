@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.craftercms.studio.impl.v1.service.dependency.MultiPatternScannerTest.CONTENT;
+import static org.craftercms.studio.impl.v1.service.dependency.MultiPatternScannerTest.FIND_REGEXES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Extracts the dependencies of a large page compiling and running every find pattern on its own, like the resolver
+ * did for every item, and with a {@link MultiPatternScanner} compiled once.
+ */
+@Benchmark
+public class MultiPatternScannerBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultiPatternScannerBenchmarkTest.class);
+
+    private static final int ITEMS = Integer.getInteger("studio.benchmark.dependencyItems", 2000);
+    private static final int SECTIONS_PER_PAGE = 50;
+
+    @Test
+    public void comparePerPatternAndSinglePassExtraction() {
+        StringBuilder page = new StringBuilder();
+        for (int i = 0; i < SECTIONS_PER_PAGE; i++) {
+            page.append(CONTENT.replace("hero", "hero-" + i)).append('\n');
+        }
+        String content = page.toString();
+
+        List<Pattern> patterns = new ArrayList<>();
+        FIND_REGEXES.forEach(regex -> patterns.add(Pattern.compile(regex)));
+        MultiPatternScanner scanner = new MultiPatternScanner(patterns);
+
+        // Warm up both approaches before measuring
+        int expected = extractPerPattern(content);
+        assertEquals(expected, extractSinglePass(scanner, content));
+
+        long start = System.nanoTime();
+        long perPatternMatches = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            perPatternMatches += extractPerPattern(content);
+        }
+        long perPatternTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long singlePassMatches = 0;
+        for (int i = 0; i < ITEMS; i++) {
+            singlePassMatches += extractSinglePass(scanner, content);
+        }
+        long singlePassTime = System.nanoTime() - start;
+
+        logger.info("Extracted dependencies from '{}' items of '{}' chars: per pattern took '{}' ms, " +
+                        "single pass took '{}' ms", ITEMS, content.length(), perPatternTime / 1_000_000,
+                singlePassTime / 1_000_000);
+        assertEquals(perPatternMatches, singlePassMatches, "Both approaches should find the same dependencies");
+    }
+
+    private int extractPerPattern(String content) {
+        int matches = 0;
+        for (String regex : FIND_REGEXES) {
+            Matcher matcher = Pattern.compile(regex).matcher(content);
+            while (matcher.find()) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private int extractSinglePass(MultiPatternScanner scanner, String content) {
+        int[] matches = new int[1];
+        scanner.scan(content, (index, value) -> matches[0]++);
+        return matches[0];
+    }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v1.service.dependency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.util.regex.Pattern.CASE_INSENSITIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MultiPatternScannerTest {
+
+    /**
+     * Find patterns from the default resolver configurations
+     */
+    public static final List<String> FIND_REGEXES = List.of(
+            "/site/website/([^<]+)\\.xml",
+            "/site/components/([^<]+)\\.xml",
+            "/site/(?!website/|components/)([^<]+)\\.xml",
+            "/static-assets/([^<\"'\\)\\?\\#]+)",
+            "/templates/([^<\"]+)\\.ftl",
+            "/scripts/([^<\"]+)\\.groovy",
+            "import scripts.(.*)",
+            "<content-type>/(.*)/(.*)</content-type>",
+            "<component.+>[\\s\\S]*?<\\/component>",
+            "<value>\\/(?:component|page).+?<\\/value>",
+            "\\/config\\/studio\\/content-types\\/[^,]+?\\/form-definition\\.xml",
+            "<single>\\/.+?<\\/single>",
+            "<multiple>\\/.+?<\\/multiple>"
+    );
+
+    public static final String CONTENT =
+            "<page>\n" +
+            "<content-type>/page/article</content-type>\n" +
+            "<display-template>/templates/web/pages/article.ftl</display-template>\n" +
+            "<header><item><key>/site/components/header.xml</key>" +
+            "<include>/site/components/header.xml</include></item></header>\n" +
+            "<links><item><key>/site/website/about/index.xml</key></item></links>\n" +
+            "<taxonomy>/site/taxonomy/categories.xml</taxonomy>\n" +
+            "<image>/static-assets/images/logo.png?v=1</image>\n" +
+            "<style>url('/static-assets/css/main.css')</style>\n" +
+            "<script>/scripts/pages/article.groovy</script>\n" +
+            "<body>import scripts.libs.Utils</body>\n" +
+            "<sections><item><component id=\"a\"><content-type>/component/hero</content-type>" +
+            "<value>/component/hero</value><image>/static-assets/images/hero.jpg</image></component></item>" +
+            "<item><component id=\"b\"><title>B</title></component></item></sections>\n" +
+            "<config>/config/studio/content-types/page/article/form-definition.xml," +
+            "/config/studio/content-types/component/hero/form-definition.xml</config>\n" +
+            "<single>/page/a</single><multiple>/component/a</multiple>\n" +
+            "</page>";
+
+    @Test
+    public void matchesAreTheSameAsFindTest() {
+        List<Pattern> patterns = compile(FIND_REGEXES);
+
+        assertEquals(findAll(patterns, CONTENT), scanAll(patterns, CONTENT));
+    }
+
+    @Test
+    public void overlappingAndRepeatedMatchesTest() {
+        List<Pattern> patterns = compile(List.of("aa", "a+b", "ab", "b(?=c)", "(?<=a)bc"));
+        String content = "aaaabcaab aabc";
+
+        assertEquals(findAll(patterns, content), scanAll(patterns, content));
+    }
+
+    @Test
+    public void patternsWithoutPrefixFallBackToFindTest() {
+        List<Pattern> patterns = new ArrayList<>(compile(List.of(".*\\.xml", "(?:a|b)c", "x?y", "a|b")));
+        patterns.add(Pattern.compile("abc", CASE_INSENSITIVE));
+        String content = "ABC abc bc y xy /site/a.xml";
+
+        assertEquals(findAll(patterns, content), scanAll(patterns, content));
+        patterns.forEach(pattern -> assertNull(MultiPatternScanner.getLiteralPrefix(pattern)));
+    }
+
+    @Test
+    public void literalPrefixTest() {
+        assertEquals("/site/website/", prefix("/site/website/([^<]+)\\.xml"));
+        assertEquals("<value>/", prefix("<value>\\/(?:component|page).+?<\\/value>"));
+        assertEquals("import scripts", prefix("import scripts.(.*)"));
+        assertEquals("ab", prefix("abc?"));
+        assertEquals("abc", prefix("abc+d"));
+        assertNull(prefix("\\Qa|b\\E"));
+        assertNull(prefix("\\w+"));
+    }
+
+    private String prefix(String regex) {
+        return MultiPatternScanner.getLiteralPrefix(Pattern.compile(regex));
+    }
+
+    private List<Pattern> compile(List<String> regexes) {
+        List<Pattern> patterns = new ArrayList<>();
+        regexes.forEach(regex -> patterns.add(Pattern.compile(regex)));
+        return patterns;
+    }
+
+    private List<List<String>> findAll(List<Pattern> patterns, String content) {
+        List<List<String>> matches = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            List<String> patternMatches = new ArrayList<>();
+            Matcher matcher = pattern.matcher(content);
+            while (matcher.find()) {
+                patternMatches.add(matcher.group());
+            }
+            matches.add(patternMatches);
+        }
+        return matches;
+    }
+
+    private List<List<String>> scanAll(List<Pattern> patterns, String content) {
+        List<List<String>> matches = new ArrayList<>();
+        patterns.forEach(pattern -> matches.add(new ArrayList<>()));
+        new MultiPatternScanner(patterns).scan(content, (index, value) -> matches.get(index).add(value));
+        return matches;
+    }
+
+}
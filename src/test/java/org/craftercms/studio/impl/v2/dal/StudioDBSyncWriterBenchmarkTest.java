@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.dal;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.craftercms.studio.api.v2.utils.SqlStatementGeneratorUtils.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Replays a large synthetic repository delta against an embedded MariaDB using both the legacy SQL script approach
+ * and the batched {@link StudioDBSyncWriterImpl}.
+ */
+@Benchmark
+public class StudioDBSyncWriterBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudioDBSyncWriterBenchmarkTest.class);
+
+    private static final long SITE_ID = 1;
+    private static final String SITE = "benchmark";
+    private static final long USER_ID = 1;
+    private static final int FILES = Integer.getInteger("studio.benchmark.syncFiles", 40000);
+    private static final int FILES_PER_FOLDER = 50;
+
+    private static DB db;
+    private static BasicDataSource dataSource;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB("studio_benchmark");
+
+        dataSource = new BasicDataSource();
+        dataSource.setUrl(config.getURL("studio_benchmark"));
+        dataSource.setUsername("root");
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (" +
+                    " id BIGINT NOT NULL AUTO_INCREMENT, site_id BIGINT NOT NULL, path VARCHAR(2048) NOT NULL," +
+                    " preview_url VARCHAR(2048) NULL, state BIGINT NOT NULL, locked_by BIGINT NULL," +
+                    " created_by BIGINT NULL, created_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+                    " last_modified_by BIGINT NULL, last_modified_on TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP," +
+                    " last_published_on TIMESTAMP NULL, label VARCHAR(256) NULL, content_type_id VARCHAR(256) NULL," +
+                    " system_type VARCHAR(64) NULL, mime_type VARCHAR(96) NULL, locale_code VARCHAR(16) NULL," +
+                    " translation_source_id BIGINT NULL, size BIGINT NULL, parent_id BIGINT NULL," +
+                    " previous_path VARCHAR(2048) NULL, ignored INT NOT NULL DEFAULT 0, PRIMARY KEY (id)," +
+                    " FOREIGN KEY item_ix_parent(parent_id) REFERENCES item (id) ON DELETE CASCADE," +
+                    " UNIQUE uq_i_site_path (site_id, path(900)), INDEX item_i_path (path ASC))" +
+                    " ENGINE = InnoDB DEFAULT CHARSET = utf8 ROW_FORMAT = DYNAMIC");
+            statement.execute("CREATE TABLE dependency (" +
+                    " id BIGINT(20) NOT NULL AUTO_INCREMENT, site VARCHAR(50) NOT NULL, source_path TEXT NOT NULL," +
+                    " target_path TEXT NOT NULL, type VARCHAR(50) NOT NULL, valid BIT NOT NULL DEFAULT 1," +
+                    " PRIMARY KEY (id), KEY dependency_site_idx (site)," +
+                    " KEY dependency_sourcepath_idx (source_path(1000)))" +
+                    " ENGINE = InnoDB DEFAULT CHARSET = utf8 ROW_FORMAT = DYNAMIC");
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    @Test
+    public void compareScriptRunnerAndSyncWriter() throws Exception {
+        List<String> paths = generatePaths();
+
+        truncate();
+        long start = System.currentTimeMillis();
+        replayWithScriptRunner(paths);
+        long scriptTime = System.currentTimeMillis() - start;
+        long scriptItems = count("item");
+
+        truncate();
+        start = System.currentTimeMillis();
+        replayWithSyncWriter(paths);
+        long writerTime = System.currentTimeMillis() - start;
+        long writerItems = count("item");
+
+        logger.info("Synced '{}' files: script runner took '{}' ms, sync writer took '{}' ms",
+                paths.size(), scriptTime, writerTime);
+        assertEquals(scriptItems, writerItems, "Both approaches should create the same items");
+    }
+
+    private List<String> generatePaths() {
+        List<String> paths = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            int folder = i / FILES_PER_FOLDER;
+            if (i % 2 == 0) {
+                paths.add("/site/website/section-" + folder + "/page-" + i + "/index.xml");
+            } else {
+                paths.add("/site/components/section-" + folder + "/component-" + i + ".xml");
+            }
+        }
+        return paths;
+    }
+
+    private void replayWithScriptRunner(List<String> paths) throws IOException {
+        Path script = Files.createTempFile("repoOperations_", ".sql");
+        Path parentScript = Files.createTempFile("updateParentId_", ".sql");
+        try {
+            ZonedDateTime now = ZonedDateTime.now();
+            for (String path : paths) {
+                for (String ancestor : ancestors(path)) {
+                    Files.write(script, insertItemRow(SITE_ID, ancestor, null, 1, null, USER_ID, now, USER_ID, now,
+                            null, ancestor, null, "folder", null, "en_US", null, 0L, null, null)
+                            .getBytes(UTF_8), StandardOpenOption.APPEND);
+                    Files.write(script, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+                }
+                Files.write(script, insertItemRow(SITE_ID, path, null, 1, null, USER_ID, now, USER_ID, now,
+                        null, path, "/page/article", "page", "application/xml", "en_US", null, 1024L, null, null)
+                        .getBytes(UTF_8), StandardOpenOption.APPEND);
+                Files.write(script, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+                Files.write(script, deleteDependencySourcePathRows(SITE, path).getBytes(UTF_8),
+                        StandardOpenOption.APPEND);
+                Files.write(script, validateDependencies(SITE, path).getBytes(UTF_8), StandardOpenOption.APPEND);
+                Files.write(script, insertDependencyRow(SITE, path, "/static-assets/images/logo.png", "hard", true)
+                        .getBytes(UTF_8), StandardOpenOption.APPEND);
+                Files.write(parentScript, updateParentId(SITE_ID, path, parent(path)).getBytes(UTF_8),
+                        StandardOpenOption.APPEND);
+                Files.write(parentScript, "\n\n".getBytes(UTF_8), StandardOpenOption.APPEND);
+            }
+            StudioDBScriptRunnerImpl scriptRunner = new StudioDBScriptRunnerImpl(" ;", dataSource, 10000);
+            scriptRunner.execute(script.toFile());
+            scriptRunner.execute(parentScript.toFile());
+        } finally {
+            Files.deleteIfExists(script);
+            Files.deleteIfExists(parentScript);
+        }
+    }
+
+    private void replayWithSyncWriter(List<String> paths) throws SQLException {
+        ZonedDateTime now = ZonedDateTime.now();
+        try (StudioDBSyncWriterImpl writer = new StudioDBSyncWriterImpl(dataSource.getConnection(), 1000)) {
+            for (String path : paths) {
+                for (String ancestor : ancestors(path)) {
+                    writer.insertItem(SITE_ID, ancestor, null, 1, null, USER_ID, now, USER_ID, now, null, ancestor,
+                            null, "folder", null, "en_US", null, 0L, null, null);
+                }
+                writer.insertItem(SITE_ID, path, null, 1, null, USER_ID, now, USER_ID, now, null, path,
+                        "/page/article", "page", "application/xml", "en_US", null, 1024L, null, null);
+                writer.deleteDependencySourcePath(SITE, path);
+                writer.setDependenciesValid(SITE, path, true);
+                writer.insertDependency(SITE, path, "/static-assets/images/logo.png", "hard", true);
+                writer.updateParentId(SITE_ID, path, parent(path));
+            }
+            writer.commit();
+        }
+    }
+
+    private List<String> ancestors(String path) {
+        List<String> ancestors = new ArrayList<>();
+        int index = path.indexOf('/', 1);
+        while (index > 0) {
+            ancestors.add(path.substring(0, index));
+            index = path.indexOf('/', index + 1);
+        }
+        return ancestors;
+    }
+
+    private String parent(String path) {
+        return path.substring(0, path.lastIndexOf('/'));
+    }
+
+    private void truncate() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            statement.execute("TRUNCATE TABLE item");
+            statement.execute("TRUNCATE TABLE dependency");
+            statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+    }
+
+    private long count(String table) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+}
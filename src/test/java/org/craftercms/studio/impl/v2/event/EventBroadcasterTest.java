@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.event;
+
+import org.craftercms.studio.api.v2.event.BroadcastEvent;
+import org.craftercms.studio.api.v2.event.BroadcastEventBatch;
+import org.craftercms.studio.api.v2.event.content.ContentEvent;
+import org.craftercms.studio.api.v2.event.repository.RepositoryEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EventBroadcasterTest {
+
+    private static final String SITE = "site";
+    private static final String DESTINATION = EventBroadcaster.DESTINATION_ROOT + "/" + SITE;
+
+    private final List<BroadcastEvent> messages = new CopyOnWriteArrayList<>();
+    private EventBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        broadcaster = new EventBroadcaster() {
+
+            @Override
+            protected void sendEvent(BroadcastEvent event, String destination) {
+                assertEquals(DESTINATION, destination);
+                messages.add(event);
+            }
+
+        };
+        broadcaster.setCoalescingEnabled(true);
+        broadcaster.setWindowMillis(50);
+        broadcaster.setMaxBatchSize(3);
+        broadcaster.setMaxMessagesPerSecond(1000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        broadcaster.destroy();
+    }
+
+    @Test
+    public void singleEventIsSentRightAwayTest() {
+        broadcaster.init();
+
+        broadcaster.publishSiteEvent(event("/site/website/index.xml"));
+
+        assertEquals(1, messages.size());
+    }
+
+    @Test
+    public void burstIsMergedInBatchesTest() throws InterruptedException {
+        broadcaster.init();
+
+        for (String name : List.of("a", "b", "c", "d", "b", "c", "d", "e", "f")) {
+            broadcaster.publishSiteEvent(event("/site/website/" + name + ".xml"));
+        }
+        Thread.sleep(300);
+
+        assertEquals(3, messages.size());
+        assertEquals("/site/website/a.xml", ((ContentEvent) messages.get(0)).getTargetPath());
+        assertEquals(List.of("/site/website/b.xml", "/site/website/c.xml", "/site/website/d.xml"),
+                getPaths(messages.get(1)));
+        assertEquals(List.of("/site/website/e.xml", "/site/website/f.xml"), getPaths(messages.get(2)));
+        assertEquals(9L, broadcaster.getMetrics().get("eventsIn"));
+        assertEquals(3L, broadcaster.getMetrics().get("mergedEvents"));
+        assertEquals(3L, broadcaster.getMetrics().get("messagesOut"));
+    }
+
+    @Test
+    public void messagesAreRateLimitedTest() throws InterruptedException {
+        broadcaster.setMaxBatchSize(1);
+        broadcaster.setMaxMessagesPerSecond(2);
+        broadcaster.init();
+
+        for (int i = 0; i < 5; i++) {
+            broadcaster.publishSiteEvent(event("/site/website/page-" + i + ".xml"));
+        }
+        Thread.sleep(200);
+        assertTrue(messages.size() <= 3);
+
+        Thread.sleep(2000);
+        assertEquals(5, messages.size());
+    }
+
+    @Test
+    public void tooManyEventsAreReplacedByRepositoryEventTest() throws InterruptedException {
+        broadcaster.setMaxPendingEvents(3);
+        broadcaster.init();
+
+        for (int i = 0; i < 10; i++) {
+            broadcaster.publishSiteEvent(event("/site/website/page-" + i + ".xml"));
+        }
+        Thread.sleep(300);
+
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(1) instanceof RepositoryEvent);
+        assertEquals(1L, broadcaster.getMetrics().get("overflows"));
+    }
+
+    @Test
+    public void eventsAreSentDirectlyWhenDisabledTest() {
+        broadcaster.setCoalescingEnabled(false);
+        broadcaster.init();
+
+        for (int i = 0; i < 5; i++) {
+            broadcaster.publishSiteEvent(event("/site/website/index.xml"));
+        }
+
+        assertEquals(5, messages.size());
+    }
+
+    private ContentEvent event(String path) {
+        return new ContentEvent(null, SITE, path);
+    }
+
+    private List<String> getPaths(BroadcastEvent message) {
+        return ((BroadcastEventBatch) message).getEvents().stream()
+                .map(event -> ((ContentEvent) event).getTargetPath())
+                .collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.job;
+
+import org.craftercms.studio.api.v1.dal.PublishQueueSummary;
+import org.craftercms.studio.api.v1.service.GeneralLockService;
+import org.craftercms.studio.api.v1.service.deployment.PublishingManager;
+import org.craftercms.studio.api.v2.event.publish.PublishQueueEvent;
+import org.craftercms.studio.api.v2.utils.spring.context.SystemStatusProvider;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PublishingSchedulerTest {
+
+    private static final String SITE = "site1";
+
+    @Mock
+    private TaskScheduler taskScheduler;
+    @Mock
+    private PublishingManager publishingManager;
+    @Mock
+    private GeneralLockService generalLockService;
+    @Mock
+    private SystemStatusProvider systemStatusProvider;
+    @Mock
+    private StudioPublisherTask publisherTask;
+    @Mock
+    private ScheduledFuture<?> future;
+
+    private AutoCloseable mocks;
+    private PublishingScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(systemStatusProvider.isSystemReady()).thenReturn(true);
+        when(generalLockService.tryLock(anyString())).thenReturn(true);
+        doReturn(future).when(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+
+        scheduler = new PublishingScheduler();
+        scheduler.setEnabled(true);
+        scheduler.setRetryDelay(1000);
+        // Run the publisher in the calling thread
+        scheduler.setTaskExecutor(Runnable::run);
+        scheduler.setTaskScheduler(taskScheduler);
+        scheduler.setPublishingManager(publishingManager);
+        scheduler.setGeneralLockService(generalLockService);
+        scheduler.setSystemStatusProvider(systemStatusProvider);
+        scheduler.setPublisherTask(publisherTask);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    public void queuedItemsArePublishedRightAwayTest() {
+        ZonedDateTime nextDate = ZonedDateTime.now().plusHours(1);
+        when(publishingManager.getPublishQueueSummary(SITE)).thenReturn(summary(2, 0, nextDate));
+
+        scheduler.onPublishQueueEvent(new PublishQueueEvent(SITE));
+
+        verify(publisherTask).executeNow(SITE);
+        verify(generalLockService).unlock(anyString());
+        // The items left in the queue are scheduled, the publisher should wake up for them
+        verify(taskScheduler).schedule(any(Runnable.class), eq(nextDate.toInstant()));
+        Map<String, Object> siteMetrics = getSiteMetrics();
+        assertEquals(2, siteMetrics.get("queueDepth"));
+        assertEquals(nextDate.toInstant().toString(), siteMetrics.get("nextWakeUp"));
+    }
+
+    @Test
+    public void scheduledItemsWaitForTheirDateTest() {
+        ZonedDateTime later = ZonedDateTime.now().plusMinutes(30);
+        ZonedDateTime earlier = ZonedDateTime.now().plusMinutes(10);
+
+        scheduler.onPublishQueueEvent(new PublishQueueEvent(SITE, later));
+        scheduler.onPublishQueueEvent(new PublishQueueEvent(SITE, earlier));
+        scheduler.onPublishQueueEvent(new PublishQueueEvent(SITE, later));
+
+        verify(publisherTask, never()).executeNow(anyString());
+        verify(taskScheduler).schedule(any(Runnable.class), eq(later.toInstant()));
+        verify(taskScheduler).schedule(any(Runnable.class), eq(earlier.toInstant()));
+        verify(future).cancel(false);
+        assertEquals(earlier.toInstant().toString(), getSiteMetrics().get("nextWakeUp"));
+    }
+
+    @Test
+    public void lockedSiteIsRetriedTest() {
+        when(generalLockService.tryLock(anyString())).thenReturn(false);
+
+        scheduler.onPublishQueueEvent(new PublishQueueEvent(SITE));
+
+        verify(publisherTask, never()).executeNow(anyString());
+        verify(taskScheduler).schedule(any(Runnable.class), any(Instant.class));
+        assertEquals(1L, scheduler.getMetrics().get("lockedRuns"));
+    }
+
+    @Test
+    public void reconcileSubmitsSitesWithDueItemsTest() {
+        when(publishingManager.getPublishQueueSummaries()).thenReturn(List.of(summary(3, 3, null)));
+
+        scheduler.reconcile();
+
+        verify(publisherTask, times(1)).executeNow(SITE);
+        // Nothing left in the queue after publishing, the site is dropped in the next check
+        when(publishingManager.getPublishQueueSummaries()).thenReturn(List.of());
+        scheduler.reconcile();
+        assertFalse(scheduler.queues.containsKey(SITE));
+    }
+
+    @Test
+    public void clockSkipsTheScheduledTaskTest() {
+        assertTrue(scheduler.handles(publisherTask));
+        assertFalse(scheduler.handles(mock(StudioPublisherTask.class)));
+        scheduler.setEnabled(false);
+        assertFalse(scheduler.handles(publisherTask));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getSiteMetrics() {
+        Map<String, Object> sites = (Map<String, Object>) scheduler.getMetrics().get("sites");
+        return (Map<String, Object>) sites.get(SITE);
+    }
+
+    private PublishQueueSummary summary(int items, int dueItems, ZonedDateTime nextScheduledDate) {
+        PublishQueueSummary summary = new PublishQueueSummary();
+        summary.setSite(SITE);
+        summary.setItems(items);
+        summary.setDueItems(dueItems);
+        summary.setNextScheduledDate(nextScheduledDate);
+        return summary;
+    }
+
+}
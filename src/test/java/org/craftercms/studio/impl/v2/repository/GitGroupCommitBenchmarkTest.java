@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.craftercms.studio.test.util.Benchmark;
+import org.eclipse.jgit.api.CommitCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Saves files from several concurrent writers to a site repository committing every save on its own while holding
+ * the repository lock, like the default write path does, and grouping the commits with {@link GitGroupCommitter}.
+ */
+@Benchmark
+public class GitGroupCommitBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitGroupCommitBenchmarkTest.class);
+
+    private static final int WRITERS = Integer.getInteger("studio.benchmark.groupCommitWriters", 40);
+    private static final int SAVES_PER_WRITER = Integer.getInteger("studio.benchmark.groupCommitSaves", 25);
+    private static final int EXISTING_FILES = 2000;
+    private static final String SITE = "benchmark";
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void compareSingleAndGroupCommits() throws Exception {
+        double singleSavesPerSecond = run("single", false);
+        double groupSavesPerSecond = run("group", true);
+
+        logger.info("'{}' writers saved '{}' files each: single commits did '{}' saves/sec, group commits did " +
+                        "'{}' saves/sec", WRITERS, SAVES_PER_WRITER, String.format("%.1f", singleSavesPerSecond),
+                String.format("%.1f", groupSavesPerSecond));
+    }
+
+    private double run(String name, boolean groupCommits) throws Exception {
+        Path repoPath = root.resolve(name);
+        try (Git git = Git.init().setDirectory(repoPath.toFile()).call()) {
+            // Start from a repository with some content, so each commit has a real index to write
+            for (int i = 0; i < EXISTING_FILES; i++) {
+                Path file = repoPath.resolve("site/website/existing-" + (i / 50) + "/page-" + i + "/index.xml");
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, "<page>" + i + "</page>");
+            }
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("Initial commit").call();
+
+            ReentrantLock repoLock = new ReentrantLock();
+            GitGroupCommitter committer = new GitGroupCommitter();
+            committer.setEnabled(true);
+            GitGroupCommitter.GroupCommit groupCommit = requests -> {
+                String[] paths = requests.stream()
+                                         .flatMap(request -> Arrays.stream(request.getPaths()))
+                                         .toArray(String[]::new);
+                String commitId = commit(git, repoLock, requests.get(0).getAuthor(), "Group commit", paths);
+                return Collections.nCopies(requests.size(), commitId);
+            };
+
+            ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+            try {
+                long start = System.nanoTime();
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < WRITERS; w++) {
+                    int writer = w;
+                    futures.add(executor.submit(() -> {
+                        PersonIdent author = new PersonIdent("Author " + writer, "author" + writer + "@example.com");
+                        for (int s = 0; s < SAVES_PER_WRITER; s++) {
+                            String path = "site/website/writer-" + writer + "/page-" + s + "/index.xml";
+                            String commitId;
+                            if (groupCommits) {
+                                write(git, repoLock, repoPath, path, s);
+                                commitId = committer.commit(SITE, new GitGroupCommitter.Request("Save " + path,
+                                        author, path), groupCommit);
+                            } else {
+                                repoLock.lock();
+                                try {
+                                    write(git, repoLock, repoPath, path, s);
+                                    commitId = commit(git, repoLock, author, "Save " + path, path);
+                                } finally {
+                                    repoLock.unlock();
+                                }
+                            }
+                            assertNotNull(commitId);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                long elapsed = System.nanoTime() - start;
+                return WRITERS * SAVES_PER_WRITER * 1000.0 / NANOSECONDS.toMillis(elapsed);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private void write(Git git, ReentrantLock repoLock, Path repoPath, String path, int version) throws Exception {
+        repoLock.lock();
+        try {
+            Path file = repoPath.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, "<page>" + version + "</page>");
+            git.add().addFilepattern(path).call();
+        } finally {
+            repoLock.unlock();
+        }
+    }
+
+    private String commit(Git git, ReentrantLock repoLock, PersonIdent author, String message, String... paths)
+            throws Exception {
+        repoLock.lock();
+        try {
+            CommitCommand commitCommand = git.commit().setAuthor(author).setCommitter(author).setMessage(message);
+            Arrays.stream(paths).forEach(commitCommand::setOnly);
+            return commitCommand.call().getName();
+        } finally {
+            repoLock.unlock();
+        }
+    }
+
+}
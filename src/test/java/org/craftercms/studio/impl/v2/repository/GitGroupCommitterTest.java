@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.craftercms.studio.api.v1.exception.ServiceLayerException;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GitGroupCommitterTest {
+
+    private static final String SITE = "test";
+    private static final int WRITERS = 20;
+
+    private GitGroupCommitter committer;
+
+    @BeforeEach
+    public void setUp() {
+        committer = new GitGroupCommitter();
+        committer.setEnabled(true);
+        committer.setWindowMillis(200);
+        committer.setMaxGroupRequests(WRITERS);
+    }
+
+    @Test
+    public void concurrentWritesAreCommittedTogetherTest() throws Exception {
+        List<Integer> groupSizes = new CopyOnWriteArrayList<>();
+        AtomicInteger commits = new AtomicInteger();
+        GitGroupCommitter.GroupCommit groupCommit = requests -> {
+            groupSizes.add(requests.size());
+            String commitId = "commit-" + commits.incrementAndGet();
+            List<String> commitIds = new ArrayList<>();
+            requests.forEach(request -> commitIds.add(commitId));
+            return commitIds;
+        };
+
+        List<String> results = runWriters(WRITERS, groupCommit);
+
+        assertEquals(1, groupSizes.size(), "All writes should be committed in a single group");
+        assertEquals(WRITERS, groupSizes.get(0));
+        results.forEach(result -> assertEquals("commit-1", result));
+    }
+
+    @Test
+    public void eachWriterGetsItsOwnResultTest() throws Exception {
+        // Simulates a group commit that failed and was committed one by one
+        GitGroupCommitter.GroupCommit groupCommit = requests -> {
+            List<String> commitIds = new ArrayList<>();
+            requests.forEach(request -> commitIds.add(request.getPaths()[0].endsWith("3") ? null :
+                    "commit-" + request.getPaths()[0]));
+            return commitIds;
+        };
+
+        List<String> results = runWriters(WRITERS, groupCommit);
+
+        for (int i = 0; i < WRITERS; i++) {
+            String path = "/site/website/page-" + i;
+            assertEquals(path.endsWith("3") ? null : "commit-" + path, results.get(i));
+        }
+    }
+
+    @Test
+    public void groupFailureIsReportedToAllWritersTest() {
+        committer.setWindowMillis(0);
+        GitGroupCommitter.GroupCommit groupCommit = requests -> {
+            throw new IllegalStateException("Failed");
+        };
+
+        assertThrows(ServiceLayerException.class, () -> committer.commit(SITE, request(0), groupCommit));
+    }
+
+    @Test
+    public void groupsAreLimitedInSizeTest() throws Exception {
+        committer.setMaxGroupRequests(5);
+        committer.setWindowMillis(1000);
+        Set<Integer> groupSizes = ConcurrentHashMap.newKeySet();
+        GitGroupCommitter.GroupCommit groupCommit = requests -> {
+            groupSizes.add(requests.size());
+            List<String> commitIds = new ArrayList<>();
+            requests.forEach(request -> commitIds.add("commit"));
+            return commitIds;
+        };
+
+        long start = System.nanoTime();
+        runWriters(WRITERS, groupCommit);
+
+        assertEquals(Set.of(5), groupSizes);
+        // Full groups don't wait for the window
+        assertTrue(System.nanoTime() - start < SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void syncWaitsForWritesInProgressTest() throws Exception {
+        committer.beginWrite(SITE);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertFalse(executor.submit(() -> committer.lockWrites(SITE, 100, MILLISECONDS)).get());
+            committer.endWrite(SITE);
+            assertTrue(committer.lockWrites(SITE, 100, MILLISECONDS));
+            committer.unlockWrites(SITE);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void removeSiteFailsPendingWritesTest() throws Exception {
+        committer.setWindowMillis(10000);
+        AtomicInteger commits = new AtomicInteger();
+        GitGroupCommitter.GroupCommit groupCommit = requests -> {
+            commits.incrementAndGet();
+            return List.of("commit");
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = executor.submit(() -> committer.commit(SITE, request(0), groupCommit));
+            while (!hasOpenGroup(SITE)) {
+                Thread.sleep(10);
+            }
+            committer.beginWrite(SITE);
+
+            committer.removeSite(SITE);
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(10, SECONDS));
+            assertInstanceOf(ServiceLayerException.class, e.getCause());
+            assertEquals(0, commits.get());
+            assertTrue(committer.queues.isEmpty());
+            assertTrue(committer.gates.isEmpty());
+            // A write that was in progress can still finish
+            committer.endWrite(SITE);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // A new site with the same id starts from scratch
+        committer.setWindowMillis(0);
+        assertEquals("commit", committer.commit(SITE, request(1), groupCommit));
+    }
+
+    private List<String> runWriters(int writers, GitGroupCommitter.GroupCommit groupCommit) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                GitGroupCommitter.Request request = request(i);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return committer.commit(SITE, request, groupCommit);
+                }));
+            }
+            start.countDown();
+            List<String> results = new ArrayList<>();
+            for (Future<String> future : futures) {
+                results.add(future.get(10, SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean hasOpenGroup(String siteId) {
+        GitGroupCommitter.SiteQueue queue = committer.queues.get(siteId);
+        if (queue == null) {
+            return false;
+        }
+        synchronized (queue) {
+            return queue.open != null;
+        }
+    }
+
+    private GitGroupCommitter.Request request(int index) {
+        return new GitGroupCommitter.Request("Write page " + index,
+                new PersonIdent("Author " + index, "author" + index + "@example.com"),
+                "/site/website/page-" + index);
+    }
+
+}
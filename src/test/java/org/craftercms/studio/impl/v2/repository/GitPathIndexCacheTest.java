@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.craftercms.studio.test.util.BaseRepositoryTestCase;
+import org.eclipse.jgit.api.Git;
+import org.junit.Test;
+import org.mockito.MockitoAnnotations;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GitPathIndexCacheTest extends BaseRepositoryTestCase {
+
+    private static final String SITE_NAME = "site1";
+    private static final String FOLDER_FILE_NAME = "folder/index.xml";
+
+    private final GitPathIndexCache pathIndexCache = new GitPathIndexCache();
+
+    @Override
+    protected AutoCloseable initMocks() {
+        return MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void lookupUsesHeadCommitTest() throws Exception {
+        assertTrue(pathIndexCache.lookup(SITE_NAME, db, RENAMED_2_FILE_NAME).exists());
+        assertTrue(pathIndexCache.lookup(SITE_NAME, db, RENAMED_2_FILE_NAME).isFile());
+        assertEquals("This is a test file v6".length(),
+                pathIndexCache.lookup(SITE_NAME, db, RENAMED_2_FILE_NAME).getSize());
+        assertFalse(pathIndexCache.lookup(SITE_NAME, db, ORIGINAL_FILE_NAME).exists());
+        assertFalse(pathIndexCache.lookup(SITE_NAME, db, NON_EXISTENT_FILE_NAME).exists());
+    }
+
+    @Test
+    public void indexIsUpdatedOnNewCommitTest() throws Exception {
+        assertFalse(pathIndexCache.lookup(SITE_NAME, db, FOLDER_FILE_NAME).exists());
+
+        commitFile(FOLDER_FILE_NAME, "folder content", MASTER);
+        assertTrue(pathIndexCache.lookup(SITE_NAME, db, FOLDER_FILE_NAME).exists());
+        assertTrue(pathIndexCache.lookup(SITE_NAME, db, "folder/").exists());
+        assertFalse(pathIndexCache.lookup(SITE_NAME, db, "folder").isFile());
+
+        deleteTrashFile(FOLDER_FILE_NAME);
+        try (Git git = new Git(db)) {
+            git.rm().addFilepattern(FOLDER_FILE_NAME).call();
+            git.commit().setMessage("Deleted " + FOLDER_FILE_NAME).call();
+        }
+        assertFalse(pathIndexCache.lookup(SITE_NAME, db, FOLDER_FILE_NAME).exists());
+        assertFalse(pathIndexCache.lookup(SITE_NAME, db, "folder").exists());
+        assertEquals(1L, pathIndexCache.fullBuilds.sum());
+        assertEquals(2L, pathIndexCache.incrementalUpdates.sum());
+    }
+
+    @Test
+    public void oversizedRepositoryIsNotIndexedTest() {
+        pathIndexCache.setMaxEntriesPerSite(0);
+        assertNull(pathIndexCache.lookup(SITE_NAME, db, RENAMED_2_FILE_NAME));
+        assertTrue(pathIndexCache.indexes.get(SITE_NAME).paths.isEmpty());
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.craftercms.studio.test.util.Benchmark;
+import org.eclipse.jgit.api.CheckoutCommand;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.CommitBuilder;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.RefUpdate;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.eclipse.jgit.lib.Constants.HEAD;
+import static org.eclipse.jgit.lib.Constants.R_HEADS;
+import static org.eclipse.jgit.merge.MergeStrategy.THEIRS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Publishes a large package to a published repository using both the working tree based publishing and the index
+ * only publishing done with {@link PublishedTreeEditor}.
+ */
+@Benchmark
+public class IndexOnlyPublishingBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexOnlyPublishingBenchmarkTest.class);
+
+    private static final int FILES = Integer.getInteger("studio.benchmark.publishFiles", 5000);
+    private static final int FILES_PER_FOLDER = 50;
+    private static final String SANDBOX_BRANCH = "master";
+    private static final String ENVIRONMENT = "live";
+    private static final String IN_PROGRESS_BRANCH = ENVIRONMENT + "_in_progress";
+
+    @TempDir
+    Path root;
+
+    @Test
+    public void compareWorkingTreeAndIndexOnlyPublishing() throws Exception {
+        List<String> paths = new ArrayList<>(FILES);
+        for (int i = 0; i < FILES; i++) {
+            paths.add("site/website/section-" + (i / FILES_PER_FOLDER) + "/page-" + i + "/index.xml");
+        }
+
+        Path sandboxPath = root.resolve("sandbox");
+        try (Git sandbox = Git.init().setDirectory(sandboxPath.toFile()).setInitialBranch(SANDBOX_BRANCH).call()) {
+            writeFiles(sandbox, sandboxPath, paths, "v1");
+            try (Git workingTreeRepo = createPublishedRepo(sandboxPath, "published-working-tree");
+                 Git indexOnlyRepo = createPublishedRepo(sandboxPath, "published-index-only")) {
+                writeFiles(sandbox, sandboxPath, paths, "v2");
+
+                long start = System.currentTimeMillis();
+                ObjectId workingTreeCommit = publishWithWorkingTree(workingTreeRepo, paths);
+                long workingTreeTime = System.currentTimeMillis() - start;
+
+                start = System.currentTimeMillis();
+                ObjectId indexOnlyCommit = publishIndexOnly(indexOnlyRepo, paths);
+                long indexOnlyTime = System.currentTimeMillis() - start;
+
+                logger.info("Published '{}' files: working tree took '{}' ms, index only took '{}' ms",
+                        paths.size(), workingTreeTime, indexOnlyTime);
+                assertEquals(getTree(workingTreeRepo.getRepository(), workingTreeCommit),
+                        getTree(indexOnlyRepo.getRepository(), indexOnlyCommit),
+                        "Both approaches should publish the same tree");
+            }
+        }
+    }
+
+    private ObjectId publishWithWorkingTree(Git git, List<String> paths) throws Exception {
+        git.fetch().call();
+        git.checkout().setName(SANDBOX_BRANCH).call();
+        git.pull().setRemote("origin").setRemoteBranchName(SANDBOX_BRANCH).setStrategy(THEIRS).call();
+        String sandboxCommit = git.getRepository().resolve(HEAD).getName();
+
+        git.checkout().setCreateBranch(true).setForceRefUpdate(true).setStartPoint(ENVIRONMENT)
+                .setName(IN_PROGRESS_BRANCH).call();
+        CheckoutCommand checkout = git.checkout().setStartPoint(sandboxCommit);
+        paths.forEach(checkout::addPath);
+        checkout.call();
+        RevCommit commit = git.commit().setMessage("Publish").setSign(false).call();
+        git.tag().setName("publish-" + commit.getName()).setMessage("Publish").setSigned(false).call();
+        git.checkout().setName(ENVIRONMENT).call();
+        git.merge().setCommit(true).include(git.getRepository().findRef(IN_PROGRESS_BRANCH)).call();
+        git.branchDelete().setForce(true).setBranchNames(IN_PROGRESS_BRANCH).call();
+        return git.getRepository().resolve(ENVIRONMENT);
+    }
+
+    private ObjectId publishIndexOnly(Git git, List<String> paths) throws Exception {
+        Repository repo = git.getRepository();
+        git.fetch().call();
+        try (RevWalk revWalk = new RevWalk(repo); ObjectInserter inserter = repo.newObjectInserter()) {
+            RevCommit sandboxCommit = revWalk.parseCommit(repo.resolve("refs/remotes/origin/" + SANDBOX_BRANCH));
+            RevCommit environmentCommit = revWalk.parseCommit(repo.resolve(ENVIRONMENT));
+
+            PublishedTreeEditor treeEditor =
+                    new PublishedTreeEditor(repo, environmentCommit.getTree(), sandboxCommit.getTree());
+            paths.forEach(treeEditor::publish);
+
+            PersonIdent ident = new PersonIdent(repo);
+            CommitBuilder commit = new CommitBuilder();
+            commit.setTreeId(treeEditor.writeTree(inserter));
+            commit.setParentId(environmentCommit);
+            commit.setAuthor(ident);
+            commit.setCommitter(ident);
+            commit.setMessage("Publish");
+            ObjectId commitId = inserter.insert(commit);
+            inserter.flush();
+
+            RefUpdate sandboxUpdate = repo.updateRef(R_HEADS + SANDBOX_BRANCH, true);
+            sandboxUpdate.setNewObjectId(sandboxCommit);
+            sandboxUpdate.forceUpdate();
+            git.tag().setObjectId(revWalk.parseCommit(commitId)).setName("publish-" + commitId.getName())
+                    .setMessage("Publish").setSigned(false).call();
+            RefUpdate environmentUpdate = repo.updateRef(R_HEADS + ENVIRONMENT);
+            environmentUpdate.setExpectedOldObjectId(environmentCommit);
+            environmentUpdate.setNewObjectId(commitId);
+            environmentUpdate.update();
+            return commitId;
+        }
+    }
+
+    private Git createPublishedRepo(Path sandboxPath, String name) throws Exception {
+        Git git = Git.cloneRepository().setURI(sandboxPath.toUri().toString())
+                .setDirectory(root.resolve(name).toFile()).setBranch(SANDBOX_BRANCH).call();
+        git.checkout().setOrphan(true).setStartPoint(SANDBOX_BRANCH).setName(ENVIRONMENT).call();
+        git.commit().setMessage("Initial publish").setAllowEmpty(true).setSign(false).call();
+        return git;
+    }
+
+    private void writeFiles(Git git, Path repoPath, List<String> paths, String version) throws Exception {
+        for (String path : paths) {
+            Path file = repoPath.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, "<page><title>" + path + " " + version + "</title></page>");
+        }
+        git.add().addFilepattern(".").call();
+        git.commit().setMessage("Write " + version).setSign(false).call();
+    }
+
+    private ObjectId getTree(Repository repository, ObjectId commitId) throws Exception {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            return revWalk.parseCommit(commitId).getTree().getId();
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PublishedTreeEditorTest {
+
+    @TempDir
+    Path repoPath;
+
+    private Git git;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        git = Git.init().setDirectory(repoPath.toFile()).call();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        git.close();
+    }
+
+    @Test
+    public void publishCopiesFilesAndFoldersFromSourceTest() throws Exception {
+        RevCommit base = commit("site/website/index.xml", "site/components/header.xml");
+        RevCommit source = commit("site/website/about/index.xml", "static-assets/css/main.css",
+                "static-assets/css/print.css");
+
+        PublishedTreeEditor editor = new PublishedTreeEditor(git.getRepository(), base.getTree(), source.getTree());
+        editor.publish("site/website/about/index.xml");
+        editor.publish("static-assets/css/");
+
+        assertEquals(List.of("site/components/header.xml", "site/website/about/index.xml", "site/website/index.xml",
+                "static-assets/css/main.css", "static-assets/css/print.css"), listPaths(editor));
+    }
+
+    @Test
+    public void deletePageRemovesItsFolderTest() throws Exception {
+        RevCommit base = commit("site/website/index.xml", "site/website/about/index.xml",
+                "site/website/about/team/index.xml", "site/components/header.xml", "site/components/.keep");
+
+        PublishedTreeEditor editor = new PublishedTreeEditor(git.getRepository(), base.getTree(), base.getTree());
+        editor.delete("site/website/about/index.xml", "site/website/about/index.xml");
+        editor.delete("site/components/header.xml", "site/components/header.xml");
+
+        assertEquals(List.of("site/website/index.xml"), listPaths(editor));
+    }
+
+    @Test
+    public void moveCleansUpEmptyFoldersTest() throws Exception {
+        RevCommit base = commit("site/website/index.xml", "site/website/old/index.xml",
+                "static-assets/images/a/logo.png", "static-assets/images/b.png");
+        RevCommit source = commit("site/website/index.xml", "site/website/new/index.xml",
+                "static-assets/images/c/logo.png", "static-assets/images/b.png");
+
+        PublishedTreeEditor editor = new PublishedTreeEditor(git.getRepository(), base.getTree(), source.getTree());
+        editor.publish("site/website/new/index.xml");
+        editor.move("site/website/old/index.xml");
+        editor.publish("static-assets/images/c/logo.png");
+        editor.move("static-assets/images/a/logo.png");
+
+        assertEquals(List.of("site/website/index.xml", "site/website/new/index.xml", "static-assets/images/b.png",
+                "static-assets/images/c/logo.png"), listPaths(editor));
+    }
+
+    private RevCommit commit(String... paths) throws Exception {
+        git.rm().setCached(true).addFilepattern(".").call();
+        for (String path : paths) {
+            Path file = repoPath.resolve(path);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, path);
+            git.add().addFilepattern(path).call();
+        }
+        return git.commit().setMessage("Commit " + paths.length + " files").setSign(false).call();
+    }
+
+    private List<String> listPaths(PublishedTreeEditor editor) throws IOException {
+        Repository repository = git.getRepository();
+        ObjectId tree;
+        try (ObjectInserter inserter = repository.newObjectInserter()) {
+            tree = editor.writeTree(inserter);
+            inserter.flush();
+        }
+        List<String> paths = new ArrayList<>();
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(tree);
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                paths.add(treeWalk.getPathString());
+            }
+        }
+        return paths;
+    }
+
+}
@@ -16,6 +16,7 @@
 package org.craftercms.studio.impl.v2.repository.blob;
 
 import org.apache.commons.io.FilenameUtils;
+import org.craftercms.commons.file.blob.Blob;
 import org.craftercms.studio.api.v1.exception.ContentNotFoundException;
 import org.craftercms.studio.api.v1.exception.ServiceLayerException;
 import org.craftercms.studio.api.v1.exception.SiteNotFoundException;
@@ -30,11 +31,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayInputStream;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -92,6 +96,9 @@ public class BlobAwareContentRepositoryTest {
     @Captor
     private ArgumentCaptor<List<DeploymentItemTO>> itemsCaptor;
 
+    @Captor
+    private ArgumentCaptor<Map<String, Resource>> localContentsCaptor;
+
     @BeforeMethod
     public void setUp() throws Exception {
         initMocks(this);
@@ -246,6 +253,24 @@ public class BlobAwareContentRepositoryTest {
         verify(localV1).copyContent(SITE, FOLDER_PATH, NEW_FOLDER_PATH);
     }
 
+    @Test
+    public void bulkCopyTest() throws Exception {
+        when(resolver.getByPaths(SITE, NEW_FILE_PATH)).thenReturn(store);
+        when(store.getReference(NEW_FILE_PATH)).thenReturn(new Blob(STORE_ID, "etag"));
+        when(localV1.copyContent(eq(SITE), eq(FOLDER_PATH), eq(NEW_FOLDER_PATH), anyMap())).thenReturn(COMMIT_1);
+        Map<String, Resource> contents = new LinkedHashMap<>();
+        contents.put(NEW_FILE_PATH, new ByteArrayResource("test".getBytes()));
+        contents.put(LOCAL_PATH, new ByteArrayResource("local".getBytes()));
+
+        String commitId = proxy.copyContent(SITE, FOLDER_PATH, NEW_FOLDER_PATH, contents);
+
+        assertEquals(commitId, COMMIT_1);
+        verify(store).writeContent(eq(SITE), eq(NEW_FILE_PATH), any());
+        verify(localV1).copyContent(eq(SITE), eq(FOLDER_PATH), eq(NEW_FOLDER_PATH), localContentsCaptor.capture());
+        assertEquals(List.copyOf(localContentsCaptor.getValue().keySet()), List.of(NEW_POINTER_PATH, LOCAL_PATH));
+        assertSame(localContentsCaptor.getValue().get(LOCAL_PATH), contents.get(LOCAL_PATH));
+    }
+
     @Test
     public void getContentChildrenWithoutRemoteTest() {
         RepositoryItem item = new RepositoryItem();
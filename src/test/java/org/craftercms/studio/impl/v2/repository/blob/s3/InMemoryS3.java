@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob.s3;
+
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ServiceClientConfiguration;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CopyObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Minimal in-memory S3 with a fixed latency per request, supports the requests used to publish blobs
+ */
+public class InMemoryS3 {
+
+    protected final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    protected final Map<String, AtomicInteger> throttledCopies = new ConcurrentHashMap<>();
+    protected final long latencyMillis;
+
+    protected final AtomicInteger headRequests = new AtomicInteger();
+    protected final AtomicInteger copyRequests = new AtomicInteger();
+    protected final AtomicInteger deleteRequests = new AtomicInteger();
+
+    public InMemoryS3(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void putObject(String bucket, String key, String content) {
+        objects.put(bucket + "/" + key, content.getBytes());
+    }
+
+    public boolean exists(String bucket, String key) {
+        return objects.containsKey(bucket + "/" + key);
+    }
+
+    /**
+     * Makes the next copies to the given key fail with a throttling error
+     */
+    public void throttleCopies(String bucket, String key, int times) {
+        throttledCopies.put(bucket + "/" + key, new AtomicInteger(times));
+    }
+
+    public S3Client syncClient() {
+        return new S3Client() {
+
+            @Override
+            public HeadObjectResponse headObject(HeadObjectRequest request) {
+                waitLatency();
+                headRequests.incrementAndGet();
+                byte[] content = getObject(request.bucket(), request.key());
+                return HeadObjectResponse.builder()
+                        .contentLength((long) content.length)
+                        .eTag(Integer.toHexString(Arrays.hashCode(content)))
+                        .build();
+            }
+
+            @Override
+            public CopyObjectResponse copyObject(CopyObjectRequest request) {
+                waitLatency();
+                return copy(request);
+            }
+
+            @Override
+            public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+                waitLatency();
+                deleteRequests.incrementAndGet();
+                objects.remove(request.bucket() + "/" + request.key());
+                return DeleteObjectResponse.builder().build();
+            }
+
+            @Override
+            public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+                waitLatency();
+                deleteRequests.incrementAndGet();
+                request.delete().objects().forEach(id -> objects.remove(request.bucket() + "/" + id.key()));
+                return DeleteObjectsResponse.builder().build();
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public S3ServiceClientConfiguration serviceClientConfiguration() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+
+        };
+    }
+
+    public S3AsyncClient asyncClient() {
+        return new S3AsyncClient() {
+
+            @Override
+            public CompletableFuture<CopyObjectResponse> copyObject(CopyObjectRequest request) {
+                return CompletableFuture.supplyAsync(() -> copy(request),
+                        delayedExecutor(latencyMillis, MILLISECONDS));
+            }
+
+            @Override
+            public String serviceName() {
+                return SERVICE_NAME;
+            }
+
+            @Override
+            public S3ServiceClientConfiguration serviceClientConfiguration() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void close() {
+            }
+
+        };
+    }
+
+    protected CopyObjectResponse copy(CopyObjectRequest request) {
+        copyRequests.incrementAndGet();
+        AtomicInteger throttled = throttledCopies.get(request.destinationBucket() + "/" + request.destinationKey());
+        if (throttled != null && throttled.getAndDecrement() > 0) {
+            throw S3Exception.builder()
+                    .statusCode(503)
+                    .awsErrorDetails(AwsErrorDetails.builder().errorCode("SlowDown").errorMessage("Slow Down").build())
+                    .message("Slow Down")
+                    .build();
+        }
+        byte[] content = getObject(request.sourceBucket(), request.sourceKey());
+        objects.put(request.destinationBucket() + "/" + request.destinationKey(), content);
+        return CopyObjectResponse.builder().build();
+    }
+
+    protected byte[] getObject(String bucket, String key) {
+        byte[] content = objects.get(bucket + "/" + key);
+        if (content == null) {
+            throw NoSuchKeyException.builder().statusCode(404).message("Not found: " + key).build();
+        }
+        return content;
+    }
+
+    protected void waitLatency() {
+        try {
+            MILLISECONDS.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob.s3;
+
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.craftercms.studio.impl.v1.service.aws.AwsUtils.COPY_PART_SIZE;
+import static org.craftercms.studio.impl.v1.service.aws.AwsUtils.copyFile;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Publishes a large package of blobs to an in-memory S3 with a fixed latency per request, one request at a time like
+ * the publisher used to do, and with {@link S3BulkOperations}.
+ */
+@Benchmark
+public class S3BulkOperationsBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3BulkOperationsBenchmarkTest.class);
+
+    private static final int ITEMS = Integer.getInteger("studio.benchmark.s3Items", 2000);
+    private static final long LATENCY_MILLIS = Long.getLong("studio.benchmark.s3LatencyMillis", 20);
+    private static final String PREVIEW = "preview-bucket";
+    private static final String LIVE = "live-bucket";
+
+    @Test
+    public void comparePublishing() {
+        long sequentialMillis = publish(false);
+        long bulkMillis = publish(true);
+
+        logger.info("Published '{}' copies and '{}' deletes with '{}' ms of latency: one by one took '{}' ms, " +
+                "in bulk took '{}' ms", ITEMS, ITEMS / 10, LATENCY_MILLIS, sequentialMillis, bulkMillis);
+    }
+
+    private long publish(boolean bulk) {
+        InMemoryS3 s3 = new InMemoryS3(LATENCY_MILLIS);
+        S3Client client = s3.syncClient();
+        Map<String, String> copies = new LinkedHashMap<>();
+        for (int i = 0; i < ITEMS; i++) {
+            String key = "site/static-assets/images/image-" + i + ".jpg";
+            s3.putObject(PREVIEW, key, "image " + i);
+            copies.put(key, key);
+        }
+        List<String> deletes = new ArrayList<>();
+        for (int i = 0; i < ITEMS / 10; i++) {
+            String key = "site/static-assets/old/image-" + i + ".jpg";
+            s3.putObject(LIVE, key, "old image " + i);
+            deletes.add(key);
+        }
+
+        long start = System.nanoTime();
+        if (bulk) {
+            S3BulkOperations bulkOperations = new S3BulkOperations();
+            assertTrue(bulkOperations.copyObjects(s3.asyncClient(), client, PREVIEW, LIVE, copies).isEmpty());
+            assertTrue(bulkOperations.deleteObjects(client, LIVE, deletes).isEmpty());
+        } else {
+            copies.forEach((targetKey, sourceKey) ->
+                    copyFile(PREVIEW, sourceKey, LIVE, targetKey, COPY_PART_SIZE, client));
+            deletes.forEach(key -> client.deleteObject(DeleteObjectRequest.builder().bucket(LIVE).key(key).build()));
+        }
+        long elapsed = NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        copies.keySet().forEach(key -> assertTrue(s3.exists(LIVE, key)));
+        return elapsed;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.repository.blob.s3;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class S3BulkOperationsTest {
+
+    private static final String PREVIEW = "preview-bucket";
+    private static final String LIVE = "live-bucket";
+    private static final int ITEMS = 100;
+
+    private InMemoryS3 s3;
+    private S3BulkOperations bulkOperations;
+
+    @BeforeEach
+    public void setUp() {
+        s3 = new InMemoryS3(0);
+        bulkOperations = new S3BulkOperations();
+        bulkOperations.setMaxConcurrentCopies(8);
+        bulkOperations.setMaxAttempts(3);
+        bulkOperations.setInitialBackoffMillis(1);
+    }
+
+    @Test
+    public void allObjectsAreCopiedTest() {
+        Map<String, String> copies = createObjects(ITEMS);
+
+        Map<String, Throwable> failures = bulkOperations.copyObjects(s3.asyncClient(), s3.syncClient(), PREVIEW,
+                LIVE, copies);
+
+        assertTrue(failures.isEmpty());
+        copies.keySet().forEach(key -> assertTrue(s3.exists(LIVE, key)));
+        assertEquals(ITEMS, s3.copyRequests.get());
+    }
+
+    @Test
+    public void throttledCopiesAreRetriedTest() {
+        Map<String, String> copies = createObjects(ITEMS);
+        s3.throttleCopies(LIVE, "site/item-7", 2);
+
+        Map<String, Throwable> failures = bulkOperations.copyObjects(s3.asyncClient(), s3.syncClient(), PREVIEW,
+                LIVE, copies);
+
+        assertTrue(failures.isEmpty());
+        assertTrue(s3.exists(LIVE, "site/item-7"));
+        assertEquals(ITEMS + 2, s3.copyRequests.get());
+    }
+
+    @Test
+    public void failedCopiesAreReportedTest() {
+        Map<String, String> copies = createObjects(ITEMS);
+        s3.throttleCopies(LIVE, "site/item-7", 5);
+        // The source of this one doesn't exist, it is not retried
+        copies.put("site/missing", "site/missing");
+
+        Map<String, Throwable> failures = bulkOperations.copyObjects(s3.asyncClient(), s3.syncClient(), PREVIEW,
+                LIVE, copies);
+
+        assertEquals(2, failures.size());
+        assertTrue(failures.containsKey("site/item-7"));
+        assertTrue(failures.containsKey("site/missing"));
+        assertFalse(s3.exists(LIVE, "site/item-7"));
+        assertTrue(s3.exists(LIVE, "site/item-8"));
+        // 3 attempts for the throttled copy and a single one for the missing source
+        assertEquals(ITEMS + 3, s3.copyRequests.get());
+    }
+
+    @Test
+    public void deletesAreSentInBatchesTest() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            String key = "site/item-" + i;
+            s3.putObject(LIVE, key, "content " + i);
+            keys.add(key);
+        }
+
+        Map<String, String> failures = bulkOperations.deleteObjects(s3.syncClient(), LIVE, keys);
+
+        assertTrue(failures.isEmpty());
+        keys.forEach(key -> assertFalse(s3.exists(LIVE, key)));
+        assertEquals(3, s3.deleteRequests.get());
+    }
+
+    private Map<String, String> createObjects(int count) {
+        Map<String, String> copies = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            String key = "site/item-" + i;
+            s3.putObject(PREVIEW, key, "content " + i);
+            copies.put(key, key);
+        }
+        return copies;
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.service.audit.internal;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import org.apache.commons.dbcp2.BasicDataSource;
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Inserts audit log entries in an embedded MariaDB one by one like Studio used to do and in multi-row batches like
+ * {@link AuditLogWriter}, then reads deep pages of the audit log with an offset and with a keyset.
+ */
+@Benchmark
+public class AuditLogBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogBenchmarkTest.class);
+
+    private static final long SITE_ID = 1;
+    private static final int ENTRIES = Integer.getInteger("studio.benchmark.auditEntries", 20000);
+    private static final int BATCH_SIZE = Integer.getInteger("studio.benchmark.auditBatchSize", 500);
+    private static final int PAGE_SIZE = 50;
+    private static final String OPERATION = "BENCHMARK";
+
+    private static final String COLUMNS = "INSERT INTO audit (organization_id, site_id, operation, " +
+            "operation_timestamp, origin, primary_target_id, primary_target_type, primary_target_value, actor_id) " +
+            "VALUES ";
+    private static final String VALUES = "(1, ?, '" + OPERATION + "', ?, 'API', ?, 'content', ?, 'admin')";
+
+    private static final String OFFSET_QUERY = "SELECT a.id FROM audit a WHERE a.site_id = ? " +
+            "ORDER BY a.operation_timestamp DESC, a.id DESC LIMIT ?, " + PAGE_SIZE;
+    private static final String KEYSET_QUERY = "SELECT a.id FROM audit a WHERE a.site_id = ? " +
+            "AND (a.operation_timestamp < (SELECT operation_timestamp FROM audit WHERE id = ?) " +
+            "OR (a.operation_timestamp = (SELECT operation_timestamp FROM audit WHERE id = ?) AND a.id < ?)) " +
+            "ORDER BY a.operation_timestamp DESC, a.id DESC LIMIT " + PAGE_SIZE;
+
+    private static DB db;
+    private static BasicDataSource dataSource;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        db.createDB("studio_benchmark");
+
+        dataSource = new BasicDataSource();
+        dataSource.setUrl(config.getURL("studio_benchmark"));
+        dataSource.setUsername("root");
+
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE audit (" +
+                    " id BIGINT(20) NOT NULL AUTO_INCREMENT, organization_id BIGINT(20) NOT NULL," +
+                    " site_id BIGINT(20) NOT NULL, operation VARCHAR(32) NOT NULL," +
+                    " operation_timestamp TIMESTAMP NOT NULL, origin VARCHAR(16) NOT NULL," +
+                    " primary_target_id VARCHAR(1024) NOT NULL, primary_target_type VARCHAR(32) NOT NULL," +
+                    " primary_target_subtype VARCHAR(32) NULL, primary_target_value VARCHAR(1024) NOT NULL," +
+                    " actor_id VARCHAR(255) NOT NULL, actor_details VARCHAR(255) NULL," +
+                    " cluster_node_id VARCHAR(255) NULL, commit_id VARCHAR(50) NULL, PRIMARY KEY (id)," +
+                    " KEY audit_actor_idx (actor_id), KEY audit_site_idx (site_id)," +
+                    " KEY audit_operation_idx (operation), KEY audit_origin_idx (origin)," +
+                    " KEY audit_commit_id_idx (commit_id)," +
+                    " KEY audit_site_timestamp_idx (site_id, operation_timestamp)," +
+                    " KEY audit_target_value_idx (primary_target_value(255)))" +
+                    " ENGINE = InnoDB DEFAULT CHARSET = utf8 ROW_FORMAT = DYNAMIC");
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        if (db != null) {
+            db.stop();
+        }
+    }
+
+    @Test
+    public void compareInsertsAndPagination() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            long singleMillis = insert(connection, SITE_ID, 1, "single");
+            long batchMillis = insert(connection, SITE_ID, BATCH_SIZE, "batch");
+            logger.info("Inserted '{}' audit log entries: one by one took '{}' ms ('{}' entries/s), in " +
+                            "batches of '{}' took '{}' ms ('{}' entries/s)", ENTRIES, singleMillis,
+                    ENTRIES * 1000L / Math.max(singleMillis, 1), BATCH_SIZE, batchMillis,
+                    ENTRIES * 1000L / Math.max(batchMillis, 1));
+
+            int pages = ENTRIES / PAGE_SIZE;
+            long offsetMillis = readPages(connection, SITE_ID, pages, false);
+            long keysetMillis = readPages(connection, SITE_ID, pages, true);
+            logger.info("Read '{}' pages of the audit log: with an offset took '{}' ms, with a keyset took " +
+                    "'{}' ms", pages, offsetMillis, keysetMillis);
+        }
+    }
+
+    /**
+     * Inserts the entries using statements with the given number of rows, in auto-commit mode like Studio does
+     *
+     * @return the elapsed time in milliseconds
+     */
+    private long insert(Connection connection, long siteId, int rows, String prefix) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < ENTRIES; i += rows) {
+            int count = Math.min(rows, ENTRIES - i);
+            StringBuilder sql = new StringBuilder(COLUMNS).append(VALUES);
+            for (int j = 1; j < count; j++) {
+                sql.append(',').append(VALUES);
+            }
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int index = 1;
+                for (int j = 0; j < count; j++) {
+                    String path = "/site/website/" + prefix + "/page-" + (i + j) + "/index.xml";
+                    statement.setLong(index++, siteId);
+                    statement.setTimestamp(index++, new Timestamp(System.currentTimeMillis()));
+                    statement.setString(index++, path);
+                    statement.setString(index++, path);
+                }
+                statement.executeUpdate();
+            }
+        }
+        return NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Reads the given number of consecutive pages, starting from the most recent entry
+     *
+     * @return the elapsed time in milliseconds
+     */
+    private long readPages(Connection connection, long siteId, int pages, boolean keyset) throws SQLException {
+        long start = System.nanoTime();
+        long lastId = 0;
+        for (int page = 0; page < pages; page++) {
+            boolean useKeyset = keyset && page > 0;
+            try (PreparedStatement statement = connection.prepareStatement(useKeyset ? KEYSET_QUERY : OFFSET_QUERY)) {
+                statement.setLong(1, siteId);
+                if (useKeyset) {
+                    statement.setLong(2, lastId);
+                    statement.setLong(3, lastId);
+                    statement.setLong(4, lastId);
+                } else {
+                    statement.setInt(2, page * PAGE_SIZE);
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        lastId = resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+        return NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+}
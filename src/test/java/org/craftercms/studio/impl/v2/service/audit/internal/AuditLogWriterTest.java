@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.service.audit.internal;
+
+import org.craftercms.studio.api.v2.dal.AuditDAO;
+import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.AuditLogParameter;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.model.rest.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditLogWriterTest {
+
+    private InMemoryAuditDAO auditDao;
+    private AuditLogWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        auditDao = new InMemoryAuditDAO();
+        writer = new AuditLogWriter();
+        writer.setAuditDao(auditDao);
+        writer.setRetryingDatabaseOperationFacade(new RetryingDatabaseOperationFacade() {
+
+            @Override
+            public void retry(Runnable op) {
+                op.run();
+            }
+
+            @Override
+            public <T> T retry(Supplier<T> op) {
+                return op.get();
+            }
+
+        });
+        writer.setEnabled(true);
+        writer.setBatchSize(50);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        writer.destroy();
+    }
+
+    @Test
+    public void entriesAreWrittenInBatchesTest() throws Exception {
+        writer.init();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 250; j++) {
+                        assertTrue(writer.write(auditLog("/site/website/page-" + thread + "-" + j + ".xml")));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        AuditLog withParameters = auditLog("/site/website/index.xml");
+        AuditLogParameter parameter = new AuditLogParameter();
+        parameter.setTargetValue("/site/website/index.xml");
+        withParameters.setParameters(List.of(parameter));
+        writer.write(withParameters);
+
+        writer.destroy();
+
+        assertEquals(1001, auditDao.entries.size());
+        assertEquals(1, auditDao.parameters.size());
+        assertTrue(auditDao.batches.get() < 1000);
+        auditDao.entries.forEach(auditLog -> assertNotNull(auditLog.getOperationTimestamp()));
+    }
+
+    @Test
+    public void entriesAreWrittenDirectlyWhenTheQueueIsFullTest() throws Exception {
+        writer.setQueueCapacity(10);
+        writer.setOfferTimeoutMillis(1);
+        writer.init();
+        auditDao.batchLatch = new CountDownLatch(1);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(writer.write(auditLog("/site/website/page-" + i + ".xml")));
+        }
+        // The writer thread is stuck with the first batch, so most entries had to be written directly
+        assertTrue((long) writer.getMetrics().get("overflows") > 0);
+        auditDao.batchLatch.countDown();
+
+        writer.destroy();
+
+        assertEquals(100, auditDao.entries.size());
+    }
+
+    @Test
+    public void pendingCommitsAreWrittenBeforeQueryingTest() {
+        writer.init();
+        auditDao.batchLatch = new CountDownLatch(1);
+        // Keep the writer thread busy so the next entry stays in the queue
+        writer.write(auditLog("/site/website/index.xml"));
+        AuditLog auditLog = auditLog("/site/website/page.xml");
+        auditLog.setCommitId("0123456789abcdef");
+        writer.write(auditLog);
+
+        new Thread(() -> {
+            sleep(100);
+            auditDao.batchLatch.countDown();
+        }).start();
+        writer.awaitWritten(List.of("0123456789abcdef"));
+
+        assertTrue(auditDao.entries.contains(auditLog));
+    }
+
+    @Test
+    public void entriesAreWrittenDirectlyWhenDisabledTest() {
+        writer.setEnabled(false);
+        writer.init();
+
+        writer.write(auditLog("/site/website/index.xml"));
+
+        assertEquals(1, auditDao.entries.size());
+        assertEquals(0, auditDao.batches.get());
+    }
+
+    private AuditLog auditLog(String path) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setSiteId(1);
+        auditLog.setOperation("UPDATE");
+        auditLog.setPrimaryTargetValue(path);
+        return auditLog;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class InMemoryAuditDAO implements AuditDAO {
+
+        private final List<AuditLog> entries = Collections.synchronizedList(new ArrayList<>());
+        private final List<Object> parameters = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger batches = new AtomicInteger();
+        private volatile CountDownLatch batchLatch;
+
+        @Override
+        public int insertAuditLog(AuditLog auditLog) {
+            entries.add(auditLog);
+            return 1;
+        }
+
+        @Override
+        public void insertAuditLogParams(Map params) {
+            parameters.addAll((Collection<?>) params.get("parameters"));
+        }
+
+        @Override
+        public int insertAuditLogs(List<AuditLog> auditLogs) {
+            if (batchLatch != null) {
+                try {
+                    batchLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            batches.incrementAndGet();
+            entries.addAll(auditLogs);
+            return auditLogs.size();
+        }
+
+        @Override
+        public List<AuditLog> getAuditLog(Map params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int getAuditLogTotal(Map params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public AuditLog getAuditLogEntry(Map params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<AuditLog> selectUserFeedEntriesHideLive(Map params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<AuditLog> selectUserFeedEntries(Map params) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteAuditLogForSite(long siteId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Person getCommitAuthor(String commitId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isAudited(long siteId, String commitId) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getAuditedCommits(long siteId, Collection<String> commitIds) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dashboard;
+
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.craftercms.studio.api.v2.dal.ItemState.SUBMITTED_MASK;
+import static org.craftercms.studio.api.v2.dal.ItemState.UNPUBLISHED_MASK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Loads the totals of the dashboard for a site of an existing database from several threads, counting the items like
+ * the dashboard used to do and reading the item state counters, and compares the p95 latency of both. The database
+ * and the site are set with the {@code studio.benchmark.jdbcUrl} and {@code studio.benchmark.site} properties.
+ */
+@Benchmark
+public class DashboardStateCountsBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardStateCountsBenchmarkTest.class);
+
+    private static final String JDBC_URL = System.getProperty("studio.benchmark.jdbcUrl",
+            "jdbc:mariadb://localhost:33306/crafter?user=crafter&password=crafter");
+    private static final String SITE = System.getProperty("studio.benchmark.site", "editorial");
+    private static final int THREADS = Integer.getInteger("studio.benchmark.threads", 8);
+    private static final int REQUESTS = Integer.getInteger("studio.benchmark.requests", 200);
+
+    private static final String COUNT_QUERY = "SELECT count(1) FROM item i INNER JOIN site s ON i.site_id = s.id" +
+            " WHERE s.site_id = ? AND s.deleted = 0 AND i.ignored = 0 AND i.system_type != 'folder'" +
+            " AND i.path RLIKE('.*') AND (i.state & ?) > 0";
+
+    private static final String COUNTERS_QUERY = "SELECT IFNULL(SUM(c.count), 0) FROM item_state_count c" +
+            " INNER JOIN site s ON c.site_id = s.id WHERE s.site_id = ? AND s.deleted = 0 AND (c.state & ?) > 0";
+
+    @Test
+    public void compareDashboardTotals() throws Exception {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL)) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id FROM site WHERE site_id = ? AND deleted = 0")) {
+                statement.setString(1, SITE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    try (CallableStatement call = connection.prepareCall("{call rebuildItemStateCounts(?)}")) {
+                        call.setLong(1, resultSet.getLong(1));
+                        call.execute();
+                    }
+                }
+            }
+            for (long mask : new long[] { SUBMITTED_MASK, UNPUBLISHED_MASK }) {
+                assertEquals(getTotal(connection, COUNT_QUERY, mask), getTotal(connection, COUNTERS_QUERY, mask));
+            }
+        }
+
+        // Warm up both queries before measuring
+        load(COUNT_QUERY, REQUESTS / 10);
+        load(COUNTERS_QUERY, REQUESTS / 10);
+        List<Long> countLatencies = load(COUNT_QUERY, REQUESTS);
+        List<Long> countersLatencies = load(COUNTERS_QUERY, REQUESTS);
+
+        logger.info("Loaded the dashboard totals of site '{}' '{}' times from '{}' threads: p95 counting the items " +
+                        "was '{}' ms, p95 reading the counters was '{}' ms", SITE, REQUESTS, THREADS,
+                p95Millis(countLatencies), p95Millis(countersLatencies));
+    }
+
+    /**
+     * Runs the given number of requests, each one gets the pending approval and the unpublished totals
+     *
+     * @return the latency of each request in nanoseconds
+     */
+    private List<Long> load(String query, int requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int threadRequests = requests / THREADS + (i < requests % THREADS ? 1 : 0);
+                futures.add(executor.submit(() -> {
+                    List<Long> latencies = new ArrayList<>(threadRequests);
+                    try (Connection connection = DriverManager.getConnection(JDBC_URL)) {
+                        for (int j = 0; j < threadRequests; j++) {
+                            long start = System.nanoTime();
+                            getTotal(connection, query, SUBMITTED_MASK);
+                            getTotal(connection, query, UNPUBLISHED_MASK);
+                            latencies.add(System.nanoTime() - start);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            List<Long> latencies = new ArrayList<>(requests);
+            for (Future<List<Long>> future : futures) {
+                latencies.addAll(future.get());
+            }
+            return latencies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long getTotal(Connection connection, String query, long mask) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setString(1, SITE);
+            statement.setLong(2, mask);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    private double p95Millis(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(sorted.size() * 0.95) - 1;
+        return NANOSECONDS.toMicros(sorted.get(Math.max(index, 0))) / 1000.0;
+    }
+
+}
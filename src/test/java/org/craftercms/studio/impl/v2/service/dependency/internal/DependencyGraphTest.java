@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.dependency.internal;
+
+import org.craftercms.studio.api.v2.dal.Dependency;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.craftercms.studio.impl.v2.service.dependency.internal.DependencyGraph.UNLIMITED_DEPTH;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DependencyGraphTest {
+
+    private static final String PAGE = "/site/website/index.xml";
+    private static final String HEADER = "/site/components/header.xml";
+    private static final String LOGO = "/static-assets/images/logo.png";
+    private static final String STYLES = "/static-assets/css/main.css";
+    private static final String FONT = "/static-assets/fonts/font.woff";
+
+    private DependencyGraph graph;
+
+    @BeforeEach
+    public void setUp() {
+        graph = new DependencyGraph(List.of(
+                dependency(PAGE, HEADER, true),
+                dependency(PAGE, STYLES, true),
+                dependency(HEADER, LOGO, true),
+                dependency(STYLES, FONT, true),
+                // Cycles must not break the traversal
+                dependency(FONT, STYLES, true),
+                dependency(LOGO, "/static-assets/images/missing.png", false)));
+    }
+
+    @Test
+    public void transitiveDependenciesTest() {
+        Map<String, String> dependencies = graph.getTransitiveDependencies(List.of(PAGE), UNLIMITED_DEPTH);
+
+        assertEquals(Set.of(HEADER, STYLES, LOGO, FONT), dependencies.keySet());
+        assertEquals(HEADER, dependencies.get(LOGO));
+    }
+
+    @Test
+    public void transitiveDependenciesWithDepthTest() {
+        assertEquals(Set.of(HEADER, STYLES), graph.getTransitiveDependencies(List.of(PAGE), 1).keySet());
+        assertEquals(Set.of(HEADER, STYLES, LOGO, FONT),
+                graph.getTransitiveDependencies(List.of(PAGE), 2).keySet());
+    }
+
+    @Test
+    public void dependentsTest() {
+        assertEquals(Set.of(HEADER), graph.getDependents(List.of(LOGO)));
+        // All the dependencies under a folder
+        assertEquals(Set.of(HEADER, PAGE, STYLES, FONT), graph.getDependents(List.of("/static-assets/")));
+        // Paths that only share a prefix with the folder are not included
+        assertTrue(graph.getDependents(List.of("/static-assets/image")).isEmpty());
+        assertEquals(Set.of(HEADER, PAGE), graph.getTransitiveDependents(List.of(LOGO), UNLIMITED_DEPTH).keySet());
+    }
+
+    @Test
+    public void updatesTest() {
+        graph.replaceDependencies(HEADER, List.of(dependency(HEADER, STYLES, true)));
+        assertTrue(graph.getDependents(List.of(LOGO)).isEmpty());
+        assertEquals(Set.of(PAGE, HEADER, FONT), graph.getDependents(List.of(STYLES)));
+
+        graph.setValid(STYLES, false);
+        assertEquals(Set.of(HEADER), graph.getTransitiveDependencies(List.of(PAGE), UNLIMITED_DEPTH).keySet());
+
+        graph.removeDependencies(PAGE);
+        assertTrue(graph.getTransitiveDependents(List.of(HEADER), UNLIMITED_DEPTH).isEmpty());
+        assertEquals(4, graph.size());
+        assertEquals(4, graph.getAllDependencies().size());
+    }
+
+    private Dependency dependency(String sourcePath, String targetPath, boolean valid) {
+        Dependency dependency = new Dependency();
+        dependency.setSite("site");
+        dependency.setSourcePath(sourcePath);
+        dependency.setTargetPath(targetPath);
+        dependency.setType("page");
+        dependency.setValid(valid);
+        return dependency;
+    }
+
+}
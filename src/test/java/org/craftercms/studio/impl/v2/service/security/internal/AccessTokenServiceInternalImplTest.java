@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.security.internal;
+
+import org.craftercms.commons.crypto.TextEncryptor;
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.dal.SecurityDAO;
+import org.craftercms.studio.api.v2.dal.User;
+import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
+import org.craftercms.studio.api.v2.service.security.SecurityService;
+import org.craftercms.studio.api.v2.service.system.InstanceService;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.api.v2.utils.spring.context.SystemStatusProvider;
+import org.craftercms.studio.model.security.PersistentAccessToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.util.CookieGenerator;
+
+import static java.time.Instant.now;
+import static java.time.temporal.ChronoUnit.HOURS;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.CONFIGURATION_GLOBAL_SYSTEM_SITE;
+import static org.craftercms.studio.impl.v2.service.security.internal.AccessTokenServiceInternalImpl.ACTIVITY_CACHE_CONFIG_KEY;
+import static org.craftercms.studio.impl.v2.service.security.internal.AccessTokenServiceInternalImpl.LOGIN_AUDIT_INTERVAL_KEY;
+import static org.craftercms.studio.impl.v2.service.security.internal.AccessTokenServiceInternalImpl.VERIFIED_TOKEN_CACHE_CONFIG_KEY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AccessTokenServiceInternalImplTest {
+
+    private static final String ISSUER = "Crafter Studio";
+    private static final String SIGN_PASSWORD = "E1oEGMMEaxvUQJTFePPyniOLNxVLHuoPHGaedqMe1tQqXa28u3MvRTBgTZfRqIzM";
+    private static final String ENCRYPT_PASSWORD = "fEo7tQCXX1RYHE2ODOtjtBzmL0zzonSI";
+    private static final String USERNAME = "admin";
+    private static final long TOKEN_ID = 10;
+
+    @Mock
+    private SecurityDAO securityDao;
+    @Mock
+    private InstanceService instanceService;
+    @Mock
+    private AuditServiceInternal auditService;
+    @Mock
+    private StudioConfiguration studioConfiguration;
+    @Mock
+    private SiteService siteService;
+    @Mock
+    private RetryingDatabaseOperationFacade retryingDatabaseOperationFacade;
+    @Mock
+    private SystemStatusProvider systemStatusProvider;
+    @Mock
+    private TextEncryptor previewTokenEncryptor;
+    @Mock
+    private SecurityService securityService;
+
+    private AutoCloseable mocks;
+    private AccessTokenServiceInternalImpl accessTokenService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mocks = MockitoAnnotations.openMocks(this);
+        when(studioConfiguration.getProperty(ACTIVITY_CACHE_CONFIG_KEY)).thenReturn("maximumSize=100");
+        when(studioConfiguration.getProperty(VERIFIED_TOKEN_CACHE_CONFIG_KEY)).thenReturn("maximumSize=100");
+        when(studioConfiguration.getProperty(LOGIN_AUDIT_INTERVAL_KEY, Integer.class, 0)).thenReturn(60);
+        when(studioConfiguration.getProperty(CONFIGURATION_GLOBAL_SYSTEM_SITE)).thenReturn("studio_root");
+        when(siteService.getSite(anyString())).thenReturn(new SiteFeed());
+        when(auditService.createAuditLogEntry()).thenReturn(new AuditLog());
+
+        accessTokenService = new AccessTokenServiceInternalImpl(ISSUER, new String[]{ ISSUER }, 5, SIGN_PASSWORD,
+                ENCRYPT_PASSWORD, 480, 30, securityDao, instanceService, auditService, studioConfiguration,
+                siteService, retryingDatabaseOperationFacade, systemStatusProvider, previewTokenEncryptor,
+                securityService);
+        accessTokenService.setAudience("studio");
+        accessTokenService.setRefreshTokenCookieGenerator(new CookieGenerator());
+        accessTokenService.setPreviewCookieGenerator(new CookieGenerator());
+        accessTokenService.afterPropertiesSet();
+
+        User user = new User();
+        user.setId(1);
+        user.setUsername(USERNAME);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        mocks.close();
+    }
+
+    @Test
+    public void accessTokenIsValidatedOnceTest() throws Exception {
+        when(securityDao.getAccessTokenById(TOKEN_ID)).thenReturn(storedToken(true));
+        String token = accessTokenService.createToken(now(), now().plus(1, HOURS), USERNAME, TOKEN_ID);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(USERNAME, accessTokenService.getUsername(token));
+        }
+
+        verify(securityDao, times(1)).getAccessTokenById(TOKEN_ID);
+        // Only the first login is audited in the interval
+        verify(auditService, times(1)).insertAuditLog(any());
+    }
+
+    @Test
+    public void disabledAccessTokenIsValidatedAgainTest() throws Exception {
+        when(securityDao.getAccessTokenById(TOKEN_ID)).thenReturn(storedToken(true));
+        String token = accessTokenService.createToken(now(), now().plus(1, HOURS), USERNAME, TOKEN_ID);
+        assertEquals(USERNAME, accessTokenService.getUsername(token));
+
+        accessTokenService.updateAccessToken(TOKEN_ID, false);
+        when(securityDao.getAccessTokenById(TOKEN_ID)).thenReturn(storedToken(false));
+
+        assertNull(accessTokenService.getUsername(token));
+        verify(securityDao, times(2)).getAccessTokenById(TOKEN_ID);
+    }
+
+    @Test
+    public void deletedAccessTokenIsValidatedAgainTest() throws Exception {
+        when(securityDao.getAccessTokenById(TOKEN_ID)).thenReturn(storedToken(true));
+        String token = accessTokenService.createToken(now(), now().plus(1, HOURS), USERNAME, TOKEN_ID);
+        assertEquals(USERNAME, accessTokenService.getUsername(token));
+
+        accessTokenService.deleteAccessToken(TOKEN_ID);
+        when(securityDao.getAccessTokenById(TOKEN_ID)).thenReturn(null);
+
+        assertNull(accessTokenService.getUsername(token));
+    }
+
+    @Test
+    public void invalidTokenIsNotCachedTest() {
+        assertNull(accessTokenService.getUsername("not a token"));
+        assertNull(accessTokenService.getUsername("not a token"));
+
+        verify(auditService, times(2)).insertAuditLog(any());
+        verify(securityDao, never()).getAccessTokenById(TOKEN_ID);
+    }
+
+    private PersistentAccessToken storedToken(boolean enabled) {
+        PersistentAccessToken token = new PersistentAccessToken();
+        token.setId(TOKEN_ID);
+        token.setEnabled(enabled);
+        return token;
+    }
+
+}
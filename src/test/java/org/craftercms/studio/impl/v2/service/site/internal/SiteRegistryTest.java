@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.site.internal;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.dal.SiteFeedMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SiteRegistryTest {
+
+    private static final String SITE_ID = "site1";
+    private static final long ID = 10;
+
+    private SiteFeedMapper siteFeedMapper;
+    private SiteRegistry registry;
+    private SiteFeed site;
+
+    @BeforeEach
+    public void setUp() {
+        site = site(ID, SITE_ID, 1);
+        siteFeedMapper = mock(SiteFeedMapper.class);
+        when(siteFeedMapper.getSite(anyMap())).thenAnswer(invocation ->
+                SITE_ID.equals(((Map<?, ?>) invocation.getArgument(0)).get("siteId")) ? site : null);
+        when(siteFeedMapper.getSiteById(ID)).thenAnswer(invocation -> site);
+
+        registry = new SiteRegistry();
+        registry.setSiteFeedMapper(siteFeedMapper);
+    }
+
+    @Test
+    public void lookupsAreCachedTest() {
+        assertSame(site, registry.getSite(SITE_ID));
+        assertSame(site, registry.getSite(SITE_ID));
+        assertSame(site, registry.getSite(ID));
+
+        verify(siteFeedMapper, times(1)).getSite(anyMap());
+        verify(siteFeedMapper, times(0)).getSiteById(ID);
+        assertEquals(2L, registry.getMetrics().get("hits"));
+        assertEquals(1L, registry.getMetrics().get("misses"));
+    }
+
+    @Test
+    public void missingSitesAreNotCachedTest() {
+        assertNull(registry.getSite("missing"));
+        assertFalse(registry.exists("missing"));
+
+        verify(siteFeedMapper, times(2)).getSite(anyMap());
+        assertEquals(0, registry.getMetrics().get("sites"));
+    }
+
+    @Test
+    public void invalidateTest() {
+        registry.getSite(SITE_ID);
+        site = site(ID, SITE_ID, 2);
+        registry.invalidate(SITE_ID);
+
+        assertSame(site, registry.getSite(ID));
+        assertSame(site, registry.getSite(SITE_ID));
+        assertEquals(1L, registry.getMetrics().get("evictions"));
+    }
+
+    @Test
+    public void pollEvictsChangedSitesTest() {
+        registry.getSite(SITE_ID);
+
+        when(siteFeedMapper.getSiteVersions()).thenReturn(List.of(site(ID, SITE_ID, 1)));
+        registry.poll();
+        assertEquals(1, registry.getMetrics().get("sites"));
+
+        // Changed by another node
+        when(siteFeedMapper.getSiteVersions()).thenReturn(List.of(site(ID, SITE_ID, 2)));
+        registry.poll();
+        assertEquals(0, registry.getMetrics().get("sites"));
+
+        // Deleted and created again with the same site id by another node
+        registry.getSite(SITE_ID);
+        when(siteFeedMapper.getSiteVersions()).thenReturn(List.of(site(ID + 1, SITE_ID, 0)));
+        registry.poll();
+        assertEquals(0, registry.getMetrics().get("sites"));
+    }
+
+    @Test
+    public void disabledTest() {
+        registry.setEnabled(false);
+        registry.getSite(SITE_ID);
+        registry.getSite(SITE_ID);
+
+        verify(siteFeedMapper, times(2)).getSite(anyMap());
+        assertEquals(0, registry.getMetrics().get("sites"));
+    }
+
+    private SiteFeed site(long id, String siteId, long version) {
+        SiteFeed site = new SiteFeed();
+        site.setId(id);
+        site.setSiteId(siteId);
+        site.setVersion(version);
+        return site;
+    }
+
+}
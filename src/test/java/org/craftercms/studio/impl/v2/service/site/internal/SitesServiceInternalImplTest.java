@@ -88,6 +88,8 @@ public class SitesServiceInternalImplTest {
     @Mock
     protected SiteDAO siteDAO;
     @Mock
+    protected SiteRegistry siteRegistry;
+    @Mock
     protected AuditServiceInternal auditServiceInternal;
 
     @Before
@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.service.workflow;
+
+import org.craftercms.studio.api.v1.dal.SiteFeed;
+import org.craftercms.studio.api.v1.service.configuration.ServicesConfig;
+import org.craftercms.studio.api.v1.service.deployment.DeploymentService;
+import org.craftercms.studio.api.v1.service.site.SiteService;
+import org.craftercms.studio.api.v2.dal.ActivityStreamDAO;
+import org.craftercms.studio.api.v2.dal.AuditLog;
+import org.craftercms.studio.api.v2.dal.Item;
+import org.craftercms.studio.api.v2.dal.RetryingDatabaseOperationFacade;
+import org.craftercms.studio.api.v2.dal.User;
+import org.craftercms.studio.api.v2.dal.WorkflowDAO;
+import org.craftercms.studio.api.v2.dal.WorkflowItem;
+import org.craftercms.studio.api.v2.service.audit.internal.AuditServiceInternal;
+import org.craftercms.studio.api.v2.service.content.internal.ContentServiceInternal;
+import org.craftercms.studio.api.v2.service.dependency.internal.DependencyServiceInternal;
+import org.craftercms.studio.api.v2.service.item.internal.ItemServiceInternal;
+import org.craftercms.studio.api.v2.service.notification.NotificationService;
+import org.craftercms.studio.api.v2.service.security.SecurityService;
+import org.craftercms.studio.api.v2.service.security.internal.UserServiceInternal;
+import org.craftercms.studio.api.v2.utils.StudioConfiguration;
+import org.craftercms.studio.impl.v2.service.audit.internal.ActivityStreamServiceInternalImpl;
+import org.craftercms.studio.impl.v2.service.workflow.internal.WorkflowServiceInternalImpl;
+import org.craftercms.studio.model.rest.content.SandboxItem;
+import org.craftercms.studio.test.util.Benchmark;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.craftercms.studio.api.v2.dal.ItemState.NEW_MASK;
+import static org.craftercms.studio.api.v2.dal.ItemState.SUBMITTED_MASK;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.DB_BULK_OPERATIONS_BATCH_SIZE;
+import static org.craftercms.studio.api.v2.utils.StudioConfiguration.REPO_PUBLISHED_LIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+
+/**
+ * Calculates the workflow affected paths and submits for approval a new section of a synthetic site, counting the
+ * database operations issued by the workflow service and the time each step takes.
+ */
+@Benchmark
+public class WorkflowImpactBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowImpactBenchmarkTest.class);
+
+    private static final String SITE = "benchmark";
+    private static final String SECTION = "/site/website/section";
+    private static final String ROOT = SECTION + "/index.xml";
+    private static final int ITEMS = Integer.getInteger("studio.benchmark.items", 20000);
+    private static final int BATCH_SIZE = Integer.getInteger("studio.benchmark.batchSize", 1000);
+    private static final int PAGES_PER_FOLDER = 100;
+
+    private WorkflowServiceImpl workflowService;
+    private ItemServiceInternal itemServiceInternal;
+    private ContentServiceInternal contentServiceInternal;
+    private WorkflowDAO workflowDao;
+    private ActivityStreamDAO activityStreamDao;
+    private List<String> descendants;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        descendants = new ArrayList<>(ITEMS);
+        for (int i = 0; descendants.size() < ITEMS - 1; i++) {
+            String folder = SECTION + "/folder-" + i;
+            descendants.add(folder);
+            for (int j = 0; j < PAGES_PER_FOLDER && descendants.size() < ITEMS - 1; j++) {
+                descendants.add(folder + "/page-" + j + "/index.xml");
+            }
+        }
+
+        StudioConfiguration studioConfiguration = mock(StudioConfiguration.class);
+        when(studioConfiguration.getProperty(DB_BULK_OPERATIONS_BATCH_SIZE, Integer.class, 1000))
+                .thenReturn(BATCH_SIZE);
+        when(studioConfiguration.getProperty(REPO_PUBLISHED_LIVE)).thenReturn("live");
+
+        RetryingDatabaseOperationFacade retryingDatabaseOperationFacade = mock(RetryingDatabaseOperationFacade.class);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(retryingDatabaseOperationFacade).retry(any(Runnable.class));
+        when(retryingDatabaseOperationFacade.retry(any(Supplier.class)))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(0)).get());
+
+        itemServiceInternal = mock(ItemServiceInternal.class);
+        when(itemServiceInternal.getSubtreeForDelete(SITE, SECTION)).thenReturn(descendants);
+        when(itemServiceInternal.getItemsBySiteAndPaths(eq(SITE), anyList())).thenAnswer(invocation ->
+                ((List<String>) invocation.getArgument(1)).stream().map(this::createItem).collect(Collectors.toList()));
+
+        contentServiceInternal = mock(ContentServiceInternal.class);
+        when(contentServiceInternal.getSandboxItemsByPath(eq(SITE), anyList(), anyBoolean()))
+                .thenAnswer(invocation -> ((List<String>) invocation.getArgument(1)).stream()
+                        .map(path -> SandboxItem.getInstance(createItem(path)))
+                        .collect(Collectors.toList()));
+
+        DependencyServiceInternal dependencyServiceInternal = mock(DependencyServiceInternal.class);
+        when(dependencyServiceInternal.getHardDependencies(eq(SITE), anyList())).thenReturn(List.of());
+
+        workflowDao = mock(WorkflowDAO.class);
+        when(workflowDao.getWorkflowEntriesOpened(eq(SITE), anyList(), anyString())).thenAnswer(invocation ->
+                ((List<String>) invocation.getArgument(1)).stream().map(path -> {
+                    WorkflowItem entry = new WorkflowItem();
+                    entry.setItem(createItem(path));
+                    entry.setPublishingPackageId("package");
+                    return entry;
+                }).collect(Collectors.toList()));
+        WorkflowServiceInternalImpl workflowServiceInternal = new WorkflowServiceInternalImpl();
+        workflowServiceInternal.setWorkflowDao(workflowDao);
+        workflowServiceInternal.setRetryingDatabaseOperationFacade(retryingDatabaseOperationFacade);
+        workflowServiceInternal.setStudioConfiguration(studioConfiguration);
+
+        activityStreamDao = mock(ActivityStreamDAO.class);
+        ActivityStreamServiceInternalImpl activityStreamServiceInternal = new ActivityStreamServiceInternalImpl();
+        activityStreamServiceInternal.setActivityStreamDAO(activityStreamDao);
+        activityStreamServiceInternal.setRetryingDatabaseOperationFacade(retryingDatabaseOperationFacade);
+        activityStreamServiceInternal.setStudioConfiguration(studioConfiguration);
+
+        SecurityService securityService = mock(SecurityService.class);
+        when(securityService.getCurrentUser()).thenReturn("admin");
+        User user = new User();
+        user.setId(1);
+        user.setUsername("admin");
+        UserServiceInternal userServiceInternal = mock(UserServiceInternal.class);
+        when(userServiceInternal.getUserByIdOrUsername(anyLong(), anyString())).thenReturn(user);
+        SiteFeed siteFeed = new SiteFeed();
+        siteFeed.setId(1);
+        siteFeed.setSiteId(SITE);
+        SiteService siteService = mock(SiteService.class);
+        when(siteService.getSite(SITE)).thenReturn(siteFeed);
+        AuditServiceInternal auditServiceInternal = mock(AuditServiceInternal.class);
+        when(auditServiceInternal.createAuditLogEntry()).thenAnswer(invocation -> new AuditLog());
+
+        workflowService = new WorkflowServiceImpl();
+        workflowService.setItemServiceInternal(itemServiceInternal);
+        workflowService.setContentServiceInternal(contentServiceInternal);
+        workflowService.setDependencyServiceInternal(dependencyServiceInternal);
+        workflowService.setWorkflowServiceInternal(workflowServiceInternal);
+        workflowService.setActivityStreamServiceInternal(activityStreamServiceInternal);
+        workflowService.setStudioConfiguration(studioConfiguration);
+        workflowService.setSecurityService(securityService);
+        workflowService.setUserServiceInternal(userServiceInternal);
+        workflowService.setSiteService(siteService);
+        workflowService.setAuditServiceInternal(auditServiceInternal);
+        workflowService.setDeploymentService(mock(DeploymentService.class));
+        workflowService.setNotificationService(mock(NotificationService.class));
+        workflowService.setServicesConfig(mock(ServicesConfig.class));
+        workflowService.setApplicationContext(mock(ApplicationContext.class));
+    }
+
+    @Test
+    public void submitLargeSection() throws Exception {
+        long start = System.nanoTime();
+        List<SandboxItem> affected = workflowService.getWorkflowAffectedPaths(SITE, ROOT);
+        long affectedTime = System.nanoTime();
+        assertEquals(ITEMS, affected.size());
+
+        List<String> paths = new ArrayList<>(ITEMS);
+        paths.add(ROOT);
+        paths.addAll(descendants);
+        long submitStart = System.nanoTime();
+        workflowService.requestPublish(SITE, paths, null, "live", null, "benchmark", false);
+        long submitTime = System.nanoTime();
+
+        int batches = (ITEMS + BATCH_SIZE - 1) / BATCH_SIZE;
+        int itemQueries = mockingDetails(itemServiceInternal).getInvocations().size();
+        int contentQueries = mockingDetails(contentServiceInternal).getInvocations().size();
+        int workflowQueries = mockingDetails(workflowDao).getInvocations().size();
+        int activityQueries = mockingDetails(activityStreamDao).getInvocations().size();
+        assertTrue(workflowQueries <= 3 * batches, "workflow entries should be read and written in batches");
+        assertTrue(activityQueries <= batches, "activity should be written in batches");
+
+        logger.info("Calculated the '{}' workflow affected paths of a section in '{}' ms and submitted them in " +
+                        "'{}' ms with batches of '{}': '{}' item service calls, '{}' content service calls, " +
+                        "'{}' workflow queries and '{}' activity inserts", ITEMS,
+                NANOSECONDS.toMillis(affectedTime - start), NANOSECONDS.toMillis(submitTime - submitStart),
+                BATCH_SIZE, itemQueries, contentQueries, workflowQueries, activityQueries);
+    }
+
+    private Item createItem(String path) {
+        Item item = new Item();
+        item.setId(path.hashCode());
+        item.setPath(path);
+        item.setLabel(path);
+        item.setState(NEW_MASK | SUBMITTED_MASK);
+        return item;
+    }
+
+}
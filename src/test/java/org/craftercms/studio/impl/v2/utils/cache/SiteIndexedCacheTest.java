@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.craftercms.studio.impl.v2.utils.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SiteIndexedCacheTest {
+
+    private static final String PERMISSIONS_KEY = "site1:/config/studio/permission-mappings-config.xml";
+    private static final String PERMISSIONS_OBJECT_KEY = PERMISSIONS_KEY + ":object";
+    private static final String ENGINE_KEY = "site1:/config/engine/site-config.xml";
+    private static final String OTHER_SITE_KEY = "site2:/config/studio/permission-mappings-config.xml";
+    private static final String GLOBAL_KEY = "/configuration/global/role-mappings-config.xml";
+
+    private SiteIndexedCache<Object> cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        cache = new SiteIndexedCache<>(100);
+        cache.put(PERMISSIONS_KEY, "permissions");
+        cache.put(PERMISSIONS_OBJECT_KEY, "permissions object");
+        cache.get(ENGINE_KEY, () -> "engine");
+        cache.put(OTHER_SITE_KEY, "other site");
+        cache.put(GLOBAL_KEY, "global");
+    }
+
+    @Test
+    public void keysAreIndexedBySiteTest() {
+        assertEquals(Set.of(PERMISSIONS_KEY, PERMISSIONS_OBJECT_KEY, ENGINE_KEY), cache.getSiteKeys("site1"));
+        assertEquals(Set.of(OTHER_SITE_KEY), cache.getSiteKeys("site2"));
+        assertEquals(Set.of(GLOBAL_KEY), cache.getSiteKeys(""));
+        assertEquals(5, cache.getIndexSize());
+    }
+
+    @Test
+    public void invalidateSiteOnlyRemovesSiteKeysTest() {
+        cache.invalidateSite("site1");
+
+        assertNull(cache.getIfPresent(PERMISSIONS_KEY));
+        assertNull(cache.getIfPresent(ENGINE_KEY));
+        assertNotNull(cache.getIfPresent(OTHER_SITE_KEY));
+        assertNotNull(cache.getIfPresent(GLOBAL_KEY));
+        assertEquals(Set.of(), cache.getSiteKeys("site1"));
+    }
+
+    @Test
+    public void removedKeysAreNotIndexedTest() {
+        cache.invalidate(PERMISSIONS_OBJECT_KEY);
+        // Replacing a value keeps the key indexed
+        cache.put(PERMISSIONS_KEY, "new permissions");
+
+        assertEquals(Set.of(PERMISSIONS_KEY, ENGINE_KEY), cache.getSiteKeys("site1"));
+    }
+
+    @Test
+    public void evictedKeysAreNotIndexedTest() {
+        SiteIndexedCache<Object> smallCache = new SiteIndexedCache<>(1);
+        smallCache.put(PERMISSIONS_KEY, "permissions");
+        smallCache.put(ENGINE_KEY, "engine");
+
+        assertEquals(Set.of(ENGINE_KEY), smallCache.getSiteKeys("site1"));
+    }
+
+    @Test
+    public void patternInvalidatorOnlyChecksSiteKeysTest() {
+        cache.put("site1:user-permissions:admin", "site1 permissions");
+        cache.put("site2:user-permissions:admin", "site2 permissions");
+
+        new PatternCacheInvalidator<String, Object>(".+user-permissions.+").invalidate(cache, PERMISSIONS_KEY);
+
+        assertNull(cache.getIfPresent("site1:user-permissions:admin"));
+        assertNotNull(cache.getIfPresent("site2:user-permissions:admin"));
+    }
+
+}
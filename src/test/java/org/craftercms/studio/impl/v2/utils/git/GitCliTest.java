@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2007-2024 Crafter Software Corporation. All Rights Reserved.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 3 as published by
+ * the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.craftercms.studio.impl.v2.utils.git;
+
+import org.craftercms.studio.api.v2.exception.git.cli.GitCliException;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.StoredConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the commands with the git executable from the PATH
+ */
+public class GitCliTest {
+
+    // Enough output to fill the pipe buffers of the process several times
+    private static final int FILES = 3000;
+
+    @TempDir
+    Path repoDir;
+
+    private GitCli gitCli;
+    private String directory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        try (Git git = Git.init().setDirectory(repoDir.toFile()).call()) {
+            StoredConfig config = git.getRepository().getConfig();
+            config.setString("user", null, "name", "Studio");
+            config.setString("user", null, "email", "studio@example.com");
+            config.save();
+        }
+        gitCli = new GitCli("git", 10, 5);
+        directory = repoDir.toString();
+    }
+
+    @Test
+    public void largeOutputDoesNotBlockTest() throws Exception {
+        String[] paths = createFiles();
+
+        String status = gitCli.executeGitCommand(directory, gitCli.new GitCommandLine("status", "--porcelain",
+                "--untracked-files=all"));
+
+        assertEquals(paths.length, status.lines().count());
+        assertFalse(gitCli.isRepoClean(directory));
+    }
+
+    @Test
+    public void manyPathsAreCommittedTest() throws Exception {
+        String[] paths = createFiles();
+
+        gitCli.add(directory, paths);
+        String commitId = gitCli.commit(directory, "Author <author@example.com>", "Add files", paths);
+
+        assertEquals(40, commitId.length());
+        assertTrue(gitCli.isRepoClean(directory));
+    }
+
+    @Test
+    public void slowCommandIsKilledTest() {
+        GitCli slowGitCli = new GitCli("git", 1, 1);
+        long start = System.currentTimeMillis();
+
+        assertThrows(GitCliException.class, () -> slowGitCli.executeGitCommand(directory,
+                slowGitCli.new GitCommandLine("-c", "alias.slow=!sleep 30", "slow")));
+        assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    private String[] createFiles() throws Exception {
+        String[] paths = new String[FILES];
+        Files.createDirectories(repoDir.resolve("site/website"));
+        for (int i = 0; i < FILES; i++) {
+            paths[i] = "site/website/a-page-with-a-rather-long-name-to-get-a-large-status-" + i + ".xml";
+            Files.writeString(repoDir.resolve(paths[i]), "<page>" + i + "</page>");
+        }
+        return paths;
+    }
+
+}